@@ -35,6 +35,8 @@ import com.google.gson.JsonObject;
 import com.iris.agent.attributes.HubAttributesService;
 import com.iris.io.Deserializer;
 import com.iris.io.Serializer;
+import com.iris.io.binary.BinaryHubMessageDeserializer;
+import com.iris.io.binary.BinaryHubMessageSerializer;
 import com.iris.io.json.JSON;
 import com.iris.messages.HubMessage;
 import com.iris.messages.MessageConstants;
@@ -77,8 +79,9 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
    
    private final Serializer<PlatformMessage> platformSerializer = JSON.createSerializer(PlatformMessage.class);
    private final Serializer<ProtocolMessage> protocolSerializer = JSON.createSerializer(ProtocolMessage.class);
-   private final Serializer<HubMessage> hubSerializer = JSON.createSerializer(HubMessage.class);
-   private final Deserializer<HubMessage> hubDeserializer = JSON.createDeserializer(HubMessage.class);
+   private final Serializer<HubMessage> jsonHubSerializer = JSON.createSerializer(HubMessage.class);
+   private final Serializer<HubMessage> binaryHubSerializer = new BinaryHubMessageSerializer();
+   private final Deserializer<HubMessage> hubDeserializer = new BinaryHubMessageDeserializer(JSON.createDeserializer(HubMessage.class));
    private final Deserializer<PlatformMessage> platformDeserializer = JSON.createDeserializer(PlatformMessage.class);
    private final Deserializer<ProtocolMessage> protocolDeserializer = JSON.createDeserializer(ProtocolMessage.class);
 
@@ -95,6 +98,8 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
 
    private final AtomicBoolean authorized = new AtomicBoolean(false);
    private boolean connected;
+   // switched on once the platform has sent a binary frame, see BinaryHubMessageSerializer
+   private volatile boolean binaryFraming;
    
    private long lastPlatformMsg;
    private long lastHubMsg;
@@ -205,7 +210,7 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
          ByteBuf buffer = ctx.alloc().ioBuffer();
          byte[] payload = platformSerializer.serialize(msg);
          ByteBufOutputStream out = new ByteBufOutputStream(buffer);
-         hubSerializer.serialize(HubMessage.createPlatform(payload), out);
+         hubSerializer().serialize(HubMessage.createPlatform(payload), out);
          IOUtils.closeQuietly(out);
    
          BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buffer);
@@ -235,7 +240,7 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
          ByteBuf buffer = ctx.alloc().ioBuffer();
          byte[] payload = protocolSerializer.serialize(msg);
          ByteBufOutputStream out = new ByteBufOutputStream(buffer);
-         hubSerializer.serialize(HubMessage.createProtocol(payload), out);
+         hubSerializer().serialize(HubMessage.createProtocol(payload), out);
          IOUtils.closeQuietly(out);
    
          BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buffer);
@@ -271,7 +276,7 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
    
          ByteBuf buffer = c.alloc().ioBuffer();
          ByteBufOutputStream out = new ByteBufOutputStream(buffer);
-         hubSerializer.serialize(HubMessage.createLog(payload), out);
+         hubSerializer().serialize(HubMessage.createLog(payload), out);
          IOUtils.closeQuietly(out);
    
          BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buffer);
@@ -295,7 +300,7 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
    
          ByteBuf buffer = c.alloc().ioBuffer();
          OutputStream out = new ByteBufOutputStream(buffer);
-         hubSerializer.serialize(HubMessage.createMetrics(payload), out);
+         hubSerializer().serialize(HubMessage.createMetrics(payload), out);
          IOUtils.closeQuietly(out);
 
          BinaryWebSocketFrame frame = new BinaryWebSocketFrame(buffer);
@@ -307,6 +312,10 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
       }
    }
    
+   private Serializer<HubMessage> hubSerializer() {
+      return binaryFraming ? binaryHubSerializer : jsonHubSerializer;
+   }
+
    boolean sendPing() {
       final ChannelHandlerContext c = ctx;
       if (c == null) {
@@ -408,6 +417,11 @@ class GatewayHandler extends SimpleChannelInboundHandler<Object> {
    
    private void decodeHubFrame(ChannelHandlerContext ctx, ByteBuf buffer) {
       try {
+         if (!binaryFraming && buffer.isReadable() && BinaryHubMessageSerializer.isBinary(buffer.getByte(buffer.readerIndex()))) {
+            log.debug("platform is using binary hub message framing");
+            binaryFraming = true;
+         }
+
          HubMessage message = hubDeserializer.deserialize(new ByteBufInputStream(buffer));
 
          switch (message.getType()) {
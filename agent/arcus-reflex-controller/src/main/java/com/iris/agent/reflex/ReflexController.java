@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
@@ -72,6 +73,7 @@ import com.iris.driver.reflex.ReflexAction;
 import com.iris.driver.reflex.ReflexActionBuiltin;
 import com.iris.driver.reflex.ReflexDefinition;
 import com.iris.driver.reflex.ReflexDriver;
+import com.iris.driver.reflex.ReflexDriverDefinition;
 import com.iris.driver.reflex.ReflexJson;
 import com.iris.io.json.JSON;
 import com.iris.messages.MessageBody;
@@ -88,7 +90,6 @@ import com.iris.messages.service.DeviceService;
 import com.iris.messages.services.PlatformConstants;
 import com.iris.messages.type.DegradedInfo;
 import com.iris.messages.type.SyncDeviceInfo;
-import com.iris.messages.type.SyncDeviceState;
 import com.iris.model.Version;
 import com.iris.protocol.ProtocolMessage;
 import com.iris.protocol.control.ControlProtocol;
@@ -173,6 +174,11 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
    private int numDrivers = 0;
    private String dbHash = "";
 
+   // the reflex driver definitions currently in use keyed by name:version, along
+   // with their hashes which are reported to the platform for incremental syncs
+   private Map<String,ReflexDriverDefinition> drivers = ImmutableMap.of();
+   private volatile Map<String,String> driverHashes = ImmutableMap.of();
+
    private final Backoff syncBackoff = Backoffs.exponential()
       .initial(90, TimeUnit.SECONDS)
       .delay(90, TimeUnit.SECONDS)
@@ -447,10 +453,13 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
             String json = JSON.toJson(devices);
             String compressed = compressAsString(json.getBytes(StandardCharsets.UTF_8));
 
+            // without any drivers loaded there is nothing to diff against, ask for everything
+            Map<String,String> hashes = driverHashes;
             msg = DeviceService.SyncDevicesRequest.builder()
                .withAccountId(acc.toString())
                .withPlaceId(plc.toString())
                .withDevices(compressed)
+               .withDriverHashes(hashes.isEmpty() ? null : hashes)
                .build();
          } catch (Exception ex) {
             msg = Errors.fromException(ex);
@@ -480,14 +489,21 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
          Map<String,String> pins = DeviceService.SyncDevicesResponse.getPins(body);
          String devicesBase64 = DeviceService.SyncDevicesResponse.getDevices(body);
          String driverBase64 = DeviceService.SyncDevicesResponse.getDrivers(body);
-         ReflexDao.putReflexDB(driverBase64);
+         boolean incremental = Boolean.TRUE.equals(DeviceService.SyncDevicesResponse.getIncremental(body));
+         if (!incremental) {
+            ReflexDao.putReflexDB(driverBase64);
+         }
 
          reflexSyncCurrent = IrisUUID.randomUUID();
 
          Map<Address,Boolean> currentDegradedStates = getDegradedStates();
 
          updateReflexPinsFrom(pins);
-         applyDeviceStates(devicesBase64, driverBase64);
+         if (incremental) {
+            applyIncrementalDeviceStates(devicesBase64, driverBase64);
+         } else {
+            applyDeviceStates(devicesBase64, driverBase64);
+         }
 
          Map<Address,Boolean> updatedDegradedStates = getDegradedStates();
          Set<Address> changed = new HashSet<>();
@@ -552,9 +568,6 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
 
    private void applyDeviceStates(List<Map<String,Object>> states, String driverBase64) {
       try {
-         dbHash = DigestUtils.sha1Hex(driverBase64);
-         dbHashAttr.poke();
-
          String drivers = decompressAsString(driverBase64);
          List<JsonObject> reflexes = JSON.fromJson(drivers, new TypeMarker<List<JsonObject>>() {});
          applyDeviceStates(states, reflexes);
@@ -565,50 +578,58 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
 
    private void applyDeviceStates(List<Map<String,Object>> states, List<JsonObject> reflexes) {
       try {
-         Map<Address,Map<String,String>> existingReflexStates = ReflexDao.getAllReflexStates();
-         Map<Address,Map<String,String>> reflexStates = new HashMap<>();
-         for (Map<String,Object> statedef : states) {
-            try {
-               SyncDeviceState state = new SyncDeviceState(statedef);
-               if (log.isTraceEnabled()) {
-                  log.trace("sync device state {}: {} {}", state.getProtocol(), state.getDriver(), state.getVersion());
-               }
+         Map<Address,Map<String,String>> reflexStates = ReflexSync.toReflexStates(states, ReflexDao.getAllReflexStates());
+         ReflexDao.putReflexStates(reflexStates);
+         applyDeviceReflexes(reflexStates, null, reflexes);
+      } catch (Exception ex) {
+         log.warn("failed to parse device sync response:", ex);
+      }
+   }
 
-               Address addr = Address.fromString(state.getProtocol());
-               String driv = state.getDriver();
-               Version vers = Version.fromRepresentation(state.getVersion());
+   /**
+    * Applies a sync response which only contains the device states and driver
+    * definitions that differ from what the hub reported.  The new definitions
+    * are merged into the current ones and only the devices that have a new
+    * state or use a changed definition are restarted.
+    */
+   private void applyIncrementalDeviceStates(String devicesBase64, @Nullable String driverBase64) {
+      try {
+         List<Map<String,Object>> states = (List<Map<String,Object>>)JSON.fromJson(decompressAsString(devicesBase64), List.class);
+         List<JsonObject> reflexes = (driverBase64 == null || driverBase64.trim().isEmpty())
+            ? new ArrayList<>()
+            : JSON.fromJson(decompressAsString(driverBase64), new TypeMarker<List<JsonObject>>() {});
 
-               Map<String,String> existing = existingReflexStates.get(addr);
-               String curState = (existing == null) ? null : existing.get(ReflexDao.REFLEX_STATE_STATE);
-               if (curState == null) {
-                  curState = ReflexProcessor.State.INITIAL.name();
-               }
+         Map<Address,Map<String,String>> allReflexStates = ReflexDao.getAllReflexStates();
+         Map<Address,Map<String,String>> reflexStates = ReflexSync.toReflexStates(states, allReflexStates);
+         ReflexDao.putReflexStates(reflexStates);
+         allReflexStates.putAll(reflexStates);
 
-               if (!"Fallback".equals(driv)) {
-                  reflexStates.put(addr, ImmutableMap.of(
-                     ReflexDao.REFLEX_STATE_DRIVER, driv,
-                     ReflexDao.REFLEX_STATE_VERSION, vers.getRepresentation(),
-                     ReflexDao.REFLEX_STATE_STATE, curState
-                  ));
-               }
-            } catch (Exception ex) {
-               log.warn("failed to sync device: {}", statedef, ex);
+         Map<String,ReflexDriverDefinition> changed = parseDrivers(reflexes);
+         ReflexSync sync = ReflexSync.mergeIncremental(drivers, allReflexStates, reflexStates, changed, getExistingDevices());
+         for (Address removed : sync.getRemoved()) {
+            log.info("device {} exists in reflexdb but is not a known device, removing reflex state", removed);
+            ReflexDao.removeAllDriverAndReflexState(removed.getRepresentation());
+         }
+
+         log.info("incremental hub reflex sync: {} changed devices, {} changed drivers, {} affected devices, {} removed devices", reflexStates.size(), changed.size(), sync.getAffected().size(), sync.getRemoved().size());
+         if (sync.isDriversChanged()) {
+            List<JsonObject> persist = new ArrayList<>(sync.getDrivers().size());
+            for (ReflexDriverDefinition drv : sync.getDrivers().values()) {
+               persist.add(ReflexJson.toJsonObject(drv));
             }
+            ReflexDao.putReflexDB(compressAsString(JSON.toJson(persist).getBytes(StandardCharsets.UTF_8)));
          }
 
-         ReflexDao.putReflexStates(reflexStates);
-         applyDeviceReflexes(reflexStates, null, reflexes);
+         applyDeviceReflexes(sync.getAffected(), null, sync.getDrivers());
       } catch (Exception ex) {
-         log.warn("failed to parse device sync response:", ex);
+         log.warn("failed to apply incremental device states:", ex);
       }
    }
 
    private void applyDeviceReflexes(Map<Address,Map<String,String>> reflexStates, @Nullable Map<Address,Map<String,String>> driverStates, @Nullable String driverBase64) {
-      dbHash = DigestUtils.sha1Hex(driverBase64);
-      dbHashAttr.poke();
-
       if (driverBase64 == null || driverBase64.trim().isEmpty()) {
          log.info("no local device reflexes");
+         updateDrivers(ImmutableMap.of());
          return;
       }
 
@@ -621,27 +642,39 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
       }
    }
 
-   private void applyDeviceReflexes(Map<Address,Map<String,String>> reflexStates, @Nullable Map<Address,Map<String,String>> driverStates, List<JsonObject> reflexes) {
-      numDrivers = reflexes == null ? 0 : reflexes.size();
-      numDriversAttr.poke();
+   private void applyDeviceReflexes(Map<Address,Map<String,String>> reflexStates, @Nullable Map<Address,Map<String,String>> driverStates, @Nullable List<JsonObject> reflexes) {
+      Map<String,ReflexDriverDefinition> driversByKey = (reflexes != null)
+         ? parseDrivers(reflexes)
+         : ImmutableMap.<String,ReflexDriverDefinition>of();
+      applyDeviceReflexes(reflexStates, driverStates, driversByKey);
+   }
 
-      Map<String,Map<Version,com.iris.driver.reflex.ReflexDriverDefinition>> driversByName = new HashMap<>();
-      if (reflexes != null) {
-         for (JsonObject reflex : reflexes) {
-            com.iris.driver.reflex.ReflexDriverDefinition driver = ReflexJson.fromJsonObject(reflex);
-            String name = driver.getName();
-            Version vers = driver.getVersion();
-
-            Map<Version,com.iris.driver.reflex.ReflexDriverDefinition> drvmap = driversByName.get(name);
-            if (drvmap == null) {
-               drvmap = new HashMap<>();
-               driversByName.put(name,drvmap);
+   /**
+    * Parses the given driver definitions, definitions that are already loaded
+    * with the same hash are reused rather than parsed again.
+    */
+   private Map<String,ReflexDriverDefinition> parseDrivers(List<JsonObject> reflexes) {
+      Map<String,ReflexDriverDefinition> driversByKey = new HashMap<>();
+      for (JsonObject reflex : reflexes) {
+         try {
+            String key = ReflexDriverDefinition.getSyncKey(reflex.get("n").getAsString(), Version.fromRepresentation(reflex.get("v").getAsString()));
+            ReflexDriverDefinition existing = drivers.get(key);
+            if (existing != null && existing.getHash().equals(reflex.get("h").getAsString())) {
+               driversByKey.put(key, existing);
+               continue;
             }
-
-            drvmap.put(vers,driver);
+         } catch (Exception ex) {
+            log.trace("could not read reflex driver header, parsing full definition:", ex);
          }
+
+         ReflexDriverDefinition driver = ReflexJson.fromJsonObject(reflex);
+         driversByKey.put(driver.getSyncKey(), driver);
       }
 
+      return driversByKey;
+   }
+
+   private static Set<Address> getExistingDevices() {
       Set<Address> existingDevices = new HashSet<>();
       for (HubDeviceService.DeviceProvider provider : HubDeviceService.devices().values()) {
          for (HubDeviceService.DeviceInfo info : provider) {
@@ -649,6 +682,32 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
          }
       }
 
+      return existingDevices;
+   }
+
+   private void updateDrivers(Map<String,ReflexDriverDefinition> driversByKey) {
+      Map<String,String> hashes = new TreeMap<>();
+      for (ReflexDriverDefinition driver : driversByKey.values()) {
+         hashes.put(driver.getSyncKey(), driver.getHash());
+      }
+
+      this.drivers = driversByKey;
+      this.driverHashes = ImmutableMap.copyOf(hashes);
+
+      // the hash covers each definition so it is the same whether the
+      // definitions arrived in a full or incremental sync
+      dbHash = hashes.isEmpty() ? "" : DigestUtils.sha1Hex(hashes.toString());
+      dbHashAttr.poke();
+
+      numDrivers = driversByKey.size();
+      numDriversAttr.poke();
+   }
+
+   private void applyDeviceReflexes(Map<Address,Map<String,String>> reflexStates, @Nullable Map<Address,Map<String,String>> driverStates, Map<String,ReflexDriverDefinition> driversByKey) {
+      updateDrivers(driversByKey);
+
+      Set<Address> existingDevices = getExistingDevices();
+
       for (Map.Entry<Address,Map<String,String>> statedef : reflexStates.entrySet()) {
          try {
             Address addr = statedef.getKey();
@@ -665,8 +724,7 @@ public class ReflexController implements SnoopingPortHandler, LifeCycleListener
                ? ReflexProcessor.State.INITIAL
                : ReflexProcessor.State.valueOf(curStateStr);
 
-            Map<Version,com.iris.driver.reflex.ReflexDriverDefinition> drvmap = driversByName.get(driv);
-            com.iris.driver.reflex.ReflexDriverDefinition drv = (drvmap != null) ? drvmap.get(vers) : null;
+            ReflexDriverDefinition drv = driversByKey.get(ReflexDriverDefinition.getSyncKey(driv, vers));
             if (drv == null || drv.getReflexes().isEmpty()) {
                if (processors.remove(addr) != null) {
                   log.info("hub local reflexes for {} no longer present after sync", addr);
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.reflex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableMap;
+import com.iris.driver.reflex.ReflexDriverDefinition;
+import com.iris.messages.address.Address;
+import com.iris.messages.type.SyncDeviceState;
+import com.iris.model.Version;
+
+/**
+ * Computes the reflex states and driver definitions the hub should use
+ * after a reflex sync with the platform.
+ */
+final class ReflexSync {
+   private static final Logger log = LoggerFactory.getLogger(ReflexSync.class);
+
+   private final Map<String,ReflexDriverDefinition> drivers;
+   private final Map<Address,Map<String,String>> affected;
+   private final Set<Address> removed;
+   private final boolean driversChanged;
+
+   private ReflexSync(Map<String,ReflexDriverDefinition> drivers, Map<Address,Map<String,String>> affected, Set<Address> removed, boolean driversChanged) {
+      this.drivers = drivers;
+      this.affected = affected;
+      this.removed = removed;
+      this.driversChanged = driversChanged;
+   }
+
+   /**
+    * The driver definitions to use keyed by {@link ReflexDriverDefinition#getSyncKey()}.
+    */
+   public Map<String,ReflexDriverDefinition> getDrivers() {
+      return drivers;
+   }
+
+   /**
+    * The reflex states of the devices that have a new state or use
+    * a changed driver definition, these need to be restarted.
+    */
+   public Map<Address,Map<String,String>> getAffected() {
+      return affected;
+   }
+
+   /**
+    * The devices that still had a reflex state but are no longer on
+    * the hub, their states should be deleted.
+    */
+   public Set<Address> getRemoved() {
+      return removed;
+   }
+
+   /**
+    * True if any definition was added, changed or pruned so the
+    * reflex database needs to be persisted again.
+    */
+   public boolean isDriversChanged() {
+      return driversChanged;
+   }
+
+   /**
+    * Converts the device states from a sync response into reflex states,
+    * keeping the current reflex processor state of devices that already
+    * had one.
+    */
+   static Map<Address,Map<String,String>> toReflexStates(List<Map<String,Object>> states, Map<Address,Map<String,String>> existingReflexStates) {
+      Map<Address,Map<String,String>> reflexStates = new HashMap<>();
+      for (Map<String,Object> statedef : states) {
+         try {
+            SyncDeviceState state = new SyncDeviceState(statedef);
+            if (log.isTraceEnabled()) {
+               log.trace("sync device state {}: {} {}", state.getProtocol(), state.getDriver(), state.getVersion());
+            }
+
+            Address addr = Address.fromString(state.getProtocol());
+            String driv = state.getDriver();
+            Version vers = Version.fromRepresentation(state.getVersion());
+
+            Map<String,String> existing = existingReflexStates.get(addr);
+            String curState = (existing == null) ? null : existing.get(ReflexDao.REFLEX_STATE_STATE);
+            if (curState == null) {
+               curState = ReflexProcessor.State.INITIAL.name();
+            }
+
+            if (!"Fallback".equals(driv)) {
+               reflexStates.put(addr, ImmutableMap.of(
+                  ReflexDao.REFLEX_STATE_DRIVER, driv,
+                  ReflexDao.REFLEX_STATE_VERSION, vers.getRepresentation(),
+                  ReflexDao.REFLEX_STATE_STATE, curState
+               ));
+            }
+         } catch (Exception ex) {
+            log.warn("failed to sync device: {}", statedef, ex);
+         }
+      }
+
+      return reflexStates;
+   }
+
+   /**
+    * Merges an incremental sync response, which only contains the device states
+    * and driver definitions that differ from what the hub reported, into the
+    * definitions the hub is currently using.  The states of devices that are no
+    * longer on the hub are dropped, and definitions that are no longer used by
+    * any remaining device are pruned.
+    *
+    * @param current
+    *    The driver definitions currently in use.
+    * @param allReflexStates
+    *    The reflex states of every device on the hub, including the changed ones.
+    * @param existingDevices
+    *    The addresses of the devices that are currently on the hub.
+    * @param changedStates
+    *    The reflex states of the devices the platform sent a new state for.
+    * @param changedDrivers
+    *    The driver definitions the platform sent because they were missing or changed.
+    */
+   static ReflexSync mergeIncremental(
+      Map<String,ReflexDriverDefinition> current,
+      Map<Address,Map<String,String>> allReflexStates,
+      Map<Address,Map<String,String>> changedStates,
+      Map<String,ReflexDriverDefinition> changedDrivers,
+      Set<Address> existingDevices
+   ) {
+      Map<String,ReflexDriverDefinition> merged = new HashMap<>(current);
+      merged.putAll(changedDrivers);
+
+      Set<String> referenced = new HashSet<>();
+      Set<Address> removed = new HashSet<>();
+      Map<Address,Map<String,String>> affected = new HashMap<>(changedStates);
+      for (Map.Entry<Address,Map<String,String>> entry : allReflexStates.entrySet()) {
+         if (!existingDevices.contains(entry.getKey())) {
+            removed.add(entry.getKey());
+            affected.remove(entry.getKey());
+            continue;
+         }
+
+         String key = getSyncKey(entry.getValue());
+         if (key == null) {
+            continue;
+         }
+
+         referenced.add(key);
+         if (changedDrivers.containsKey(key)) {
+            affected.put(entry.getKey(), entry.getValue());
+         }
+      }
+      boolean pruned = merged.keySet().retainAll(referenced);
+
+      return new ReflexSync(merged, affected, removed, pruned || !changedDrivers.isEmpty());
+   }
+
+   private static @Nullable String getSyncKey(Map<String,String> reflexState) {
+      String driv = reflexState.get(ReflexDao.REFLEX_STATE_DRIVER);
+      String vers = reflexState.get(ReflexDao.REFLEX_STATE_VERSION);
+      return (driv == null || vers == null) ? null : ReflexDriverDefinition.getSyncKey(driv, Version.fromRepresentation(vers));
+   }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.reflex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.iris.driver.reflex.ReflexDriverDefinition;
+import com.iris.driver.reflex.ReflexRunMode;
+import com.iris.messages.address.Address;
+import com.iris.messages.address.ProtocolDeviceId;
+import com.iris.messages.type.SyncDeviceState;
+import com.iris.model.Version;
+
+public class TestReflexSync {
+   private static final Address DEVICE1 = Address.hubProtocolAddress("LWW-1250", "ZIGB", ProtocolDeviceId.fromBytes(new byte[] { 0x01 }));
+   private static final Address DEVICE2 = Address.hubProtocolAddress("LWW-1250", "ZIGB", ProtocolDeviceId.fromBytes(new byte[] { 0x02 }));
+   private static final Address DEVICE3 = Address.hubProtocolAddress("LWW-1250", "ZWAV", ProtocolDeviceId.fromBytes(new byte[] { 0x03 }));
+
+   private final ReflexDriverDefinition switchV1 = driver("Switch", "1.0", "switch-hash");
+   private final ReflexDriverDefinition dimmerV1 = driver("Dimmer", "1.0", "dimmer-hash");
+
+   @Test
+   public void testToReflexStatesKeepsCurrentState() {
+      Map<Address,Map<String,String>> existing = ImmutableMap.of(
+         DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED)
+      );
+
+      Map<Address,Map<String,String>> reflexStates = ReflexSync.toReflexStates(
+         ImmutableList.of(
+            syncState(DEVICE1, "Switch", "1.1"),
+            syncState(DEVICE2, "Dimmer", "1.0"),
+            syncState(DEVICE3, "Fallback", "1.0")
+         ),
+         existing
+      );
+
+      assertEquals(ImmutableSet.of(DEVICE1, DEVICE2), reflexStates.keySet());
+      assertEquals(reflexState(driver("Switch", "1.1", ""), ReflexProcessor.State.CONNECTED), reflexStates.get(DEVICE1));
+      assertEquals(reflexState(dimmerV1, ReflexProcessor.State.INITIAL), reflexStates.get(DEVICE2));
+   }
+
+   @Test
+   public void testIncrementalWithNoChanges() {
+      Map<String,ReflexDriverDefinition> current = drivers(switchV1, dimmerV1);
+      Map<Address,Map<String,String>> all = ImmutableMap.of(
+         DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED),
+         DEVICE2, reflexState(dimmerV1, ReflexProcessor.State.DISCONNECTED)
+      );
+
+      ReflexSync sync = ReflexSync.mergeIncremental(current, all, ImmutableMap.of(), ImmutableMap.of(), all.keySet());
+
+      assertEquals(current, sync.getDrivers());
+      assertSame(switchV1, sync.getDrivers().get(switchV1.getSyncKey()));
+      assertTrue(sync.getAffected().isEmpty());
+      assertFalse(sync.isDriversChanged());
+   }
+
+   @Test
+   public void testIncrementalRestartsDevicesUsingChangedDriver() {
+      ReflexDriverDefinition dimmerV1Changed = driver("Dimmer", "1.0", "changed-hash");
+      Map<Address,Map<String,String>> all = ImmutableMap.of(
+         DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED),
+         DEVICE2, reflexState(dimmerV1, ReflexProcessor.State.DISCONNECTED)
+      );
+
+      ReflexSync sync = ReflexSync.mergeIncremental(drivers(switchV1, dimmerV1), all, ImmutableMap.of(), drivers(dimmerV1Changed), all.keySet());
+
+      assertSame(switchV1, sync.getDrivers().get(switchV1.getSyncKey()));
+      assertSame(dimmerV1Changed, sync.getDrivers().get(dimmerV1.getSyncKey()));
+      // the device keeps its reflex state, it's only restarted with the new definition
+      assertEquals(ImmutableMap.of(DEVICE2, reflexState(dimmerV1, ReflexProcessor.State.DISCONNECTED)), sync.getAffected());
+      assertTrue(sync.isDriversChanged());
+   }
+
+   @Test
+   public void testIncrementalAddsChangedDevice() {
+      ReflexDriverDefinition switchV2 = driver("Switch", "2.0", "switch2-hash");
+      Map<Address,Map<String,String>> changed = ImmutableMap.of(
+         DEVICE3, reflexState(switchV2, ReflexProcessor.State.INITIAL)
+      );
+      Map<Address,Map<String,String>> all = new HashMap<>();
+      all.put(DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED));
+      all.putAll(changed);
+
+      ReflexSync sync = ReflexSync.mergeIncremental(drivers(switchV1), all, changed, drivers(switchV2), all.keySet());
+
+      assertEquals(drivers(switchV1, switchV2), sync.getDrivers());
+      assertEquals(changed, sync.getAffected());
+      assertTrue(sync.isDriversChanged());
+   }
+
+   @Test
+   public void testIncrementalPrunesRemovedDevices() {
+      // DEVICE2 was removed so nothing uses the dimmer definition any longer
+      Map<Address,Map<String,String>> all = ImmutableMap.of(
+         DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED)
+      );
+
+      ReflexSync sync = ReflexSync.mergeIncremental(drivers(switchV1, dimmerV1), all, ImmutableMap.of(), ImmutableMap.of(), all.keySet());
+
+      assertEquals(drivers(switchV1), sync.getDrivers());
+      assertTrue(sync.getAffected().isEmpty());
+      assertTrue(sync.getRemoved().isEmpty());
+      assertTrue(sync.isDriversChanged());
+   }
+
+   @Test
+   public void testIncrementalDropsStatesOfDeletedDevices() {
+      // DEVICE2 was deleted from the hub but its reflex state is still stored
+      Map<Address,Map<String,String>> all = ImmutableMap.of(
+         DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED),
+         DEVICE2, reflexState(dimmerV1, ReflexProcessor.State.DISCONNECTED)
+      );
+
+      ReflexSync sync = ReflexSync.mergeIncremental(drivers(switchV1, dimmerV1), all, ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(DEVICE1));
+
+      assertEquals(drivers(switchV1), sync.getDrivers());
+      assertEquals(ImmutableSet.of(DEVICE2), sync.getRemoved());
+      assertTrue(sync.getAffected().isEmpty());
+      assertTrue(sync.isDriversChanged());
+   }
+
+   @Test
+   public void testIncrementalIgnoresChangedStateOfDeletedDevice() {
+      ReflexDriverDefinition dimmerV1Changed = driver("Dimmer", "1.0", "changed-hash");
+      Map<Address,Map<String,String>> changed = ImmutableMap.of(
+         DEVICE2, reflexState(dimmerV1, ReflexProcessor.State.INITIAL)
+      );
+      Map<Address,Map<String,String>> all = new HashMap<>();
+      all.put(DEVICE1, reflexState(switchV1, ReflexProcessor.State.CONNECTED));
+      all.putAll(changed);
+
+      ReflexSync sync = ReflexSync.mergeIncremental(drivers(switchV1), all, changed, drivers(dimmerV1Changed), ImmutableSet.of(DEVICE1));
+
+      assertEquals(drivers(switchV1), sync.getDrivers());
+      assertEquals(ImmutableSet.of(DEVICE2), sync.getRemoved());
+      assertTrue(sync.getAffected().isEmpty());
+   }
+
+   private static ReflexDriverDefinition driver(String name, String version, String hash) {
+      return new ReflexDriverDefinition(name, Version.fromRepresentation(version), hash, 0, ImmutableSet.of(), ReflexRunMode.MIXED, ImmutableList.of());
+   }
+
+   private static Map<String,ReflexDriverDefinition> drivers(ReflexDriverDefinition... drivers) {
+      Map<String,ReflexDriverDefinition> result = new HashMap<>();
+      for (ReflexDriverDefinition driver : drivers) {
+         result.put(driver.getSyncKey(), driver);
+      }
+      return result;
+   }
+
+   private static Map<String,String> reflexState(ReflexDriverDefinition driver, ReflexProcessor.State state) {
+      return ImmutableMap.of(
+         ReflexDao.REFLEX_STATE_DRIVER, driver.getName(),
+         ReflexDao.REFLEX_STATE_VERSION, driver.getVersion().getRepresentation(),
+         ReflexDao.REFLEX_STATE_STATE, state.name()
+      );
+   }
+
+   private static Map<String,Object> syncState(Address protocol, String driver, String version) {
+      SyncDeviceState state = new SyncDeviceState();
+      state.setProtocol(protocol.getRepresentation());
+      state.setDriver(driver);
+      state.setVersion(version);
+      state.setHash("");
+      return state.toMap();
+   }
+}
@@ -15,10 +15,8 @@
  */
 package com.iris.agent.router;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
@@ -26,9 +24,12 @@ import org.slf4j.LoggerFactory;
 
 import com.iris.agent.addressing.HubAddr;
 import com.iris.agent.util.EnvUtils;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
 
 abstract class AbstractMessageProcessor implements Runnable, PortInternal {
    private static final Logger log = LoggerFactory.getLogger(AbstractMessageProcessor.class);
+   private static final IrisMetricSet METRICS = IrisMetrics.metrics("hub.router");
    protected static final ThreadLocal<Boolean> isRingThread = new ThreadLocal<Boolean>() {
       @Override
       protected Boolean initialValue() {
@@ -39,34 +40,61 @@ abstract class AbstractMessageProcessor implements Runnable, PortInternal {
    private static final int QUEUE_SIZE_WARN = 10;
    private static final int QUEUE_SIZE_GRANULARITY = 10;
 
+   // messages handled before giving the worker to the next port
+   private static final int BATCH_SIZE = 16;
+   private static final int NOT_SCHEDULED = Integer.MAX_VALUE;
+   private static final int STOPPED = -1;
+
    private final String name;
    private final AtomicBoolean running = new AtomicBoolean(false);
-   private final BlockingQueue<Message> queue;
-   private final AtomicInteger queueSize = new AtomicInteger();
+   private final @Nullable PortQueue queue;
+   // the best priority this port is currently scheduled at
+   private final AtomicInteger scheduled = new AtomicInteger(NOT_SCHEDULED);
+   private @Nullable RouterWorkers workers;
    private int lastWarnQueueSize = 0;
 
-   public AbstractMessageProcessor(String name, BlockingQueue<Message> queue) {
+   public AbstractMessageProcessor(String name, @Nullable PortQueue queue) {
       this.name = name;
       this.queue = queue;
    }
 
+   void start(RouterWorkers workers) {
+      this.workers = workers;
+
+      PortQueue queue = this.queue;
+      Message.Priority next = (queue != null) ? queue.peekPriority() : null;
+      if (next != null) {
+         schedule(next);
+      }
+   }
+
    public boolean isRunning() {
-       return running.get();
+       return workers != null && scheduled.get() != STOPPED;
    }
 
+   /**
+    * Handles the next batch of queued messages, this is invoked from the router's
+    * worker pool and re-schedules the port if there are still messages waiting.
+    */
    @Override
    public void run() {
-      if (!running.compareAndSet(false, true)) {
-         throw new IllegalStateException("Thread is already running");
+      PortQueue queue = this.queue;
+      if (queue == null || !running.compareAndSet(false, true)) {
+         // another worker is handling this port and will re-schedule it if needed
+         return;
       }
 
-      log.debug("starting {} message consumer", getName());
+      boolean stop = false;
       try {
          isRingThread.set(Boolean.TRUE);
-         while (true) {
-            Message next = queue.take();
-            queueSize.getAndDecrement();
+         for (int i = 0; i < BATCH_SIZE; ++i) {
+            Message next = queue.poll();
+            if (next == null) {
+               break;
+            }
+
             if (next.isPoisonPill(this)) {
+               stop = true;
                break;
             }
 
@@ -76,12 +104,24 @@ abstract class AbstractMessageProcessor implements Runnable, PortInternal {
                log.debug("exception while processing message: message may have been dropped", ex);
             }
          }
-      } catch (InterruptedException ex) {
-         // ignore
       } finally {
-         log.info("message producer {} shutting down...", getClass().getSimpleName());
-         running.set(false);
          isRingThread.set(Boolean.FALSE);
+         running.set(false);
+      }
+
+      if (stop) {
+         log.info("message producer {} shutting down...", getClass().getSimpleName());
+         scheduled.set(STOPPED);
+         queue.clear();
+         return;
+      }
+
+      // anything queued while this batch was running either scheduled the port
+      // again or is picked up here
+      scheduled.set(NOT_SCHEDULED);
+      Message.Priority next = queue.peekPriority();
+      if (next != null) {
+         schedule(next);
       }
    }
 
@@ -95,8 +135,20 @@ abstract class AbstractMessageProcessor implements Runnable, PortInternal {
    
    @Override
    public void enqueue(@Nullable HubAddr addr, Message message, boolean snoop) throws InterruptedException {
-      queue.put(message);
-      int size = queueSize.incrementAndGet();
+      PortQueue queue = this.queue;
+      if (queue == null) {
+         log.warn("dropping message for {}, port has no queue: {}", getName(), message);
+         return;
+      }
+
+      if (!queue.offer(message)) {
+         onOverflow(queue, message);
+         return;
+      }
+
+      schedule(message.getPriority());
+
+      int size = queue.size();
       if (size >= QUEUE_SIZE_WARN) {
          int gran = (size / QUEUE_SIZE_GRANULARITY);
          if (gran != lastWarnQueueSize && size % QUEUE_SIZE_GRANULARITY == 0) {
@@ -107,5 +159,40 @@ abstract class AbstractMessageProcessor implements Runnable, PortInternal {
          EnvUtils.devTrace(log,"queue size {}: {}", getName(), size);
       }
    }
-}
 
+   private void schedule(Message.Priority priority) {
+      RouterWorkers workers = this.workers;
+      if (workers == null) {
+         return;
+      }
+
+      int lane = priority.ordinal();
+      while (true) {
+         int current = scheduled.get();
+         if (lane >= current) {
+            // already waiting for a worker at the same or a higher priority (or stopped)
+            return;
+         }
+
+         if (scheduled.compareAndSet(current, lane)) {
+            workers.schedule(this, priority);
+            return;
+         }
+      }
+   }
+
+   private void onOverflow(PortQueue queue, Message message) {
+      if (queue.isPoisoned()) {
+         log.debug("dropping message for stopped port {}: {}", getName(), message);
+         return;
+      }
+
+      Message.Priority priority = message.getPriority();
+      long dropped = queue.getOverflowCount(priority);
+      METRICS.counter(getName() + ".dropped." + priority.name().toLowerCase()).inc();
+      // log the first overflow and then every time the count doubles
+      if (Long.bitCount(dropped) == 1) {
+         log.warn("{} {} queue full, {} messages dropped: {}", getName(), priority, dropped, message);
+      }
+   }
+}
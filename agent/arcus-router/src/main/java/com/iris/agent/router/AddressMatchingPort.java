@@ -15,8 +15,6 @@
  */
 package com.iris.agent.router;
 
-import java.util.concurrent.BlockingQueue;
-
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.iris.agent.addressing.HubAddr;
@@ -29,7 +27,7 @@ import com.iris.protocol.Protocol;
 import com.iris.protocol.ProtocolMessage;
 
 abstract class AddressMatchingPort extends AbstractPort {
-   public AddressMatchingPort(Router parent, PortHandler handler, String name, BlockingQueue<Message> queue) {
+   public AddressMatchingPort(Router parent, PortHandler handler, String name, PortQueue queue) {
       super(parent, handler, name, queue);
    }
 
@@ -26,7 +26,11 @@ import com.iris.protocol.ProtocolMessage;
 final class Message {
    static enum Type { PLATFORM, PROTOCOL, CUSTOM, POISON };
 
+   // the order is significant, lower ordinals are always handled first
+   static enum Priority { NORMAL, BULK };
+
    private final Type type;
+   private final Priority priority;
    private @Nullable Address source;
    private @Nullable Object destination;
    private @Nullable Object message;
@@ -38,12 +42,17 @@ final class Message {
       this.destination = destination;
       this.message = message;
       this.forwarded = forwarded;
+      this.priority = RouterUtils.getPriority(type, message);
    }
 
    public Type getType() {
       return type;
    }
 
+   public Priority getPriority() {
+      return priority;
+   }
+
    public @Nullable Object getMessage() {
       return message;
    }
@@ -68,6 +77,7 @@ final class Message {
    public String toString() {
       return "Message [" +
          "fwd=" + forwarded +
+         ",pri=" + priority +
          ",type=" + type +
          ",dst=" + destination +
          ",msg=" + message +
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.router;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Bounded message queue for a single port with one lane per {@link Message.Priority}.
+ * Messages are taken from the highest priority lane that has any, so a backlog of
+ * bulk traffic never delays anything else on the port.  When a lane is full
+ * the new message is rejected and counted against that lane.
+ *
+ * A poison pill is never rejected, it is returned once every lane has been drained
+ * and all messages offered after it are rejected.
+ */
+final class PortQueue {
+   private static final Message.Priority[] PRIORITIES = Message.Priority.values();
+
+   private final ArrayBlockingQueue<Message>[] lanes;
+   private final AtomicLong[] overflows;
+   private volatile @Nullable Message poison;
+
+   @SuppressWarnings("unchecked")
+   PortQueue(int capacity) {
+      this.lanes = new ArrayBlockingQueue[PRIORITIES.length];
+      this.overflows = new AtomicLong[PRIORITIES.length];
+      for (int i = 0; i < PRIORITIES.length; ++i) {
+         lanes[i] = new ArrayBlockingQueue<>(capacity);
+         overflows[i] = new AtomicLong();
+      }
+   }
+
+   /**
+    * Adds the message to the lane for its priority.
+    * @return false if the lane is full or the queue has been poisoned
+    */
+   boolean offer(Message message) {
+      if (message.getType() == Message.Type.POISON) {
+         if (poison == null) {
+            poison = message;
+         }
+         return true;
+      }
+
+      if (poison != null) {
+         return false;
+      }
+
+      int lane = message.getPriority().ordinal();
+      if (lanes[lane].offer(message)) {
+         return true;
+      }
+
+      overflows[lane].incrementAndGet();
+      return false;
+   }
+
+   @Nullable
+   Message poll() {
+      for (ArrayBlockingQueue<Message> lane : lanes) {
+         Message next = lane.poll();
+         if (next != null) {
+            return next;
+         }
+      }
+
+      return poison;
+   }
+
+   /**
+    * The priority of the next message {@link #poll()} would return, or null if empty.
+    */
+   Message.Priority peekPriority() {
+      for (int i = 0; i < lanes.length; ++i) {
+         if (!lanes[i].isEmpty()) {
+            return PRIORITIES[i];
+         }
+      }
+
+      return poison != null ? Message.Priority.BULK : null;
+   }
+
+   boolean isPoisoned() {
+      return poison != null;
+   }
+
+   void clear() {
+      for (ArrayBlockingQueue<Message> lane : lanes) {
+         lane.clear();
+      }
+   }
+
+   int size() {
+      int size = 0;
+      for (ArrayBlockingQueue<Message> lane : lanes) {
+         size += lane.size();
+      }
+
+      return size;
+   }
+
+   int size(Message.Priority priority) {
+      return lanes[priority.ordinal()].size();
+   }
+
+   long getOverflowCount(Message.Priority priority) {
+      return overflows[priority.ordinal()].get();
+   }
+}
@@ -44,6 +44,10 @@ import com.iris.protocol.ProtocolMessage;
 public final class Router {
    private static final Logger log = LoggerFactory.getLogger(Router.class);
 
+   // threads shared by all ports and the capacity of each priority lane in a port
+   private static final int WORKER_THREADS = getEnvInt("IRIS_AGENT_ROUTER_THREADS", 4);
+   private static final int PORT_QUEUE_SIZE = getEnvInt("IRIS_AGENT_ROUTER_QUEUE_SIZE", 256);
+
    private final Set<PortInternal> ports;
    private final Set<PortInternal> snoopers;
 
@@ -51,10 +55,12 @@ public final class Router {
    private final Map<String,PortInternal> protocol;
 
    private final ExecutorService executor;
+   private final RouterWorkers workers;
    private @Nullable MessageDispatcher dispatcher;
 
    public Router() {
-      this.executor = Executors.newCachedThreadPool(new RouterThreadFactory());
+      this.executor = Executors.newSingleThreadExecutor(new RouterThreadFactory("rtrd"));
+      this.workers = new RouterWorkers(WORKER_THREADS, new RouterThreadFactory("rtr"));
       this.ports = Collections.newSetFromMap(new ConcurrentHashMap<PortInternal,Boolean>());
       this.snoopers = Collections.newSetFromMap(new ConcurrentHashMap<PortInternal,Boolean>());
 
@@ -64,10 +70,11 @@ public final class Router {
 
    @PostConstruct
    public void start() {
-      log.info("starting up iris hub ring buffer router");
+      log.info("starting up iris hub router with {} workers", WORKER_THREADS);
 
       this.dispatcher = new MessageDispatcher(new LinkedTransferQueue<>());
       executor.submit(dispatcher);
+      workers.start();
    }
 
    @PreDestroy
@@ -89,10 +96,13 @@ public final class Router {
             // retry
          }
       }
+
+      // the dispatcher has poisoned every port, let them drain
+      workers.shutdown(30, TimeUnit.SECONDS);
    }
 
-   private BlockingQueue<Message> createQueue() {
-      return new LinkedTransferQueue<>();
+   private PortQueue createQueue() {
+      return new PortQueue(PORT_QUEUE_SIZE);
    }
 
    public Port injector(String name) {
@@ -120,7 +130,7 @@ public final class Router {
       return createConnection(port);
    }
 
-   private AddressMatchingPort createAddressMatchingPort(HubAddr address, PortHandler handler, String name, @Nullable BlockingQueue<Message> queue) {
+   private AddressMatchingPort createAddressMatchingPort(HubAddr address, PortHandler handler, String name, @Nullable PortQueue queue) {
       Preconditions.checkNotNull(address, "port address cannot be null");
 
       if (address instanceof HubServiceAddress) {
@@ -133,6 +143,7 @@ public final class Router {
    }
 
    private Port createConnection(AbstractPort port) {
+      port.start(workers);
       this.ports.add(port);
       if (port.isListenAll()) {
          snoopers.add(port);
@@ -148,7 +159,6 @@ public final class Router {
          protocol.put(prtid, port);
       }
 
-      executor.submit(port);
       return port;
    }
 
@@ -275,13 +285,32 @@ public final class Router {
       }
    }
 
+   private static int getEnvInt(String name, int defaultValue) {
+      String value = System.getenv(name);
+      if (value == null) {
+         return defaultValue;
+      }
+
+      try {
+         return Math.max(1, Integer.parseInt(value.trim()));
+      } catch (NumberFormatException ex) {
+         log.warn("invalid value for {}, using default of {}: {}", name, defaultValue, value);
+         return defaultValue;
+      }
+   }
+
    private static final class RouterThreadFactory implements ThreadFactory {
+      private final String prefix;
       private final AtomicLong num = new AtomicLong(0);
 
+      RouterThreadFactory(String prefix) {
+         this.prefix = prefix;
+      }
+
       @Override
       public Thread newThread(@Nullable Runnable r) {
          Thread thr = new Thread(r);
-         thr.setName("rtr" + num.getAndIncrement());
+         thr.setName(prefix + num.getAndIncrement());
          thr.setDaemon(false);
          return thr;
       }
@@ -30,11 +30,20 @@ import com.iris.messages.PlatformMessage;
 import com.iris.messages.address.Address;
 import com.iris.messages.address.DeviceProtocolAddress;
 import com.iris.messages.address.HubServiceAddress;
+import com.iris.messages.capability.HubBackupCapability;
+import com.iris.messages.capability.HubDebugCapability;
+import com.iris.messages.capability.HubMetricsCapability;
 import com.iris.protocol.ProtocolMessage;
 
 final class RouterUtils {
    private static @Nullable Address hubAddr;
 
+   private static final String[] BULK_NAMESPACES = {
+      HubMetricsCapability.NAMESPACE,
+      HubBackupCapability.NAMESPACE,
+      HubDebugCapability.NAMESPACE
+   };
+
    private RouterUtils() {
    }
 
@@ -68,6 +77,42 @@ final class RouterUtils {
       return HubAddressUtils.platform(dst);
    }
 
+   /**
+    * Bulk traffic such as metrics, backups and logs is only handled once nothing
+    * else is waiting on a port.  Everything else shares one lane so that messages
+    * for the same device or service are always handled in the order they arrived.
+    */
+   public static Message.Priority getPriority(Message.Type type, @Nullable Object message) {
+      if (type == Message.Type.PLATFORM && message instanceof PlatformMessage) {
+         return getPriority(((PlatformMessage)message).getMessageType());
+      }
+
+      return Message.Priority.NORMAL;
+   }
+
+   static Message.Priority getPriority(@Nullable String messageType) {
+      if (messageType == null) {
+         return Message.Priority.NORMAL;
+      }
+
+      if (isInNamespace(messageType, BULK_NAMESPACES)) {
+         return Message.Priority.BULK;
+      }
+
+      return Message.Priority.NORMAL;
+   }
+
+   private static boolean isInNamespace(String messageType, String[] namespaces) {
+      for (String namespace : namespaces) {
+         int len = namespace.length();
+         if (messageType.length() > len && messageType.charAt(len) == ':' && messageType.startsWith(namespace)) {
+            return true;
+         }
+      }
+
+      return false;
+   }
+
    public static Predicate<String> filter(String... types) {
       Set<String> matchTypes = new HashSet<String>(Arrays.asList(types));
       return new MessageTypePredicate(matchTypes);
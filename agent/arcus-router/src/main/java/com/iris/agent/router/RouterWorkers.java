@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.router;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed pool of threads shared by all of the router's ports.  A port is scheduled
+ * when a message is queued for it and the worker that picks it up handles a batch of
+ * its messages before the port goes back to the end of the line.  Ports are picked
+ * up in order of the highest priority message they have waiting, then first come,
+ * first served.
+ */
+final class RouterWorkers {
+   private static final Logger log = LoggerFactory.getLogger(RouterWorkers.class);
+
+   private final PriorityBlockingQueue<Ready> ready = new PriorityBlockingQueue<>();
+   private final AtomicLong sequence = new AtomicLong();
+   private final Thread[] threads;
+
+   RouterWorkers(int size, ThreadFactory factory) {
+      this.threads = new Thread[Math.max(1, size)];
+      for (int i = 0; i < threads.length; ++i) {
+         threads[i] = factory.newThread(this::work);
+      }
+   }
+
+   void start() {
+      for (Thread thread : threads) {
+         thread.start();
+      }
+   }
+
+   void schedule(AbstractMessageProcessor processor, Message.Priority priority) {
+      ready.offer(new Ready(processor, priority.ordinal(), sequence.getAndIncrement()));
+   }
+
+   /**
+    * Lets the workers finish anything that is already scheduled and then stops them.
+    */
+   void shutdown(long timeout, TimeUnit unit) {
+      for (int i = 0; i < threads.length; ++i) {
+         ready.offer(new Ready(null, Integer.MAX_VALUE, Long.MAX_VALUE));
+      }
+
+      long deadline = System.nanoTime() + unit.toNanos(timeout);
+      for (Thread thread : threads) {
+         long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+         try {
+            if (remaining > 0) {
+               thread.join(remaining);
+            }
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            break;
+         }
+
+         if (thread.isAlive()) {
+            log.warn("router worker {} did not shut down in time, interrupting", thread.getName());
+            thread.interrupt();
+         }
+      }
+   }
+
+   private void work() {
+      try {
+         while (true) {
+            Ready next = ready.take();
+            AbstractMessageProcessor processor = next.processor;
+            if (processor == null) {
+               return;
+            }
+
+            try {
+               processor.run();
+            } catch (Throwable th) {
+               log.warn("exception while processing messages for {}", processor.getName(), th);
+            }
+         }
+      } catch (InterruptedException ex) {
+         Thread.currentThread().interrupt();
+      } finally {
+         log.info("router worker {} shutting down...", Thread.currentThread().getName());
+      }
+   }
+
+   private static final class Ready implements Comparable<Ready> {
+      private final @Nullable AbstractMessageProcessor processor;
+      private final int priority;
+      private final long sequence;
+
+      Ready(@Nullable AbstractMessageProcessor processor, int priority, long sequence) {
+         this.processor = processor;
+         this.priority = priority;
+         this.sequence = sequence;
+      }
+
+      @Override
+      public int compareTo(Ready o) {
+         int cmp = Integer.compare(priority, o.priority);
+         return (cmp != 0) ? cmp : Long.compare(sequence, o.sequence);
+      }
+   }
+}
@@ -15,8 +15,6 @@
  */
 package com.iris.agent.router;
 
-import java.util.concurrent.BlockingQueue;
-
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.google.common.base.Preconditions;
@@ -28,7 +26,7 @@ class ServicePort extends AddressMatchingPort {
    private final HubServiceAddress address;
    private @Nullable volatile Address platformAddress;
 
-   ServicePort(HubServiceAddress address, Router parent, PortHandler handler, String name, BlockingQueue<Message> queue) {
+   ServicePort(HubServiceAddress address, Router parent, PortHandler handler, String name, PortQueue queue) {
       super(parent, handler, name, queue);
 
       Preconditions.checkNotNull(address, "service disruptor port only works with non-null service addresses");
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.HubMetricsCapability;
+
+public class TestPortQueue {
+   private static final Address SOURCE = Address.platformService("test");
+   private static final Address DEVICE = Address.platformDriverAddress(UUID.randomUUID());
+
+   @Test
+   public void testDeviceTrafficSharesOneLane() {
+      assertEquals(Message.Priority.NORMAL, protocol().getPriority());
+      assertEquals(Message.Priority.NORMAL, platform(Capability.CMD_SET_ATTRIBUTES).getPriority());
+      assertEquals(Message.Priority.NORMAL, platform(Capability.CMD_GET_ATTRIBUTES).getPriority());
+      assertEquals(Message.Priority.BULK, platform(HubMetricsCapability.StartMetricsJobRequest.NAME).getPriority());
+   }
+
+   @Test
+   public void testDeviceTrafficStaysInOrder() {
+      PortQueue queue = new PortQueue(10);
+      Message get = platform(Capability.CMD_GET_ATTRIBUTES);
+      Message protocol = protocol();
+      Message set = platform(Capability.CMD_SET_ATTRIBUTES);
+      assertTrue(queue.offer(get));
+      assertTrue(queue.offer(protocol));
+      assertTrue(queue.offer(set));
+
+      assertSame(get, queue.poll());
+      assertSame(protocol, queue.poll());
+      assertSame(set, queue.poll());
+      assertNull(queue.poll());
+   }
+
+   @Test
+   public void testBulkLaneWaitsForEverythingElse() {
+      PortQueue queue = new PortQueue(10);
+      Message bulk = platform(HubMetricsCapability.StartMetricsJobRequest.NAME);
+      Message normal = platform(Capability.CMD_SET_ATTRIBUTES);
+      assertTrue(queue.offer(bulk));
+      assertEquals(Message.Priority.BULK, queue.peekPriority());
+      assertTrue(queue.offer(normal));
+      assertEquals(Message.Priority.NORMAL, queue.peekPriority());
+
+      assertSame(normal, queue.poll());
+      assertSame(bulk, queue.poll());
+      assertNull(queue.peekPriority());
+   }
+
+   @Test
+   public void testOverflowIsCountedPerLane() {
+      PortQueue queue = new PortQueue(2);
+      for (int i = 0; i < 5; ++i) {
+         assertEquals(i < 2, queue.offer(platform(HubMetricsCapability.StartMetricsJobRequest.NAME)));
+      }
+      assertTrue(queue.offer(protocol()));
+
+      assertEquals(3, queue.getOverflowCount(Message.Priority.BULK));
+      assertEquals(0, queue.getOverflowCount(Message.Priority.NORMAL));
+      assertEquals(2, queue.size(Message.Priority.BULK));
+      assertEquals(1, queue.size(Message.Priority.NORMAL));
+      assertEquals(3, queue.size());
+   }
+
+   @Test
+   public void testPoisonPillIsReturnedOnceDrained() {
+      PortQueue queue = new PortQueue(2);
+      Message normal = protocol();
+      Message poison = new Message(Message.Type.POISON, null, null, null, false);
+      assertTrue(queue.offer(normal));
+      assertTrue(queue.offer(poison));
+      assertTrue(queue.isPoisoned());
+      assertFalse(queue.offer(protocol()));
+      assertEquals(0, queue.getOverflowCount(Message.Priority.NORMAL));
+
+      assertSame(normal, queue.poll());
+      assertSame(poison, queue.poll());
+   }
+
+   private static Message protocol() {
+      return new Message(Message.Type.PROTOCOL, null, null, null, false);
+   }
+
+   private static Message platform(String type) {
+      PlatformMessage message = PlatformMessage.buildRequest(type, ImmutableMap.of(), SOURCE, DEVICE).create();
+      return new Message(Message.Type.PLATFORM, SOURCE, null, message, false);
+   }
+}
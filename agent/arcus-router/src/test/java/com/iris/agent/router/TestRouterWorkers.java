@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRouterWorkers {
+   private Router router;
+   private RouterWorkers workers;
+
+   @Before
+   public void setUp() {
+      router = new Router();
+      workers = new RouterWorkers(4, (runnable) -> {
+         Thread thread = new Thread(runnable);
+         thread.setDaemon(true);
+         return thread;
+      });
+      workers.start();
+   }
+
+   @After
+   public void tearDown() {
+      workers.shutdown(1, TimeUnit.SECONDS);
+   }
+
+   @Test
+   public void testPortIsHandledByOneWorkerAtATime() throws Exception {
+      int producers = 4;
+      int messages = 500;
+      List<RecordingPort> ports = new ArrayList<>();
+      for (int i = 0; i < 3; ++i) {
+         ports.add(connect("port" + i, producers, producers * messages));
+      }
+
+      List<Thread> threads = new ArrayList<>();
+      for (int p = 0; p < producers; ++p) {
+         int producer = p;
+         Thread thread = new Thread(() -> {
+            for (int i = 0; i < messages; ++i) {
+               for (RecordingPort port : ports) {
+                  port.send(new int[] { producer, i });
+                  // extra wake ups so that several workers go after the same port
+                  workers.schedule(port, Message.Priority.NORMAL);
+               }
+            }
+         });
+         thread.start();
+         threads.add(thread);
+      }
+      for (Thread thread : threads) {
+         thread.join();
+      }
+
+      for (RecordingPort port : ports) {
+         assertTrue(port.getName(), port.done.await(10, TimeUnit.SECONDS));
+         assertFalse(port.getName(), port.concurrent);
+         assertFalse(port.getName(), port.outOfOrder);
+      }
+   }
+
+   @Test
+   public void testShutdownDrainsQueuedMessages() throws Exception {
+      RecordingPort port = connect("drain", 1, 100);
+      for (int i = 0; i < 100; ++i) {
+         port.send(new int[] { 0, i });
+      }
+      port.enqueue(null, new Message(Message.Type.POISON, null, port, null, false), false);
+
+      workers.shutdown(10, TimeUnit.SECONDS);
+      assertEquals(0, port.done.getCount());
+      assertFalse(port.isRunning());
+
+      port.send(new int[] { 0, 100 });
+      assertEquals(100, port.handled.get());
+   }
+
+   private RecordingPort connect(String name, int producers, int expected) {
+      RecordingPort port = new RecordingPort(router, name, producers, expected);
+      port.start(workers);
+      return port;
+   }
+
+   private static final class RecordingPort extends InjectingPort {
+      private final AtomicInteger inFlight = new AtomicInteger();
+      private final AtomicInteger handled = new AtomicInteger();
+      private final int[] last;
+      private final CountDownLatch done;
+      private volatile boolean concurrent;
+      private volatile boolean outOfOrder;
+
+      RecordingPort(Router parent, String name, int producers, int expected) {
+         super(parent, name, new PortQueue(10000));
+         this.last = new int[producers];
+         this.done = new CountDownLatch(expected);
+         for (int i = 0; i < producers; ++i) {
+            last[i] = -1;
+         }
+      }
+
+      void send(int[] message) {
+         try {
+            enqueue(null, new Message(Message.Type.CUSTOM, null, this, message, false), false);
+         } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      @Override
+      public void handle(@Nullable Object destination, Object message) {
+         if (inFlight.incrementAndGet() > 1) {
+            concurrent = true;
+         }
+
+         int[] sequence = (int[])message;
+         if (last[sequence[0]] + 1 != sequence[1]) {
+            outOfOrder = true;
+         }
+         last[sequence[0]] = sequence[1];
+         Thread.yield();
+
+         handled.incrementAndGet();
+         inFlight.decrementAndGet();
+         done.countDown();
+      }
+   }
+}
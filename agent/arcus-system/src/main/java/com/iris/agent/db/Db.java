@@ -65,6 +65,10 @@ public final class Db implements AutoCloseable {
    private final String name;
    private final int numWorkers;
    private final long walModeCheckpointNs;
+   private final long groupCommitNs;
+   private final long groupCommitIdleNs;
+   private final int groupCommitMax;
+   private final int statementCacheSize;
    private final BlockingQueue<DbTask<?>> queue;
    private final @Nullable DbCheckpointer checkpointer;
 
@@ -72,8 +76,28 @@ public final class Db implements AutoCloseable {
    private final File dbFile;
 
    Db(String name, @Nullable File dbFile, int numWorkers, long walModeCheckpointMs) {
+      this(name, dbFile, numWorkers, walModeCheckpointMs, -1, 1, 0);
+   }
+
+   /**
+    * @param groupCommitMs
+    *    How long a worker waits for more writes to commit together with the
+    *    first one, the group is committed early if no write arrives for a
+    *    quarter of this time. A value less than or equal to zero disables
+    *    group commit
+    * @param groupCommitMax
+    *    The maximum number of writes committed in one transaction
+    * @param statementCacheSize
+    *    The number of prepared statements each worker keeps, zero disables
+    *    the cache
+    */
+   Db(String name, @Nullable File dbFile, int numWorkers, long walModeCheckpointMs, long groupCommitMs, int groupCommitMax, int statementCacheSize) {
       this.name = name;
       this.walModeCheckpointNs = TimeUnit.NANOSECONDS.convert(walModeCheckpointMs, TimeUnit.MILLISECONDS);
+      this.groupCommitNs = (groupCommitMax > 1) ? TimeUnit.NANOSECONDS.convert(groupCommitMs, TimeUnit.MILLISECONDS) : -1;
+      this.groupCommitIdleNs = Math.max(1, groupCommitNs / 4);
+      this.groupCommitMax = groupCommitMax;
+      this.statementCacheSize = statementCacheSize;
       this.dbFile = dbFile;
       this.numWorkers = numWorkers;
       this.queue = new SynchronousQueue<>();
@@ -342,6 +366,18 @@ public final class Db implements AutoCloseable {
       }
    }
 
+   /**
+    * Parameterized writes can share a transaction with other writes, raw
+    * sql scripts and queries always run on their own.
+    */
+   private static boolean isGroupable(DbTask<?> task) {
+      if (task instanceof ExecTask) {
+         return ((ExecTask<?>)task).isStatement();
+      }
+
+      return task instanceof ExecBulkTask;
+   }
+
    private static final class BackupTask extends AbstractDbTask<Boolean> {
       private final File destination;
 
@@ -653,60 +689,190 @@ public final class Db implements AutoCloseable {
       }
 
       @Override
-      @SuppressWarnings("unchecked")
       protected void execute(SQLiteConnection conn) throws Exception {
          log.trace("starting sqlite db worker...");
-         while (true) {
-            watchdog.poke();
+         DbStatementCache statements = new DbStatementCache(conn, statementCacheSize);
+         try {
+            while (true) {
+               watchdog.poke();
 
-            DbTask<?> task = queue.poll(10, TimeUnit.SECONDS);
-            if (task == POISON_PILL) {
-               log.trace("killing sqlite db worker...");
-               return;
-            }
+               DbTask<?> task = queue.poll(10, TimeUnit.SECONDS);
+               if (task != null && groupCommitNs > 0 && isGroupable(task) && !task.isDone()) {
+                  task = executeGroup(conn, statements, task);
+               }
 
-            if (task == null || task.isDone()) {
-               continue;
+               if (task == POISON_PILL) {
+                  log.trace("killing sqlite db worker...");
+                  return;
+               }
+
+               if (task == null || task.isDone()) {
+                  continue;
+               }
+
+               execute(conn, statements, task);
             }
+         } finally {
+            statements.clear();
+         }
+      }
+
+      /**
+       * Runs the given write and any further writes that arrive within the
+       * group commit window in a single transaction, so a burst of writes
+       * pays for one sync to storage instead of one per write.
+       *
+       * Each write runs inside its own savepoint. A write that fails is
+       * rolled back to its savepoint and run again on its own after the
+       * group commits, so it is reported (and retried) exactly as it would
+       * be without group commit. Callers are only completed once the group
+       * has committed.
+       *
+       * @return
+       *    A task that was taken from the queue but cannot be part of the group
+       *    and still needs to be run, or null
+       */
+      @Nullable
+      @SuppressWarnings("unchecked")
+      private DbTask<?> executeGroup(SQLiteConnection conn, DbStatementCache statements, DbTask<?> first) throws Exception {
+         try {
+            conn.exec("BEGIN IMMEDIATE");
+         } catch (SQLiteException ex) {
+            log.debug("could not start group commit, running write on its own: {}", ex.getMessage());
+            return first;
+         }
+
+         List<DbTask<?>> group = new ArrayList<>(groupCommitMax);
+         List<Object> results = new ArrayList<>(groupCommitMax);
+         List<DbTask<?>> individual = new ArrayList<>();
+         DbTask<?> remaining = null;
+         boolean interrupted = false;
 
-            //long start = System.nanoTime();
-            boolean retry = true;
-            backoff.onSuccess();
-            while (retry) {
+         long deadline = System.nanoTime() + groupCommitNs;
+         DbTask<?> task = first;
+         while (true) {
+            if (!task.isDone()) {
                try {
-                  retry = false;
-                  Object result = task.execute(conn);
-
-                  //long elapsed = TimeUnit.MICROSECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
-                  //log.info("sql statment took {}us: {}", elapsed, task);
-
-                  ((DbTask<Object>)task).set(result);
-               } catch (SQLiteException ex) {
-                  switch (ex.getBaseErrorCode()) {
-                  case SQLiteConstants.SQLITE_BUSY:
-                     if (backoff.attempt() < SQLITE_MAX_ATTEMPTS) {
-                        log.info("sqlite statement failed on attempt {} of {}: db busy", backoff.attempt(), SQLITE_MAX_ATTEMPTS);
-                        retry = true;
-                        ThreadUtils.sleep(backoff.nextDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-                     } else {
-                        fail(conn, task, ex);
-                     }
+                  conn.exec("SAVEPOINT grp");
+                  Object result = task.execute(conn, statements);
+                  conn.exec("RELEASE grp");
+
+                  group.add(task);
+                  results.add(result);
+               } catch (Exception ex) {
+                  individual.add(task);
+                  if (!rollbackSavepoint(conn)) {
                      break;
+                  }
+               }
+            }
 
-                  case SQLiteConstants.SQLITE_LOCKED:
-                     if (backoff.attempt() < SQLITE_MAX_ATTEMPTS) {
-                        log.info("sqlite statement failed on attempt {} of {}: db locked", backoff.attempt(), SQLITE_MAX_ATTEMPTS);
-                        retry = true;
-                        ThreadUtils.sleep(backoff.nextDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
-                     } else {
-                        fail(conn, task, ex);
-                     }
-                     break;
+            if (group.size() + individual.size() >= groupCommitMax) {
+               break;
+            }
+
+            DbTask<?> next;
+            try {
+               // stop early once writes stop arriving, callers blocked on
+               // their writes cannot submit more until the group commits
+               long wait = Math.min(deadline - System.nanoTime(), groupCommitIdleNs);
+               next = (wait > 0) ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+            } catch (InterruptedException ex) {
+               interrupted = true;
+               break;
+            }
+
+            if (next == null) {
+               break;
+            }
+
+            if (!isGroupable(next)) {
+               remaining = next;
+               break;
+            }
+
+            task = next;
+         }
+
+         try {
+            conn.exec("COMMIT");
+            for (int i = 0, e = group.size(); i < e; ++i) {
+               ((DbTask<Object>)group.get(i)).set(results.get(i));
+            }
+
+            log.trace("group committed {} sqlite writes", group.size());
+         } catch (SQLiteException ex) {
+            log.info("sqlite group commit of {} writes failed, running writes individually: {}", group.size(), ex.getMessage());
+            try {
+               conn.exec("ROLLBACK");
+            } catch (SQLiteException rex) {
+               // ignore
+            }
+
+            individual.addAll(0, group);
+         }
+
+         for (DbTask<?> retry : individual) {
+            execute(conn, statements, retry);
+         }
+
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+
+         return remaining;
+      }
+
+      private boolean rollbackSavepoint(SQLiteConnection conn) {
+         try {
+            conn.exec("ROLLBACK TO grp");
+            conn.exec("RELEASE grp");
+            return true;
+         } catch (SQLiteException ex) {
+            log.debug("could not roll back sqlite savepoint: {}", ex.getMessage());
+            return false;
+         }
+      }
 
-                  default:
+      @SuppressWarnings("unchecked")
+      private void execute(SQLiteConnection conn, DbStatementCache statements, DbTask<?> task) throws Exception {
+         //long start = System.nanoTime();
+         boolean retry = true;
+         backoff.onSuccess();
+         while (retry) {
+            try {
+               retry = false;
+               Object result = task.execute(conn, statements);
+
+               //long elapsed = TimeUnit.MICROSECONDS.convert(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+               //log.info("sql statment took {}us: {}", elapsed, task);
+
+               ((DbTask<Object>)task).set(result);
+            } catch (SQLiteException ex) {
+               switch (ex.getBaseErrorCode()) {
+               case SQLiteConstants.SQLITE_BUSY:
+                  if (backoff.attempt() < SQLITE_MAX_ATTEMPTS) {
+                     log.info("sqlite statement failed on attempt {} of {}: db busy", backoff.attempt(), SQLITE_MAX_ATTEMPTS);
+                     retry = true;
+                     ThreadUtils.sleep(backoff.nextDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                  } else {
                      fail(conn, task, ex);
-                     break;
                   }
+                  break;
+
+               case SQLiteConstants.SQLITE_LOCKED:
+                  if (backoff.attempt() < SQLITE_MAX_ATTEMPTS) {
+                     log.info("sqlite statement failed on attempt {} of {}: db locked", backoff.attempt(), SQLITE_MAX_ATTEMPTS);
+                     retry = true;
+                     ThreadUtils.sleep(backoff.nextDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+                  } else {
+                     fail(conn, task, ex);
+                  }
+                  break;
+
+               default:
+                  fail(conn, task, ex);
+                  break;
                }
             }
          }
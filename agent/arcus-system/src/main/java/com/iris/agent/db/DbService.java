@@ -48,8 +48,14 @@ public final class DbService {
    private static final Object START_LOCK = new Object();
    private static final boolean ALLOW_MULTITHREADED;
    private static final long WAL_CHECKPOINT_MS;
+   private static final long GROUP_COMMIT_MS;
+   private static final int GROUP_COMMIT_MAX;
+   private static final int STATEMENT_CACHE_SIZE;
    private static final int DEFAULT_MULTITHREADED_DB_WORKER_THREADS = 4;
    private static final long DEFAULT_WAL_CHECKPOINT_MS = TimeUnit.MILLISECONDS.convert(60, TimeUnit.MINUTES);
+   private static final long DEFAULT_GROUP_COMMIT_MS = 2;
+   private static final int DEFAULT_GROUP_COMMIT_MAX = 64;
+   private static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
 
    private static int DEFAULT_DB_WORKER_THREADS = 1;
 
@@ -79,8 +85,40 @@ public final class DbService {
          }
       }
 
+      long groupCommitMs = DEFAULT_GROUP_COMMIT_MS;
+      if (System.getenv("IRIS_DB_DISABLE_GROUP_COMMIT") != null) {
+         groupCommitMs = -1;
+      } else if (System.getenv("IRIS_DB_GROUP_COMMIT_MS") != null) {
+         try {
+            groupCommitMs = Long.parseLong(System.getenv("IRIS_DB_GROUP_COMMIT_MS"));
+         } catch (Throwable th) {
+            log.warn("cannot parse group commit time:", th);
+         }
+      }
+
+      int groupCommitMax = DEFAULT_GROUP_COMMIT_MAX;
+      if (System.getenv("IRIS_DB_GROUP_COMMIT_MAX") != null) {
+         try {
+            groupCommitMax = Integer.parseInt(System.getenv("IRIS_DB_GROUP_COMMIT_MAX"));
+         } catch (Throwable th) {
+            log.warn("cannot parse group commit size:", th);
+         }
+      }
+
+      int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+      if (System.getenv("IRIS_DB_STATEMENT_CACHE_SIZE") != null) {
+         try {
+            statementCacheSize = Integer.parseInt(System.getenv("IRIS_DB_STATEMENT_CACHE_SIZE"));
+         } catch (Throwable th) {
+            log.warn("cannot parse statement cache size:", th);
+         }
+      }
+
       ALLOW_MULTITHREADED = allowMulti;
       WAL_CHECKPOINT_MS = walCheckpointMs;
+      GROUP_COMMIT_MS = groupCommitMs;
+      GROUP_COMMIT_MAX = groupCommitMax;
+      STATEMENT_CACHE_SIZE = statementCacheSize;
    }
 
    private DbService() {
@@ -120,9 +158,9 @@ public final class DbService {
             Db db;
             if (!memory) {
                File dbFile = StorageService.getFile("db:///" + name + ".db");
-               db = new Db(name, dbFile, workerThreads, WAL_CHECKPOINT_MS);
+               db = new Db(name, dbFile, workerThreads, WAL_CHECKPOINT_MS, GROUP_COMMIT_MS, GROUP_COMMIT_MAX, STATEMENT_CACHE_SIZE);
             } else {
-               db = new Db(name, null, workerThreads, -1);
+               db = new Db(name, null, workerThreads, -1, GROUP_COMMIT_MS, GROUP_COMMIT_MAX, STATEMENT_CACHE_SIZE);
             }
 
             db.start(executorService, walEs);
@@ -149,7 +187,7 @@ public final class DbService {
          }
 
          try {
-            Db db = new Db(name, path, workerThreads, WAL_CHECKPOINT_MS);
+            Db db = new Db(name, path, workerThreads, WAL_CHECKPOINT_MS, GROUP_COMMIT_MS, GROUP_COMMIT_MAX, STATEMENT_CACHE_SIZE);
             db.start(executorService, walEs);
             openDatabases.put(name, db);
             return db;
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.agent.db;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.almworks.sqlite4java.SQLiteConnection;
+import com.almworks.sqlite4java.SQLiteException;
+import com.almworks.sqlite4java.SQLiteStatement;
+
+/**
+ * Per-connection cache of prepared statements, owned by a single db worker.
+ *
+ * Statements are checked out with {@link #acquire(String)} and returned with
+ * {@link #release(String, SQLiteStatement)}, which resets the statement and
+ * clears its bindings so that it holds no locks while it sits in the cache.
+ * The least recently used statement is disposed when the cache is full.
+ */
+public final class DbStatementCache {
+   private final SQLiteConnection conn;
+   private final int maxSize;
+   private final Map<String,SQLiteStatement> statements;
+
+   DbStatementCache(SQLiteConnection conn, int maxSize) {
+      this.conn = conn;
+      this.maxSize = maxSize;
+      this.statements = new LinkedHashMap<String,SQLiteStatement>(16, 0.75f, true) {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<String,SQLiteStatement> eldest) {
+            if (size() <= DbStatementCache.this.maxSize) {
+               return false;
+            }
+
+            eldest.getValue().dispose();
+            return true;
+         }
+      };
+   }
+
+   public SQLiteStatement acquire(String sql) throws SQLiteException {
+      if (maxSize <= 0) {
+         return conn.prepare(sql, true);
+      }
+
+      // the statement is removed while in use so a nested use of the
+      // same sql gets its own statement
+      SQLiteStatement stmt = statements.remove(sql);
+      if (stmt == null || stmt.isDisposed()) {
+         stmt = conn.prepare(sql, false);
+      }
+
+      return stmt;
+   }
+
+   public void release(String sql, SQLiteStatement stmt) {
+      if (maxSize <= 0 || stmt.isDisposed()) {
+         stmt.dispose();
+         return;
+      }
+
+      try {
+         stmt.reset(true);
+      } catch (SQLiteException ex) {
+         stmt.dispose();
+         return;
+      }
+
+      SQLiteStatement previous = statements.put(sql, stmt);
+      if (previous != null && previous != stmt) {
+         previous.dispose();
+      }
+   }
+
+   void clear() {
+      for (SQLiteStatement stmt : statements.values()) {
+         stmt.dispose();
+      }
+
+      statements.clear();
+   }
+}
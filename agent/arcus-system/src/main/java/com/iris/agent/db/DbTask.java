@@ -25,6 +25,15 @@ public interface DbTask<V> extends Future<V> {
    @Nullable
    V execute(SQLiteConnection conn) throws Exception;
 
+   /**
+    * Executes the task using statements from the worker's statement cache.
+    * Tasks that do not prepare statements can ignore the cache.
+    */
+   @Nullable
+   default V execute(SQLiteConnection conn, DbStatementCache statements) throws Exception {
+      return execute(conn);
+   }
+
    void set(@Nullable V value);
    void setException(Throwable cause);
 }
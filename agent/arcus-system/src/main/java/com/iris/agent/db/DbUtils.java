@@ -157,6 +157,18 @@ public final class DbUtils {
       }
    }
 
+   private static SQLiteStatement prepare(SQLiteConnection conn, @Nullable DbStatementCache statements, String sql) throws SQLiteException {
+      return (statements != null) ? statements.acquire(sql) : conn.prepare(sql, true);
+   }
+
+   private static void release(@Nullable DbStatementCache statements, String sql, SQLiteStatement stmt) {
+      if (statements != null) {
+         statements.release(sql, stmt);
+      } else {
+         stmt.dispose();
+      }
+   }
+
    public static abstract class DbTaskImpl<I, O> extends AbstractDbTask<O> {
       private final String      sql;
 
@@ -175,6 +187,12 @@ public final class DbUtils {
       @Nullable
       @Override
       public O execute(SQLiteConnection conn) throws Exception {
+         return execute(conn, null);
+      }
+
+      @Nullable
+      @Override
+      public O execute(SQLiteConnection conn, @Nullable DbStatementCache statements) throws Exception {
          I val = value;
          DbBinder<I> bnd = binder;
          if (bnd == null || val == null) {
@@ -182,7 +200,7 @@ public final class DbUtils {
             return results(conn);
          }
 
-         SQLiteStatement stmt = conn.prepare(sql, true);
+         SQLiteStatement stmt = prepare(conn, statements, sql);
          try {
             bnd.bind(conn, stmt, val);
             while (stmt.step()) {
@@ -191,10 +209,18 @@ public final class DbUtils {
 
             return results(conn);
          } finally {
-            stmt.dispose();
+            release(statements, sql, stmt);
          }
       }
 
+      /**
+       * True if the task runs a single parameterized statement, as opposed to
+       * a raw sql script which may contain its own transaction control.
+       */
+      boolean isStatement() {
+         return binder != null && value != null;
+      }
+
       @Override
       public String toString() {
          return sql;
@@ -223,8 +249,16 @@ public final class DbUtils {
       @Nullable
       @Override
       public O execute(SQLiteConnection conn) throws Exception {
-         SQLiteStatement stmt = conn.prepare(sql, true);
-         boolean runInTx = runInTransaction(conn, stmt);
+         return execute(conn, null);
+      }
+
+      @Nullable
+      @Override
+      public O execute(SQLiteConnection conn, @Nullable DbStatementCache statements) throws Exception {
+         SQLiteStatement stmt = prepare(conn, statements, sql);
+
+         // when grouped with other writes the enclosing transaction is used
+         boolean runInTx = runInTransaction(conn, stmt) && conn.getAutoCommit();
 
          try {
             if (runInTx) {
@@ -258,7 +292,7 @@ public final class DbUtils {
             throw ex;
          } finally {
             try {
-               stmt.dispose();
+               release(statements, sql, stmt);
             } catch (Exception ex) {
                // ignore
             }
@@ -15,14 +15,21 @@
  */
 package com.iris.agent.db;
 
+import java.io.File;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.jdt.annotation.Nullable;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -38,6 +45,19 @@ import com.iris.agent.test.SystemTestCase;
 public class TestDbService extends SystemTestCase {
    private static final double EPSILON = 0.01;
 
+   private final List<Db> groupCommitDbs = new ArrayList<>();
+   private final ExecutorService groupCommitWorkers = Executors.newCachedThreadPool();
+
+   @After
+   public void closeGroupCommitDbs() throws Exception {
+      for (Db db : groupCommitDbs) {
+         db.kill();
+      }
+
+      groupCommitWorkers.shutdown();
+      groupCommitWorkers.awaitTermination(10, TimeUnit.SECONDS);
+   }
+
    @Test
    public void testCustomDatabaseFile() throws Exception {
       Db db = DbService.get("testCustomDatabaseFile");
@@ -145,6 +165,190 @@ public class TestDbService extends SystemTestCase {
       }
    }
 
+   @Test
+   public void testGroupCommitBurstIsOneTransaction() throws Exception {
+      Db db = openGroupCommitDb(createGroupCommitFile("testGroupCommitBurst"), 1000, 4);
+      db.execute("CREATE TABLE grp (key INTEGER PRIMARY KEY, value TEXT)");
+
+      List<Future<?>> writes = new ArrayList<>();
+      GroupCheckingBinder binder = new GroupCheckingBinder(writes);
+      for (int i = 0; i < 4; ++i) {
+         writes.add(db.asyncExecute("INSERT INTO grp (key,value) VALUES (?,?)", binder, i));
+      }
+
+      for (Future<?> write : writes) {
+         write.get(10, TimeUnit.SECONDS);
+      }
+
+      Assert.assertEquals(4, binder.bound);
+      Assert.assertFalse("write ran outside of a transaction", binder.autoCommit);
+      Assert.assertFalse("write completed before the group committed", binder.completedEarly);
+      Assert.assertEquals(Long.valueOf(4), db.querySingleColumn(Long.class, "SELECT COUNT(*) FROM grp"));
+   }
+
+   @Test
+   public void testGroupCommitFailedWriteOnlyFailsItself() throws Exception {
+      Db db = openGroupCommitDb(createGroupCommitFile("testGroupCommitFailedWrite"), 1000, 3);
+      db.execute("CREATE TABLE grp (key INTEGER PRIMARY KEY, value TEXT)");
+      db.execute("INSERT INTO grp (key,value) VALUES (?,?)", 1, "original");
+
+      Future<?> before = db.asyncExecute("INSERT INTO grp (key,value) VALUES (?,?)", 2, "before");
+      Future<?> duplicate = db.asyncExecute("INSERT INTO grp (key,value) VALUES (?,?)", 1, "duplicate");
+      Future<?> after = db.asyncExecute("INSERT INTO grp (key,value) VALUES (?,?)", 3, "after");
+
+      before.get(10, TimeUnit.SECONDS);
+      after.get(10, TimeUnit.SECONDS);
+      assertFailed(duplicate);
+
+      Assert.assertEquals("original", db.querySingleColumn(String.class, "SELECT value FROM grp WHERE key=?", 1));
+      Assert.assertEquals("before", db.querySingleColumn(String.class, "SELECT value FROM grp WHERE key=?", 2));
+      Assert.assertEquals("after", db.querySingleColumn(String.class, "SELECT value FROM grp WHERE key=?", 3));
+   }
+
+   @Test
+   public void testGroupCommitFailureFallsBackToIndividualWrites() throws Exception {
+      Db db = openGroupCommitDb(createGroupCommitFile("testGroupCommitFailure"), 1000, 3);
+      db.execute("CREATE TABLE parent (id INTEGER PRIMARY KEY)");
+      db.execute("CREATE TABLE child (id INTEGER PRIMARY KEY, parent INTEGER REFERENCES parent(id) DEFERRABLE INITIALLY DEFERRED)");
+
+      // the orphan only fails the foreign key check when the group commits
+      Future<?> parent = db.asyncExecute("INSERT INTO parent (id) VALUES (?)", 1);
+      Future<?> orphan = db.asyncExecute("INSERT INTO child (id,parent) VALUES (?,?)", 1, 99);
+      Future<?> child = db.asyncExecute("INSERT INTO child (id,parent) VALUES (?,?)", 2, 1);
+
+      parent.get(10, TimeUnit.SECONDS);
+      child.get(10, TimeUnit.SECONDS);
+      assertFailed(orphan);
+
+      Assert.assertEquals(Long.valueOf(1), db.querySingleColumn(Long.class, "SELECT COUNT(*) FROM parent"));
+      Assert.assertEquals(Long.valueOf(2), db.querySingleColumn(Long.class, "SELECT id FROM child"));
+   }
+
+   @Test
+   public void testQueryEndsGroup() throws Exception {
+      // long enough that only the query can end the group within the test
+      Db db = openGroupCommitDb(createGroupCommitFile("testQueryEndsGroup"), 60000, 64);
+      db.execute("CREATE TABLE grp (key INTEGER PRIMARY KEY, value TEXT)");
+
+      long start = System.nanoTime();
+      Future<?> write = db.asyncExecute("INSERT INTO grp (key,value) VALUES (?,?)", 1, "value");
+      Long count = db.querySingleColumn(Long.class, "SELECT COUNT(*) FROM grp");
+      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+      Assert.assertTrue(write.isDone());
+      Assert.assertEquals(Long.valueOf(1), count);
+      Assert.assertTrue("query waited " + elapsed + "ms for the group", elapsed < 5000);
+   }
+
+   @Test
+   public void testPoisonPillEndsGroup() throws Exception {
+      File file = createGroupCommitFile("testPoisonPillEndsGroup");
+      Db db = openGroupCommitDb(file, 60000, 64);
+      db.execute("CREATE TABLE grp (key INTEGER PRIMARY KEY, value TEXT)");
+
+      Future<?> write = db.asyncExecute("INSERT INTO grp (key,value) VALUES (?,?)", 1, "value");
+      groupCommitDbs.remove(db);
+      db.kill();
+      write.get(5, TimeUnit.SECONDS);
+
+      Db reopened = openGroupCommitDb(file, 1000, 64);
+      Assert.assertEquals(Long.valueOf(1), reopened.querySingleColumn(Long.class, "SELECT COUNT(*) FROM grp"));
+   }
+
+   @Test
+   public void testStatementCacheReusesStatements() throws Exception {
+      SQLiteConnection conn = new SQLiteConnection();
+      conn.open(true);
+      try {
+         DbStatementCache cache = new DbStatementCache(conn, 2);
+         SQLiteStatement stmt = cache.acquire("SELECT ?");
+         stmt.bind(1, 5);
+         Assert.assertTrue(stmt.step());
+
+         // a nested use of the same sql gets its own statement
+         SQLiteStatement nested = cache.acquire("SELECT ?");
+         Assert.assertNotSame(stmt, nested);
+         cache.release("SELECT ?", nested);
+         cache.release("SELECT ?", stmt);
+         Assert.assertTrue(nested.isDisposed());
+
+         SQLiteStatement reused = cache.acquire("SELECT ?");
+         Assert.assertSame(stmt, reused);
+         Assert.assertFalse(reused.hasStepped());
+         Assert.assertFalse(reused.hasBindings());
+         cache.release("SELECT ?", reused);
+         cache.clear();
+         Assert.assertTrue(reused.isDisposed());
+      } finally {
+         conn.dispose();
+      }
+   }
+
+   @Test
+   public void testStatementCacheEvictsLeastRecentlyUsed() throws Exception {
+      SQLiteConnection conn = new SQLiteConnection();
+      conn.open(true);
+      try {
+         DbStatementCache cache = new DbStatementCache(conn, 2);
+         SQLiteStatement first = cacheStatement(cache, "SELECT 1");
+         SQLiteStatement second = cacheStatement(cache, "SELECT 2");
+
+         // using the first statement again makes the second the eldest
+         Assert.assertSame(first, cacheStatement(cache, "SELECT 1"));
+         SQLiteStatement third = cacheStatement(cache, "SELECT 3");
+
+         Assert.assertFalse(first.isDisposed());
+         Assert.assertTrue(second.isDisposed());
+         Assert.assertFalse(third.isDisposed());
+         Assert.assertNotSame(second, cacheStatement(cache, "SELECT 2"));
+         Assert.assertTrue(first.isDisposed());
+      } finally {
+         conn.dispose();
+      }
+   }
+
+   @Test
+   public void testDisabledStatementCacheDisposesStatements() throws Exception {
+      SQLiteConnection conn = new SQLiteConnection();
+      conn.open(true);
+      try {
+         DbStatementCache cache = new DbStatementCache(conn, 0);
+         SQLiteStatement stmt = cacheStatement(cache, "SELECT 1");
+         Assert.assertTrue(stmt.isDisposed());
+      } finally {
+         conn.dispose();
+      }
+   }
+
+   private File createGroupCommitFile(String name) throws Exception {
+      File file = File.createTempFile(name, ".db");
+      file.deleteOnExit();
+      return file;
+   }
+
+   private Db openGroupCommitDb(File file, long groupCommitMs, int groupCommitMax) {
+      Db db = new Db(file.getName(), file, 1, -1, groupCommitMs, groupCommitMax, 32);
+      db.start(groupCommitWorkers, null);
+      groupCommitDbs.add(db);
+      return db;
+   }
+
+   private static void assertFailed(Future<?> write) throws Exception {
+      try {
+         write.get(10, TimeUnit.SECONDS);
+         Assert.fail("write should have failed");
+      } catch (ExecutionException ex) {
+         // expected
+      }
+   }
+
+   private static SQLiteStatement cacheStatement(DbStatementCache cache, String sql) throws Exception {
+      SQLiteStatement stmt = cache.acquire(sql);
+      stmt.step();
+      cache.release(sql, stmt);
+      return stmt;
+   }
+
    private void createAndFill(boolean inmemory) {
       final String TABLE = "testCreateAndFillDb";
       final int NUM = 100000;
@@ -250,6 +454,29 @@ public class TestDbService extends SystemTestCase {
       }
    }
 
+   private static final class GroupCheckingBinder implements DbBinder<Integer> {
+      private final List<Future<?>> writes;
+      private volatile int bound;
+      private volatile boolean autoCommit;
+      private volatile boolean completedEarly;
+
+      private GroupCheckingBinder(List<Future<?>> writes) {
+         this.writes = writes;
+      }
+
+      @Override
+      public void bind(SQLiteConnection conn, SQLiteStatement stmt, Integer value) throws Exception {
+         bound++;
+         autoCommit |= conn.getAutoCommit();
+         for (Future<?> write : writes) {
+            completedEarly |= write.isDone();
+         }
+
+         stmt.bind(1, value);
+         stmt.bind(2, "value" + value);
+      }
+   }
+
    private static enum TestPojoBinder implements DbBinder<TestPojo> {
       INSTANCE;
 
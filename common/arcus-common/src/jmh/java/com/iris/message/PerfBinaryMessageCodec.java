@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.message;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.Resources;
+import com.iris.io.Deserializer;
+import com.iris.io.Serializer;
+import com.iris.io.binary.BinaryPlatformMessageDeserializer;
+import com.iris.io.binary.BinaryPlatformMessageSerializer;
+import com.iris.io.json.JSON;
+import com.iris.messages.PlatformMessage;
+
+/**
+ * Compares the JSON and binary platform message codecs over the recorded messages
+ * in platform-messages.jsonl, run with {@code -prof gc} to report the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PerfBinaryMessageCodec {
+
+   @Benchmark
+   public byte[] perfEncodeJson(TestSetup test) {
+      return test.jsonSerializer.serialize(test.message);
+   }
+
+   @Benchmark
+   public byte[] perfEncodeBinary(TestSetup test) {
+      return test.binarySerializer.serialize(test.message);
+   }
+
+   @Benchmark
+   public Object perfDecodeJson(TestSetup test) {
+      return test.jsonDeserializer.deserialize(test.json).getValue();
+   }
+
+   @Benchmark
+   public Object perfDecodeBinary(TestSetup test) {
+      return test.binaryDeserializer.deserialize(test.binary).getValue();
+   }
+
+   @State(Scope.Benchmark)
+   public static class TestSetup {
+      @Param({ "0", "1", "2", "3", "4", "5", "6", "7" })
+      int index;
+
+      Serializer<PlatformMessage> jsonSerializer;
+      Deserializer<PlatformMessage> jsonDeserializer;
+      Serializer<PlatformMessage> binarySerializer;
+      Deserializer<PlatformMessage> binaryDeserializer;
+
+      PlatformMessage message;
+      byte[] json;
+      byte[] binary;
+
+      @Setup
+      public void setup() throws IOException {
+         jsonSerializer = JSON.createSerializer(PlatformMessage.class);
+         jsonDeserializer = JSON.createDeserializer(PlatformMessage.class);
+         binarySerializer = new BinaryPlatformMessageSerializer();
+         binaryDeserializer = new BinaryPlatformMessageDeserializer(jsonDeserializer);
+
+         List<String> recorded = Resources.readLines(Resources.getResource(PerfBinaryMessageCodec.class, "platform-messages.jsonl"), StandardCharsets.UTF_8);
+         message = jsonDeserializer.deserialize(recorded.get(index).getBytes(StandardCharsets.UTF_8));
+         json = jsonSerializer.serialize(message);
+         binary = binarySerializer.serialize(message);
+      }
+   }
+}
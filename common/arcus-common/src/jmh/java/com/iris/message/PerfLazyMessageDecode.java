@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.message;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.iris.io.Deserializer;
+import com.iris.io.json.JSON;
+import com.iris.io.json.gson.LazyPlatformMessageDeserializer;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+
+/**
+ * Compares the eager and header-first deserializers for the path where
+ * a topic filter only looks at the envelope and then drops the message,
+ * as well as the path where the payload is consumed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PerfLazyMessageDecode {
+
+   @Benchmark
+   public boolean perfDropEager(TestSetup test) {
+      return test.accept(test.eager.deserialize(test.bytes));
+   }
+
+   @Benchmark
+   public boolean perfDropLazy(TestSetup test) {
+      return test.accept(test.lazy.deserialize(test.bytes));
+   }
+
+   @Benchmark
+   public MessageBody perfDeliverEager(TestSetup test) {
+      return test.eager.deserialize(test.bytes).getValue();
+   }
+
+   @Benchmark
+   public MessageBody perfDeliverLazy(TestSetup test) {
+      return test.lazy.deserialize(test.bytes).getValue();
+   }
+
+   @State(Scope.Benchmark)
+   public static class TestSetup {
+      Deserializer<PlatformMessage> eager;
+      Deserializer<PlatformMessage> lazy;
+      String placeId;
+      byte[] bytes;
+
+      @Setup
+      public void setup() {
+         eager = JSON.createDeserializer(PlatformMessage.class);
+         lazy = new LazyPlatformMessageDeserializer(eager);
+         placeId = UUID.randomUUID().toString();
+
+         // shaped like a busy base:ValueChange from a hub device
+         Map<String,Object> attrs = ImmutableMap.<String,Object>builder()
+            .put("devpow:source", "BATTERY")
+            .put("devpow:battery", 87)
+            .put("temp:temperature", 21.5D)
+            .put("humid:humidity", 41.0D)
+            .put("devconn:signal", 72)
+            .put("devconn:lastchange", System.currentTimeMillis())
+            .put("base:tags", ImmutableList.of("kitchen", "upstairs"))
+            .build();
+
+         PlatformMessage message =
+            PlatformMessage
+               .buildEvent(MessageBody.buildMessage("base:ValueChange", attrs), Address.hubDriverAddress("ABC-1234", UUID.randomUUID()))
+               .withPlaceId(UUID.randomUUID())
+               .withPopulation("general")
+               .create();
+         bytes = JSON.createSerializer(PlatformMessage.class).serialize(message);
+      }
+
+      boolean accept(PlatformMessage message) {
+         return !message.isExpired(60000) && placeId.equals(message.getPlaceId());
+      }
+   }
+}
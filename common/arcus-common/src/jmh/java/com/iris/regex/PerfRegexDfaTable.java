@@ -0,0 +1,234 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.regex;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.primitives.Bytes;
+
+/**
+ * Compares the matchers for reflex DFAs.  The regexes are in the form generated
+ * by the zwave and zigbee reflex match processors, including the trailing
+ * wildcard added by ReflexDriverDefinition, and each invocation matches a mix
+ * of matching and non-matching protocol messages.
+ *
+ * RegexDfaVm can only address 16K instructions and has no wildcard instruction,
+ * so the larger sets can't be lowered into it and that benchmark fails for them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PerfRegexDfaTable {
+   @Benchmark
+   public void table(TestSetup test, Blackhole bh) {
+      for (byte[] message : test.messages) {
+         bh.consume(test.table.matching(message));
+      }
+   }
+
+   @Benchmark
+   public void dfabyte(TestSetup test, Blackhole bh) {
+      for (byte[] message : test.messages) {
+         bh.consume(test.dfabyte.matching(message));
+      }
+   }
+
+   @Benchmark
+   public void vm(TestSetup test, Blackhole bh) {
+      if (test.vm == null) {
+         throw new UnsupportedOperationException("dfa is too large for RegexDfaVm");
+      }
+
+      for (byte[] message : test.messages) {
+         bh.consume(test.vm.matches(message));
+      }
+   }
+
+   @Benchmark
+   public void nfa(TestSetup test, Blackhole bh) {
+      for (List<Byte> message : test.boxed) {
+         bh.consume(test.nfa.matching(message));
+      }
+   }
+
+   public static void main(String[] args) throws Exception {
+      Options opt = new OptionsBuilder()
+         .include(PerfRegexDfaTable.class.getSimpleName())
+         .build();
+
+      new Runner(opt).run();
+   }
+
+   @State(Scope.Benchmark)
+   public static class TestSetup {
+      @Param({"switch", "dimmer", "sensor"})
+      String driver;
+
+      List<byte[]> messages;
+      List<List<Byte>> boxed;
+      RegexNfa<Byte,String> nfa;
+      RegexDfaByte<List<String>> dfabyte;
+      RegexDfaTable<List<String>> table;
+      RegexDfaVm<List<String>> vm;
+
+      @Setup
+      public void setup() {
+         List<RegexNfa<Byte,String>> all = new ArrayList<>();
+         for (String regex : regexes(driver)) {
+            all.add(Regex.parseByteRegex(regex + " .*", regex));
+         }
+
+         nfa = RegexNfa.append(all);
+         dfabyte = RegexUtil.dfaToByteRep(RegexUtil.dfaMinimize(RegexUtil.nfaConvertToDfa(nfa)));
+         table = RegexDfaTable.compile(dfabyte);
+         try {
+            vm = toVm(dfabyte);
+         } catch (IllegalStateException ex) {
+            vm = null;
+         }
+
+         Random random = new Random(7);
+         messages = new ArrayList<>();
+         boxed = new ArrayList<>();
+         for (int i = 0; i < 64; ++i) {
+            byte[] message = new byte[12 + random.nextInt(20)];
+            random.nextBytes(message);
+            if ((i & 1) == 0) {
+               // zwave command header followed by a command class this driver may match
+               message[0] = 0x00;
+               message[6] = (byte)(0x20 + random.nextInt(8));
+               message[7] = 0x03;
+               message[8] = random.nextBoolean() ? 0x00 : (byte)0xFF;
+            }
+
+            messages.add(message);
+            boxed.add(Bytes.asList(message));
+         }
+      }
+
+      private static List<String> regexes(String driver) {
+         List<String> regexes = new ArrayList<>();
+         switch (driver) {
+         case "switch":
+            regexes.add("00 . . . . . 20 03 ff");
+            regexes.add("00 . . . . . 20 03 00");
+            regexes.add("00 . . . . . 25 03 ff");
+            regexes.add("00 . . . . . 25 03 00");
+            break;
+
+         case "dimmer":
+            regexes.add("00 . . . . . 20 03 ff");
+            regexes.add("00 . . . . . 20 03 00");
+            regexes.add("00 . . . . . 26 03 .");
+            regexes.add("00 . . . . . 26 03 00");
+            regexes.add("00 . . . . . 26 03 ff");
+            regexes.add("00 . . . . . 27 03 . .");
+            regexes.add("00 . . . . . 5b 03 . 00 (01|02)");
+            break;
+
+         case "sensor":
+            regexes.add("00 . . . . . 20 01 ff");
+            regexes.add("00 . . . . . 20 01 00");
+            regexes.add("00 . . . . . 30 03 ff");
+            regexes.add("00 . . . . . 30 03 00");
+            regexes.add("00 . . . . . 71 05 . . . . 07 (00|02|03|08)");
+            regexes.add("00 . . . . . 80 03 .");
+            regexes.add("00 . . . . . 84 07");
+            regexes.add("01 . . . . 00 05 00 . . 0a 02 00 30 .");
+            regexes.add("01 . . . . 00 01 00 . . 0a 20 00 20 .");
+            break;
+
+         default:
+            throw new IllegalArgumentException("unknown driver: " + driver);
+         }
+
+         return regexes;
+      }
+
+      /**
+       * Lowers the dfa into the vm, each state is a chain of splits with one
+       * branch per symbol that the state has a transition on.
+       */
+      private static RegexDfaVm<List<String>> toVm(RegexDfaByte<List<String>> dfa) {
+         RegexDfaVm.Builder<List<String>> bld = RegexDfaVm.builder();
+         Map<RegexDfaByte.State<List<String>>,RegexDfaVm.BasicBlock<List<String>>> blocks = new IdentityHashMap<>();
+
+         // the initial state must be placed at the start of the program
+         blocks.put(dfa.getInitialState(), bld.block());
+         for (RegexDfaByte.State<List<String>> state : dfa.getStates()) {
+            if (!blocks.containsKey(state)) {
+               blocks.put(state, bld.block());
+            }
+         }
+
+         for (Map.Entry<RegexDfaByte.State<List<String>>,RegexDfaVm.BasicBlock<List<String>>> entry : blocks.entrySet()) {
+            RegexDfaByte.State<List<String>> state = entry.getKey();
+            List<RegexDfaVm.BasicBlock<List<String>>> branches = new ArrayList<>();
+            if (state.isFinalState()) {
+               RegexDfaVm.BasicBlock<List<String>> match = bld.block();
+               match.match();
+               branches.add(match);
+            }
+
+            for (int sym = 0; sym < 256; ++sym) {
+               RegexDfaByte.State<List<String>> next = state.getTransitions().get((byte)sym);
+               if (next != null) {
+                  RegexDfaVm.BasicBlock<List<String>> consume = bld.block();
+                  consume.consume((byte)sym).jump(blocks.get(next));
+                  branches.add(consume);
+               }
+            }
+
+            RegexDfaVm.BasicBlock<List<String>> current = entry.getValue();
+            for (int i = 0; i < branches.size() - 1; ++i) {
+               RegexDfaVm.BasicBlock<List<String>> rest = (i == branches.size() - 2) ? branches.get(i + 1) : bld.block();
+               current.split(branches.get(i), rest);
+               current = rest;
+            }
+
+            if (branches.size() == 1) {
+               current.jump(branches.get(0));
+            }
+         }
+
+         return bld.build();
+      }
+   }
+}
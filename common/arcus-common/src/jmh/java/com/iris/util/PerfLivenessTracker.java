@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares a timeout check using {@link LivenessTracker} with the full scan
+ * of a {@link ConcurrentHashMap} the hub and ipcd registries used to do.
+ * 
+ * All the entries are continually heartbeating, so nothing expires and
+ * the cost is purely the bookkeeping.  Each check advances the clock by the
+ * given interval, the registries default to a 30 second check interval and
+ * a 10 minute timeout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class PerfLivenessTracker {
+   private static final long TIMEOUT_MS = TimeUnit.MINUTES.toMillis(10);
+
+   @Benchmark
+   public List<Entry> measureTrackerExpire(TrackerSetup test) {
+      test.advance();
+      return test.tracker.expire(test.now);
+   }
+
+   @Benchmark
+   public int measureFullScanExpire(ScanSetup test) {
+      test.advance();
+      long expirationTime = test.now - TIMEOUT_MS;
+      int expired = 0;
+      for(Entry e: test.entries.values()) {
+         if(e.lastSeen(test.now) < expirationTime && test.entries.remove(e.id, e)) {
+            expired++;
+         }
+      }
+      return expired;
+   }
+
+   @Benchmark
+   public Entry measureTrackerHeartbeat(TrackerSetup test) {
+      String id = test.ids[test.random.nextInt(test.ids.length)];
+      return test.tracker.computeIfAbsent(id, (k) -> new Entry(k, 0), test.now);
+   }
+
+   @Benchmark
+   public Entry measureMapHeartbeat(ScanSetup test) {
+      String id = test.ids[test.random.nextInt(test.ids.length)];
+      return test.entries.computeIfAbsent(id, (k) -> new Entry(k, 0));
+   }
+
+   public static void main(String[] args) throws Exception {
+      Options opt = new OptionsBuilder()
+         .include(PerfLivenessTracker.class.getSimpleName())
+         .build();
+
+      new Runner(opt).run();
+   }
+
+   public static class Entry {
+      final String id;
+      // how far behind the clock the last heartbeat was
+      final long lag;
+
+      Entry(String id, long lag) {
+         this.id = id;
+         this.lag = lag;
+      }
+
+      long lastSeen(long now) {
+         return now - lag;
+      }
+   }
+
+   @State(Scope.Benchmark)
+   public static abstract class BaseSetup {
+      @Param({"1000000"})
+      int size;
+
+      @Param({"1000", "30000"})
+      long checkIntervalMs;
+
+      long now = System.currentTimeMillis();
+      String[] ids;
+      Random random = new Random();
+
+      void advance() {
+         now += checkIntervalMs;
+      }
+
+      void populate(Map<String, Entry> into) {
+         ids = new String[size];
+         for(int i = 0; i < size; i++) {
+            ids[i] = "IPCD:" + i;
+            into.put(ids[i], new Entry(ids[i], random.nextInt((int) TIMEOUT_MS / 2)));
+         }
+      }
+   }
+
+   @State(Scope.Benchmark)
+   public static class TrackerSetup extends BaseSetup {
+      LivenessTracker<String, Entry> tracker;
+
+      @Setup
+      public void setup() {
+         tracker = new LivenessTracker<>(TIMEOUT_MS, (e) -> e.lastSeen(now));
+         Map<String, Entry> entries = new ConcurrentHashMap<>();
+         populate(entries);
+         for(Entry e: entries.values()) {
+            tracker.putIfAbsent(e.id, e, now);
+         }
+      }
+   }
+
+   @State(Scope.Benchmark)
+   public static class ScanSetup extends BaseSetup {
+      Map<String, Entry> entries;
+
+      @Setup
+      public void setup() {
+         entries = new ConcurrentHashMap<>();
+         populate(entries);
+      }
+   }
+}
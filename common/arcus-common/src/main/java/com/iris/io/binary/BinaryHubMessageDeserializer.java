@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import static com.iris.io.binary.BinaryHubMessageSerializer.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.google.common.io.ByteStreams;
+import com.iris.io.Deserializer;
+import com.iris.messages.HubMessage;
+
+/**
+ * Reads {@link HubMessage}s written by {@link BinaryHubMessageSerializer}.
+ * Any other input is handed to the fallback deserializer so that both
+ * framings can be accepted on the same connection.
+ */
+public class BinaryHubMessageDeserializer implements Deserializer<HubMessage> {
+   private static final byte[] EMPTY_BUFFER = new byte[0];
+
+   private final Deserializer<HubMessage> fallback;
+
+   public BinaryHubMessageDeserializer(Deserializer<HubMessage> fallback) {
+      this.fallback = fallback;
+   }
+
+   @Override
+   public HubMessage deserialize(byte[] input) throws IllegalArgumentException {
+      if(!isBinary(input)) {
+         return fallback.deserialize(input);
+      }
+      return deserialize(input, 0, input.length);
+   }
+
+   @Override
+   public HubMessage deserialize(InputStream input) throws IOException, IllegalArgumentException {
+      return deserialize(ByteStreams.toByteArray(input));
+   }
+
+   /**
+    * Reads a binary frame from a region of {@code input}, this does not
+    * fall back to JSON.
+    */
+   public HubMessage deserialize(byte[] input, int offset, int length) throws IllegalArgumentException {
+      if(length < HEADER_LENGTH) {
+         throw new IllegalArgumentException("Hub frame is too short [" + length + "]");
+      }
+      HubMessage.Type type = type(input[offset]);
+      int payloadLength =
+            ((input[offset + 1] & 0xFF) << 24) |
+            ((input[offset + 2] & 0xFF) << 16) |
+            ((input[offset + 3] & 0xFF) << 8) |
+            (input[offset + 4] & 0xFF);
+      if(payloadLength < 0 || payloadLength > length - HEADER_LENGTH) {
+         throw new IllegalArgumentException("Invalid hub frame payload length [" + payloadLength + "]");
+      }
+      byte[] payload =
+            payloadLength == 0 ?
+                  EMPTY_BUFFER :
+                  Arrays.copyOfRange(input, offset + HEADER_LENGTH, offset + HEADER_LENGTH + payloadLength);
+      return HubMessage.create(type, payload);
+   }
+
+}
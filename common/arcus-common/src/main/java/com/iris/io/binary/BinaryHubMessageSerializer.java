@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.iris.io.Serializer;
+import com.iris.messages.HubMessage;
+
+/**
+ * Length prefixed binary framing of a {@link HubMessage}.  The JSON framing
+ * written by {@link com.iris.io.json.gson.HubMessageTypeAdapter} base64
+ * encodes the payload inside another JSON object, this writes it as is:
+ * <pre>
+ * type     1 byte   {@link #typeCode(HubMessage.Type)}
+ * length   4 bytes  big-endian
+ * payload  length bytes
+ * </pre>
+ * None of the type codes are a valid first byte for JSON, so
+ * {@link BinaryHubMessageDeserializer} can accept either format.
+ *
+ * The binary framing is negotiated per connection: the hub sends
+ * {@link #HEADER_FRAMING} on the websocket upgrade request, hub-bridge only
+ * writes binary frames to hubs that sent it, and the hub only switches to
+ * binary after it has received a binary frame.  Either side talking to an
+ * older peer keeps using JSON.
+ */
+public class BinaryHubMessageSerializer implements Serializer<HubMessage> {
+   public static final String HEADER_FRAMING = "X-Hub-Framing";
+   public static final String FRAMING_BINARY = "binary";
+
+   static final int TYPE_NONE     = 0;
+   static final int TYPE_PLATFORM = 1;
+   static final int TYPE_PROTOCOL = 2;
+   static final int TYPE_LOG      = 3;
+   static final int TYPE_METRICS  = 4;
+
+   static final int HEADER_LENGTH = 5;
+
+   /**
+    * Determines if the given frame was written by this serializer, assumes
+    * the frame is not empty.
+    */
+   public static boolean isBinary(int firstByte) {
+      return firstByte >= TYPE_NONE && firstByte <= TYPE_METRICS;
+   }
+
+   public static boolean isBinary(byte[] frame) {
+      return frame != null && frame.length >= HEADER_LENGTH && isBinary(frame[0]);
+   }
+
+   static int typeCode(HubMessage.Type type) {
+      if(type == null) {
+         return TYPE_NONE;
+      }
+      switch(type) {
+      case PLATFORM: return TYPE_PLATFORM;
+      case PROTOCOL: return TYPE_PROTOCOL;
+      case LOG:      return TYPE_LOG;
+      case METRICS:  return TYPE_METRICS;
+      default:
+         throw new IllegalArgumentException("Unsupported hub message type [" + type + "]");
+      }
+   }
+
+   static HubMessage.Type type(int code) {
+      switch(code) {
+      case TYPE_NONE:     return null;
+      case TYPE_PLATFORM: return HubMessage.Type.PLATFORM;
+      case TYPE_PROTOCOL: return HubMessage.Type.PROTOCOL;
+      case TYPE_LOG:      return HubMessage.Type.LOG;
+      case TYPE_METRICS:  return HubMessage.Type.METRICS;
+      default:
+         throw new IllegalArgumentException("Unsupported hub message type code [" + code + "]");
+      }
+   }
+
+   @Override
+   public byte[] serialize(HubMessage value) throws IllegalArgumentException {
+      byte[] payload = value.getPayload();
+      int length = payload != null ? payload.length : 0;
+      byte[] frame = new byte[HEADER_LENGTH + length];
+      writeHeader(frame, value.getType(), length);
+      if(length > 0) {
+         System.arraycopy(payload, 0, frame, HEADER_LENGTH, length);
+      }
+      return frame;
+   }
+
+   @Override
+   public void serialize(HubMessage value, OutputStream out) throws IOException, IllegalArgumentException {
+      byte[] payload = value.getPayload();
+      int length = payload != null ? payload.length : 0;
+      byte[] header = new byte[HEADER_LENGTH];
+      writeHeader(header, value.getType(), length);
+      out.write(header);
+      if(length > 0) {
+         out.write(payload);
+      }
+   }
+
+   private static void writeHeader(byte[] frame, HubMessage.Type type, int length) {
+      frame[0] = (byte) typeCode(type);
+      frame[1] = (byte) (length >>> 24);
+      frame[2] = (byte) (length >>> 16);
+      frame[3] = (byte) (length >>> 8);
+      frame[4] = (byte) length;
+   }
+
+}
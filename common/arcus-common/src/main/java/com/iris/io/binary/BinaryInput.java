@@ -0,0 +1,102 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Cursor over a byte array written by {@link BinaryOutput}.  Reading past
+ * the end of the array results in an {@link IllegalArgumentException}.
+ */
+final class BinaryInput {
+   private final byte[] buffer;
+   private int position;
+
+   BinaryInput(byte[] buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+   }
+
+   int position() {
+      return position;
+   }
+
+   int readByte() {
+      require(1);
+      return buffer[position++] & 0xFF;
+   }
+
+   void readBytes(byte[] dest, int offset, int length) {
+      require(length);
+      System.arraycopy(buffer, position, dest, offset, length);
+      position += length;
+   }
+
+   byte[] readBytes(int length) {
+      byte[] value = new byte[length];
+      readBytes(value, 0, length);
+      return value;
+   }
+
+   int readVarInt() {
+      long value = readVarLong();
+      if((value >>> 32) != 0) {
+         throw new IllegalArgumentException("Invalid variable length int at offset " + position);
+      }
+      return (int) value;
+   }
+
+   long readVarLong() {
+      long value = 0;
+      for(int shift = 0; shift < 64; shift += 7) {
+         int b = readByte();
+         value |= (long) (b & 0x7F) << shift;
+         if((b & 0x80) == 0) {
+            return value;
+         }
+      }
+      throw new IllegalArgumentException("Invalid variable length long at offset " + position);
+   }
+
+   long readZigZagLong() {
+      long value = readVarLong();
+      return (value >>> 1) ^ -(value & 1);
+   }
+
+   long readFixedLong() {
+      require(8);
+      long value = 0;
+      for(int i = 0; i < 8; i++) {
+         value = (value << 8) | (buffer[position++] & 0xFF);
+      }
+      return value;
+   }
+
+   String readString() {
+      int length = readVarInt();
+      require(length);
+      String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+   }
+
+   private void require(int length) {
+      if(length < 0 || position + length > buffer.length) {
+         throw new IllegalArgumentException("Unexpected end of message at offset " + position);
+      }
+   }
+
+}
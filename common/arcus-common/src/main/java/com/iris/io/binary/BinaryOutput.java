@@ -0,0 +1,84 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable output buffer used by the binary message codec.  All
+ * variable length integers are written as unsigned LEB128.
+ */
+final class BinaryOutput {
+   private byte[] buffer;
+   private int position;
+
+   BinaryOutput(int capacity) {
+      this.buffer = new byte[capacity];
+   }
+
+   void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) value;
+   }
+
+   void writeBytes(byte[] value, int offset, int length) {
+      ensureCapacity(length);
+      System.arraycopy(value, offset, buffer, position, length);
+      position += length;
+   }
+
+   void writeVarInt(int value) {
+      writeVarLong(value & 0xFFFFFFFFL);
+   }
+
+   void writeVarLong(long value) {
+      ensureCapacity(10);
+      while((value & ~0x7FL) != 0) {
+         buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+         value >>>= 7;
+      }
+      buffer[position++] = (byte) value;
+   }
+
+   void writeZigZagLong(long value) {
+      writeVarLong((value << 1) ^ (value >> 63));
+   }
+
+   void writeFixedLong(long value) {
+      ensureCapacity(8);
+      for(int shift = 56; shift >= 0; shift -= 8) {
+         buffer[position++] = (byte) (value >>> shift);
+      }
+   }
+
+   void writeString(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length);
+      writeBytes(bytes, 0, bytes.length);
+   }
+
+   byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+   }
+
+   private void ensureCapacity(int length) {
+      if(position + length > buffer.length) {
+         buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+      }
+   }
+
+}
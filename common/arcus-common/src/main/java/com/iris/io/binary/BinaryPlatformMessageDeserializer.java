@@ -0,0 +1,166 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import static com.iris.io.binary.BinaryPlatformMessageSerializer.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.iris.io.Deserializer;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+
+/**
+ * Reads {@link PlatformMessage}s written by {@link BinaryPlatformMessageSerializer}.
+ * Any input which does not start with {@link BinaryPlatformMessageSerializer#MAGIC}
+ * is handed to the fallback deserializer, this allows consumers to read both
+ * formats while producers are switched over during a rolling upgrade.
+ */
+public class BinaryPlatformMessageDeserializer implements Deserializer<PlatformMessage> {
+   private final Deserializer<PlatformMessage> fallback;
+   private final boolean lazyPayload;
+
+   public BinaryPlatformMessageDeserializer(Deserializer<PlatformMessage> fallback) {
+      this(fallback, false);
+   }
+
+   /**
+    * @param fallback
+    *    Used for any input that is not in the binary format.
+    * @param lazyPayload
+    *    When {@code true} the payload is not decoded until
+    *    {@link PlatformMessage#getValue()} is first invoked.
+    */
+   public BinaryPlatformMessageDeserializer(Deserializer<PlatformMessage> fallback, boolean lazyPayload) {
+      this.fallback = fallback;
+      this.lazyPayload = lazyPayload;
+   }
+
+   @Override
+   public PlatformMessage deserialize(byte[] input) throws IllegalArgumentException {
+      if(!isBinary(input)) {
+         return fallback.deserialize(input);
+      }
+      return read(input);
+   }
+
+   @Override
+   public PlatformMessage deserialize(InputStream input) throws IOException, IllegalArgumentException {
+      return deserialize(ByteStreams.toByteArray(input));
+   }
+
+   private PlatformMessage read(byte[] input) {
+      BinaryInput in = new BinaryInput(input, 1);
+      int version = in.readByte();
+      if(version != VERSION) {
+         throw new IllegalArgumentException("Unsupported binary message version [" + version + "]");
+      }
+
+      PlatformMessage.Builder bld = PlatformMessage.builder();
+      int flags = in.readByte();
+      bld
+         .isRequestMessage((flags & FLAG_REQUEST) != 0)
+         .withTimeToLive((int) in.readZigZagLong())
+         .withTimestamp(in.readVarLong());
+      if((flags & FLAG_CLIENT_TIME) != 0) {
+         bld.withClientTime(in.readVarLong());
+      }
+      bld.from(readAddress(in));
+      Address destination = readAddress(in);
+      if(destination != null) {
+         bld.to(destination);
+      }
+      if((flags & FLAG_ACTOR) != 0) {
+         bld.withActor(readAddress(in));
+      }
+      String type = in.readString();
+      if((flags & FLAG_CORRELATION) != 0) {
+         bld.withCorrelationId(in.readString());
+      }
+      if((flags & FLAG_PLACE_UUID) != 0) {
+         bld.withPlaceId(new UUID(in.readFixedLong(), in.readFixedLong()));
+      }
+      else if((flags & FLAG_PLACE) != 0) {
+         bld.withPlaceId(in.readString());
+      }
+      if((flags & FLAG_POPULATION) != 0) {
+         bld.withPopulation(in.readString());
+      }
+
+      int payloadOffset = in.position();
+      int kind = in.readByte();
+      switch(kind) {
+      case PAYLOAD_BODY:
+      case PAYLOAD_TYPED_BODY:
+         if(lazyPayload) {
+            bld.withLazyPayload(type, () -> readBody(new BinaryInput(input, payloadOffset + 1), kind, type));
+         }
+         else {
+            bld.withPayload(readBody(in, kind, type));
+         }
+         return bld.create();
+      case PAYLOAD_BUFFER:
+         bld.withPayload(type, in.readBytes(in.readVarInt()));
+         return bld.create();
+      case PAYLOAD_NONE:
+         return bld.createExpired(type);
+      default:
+         throw new IllegalArgumentException("Unrecognized payload kind [" + kind + "]");
+      }
+   }
+
+   private static MessageBody readBody(BinaryInput in, int kind, String type) {
+      String bodyType = kind == PAYLOAD_TYPED_BODY ? in.readString() : type;
+      int size = in.readVarInt();
+      ImmutableMap.Builder<String, Object> attributes = ImmutableMap.builder();
+      for(int i = 0; i < size; i++) {
+         String name = in.readString();
+         Object value = BinaryValues.read(in);
+         if(value != null) {
+            attributes.put(name, value);
+         }
+      }
+      return MessageBody.buildMessage(bodyType, attributes.build());
+   }
+
+   private static Address readAddress(BinaryInput in) {
+      int kind = in.readByte();
+      switch(kind) {
+      case ADDRESS_NULL:
+         return null;
+      case ADDRESS_BROADCAST:
+         return Address.broadcastAddress();
+      case ADDRESS_BYTES:
+         int length = in.readVarInt();
+         if(length > Address.ADDRESS_LENGTH) {
+            throw new IllegalArgumentException("Invalid address length [" + length + "]");
+         }
+         byte[] bytes = new byte[Address.ADDRESS_LENGTH];
+         in.readBytes(bytes, 0, length);
+         return Address.fromBytes(bytes);
+      case ADDRESS_STRING:
+         return Address.fromString(in.readString());
+      default:
+         throw new IllegalArgumentException("Unrecognized address kind [" + kind + "]");
+      }
+   }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import com.google.common.collect.ImmutableSet;
+import com.iris.io.Serializer;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+import com.iris.messages.address.ClientAddress;
+import com.iris.messages.address.DeviceDriverAddress;
+import com.iris.messages.address.DeviceProtocolAddress;
+import com.iris.messages.address.HubAddress;
+import com.iris.messages.address.HubServiceAddress;
+import com.iris.messages.address.PlatformServiceAddress;
+import com.iris.messages.services.PlatformConstants;
+
+/**
+ * Compact, versioned binary encoding of a {@link PlatformMessage}.  The layout is:
+ * <pre>
+ * magic          1 byte  {@link #MAGIC}, never a valid first byte for JSON
+ * version        1 byte  {@link #VERSION}
+ * flags          1 byte  which optional headers are present
+ * ttl            zig-zag varint
+ * timestamp      varint
+ * [clientTime]   varint
+ * source         address
+ * destination    address
+ * [actor]        address
+ * type           string
+ * [correlation]  string
+ * [placeId]      16 bytes when it is a canonical UUID, otherwise a string
+ * [population]   string
+ * payload        1 byte kind followed by the body or raw buffer
+ * </pre>
+ * Addresses are written using their fixed width structural form with trailing
+ * padding trimmed, the payload is written last so that readers may stop after
+ * the envelope.  See {@link BinaryPlatformMessageDeserializer}.
+ */
+public class BinaryPlatformMessageSerializer implements Serializer<PlatformMessage> {
+   public static final byte MAGIC = (byte) 0xA9;
+   public static final byte VERSION = 1;
+
+   static final int FLAG_REQUEST      = 0x01;
+   static final int FLAG_CLIENT_TIME  = 0x02;
+   static final int FLAG_ACTOR        = 0x04;
+   static final int FLAG_CORRELATION  = 0x08;
+   static final int FLAG_PLACE        = 0x10;
+   static final int FLAG_PLACE_UUID   = 0x20;
+   static final int FLAG_POPULATION   = 0x40;
+
+   static final int ADDRESS_NULL      = 0;
+   static final int ADDRESS_BROADCAST = 1;
+   static final int ADDRESS_BYTES     = 2;
+   static final int ADDRESS_STRING    = 3;
+
+   static final int PAYLOAD_NONE      = 0;
+   static final int PAYLOAD_BODY      = 1;
+   static final int PAYLOAD_TYPED_BODY = 2;
+   static final int PAYLOAD_BUFFER    = 3;
+
+   private static final int INITIAL_CAPACITY = 256;
+   // services which Address always parses with a string context id
+   private static final Set<String> STRING_ID_SERVICES = ImmutableSet.of(
+         PlatformConstants.SERVICE_RULE_TMPL,
+         PlatformConstants.SERVICE_PRODUCT,
+         PlatformConstants.SERVICE_SCENE_TMPL
+   );
+
+   /**
+    * Determines if the given buffer was written by this serializer.
+    */
+   public static boolean isBinary(byte[] input) {
+      return input != null && input.length > 0 && input[0] == MAGIC;
+   }
+
+   @Override
+   public byte[] serialize(PlatformMessage value) throws IllegalArgumentException {
+      BinaryOutput out = new BinaryOutput(INITIAL_CAPACITY);
+      write(out, value);
+      return out.toByteArray();
+   }
+
+   @Override
+   public void serialize(PlatformMessage value, OutputStream out) throws IOException, IllegalArgumentException {
+      out.write(serialize(value));
+   }
+
+   private void write(BinaryOutput out, PlatformMessage value) {
+      Date clientTime = value.getClientTime();
+      Address actor = value.getActor();
+      String correlationId = value.getCorrelationId();
+      String placeId = value.getPlaceId();
+      String population = value.getPopulation();
+      UUID placeUuid = toCanonicalUuid(placeId);
+
+      int flags = 0;
+      if(value.isRequest()) {
+         flags |= FLAG_REQUEST;
+      }
+      if(clientTime != null) {
+         flags |= FLAG_CLIENT_TIME;
+      }
+      if(actor != null) {
+         flags |= FLAG_ACTOR;
+      }
+      if(correlationId != null) {
+         flags |= FLAG_CORRELATION;
+      }
+      if(placeId != null) {
+         flags |= placeUuid != null ? FLAG_PLACE | FLAG_PLACE_UUID : FLAG_PLACE;
+      }
+      if(population != null) {
+         flags |= FLAG_POPULATION;
+      }
+
+      out.writeByte(MAGIC);
+      out.writeByte(VERSION);
+      out.writeByte(flags);
+      out.writeZigZagLong(value.getTimeToLive());
+      out.writeVarLong(value.getTimestamp().getTime());
+      if(clientTime != null) {
+         out.writeVarLong(clientTime.getTime());
+      }
+      writeAddress(out, value.getSource());
+      writeAddress(out, value.getDestination());
+      if(actor != null) {
+         writeAddress(out, actor);
+      }
+      out.writeString(value.getMessageType());
+      if(correlationId != null) {
+         out.writeString(correlationId);
+      }
+      if(placeUuid != null) {
+         out.writeFixedLong(placeUuid.getMostSignificantBits());
+         out.writeFixedLong(placeUuid.getLeastSignificantBits());
+      }
+      else if(placeId != null) {
+         out.writeString(placeId);
+      }
+      if(population != null) {
+         out.writeString(population);
+      }
+      writePayload(out, value);
+   }
+
+   private static void writePayload(BinaryOutput out, PlatformMessage value) {
+      MessageBody body = value.getValue();
+      if(body != null) {
+         if(value.getMessageType().equals(body.getMessageType())) {
+            out.writeByte(PAYLOAD_BODY);
+         }
+         else {
+            out.writeByte(PAYLOAD_TYPED_BODY);
+            out.writeString(body.getMessageType());
+         }
+         Map<String, Object> attributes = body.getAttributes();
+         int size = 0;
+         for(Object attribute: attributes.values()) {
+            if(attribute != null) {
+               size++;
+            }
+         }
+         out.writeVarInt(size);
+         // null attributes are dropped by the json codec as well
+         for(Map.Entry<String, Object> e: attributes.entrySet()) {
+            if(e.getValue() != null) {
+               out.writeString(e.getKey());
+               BinaryValues.write(out, e.getValue());
+            }
+         }
+         return;
+      }
+
+      byte[] buffer = value.getBuffer();
+      if(buffer == null || buffer.length == 0) {
+         out.writeByte(PAYLOAD_NONE);
+      }
+      else {
+         out.writeByte(PAYLOAD_BUFFER);
+         out.writeVarInt(buffer.length);
+         out.writeBytes(buffer, 0, buffer.length);
+      }
+   }
+
+   static void writeAddress(BinaryOutput out, Address address) {
+      if(address == null) {
+         out.writeByte(ADDRESS_NULL);
+      }
+      else if(address.isBroadcast()) {
+         out.writeByte(ADDRESS_BROADCAST);
+      }
+      else if(isStructural(address)) {
+         byte[] bytes = address.getBytes();
+         int length = bytes.length;
+         while(length > Address.NAMESPACE_LENGTH && bytes[length - 1] == 0) {
+            length--;
+         }
+         out.writeByte(ADDRESS_BYTES);
+         out.writeVarInt(length);
+         out.writeBytes(bytes, 0, length);
+      }
+      else {
+         out.writeByte(ADDRESS_STRING);
+         out.writeString(address.getRepresentation());
+      }
+   }
+
+   /**
+    * Only addresses whose fixed width form is known to round trip through
+    * {@link Address#fromBytes(byte[])} are written structurally.
+    */
+   private static boolean isStructural(Address address) {
+      if(
+            address instanceof DeviceDriverAddress ||
+            address instanceof HubAddress ||
+            address instanceof HubServiceAddress ||
+            address instanceof ClientAddress ||
+            address instanceof DeviceProtocolAddress
+      ) {
+         return true;
+      }
+      if(address instanceof PlatformServiceAddress) {
+         PlatformServiceAddress service = (PlatformServiceAddress) address;
+         Integer qualifier = service.getContextQualifier();
+         return
+               service.getContextId() instanceof UUID &&
+               (qualifier == null || qualifier != 0) &&
+               !STRING_ID_SERVICES.contains(service.getServiceName());
+      }
+      return false;
+   }
+
+   private static UUID toCanonicalUuid(String value) {
+      if(value == null || value.length() != 36) {
+         return null;
+      }
+      try {
+         UUID uuid = UUID.fromString(value);
+         return uuid.toString().equals(value) ? uuid : null;
+      }
+      catch(IllegalArgumentException e) {
+         return null;
+      }
+   }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.iris.io.json.JSON;
+
+/**
+ * Self-describing encoding for attribute values.  Decoded values always match
+ * what the JSON codec would have produced for the same input: integral numbers
+ * and dates become {@link Long}, floating point numbers become {@link Double},
+ * collections become {@link List}s and maps become {@link Map}s.  Anything that
+ * doesn't map directly onto one of these types is embedded as JSON so the
+ * results can never diverge.
+ */
+final class BinaryValues {
+   static final int TAG_NULL   = 0;
+   static final int TAG_FALSE  = 1;
+   static final int TAG_TRUE   = 2;
+   static final int TAG_LONG   = 3;
+   static final int TAG_DOUBLE = 4;
+   static final int TAG_STRING = 5;
+   static final int TAG_LIST   = 6;
+   static final int TAG_MAP    = 7;
+   static final int TAG_JSON   = 8;
+
+   private BinaryValues() {
+   }
+
+   static void write(BinaryOutput out, Object value) {
+      if(value == null) {
+         out.writeByte(TAG_NULL);
+      }
+      else if(value instanceof String) {
+         out.writeByte(TAG_STRING);
+         out.writeString((String) value);
+      }
+      else if(value instanceof Boolean) {
+         out.writeByte(((Boolean) value) ? TAG_TRUE : TAG_FALSE);
+      }
+      else if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+         out.writeByte(TAG_LONG);
+         out.writeZigZagLong(((Number) value).longValue());
+      }
+      else if(value instanceof Double && isFinite((Double) value)) {
+         out.writeByte(TAG_DOUBLE);
+         out.writeFixedLong(Double.doubleToLongBits((Double) value));
+      }
+      else if(value instanceof Float && isFinite(((Float) value).doubleValue())) {
+         // json writes Float.toString() which is then read back as a double
+         out.writeByte(TAG_DOUBLE);
+         out.writeFixedLong(Double.doubleToLongBits(Double.parseDouble(value.toString())));
+      }
+      else if(value.getClass() == Date.class) {
+         out.writeByte(TAG_LONG);
+         out.writeZigZagLong(((Date) value).getTime());
+      }
+      else if(value instanceof Collection) {
+         Collection<?> collection = (Collection<?>) value;
+         out.writeByte(TAG_LIST);
+         out.writeVarInt(collection.size());
+         for(Object o: collection) {
+            write(out, o);
+         }
+      }
+      else if(value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+         Map<?, ?> map = (Map<?, ?>) value;
+         out.writeByte(TAG_MAP);
+         out.writeVarInt(map.size());
+         for(Map.Entry<?, ?> e: map.entrySet()) {
+            out.writeString((String) e.getKey());
+            write(out, e.getValue());
+         }
+      }
+      else {
+         out.writeByte(TAG_JSON);
+         out.writeString(JSON.toJson(value));
+      }
+   }
+
+   static Object read(BinaryInput in) {
+      int tag = in.readByte();
+      switch(tag) {
+      case TAG_NULL:
+         return null;
+      case TAG_FALSE:
+         return Boolean.FALSE;
+      case TAG_TRUE:
+         return Boolean.TRUE;
+      case TAG_LONG:
+         return in.readZigZagLong();
+      case TAG_DOUBLE:
+         return Double.longBitsToDouble(in.readFixedLong());
+      case TAG_STRING:
+         return in.readString();
+      case TAG_LIST:
+         int length = in.readVarInt();
+         List<Object> list = new ArrayList<>(Math.min(length, 64));
+         for(int i = 0; i < length; i++) {
+            list.add(read(in));
+         }
+         return list;
+      case TAG_MAP:
+         int size = in.readVarInt();
+         Map<String, Object> map = new LinkedHashMap<>();
+         for(int i = 0; i < size; i++) {
+            String key = in.readString();
+            map.put(key, read(in));
+         }
+         return map;
+      case TAG_JSON:
+         return JSON.fromJson(in.readString(), Object.class);
+      default:
+         throw new IllegalArgumentException("Unrecognized value tag [" + tag + "] at offset " + (in.position() - 1));
+      }
+   }
+
+   private static boolean isFinite(double value) {
+      return !Double.isNaN(value) && !Double.isInfinite(value);
+   }
+
+   private static boolean hasStringKeys(Map<?, ?> map) {
+      for(Object key: map.keySet()) {
+         if(!(key instanceof String)) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.json.gson;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.iris.io.Deserializer;
+import com.iris.io.json.JSON;
+import com.iris.messages.Message;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+
+/**
+ * Header-first deserializer for {@link PlatformMessage}s written by
+ * {@link MessageTypeAdapter}.  Only the envelope fields are parsed up front,
+ * the payload is decoded by the delegate the first time
+ * {@link PlatformMessage#getValue()} is invoked.  This allows consumers which
+ * filter on the envelope (expiration, place, destination) to drop messages
+ * without paying for payload deserialization.
+ *
+ * Because {@link MessageTypeAdapter#write} places the payload last, parsing
+ * normally stops as soon as the payload is reached.  Messages that have a
+ * non-object payload (raw base64 buffers) are passed straight to the delegate.
+ *
+ * Expiration is decided once, when the envelope is read, using the same rule
+ * as {@link MessageTypeAdapter}.  Expired messages are passed to the delegate
+ * so they are created exactly as the eager decoder would create them, and a
+ * message that was accepted always yields its payload, even if it expires
+ * before the payload is first accessed.
+ */
+public class LazyPlatformMessageDeserializer implements Deserializer<PlatformMessage> {
+   private static final int ENVELOPE_ATTRIBUTES = 11;
+
+   private final Deserializer<PlatformMessage> delegate;
+   private final long optimizeExpiredMessagesDefaultTtl;
+
+   public LazyPlatformMessageDeserializer(Deserializer<PlatformMessage> delegate) {
+      this(delegate, 0);
+   }
+
+   /**
+    * @param delegate
+    *    The eager deserializer used for expired and non-object payload messages
+    *    and to decode the payload
+    * @param optimizeExpiredMessagesDefaultTtl
+    *    Should match the {@code gson.serialize.optimize.expired.default.ttl} the delegate
+    *    was configured with, 0 disables the expired message optimization
+    */
+   public LazyPlatformMessageDeserializer(Deserializer<PlatformMessage> delegate, long optimizeExpiredMessagesDefaultTtl) {
+      this.delegate = delegate;
+      this.optimizeExpiredMessagesDefaultTtl = optimizeExpiredMessagesDefaultTtl;
+   }
+
+   @Override
+   public PlatformMessage deserialize(byte[] input) throws IllegalArgumentException {
+      try(JsonReader in = new JsonReader(new InputStreamReader(new ByteArrayInputStream(input), Charsets.UTF_8))) {
+         return read(in, input);
+      }
+      catch(IOException | IllegalStateException e) {
+         throw new IllegalArgumentException("Unable to deserialize message", e);
+      }
+   }
+
+   /**
+    * The payload may be decoded after this call returns, so the stream
+    * is fully buffered (but not closed) before the envelope is parsed.
+    */
+   @Override
+   public PlatformMessage deserialize(InputStream input) throws IOException, IllegalArgumentException {
+      return deserialize(ByteStreams.toByteArray(input));
+   }
+
+   private PlatformMessage read(JsonReader in, byte[] input) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+         return null;
+      }
+
+      PlatformMessage.Builder bld = PlatformMessage.builder();
+      String type = null;
+      Integer ttl = null;
+      Long ts = null;
+      boolean hasPayload = false;
+      int envelope = 0;
+
+      in.beginObject();
+      fields:
+      while (in.hasNext()) {
+         switch (in.nextName()) {
+         case MessageTypeAdapter.ATTR_TTL:
+            ttl = in.peek() != JsonToken.NULL ? in.nextInt() : nextNull(in, -1);
+            bld.withTimeToLive(ttl);
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_TIMESTAMP:
+            ts = in.peek() != JsonToken.NULL ? in.nextLong() : nextNull(in, System.currentTimeMillis());
+            bld.withTimestamp(ts);
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_SOURCE:
+            bld.from(nextAddress(in));
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_DESTINATION:
+            Address destination = nextAddress(in);
+            if (destination != null) {
+               bld.to(destination);
+            }
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_PAYLOAD_TYPE:
+            type = nextString(in);
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_ACTOR:
+            bld.withActor(nextAddress(in));
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_PLACEID:
+            bld.withPlaceId(nextString(in));
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_POPULATION:
+            bld.withPopulation(nextString(in));
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_CORRELATION_ID:
+            bld.withCorrelationId(nextString(in));
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_CLIENTTIME:
+            if (in.peek() != JsonToken.NULL) {
+               bld.withClientTime(in.nextLong());
+            } else {
+               in.nextNull();
+            }
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_ISREQUEST:
+            bld.isRequestMessage(in.peek() != JsonToken.NULL ? in.nextBoolean() : nextNull(in, false));
+            envelope++;
+            break;
+         case MessageTypeAdapter.ATTR_PAYLOAD:
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+               // raw buffers are rare and cheap to decode, leave them to the full parser
+               return delegate.deserialize(input);
+            }
+            hasPayload = true;
+            if (envelope >= ENVELOPE_ATTRIBUTES) {
+               // the payload is the last thing written, nothing left to read
+               break fields;
+            }
+            in.skipValue();
+            break;
+         default:
+            // ignore extra fields
+            in.skipValue();
+            break;
+         }
+      }
+
+      if (!hasPayload || isExpired(ttl, ts)) {
+         return delegate.deserialize(input);
+      }
+      return
+            bld
+               .withLazyPayload(type, () -> loadPayload(input))
+               .create();
+   }
+
+   private boolean isExpired(Integer ttl, Long ts) {
+      return
+            optimizeExpiredMessagesDefaultTtl != 0 &&
+            ttl != null &&
+            ts != null &&
+            Message.isExpired(optimizeExpiredMessagesDefaultTtl, System.currentTimeMillis(), ts, ttl);
+   }
+
+   private MessageBody loadPayload(byte[] input) {
+      MessageBody body = delegate.deserialize(input).getValue();
+      if (body != null) {
+         return body;
+      }
+
+      // the delegate drops the payload of a message that expired after the
+      // envelope was accepted, decode the payload on its own instead
+      try(JsonReader in = new JsonReader(new InputStreamReader(new ByteArrayInputStream(input), Charsets.UTF_8))) {
+         in.beginObject();
+         while (in.hasNext()) {
+            if (MessageTypeAdapter.ATTR_PAYLOAD.equals(in.nextName())) {
+               return JSON.fromJson(new JsonParser().parse(in).toString(), MessageBody.class);
+            }
+            in.skipValue();
+         }
+      }
+      catch(IOException | IllegalStateException e) {
+         throw new IllegalArgumentException("Unable to deserialize payload", e);
+      }
+      throw new IllegalArgumentException("Message has no payload");
+   }
+
+   private static Address nextAddress(JsonReader in) throws IOException {
+      String address = nextString(in);
+      return address != null ? Address.fromString(address) : null;
+   }
+
+   private static String nextString(JsonReader in) throws IOException {
+      if (in.peek() != JsonToken.NULL) {
+         return in.nextString();
+      }
+      in.nextNull();
+      return null;
+   }
+
+   private static <T> T nextNull(JsonReader in, T defaultValue) throws IOException {
+      in.nextNull();
+      return defaultValue;
+   }
+
+}
@@ -50,18 +50,18 @@ import com.iris.messages.address.Address;
 // }
 
 public class MessageTypeAdapter extends TypeAdapter<PlatformMessage> {
-   private static final String ATTR_SOURCE = "source";
-   private static final String ATTR_DESTINATION = "destination";
-   private static final String ATTR_CORRELATION_ID = "transactionId";
-   private static final String ATTR_PLACEID = "placeId";
-   private static final String ATTR_POPULATION = "population";
-   private static final String ATTR_ACTOR = "actor";
-   private static final String ATTR_PAYLOAD_TYPE = "type";
-   private static final String ATTR_ISREQUEST = "isRequest";
-   private static final String ATTR_PAYLOAD = "payload";
-   private static final String ATTR_CLIENTTIME = "clientTime";
-   private static final String ATTR_TIMESTAMP = "timestamp";
-   private static final String ATTR_TTL = "ttl";
+   static final String ATTR_SOURCE = "source";
+   static final String ATTR_DESTINATION = "destination";
+   static final String ATTR_CORRELATION_ID = "transactionId";
+   static final String ATTR_PLACEID = "placeId";
+   static final String ATTR_POPULATION = "population";
+   static final String ATTR_ACTOR = "actor";
+   static final String ATTR_PAYLOAD_TYPE = "type";
+   static final String ATTR_ISREQUEST = "isRequest";
+   static final String ATTR_PAYLOAD = "payload";
+   static final String ATTR_CLIENTTIME = "clientTime";
+   static final String ATTR_TIMESTAMP = "timestamp";
+   static final String ATTR_TTL = "ttl";
 
    private static final byte[] EMPTY_BUFFER = new byte[0];
    private final Gson gson;
@@ -15,7 +15,10 @@
  */
 package com.iris.messages;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
@@ -182,20 +185,47 @@ public class PlatformMessage extends Message {
       return LazyInitializer.DESERIALIZER;
    }
 
-   private final MessageBody value;
+   private volatile MessageBody value;
+   // non-null only until a lazily decoded payload has been loaded
+   private transient volatile Supplier<MessageBody> lazyValue;
 
    PlatformMessage(Builder builder) {
       super(builder, true);
       this.value = builder.value;
+      this.lazyValue = builder.value == null ? builder.lazyValue : null;
    }
 
    @Override
    public MessageBody getValue() {
+      MessageBody value = this.value;
+      if(value == null && lazyValue != null) {
+         value = loadValue();
+      }
       return value;
    }
 
+   /**
+    * Indicates whether the payload has been decoded yet, this
+    * will only ever return {@code false} for messages created
+    * with {@link Builder#withLazyPayload(String, Supplier)}.
+    * @return
+    */
+   public boolean isPayloadDecoded() {
+      return lazyValue == null;
+   }
+
+   private synchronized MessageBody loadValue() {
+      Supplier<MessageBody> loader = this.lazyValue;
+      if(loader != null) {
+         this.value = loader.get();
+         this.lazyValue = null;
+      }
+      return this.value;
+   }
+
    @Override
    public byte[] computeBuffer() {
+      MessageBody value = getValue();
       if (value == null) {
          return Utils.EMPTY_BYTE_ARRAY;
       }
@@ -203,6 +233,12 @@ public class PlatformMessage extends Message {
       return PlatformMessage.getSerializer(getMessageType()).serialize(value);
    }
 
+   private void writeObject(ObjectOutputStream out) throws IOException {
+      // make sure a lazy payload is materialized before it is written
+      getValue();
+      out.defaultWriteObject();
+   }
+
    /**
     * Determines if a message requires a response. This method will return
     * true iff all of the following conditions are met:
@@ -217,6 +253,7 @@ public class PlatformMessage extends Message {
 
    public static class Builder extends Message.Builder<Builder> {
       private MessageBody value;
+      private Supplier<MessageBody> lazyValue;
 
       Builder() { }
       
@@ -244,9 +281,27 @@ public class PlatformMessage extends Message {
       public Builder withPayload(MessageBody payload) {
          this.type = payload.getMessageType();
          this.value = payload;
+         this.lazyValue = null;
          isErrorMessage(ErrorEvent.MESSAGE_TYPE.equals(this.type));
          return this;
       }
+
+      /**
+       * Defers decoding the payload until {@link PlatformMessage#getValue()}
+       * is first invoked.  The loader will be called at most once and must
+       * return a body whose type matches {@code type}.
+       * @param type
+       * @param payload
+       * @return
+       */
+      public Builder withLazyPayload(String type, Supplier<MessageBody> payload) {
+         Utils.assertNotNull(payload, "Must specify a payload loader");
+         this.type = type;
+         this.value = null;
+         this.lazyValue = payload;
+         isErrorMessage(ErrorEvent.MESSAGE_TYPE.equals(type));
+         return this;
+      }
       
       public Builder withPayload(String eventName) {
          MessageBody mb = MessageBody.buildMessage(eventName);
@@ -261,6 +316,7 @@ public class PlatformMessage extends Message {
       @Deprecated
       public <T> Builder withPayload(String type, Serializer<T> serializer, T payload) {
          this.value = null;
+         this.lazyValue = null;
          isErrorMessage(ErrorEvent.MESSAGE_TYPE.equals(type));
          // contract with serializer is that a new buffer is returned so unsafe is safe here
          withPayloadUnsafe(type, serializer.serialize(payload));
@@ -279,7 +335,7 @@ public class PlatformMessage extends Message {
          Utils.assertNotNull(source, "Must specify a source");
          Utils.assertFalse(source.isBroadcast(), "Source address may not be the broadcast address");
          Utils.assertNotNull(type, "Must specify a type");
-         Utils.assertTrue(value != null, "Must specify a payload");
+         Utils.assertTrue(value != null || lazyValue != null, "Must specify a payload");
 
          if(timestamp <= 0) {
             timestamp = System.currentTimeMillis();
@@ -297,7 +353,7 @@ public class PlatformMessage extends Message {
 
    @Override
    public String toString() {
-      return "PlatformMessage [value=" + value + ", [" + super.toString() + "]]";
+      return "PlatformMessage [value=" + (isPayloadDecoded() ? value : "[not decoded]") + ", [" + super.toString() + "]]";
    }
 
    
@@ -16,6 +16,7 @@
 package com.iris.network;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -24,6 +25,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Supplier;
 
+/**
+ * Weighted round robin scheduler over a set of producer queues.  Each turn a
+ * producer may dequeue up to its weight in packets, subject to its own rate
+ * limiter, before the scheduler moves on to the next producer.  Producers with
+ * empty queues or no available tokens are skipped without losing their turn
+ * to anyone but the next producer in line.
+ */
 class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
    private static final long MINIMUM_WAIT_FOR_BLOCK = TimeUnit.MICROSECONDS.toNanos(1);
 
@@ -36,9 +44,11 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
    private final double lowWatermarkPercent;
    private final double highWatermarkPercent;
    private final boolean blocking;
+   private final int producerWeight;
 
    private final AtomicInteger next;
    private final Semaphore available;
+   private final AtomicInteger stale;
    private final ArrayList<AbstractProducer<T>> producers;
    private int numProducers;
 
@@ -51,7 +61,8 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
       Supplier<? extends PacketScheduler.QueueStateHandler<? super T>> queueHandler,
       double lowWatermarkPercent,
       double highWatermarkPercent,
-      boolean blocking
+      boolean blocking,
+      int producerWeight
       ) {
       this.clock = clock;
       this.outputRateLimit = outputRateLimit;
@@ -62,9 +73,11 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
       this.lowWatermarkPercent = lowWatermarkPercent;
       this.highWatermarkPercent = highWatermarkPercent;
       this.blocking = blocking;
+      this.producerWeight = producerWeight;
 
       this.next = new AtomicInteger(0);
       this.available = new Semaphore(0);
+      this.stale = new AtomicInteger(0);
       this.producers = new ArrayList<>();
    }
 
@@ -97,7 +110,11 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
       }
 
       try {
-         return takeOnePacket(0L);
+         T packet = takeOnePacket(0L);
+         if (packet == null) {
+            available.release();
+         }
+         return packet;
       } catch (InterruptedException ex) {
          Thread.currentThread().interrupt();
          available.release();
@@ -118,7 +135,11 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
       }
 
       try {
-         return takeOnePacket(endTimeInNs - System.nanoTime());
+         T packet = takeOnePacket(endTimeInNs - System.nanoTime());
+         if (packet == null) {
+            available.release();
+         }
+         return packet;
       } catch (InterruptedException ex) {
          available.release();
          throw ex;
@@ -130,17 +151,28 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
 
       int examined = 0;
       while (true) {
-         AbstractProducer<T> producer;
-         try{
-            int idx = next.getAndIncrement() % numProducers;
-            producer = producers.get(idx);
-         } catch (IndexOutOfBoundsException ex) {
-            continue;
+         int turn = next.get();
+         int count = numProducers;
+         AbstractProducer<T> producer = null;
+         if (count > 0) {
+            try{
+               producer = producers.get(Math.floorMod(turn, count));
+            } catch (IndexOutOfBoundsException ex) {
+               // a producer was detached concurrently
+               next.compareAndSet(turn, turn + 1);
+               continue;
+            }
+
+            examined++;
          }
 
-         examined++;
-         if (!producer.rateLimit.tryAcquire(1.0, clock)) {
-            if (examined >= numProducers) {
+         // check for packets first so idle producers don't burn their tokens
+         if (producer == null || producer.queue.isEmpty() || !producer.rateLimit.tryAcquire(1.0, clock)) {
+            if (producer != null) {
+               producer.served.set(0);
+               next.compareAndSet(turn, turn + 1);
+            }
+            if (examined >= count) {
                long now = System.nanoTime();
                if (maxWaitTimeInNs <= 0 || (maxWaitTimeInNs != Long.MAX_VALUE && endWaitTime <= now)) {
                   return null;
@@ -161,7 +193,11 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
                   }
                }
 
-               if (waitTimeInNs != Long.MAX_VALUE && waitTimeInNs > MINIMUM_WAIT_FOR_BLOCK) {
+               if (waitTimeInNs == Long.MAX_VALUE && maxWaitTimeInNs == Long.MAX_VALUE && discardStalePermit()) {
+                  // the packet for the permit we hold was dropped by detach, wait for another one
+                  available.acquire();
+               }
+               else if (waitTimeInNs != Long.MAX_VALUE && waitTimeInNs > MINIMUM_WAIT_FOR_BLOCK) {
                   TimeUnit.NANOSECONDS.sleep(waitTimeInNs);
                }
             }
@@ -169,12 +205,28 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
          }
 
          T packet = producer.queue.poll();
+         if (producer.served.incrementAndGet() >= producer.weight) {
+            producer.served.set(0);
+            next.compareAndSet(turn, turn + 1);
+         }
          if (packet != null) {
             return packet;
          }
       }
    }
 
+   private boolean discardStalePermit() {
+      while (true) {
+         int current = stale.get();
+         if (current <= 0) {
+            return false;
+         }
+         if (stale.compareAndSet(current, current - 1)) {
+            return true;
+         }
+      }
+   }
+
    @Override
    public PacketScheduler.Producer<T> attach() {
       return attach(queueSupplier.get());
@@ -187,6 +239,13 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
 
    @Override
    public PacketScheduler.Producer<T> attach(BlockingQueue<T> queue, RateLimiter rateLimiter) {
+      return attach(queue, rateLimiter, producerWeight);
+   }
+
+   @Override
+   public PacketScheduler.Producer<T> attach(BlockingQueue<T> queue, RateLimiter rateLimiter, int weight) {
+      if (weight <= 0) throw new IllegalArgumentException("producer weight must be > 0");
+
       int capacity = queue.remainingCapacity();
       
       int lowWaterMark, highWaterMark;
@@ -207,6 +266,7 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
             available,
             queue,
             rateLimiter,
+            weight,
             dropHandler.get(),
             queueHandler.get(),
             lowWaterMark,
@@ -217,6 +277,7 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
             available,
             queue,
             rateLimiter,
+            weight,
             dropHandler.get(),
             queueHandler.get(),
             lowWaterMark,
@@ -240,9 +301,23 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
 
       AbstractProducer<T> prod = (AbstractProducer<T>)producer;
       synchronized (producers) {
-         producers.remove(prod);
+         if (!producers.remove(prod)) {
+            return;
+         }
          numProducers = producers.size();
       }
+
+      // packets still queued are dropped along with their permits, a permit
+      // that has already been taken is discarded by the next take that finds
+      // every queue empty
+      List<T> remaining = new ArrayList<>();
+      prod.queue.drainTo(remaining);
+      for (T packet : remaining) {
+         if (!available.tryAcquire()) {
+            stale.incrementAndGet();
+         }
+         prod.dropHandler.queueDroppedPacket(packet);
+      }
    }
 
    private static abstract class AbstractProducer<T> implements PacketScheduler.Producer<T> {
@@ -250,6 +325,8 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
       protected final Semaphore available;
       protected final BlockingQueue<T> queue;
       protected final RateLimiter rateLimit;
+      protected final int weight;
+      protected final AtomicInteger served;
       protected final PacketScheduler.QueueStateHandler<? super T> queueHandler;
       protected final int lowWaterMark;
       protected final int highWaterMark;
@@ -259,6 +336,7 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
          Semaphore available,
          BlockingQueue<T> queue, 
          RateLimiter rateLimit,
+         int weight,
          PacketScheduler.PacketDropHandler<? super T> dropHandler,
          PacketScheduler.QueueStateHandler<? super T> queueHandler,
          int lowWaterMark,
@@ -267,6 +345,8 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
          this.available = available;
          this.queue = queue;
          this.rateLimit = rateLimit;
+         this.weight = weight;
+         this.served = new AtomicInteger();
          this.dropHandler = dropHandler;
          this.queueHandler = queueHandler;
          this.lowWaterMark = lowWaterMark;
@@ -340,12 +420,13 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
          Semaphore available,
          BlockingQueue<T> queue, 
          RateLimiter rateLimit,
+         int weight,
          PacketScheduler.PacketDropHandler<? super T> dropHandler,
          PacketScheduler.QueueStateHandler<? super T> queueHandler,
          int lowWaterMark,
          int highWaterMark
          ) {
-         super(available, queue, rateLimit, dropHandler, queueHandler, lowWaterMark, highWaterMark);
+         super(available, queue, rateLimit, weight, dropHandler, queueHandler, lowWaterMark, highWaterMark);
       }
 
       @Override
@@ -359,12 +440,13 @@ class FairQueuingPacketScheduler<T> implements PacketScheduler<T> {
          Semaphore available,
          BlockingQueue<T> queue, 
          RateLimiter rateLimit,
+         int weight,
          PacketScheduler.PacketDropHandler<? super T> dropHandler,
          PacketScheduler.QueueStateHandler<? super T> queueHandler,
          int lowWaterMark,
          int highWaterMark
          ) {
-         super(available, queue, rateLimit, dropHandler, queueHandler, lowWaterMark, highWaterMark);
+         super(available, queue, rateLimit, weight, dropHandler, queueHandler, lowWaterMark, highWaterMark);
       }
 
       @Override
@@ -26,6 +26,7 @@ public interface PacketScheduler<T> {
    Producer<T> attach();
    Producer<T> attach(BlockingQueue<T> queue);
    Producer<T> attach(BlockingQueue<T> queue, RateLimiter rateLimiter);
+   Producer<T> attach(BlockingQueue<T> queue, RateLimiter rateLimiter, int weight);
    void detach(Producer<T> producer);
 
    RateLimiter getRateLimiter();
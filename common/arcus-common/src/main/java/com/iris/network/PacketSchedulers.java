@@ -39,6 +39,7 @@ public final class PacketSchedulers {
       protected double lowWatermarkPercent;
       protected double highWatermarkPercent;
       protected boolean blocking = true;
+      protected int producerWeight = 1;
 
       @SuppressWarnings("unchecked")
       protected Supplier<? extends BlockingQueue<P>> queueSupplier = (Supplier<? extends BlockingQueue<P>>)SingleElementQueueSupplier.INSTANCE;
@@ -114,6 +115,17 @@ public final class PacketSchedulers {
          return ths();
       }
 
+      /**
+       * The number of packets a producer may send each time it is visited,
+       * producers attached with a larger weight get a proportionally larger
+       * share of the output when all producers are backlogged.
+       */
+      public T setProducerWeight(int producerWeight) {
+         if (producerWeight <= 0) throw new IllegalArgumentException("producer weight must be > 0");
+         this.producerWeight = producerWeight;
+         return ths();
+      }
+
       public T blockOnQueueFull() {
          this.blocking = true;
          return ths();
@@ -149,7 +161,8 @@ public final class PacketSchedulers {
             queueHandler,
             lowWatermarkPercent,
             highWatermarkPercent,
-            blocking
+            blocking,
+            producerWeight
          );
       }
    }
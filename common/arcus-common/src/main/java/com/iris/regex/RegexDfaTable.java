@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.regex;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A {@link RegexDfaByte} lowered into a single flat transition table.
+ *
+ * Input bytes are first mapped into equivalence classes, two bytes are in the
+ * same class if every state transitions to the same place on both of them.
+ * Reflex DFAs only distinguish a handful of byte values so this usually reduces
+ * the 256 symbol alphabet to a few dozen classes.  The transition table is then
+ * a single {@code int[]} indexed by {@code state + class}, where the states are
+ * stored pre-multiplied by the number of classes so each input byte costs two
+ * array loads and no virtual calls, pointer chasing or boxing.
+ *
+ * Matching semantics are the same as {@link RegexDfaByte#matching(byte[])}.
+ */
+public final class RegexDfaTable<V> {
+   private static final int DEAD = -1;
+
+   private final byte[] classes;
+   private final int numClasses;
+   private final int[] transitions;
+   private final int initial;
+   private final boolean[] accepting;
+   private final Object[] values;
+
+   private RegexDfaTable(byte[] classes, int numClasses, int[] transitions, int initial, boolean[] accepting, Object[] values) {
+      this.classes = classes;
+      this.numClasses = numClasses;
+      this.transitions = transitions;
+      this.initial = initial;
+      this.accepting = accepting;
+      this.values = values;
+   }
+
+   public static <V> RegexDfaTable<V> compile(RegexDfaByte<V> dfa) {
+      // the initial state is always row zero
+      List<RegexDfaByte.State<V>> states = new ArrayList<>(dfa.getNumStates());
+      states.add(dfa.getInitialState());
+      for (RegexDfaByte.State<V> state : dfa.getStates()) {
+         if (state != dfa.getInitialState()) {
+            states.add(state);
+         }
+      }
+
+      int numStates = states.size();
+      Map<RegexDfaByte.State<V>,Integer> index = new IdentityHashMap<>();
+      for (int i = 0; i < numStates; ++i) {
+         index.put(states.get(i), i);
+      }
+
+      // columns[symbol][state] is the next state for that symbol
+      int[][] columns = new int[256][numStates];
+      for (int s = 0; s < numStates; ++s) {
+         RegexDfaByte.TransitionTable<V> table = states.get(s).getTransitions();
+         for (int sym = 0; sym < 256; ++sym) {
+            RegexDfaByte.State<V> next = (table != null) ? table.get((byte)sym) : null;
+            columns[sym][s] = (next != null) ? index.get(next) : DEAD;
+         }
+      }
+
+      byte[] classes = new byte[256];
+      List<int[]> representatives = new ArrayList<>();
+      Map<Column,Integer> classOfColumn = new HashMap<>();
+      for (int sym = 0; sym < 256; ++sym) {
+         Column column = new Column(columns[sym]);
+         Integer cls = classOfColumn.get(column);
+         if (cls == null) {
+            cls = representatives.size();
+            classOfColumn.put(column, cls);
+            representatives.add(columns[sym]);
+         }
+
+         classes[sym] = (byte)(int)cls;
+      }
+
+      int numClasses = representatives.size();
+      int[] transitions = new int[numStates * numClasses];
+      boolean[] accepting = new boolean[numStates];
+      Object[] values = new Object[numStates];
+      for (int s = 0; s < numStates; ++s) {
+         for (int c = 0; c < numClasses; ++c) {
+            int next = representatives.get(c)[s];
+            transitions[s * numClasses + c] = (next == DEAD) ? DEAD : next * numClasses;
+         }
+
+         RegexDfaByte.State<V> state = states.get(s);
+         accepting[s] = state.isFinalState();
+         values[s] = state.getValue();
+      }
+
+      return new RegexDfaTable<>(classes, numClasses, transitions, 0, accepting, values);
+   }
+
+   public int getNumStates() {
+      return accepting.length;
+   }
+
+   public int getNumClasses() {
+      return numClasses;
+   }
+
+   /**
+    * Encodes input bytes into the compressed alphabet used by the table.
+    */
+   public RegexSymbolEncoder<Byte> getSymbolEncoder() {
+      return new RegexSymbolEncoder<Byte>() {
+         @Override
+         public byte[] encode(Byte symbol) {
+            return new byte[] { classes[symbol & 0xFF] };
+         }
+      };
+   }
+
+   /////////////////////////////////////////////////////////////////////////////
+   // Matching over byte arrays
+   /////////////////////////////////////////////////////////////////////////////
+
+   public boolean matches(byte[] input) {
+      return matches(input, 0, input.length);
+   }
+
+   public boolean matches(byte[] input, int offset, int length) {
+      return isAccepting(run(input, offset, length));
+   }
+
+   @Nullable
+   public V matching(byte[] input) {
+      return matching(input, 0, input.length);
+   }
+
+   @Nullable
+   public V matching(byte[] input, int offset, int length) {
+      return valueOf(run(input, offset, length));
+   }
+
+   /////////////////////////////////////////////////////////////////////////////
+   // Matching over byte buffers, the buffer position is not modified
+   /////////////////////////////////////////////////////////////////////////////
+
+   public boolean matches(ByteBuffer input) {
+      return isAccepting(run(input));
+   }
+
+   @Nullable
+   public V matching(ByteBuffer input) {
+      return valueOf(run(input));
+   }
+
+   /////////////////////////////////////////////////////////////////////////////
+   // Implementation details
+   /////////////////////////////////////////////////////////////////////////////
+
+   private int run(byte[] input, int offset, int length) {
+      final int[] trans = transitions;
+      final byte[] cls = classes;
+
+      int state = initial;
+      for (int i = offset, e = offset + length; i < e; ++i) {
+         state = trans[state + (cls[input[i] & 0xFF] & 0xFF)];
+         if (state < 0) {
+            return DEAD;
+         }
+      }
+
+      return state;
+   }
+
+   private int run(ByteBuffer input) {
+      if (input.hasArray()) {
+         return run(input.array(), input.arrayOffset() + input.position(), input.remaining());
+      }
+
+      final int[] trans = transitions;
+      final byte[] cls = classes;
+
+      int state = initial;
+      for (int i = input.position(), e = input.limit(); i < e; ++i) {
+         state = trans[state + (cls[input.get(i) & 0xFF] & 0xFF)];
+         if (state < 0) {
+            return DEAD;
+         }
+      }
+
+      return state;
+   }
+
+   private boolean isAccepting(int state) {
+      return state != DEAD && accepting[state / numClasses];
+   }
+
+   @Nullable
+   @SuppressWarnings("unchecked")
+   private V valueOf(int state) {
+      return isAccepting(state) ? (V)values[state / numClasses] : null;
+   }
+
+   private static final class Column {
+      private final int[] states;
+      private final int hash;
+
+      Column(int[] states) {
+         this.states = states;
+         this.hash = Arrays.hashCode(states);
+      }
+
+      @Override
+      public int hashCode() {
+         return hash;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof Column && Arrays.equals(states, ((Column)obj).states);
+      }
+   }
+}
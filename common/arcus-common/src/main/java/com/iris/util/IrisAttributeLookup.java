@@ -43,6 +43,10 @@ public class IrisAttributeLookup {
       return Holder.registry.getAttribute(key.getNamedRepresentation());
    }
 
+   public static @Nullable CapabilityDefinition capability(String namespace) {
+      return Holder.registry.getCapability(namespace);
+   }
+
    public static @Nullable AttributeType type(String name) {
       AttributeDefinition ad = definition(name);
       return (ad == null) ? null : ad.getType();
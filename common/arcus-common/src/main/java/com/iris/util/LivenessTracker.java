@@ -0,0 +1,366 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Tracks a set of entries that must be refreshed within a fixed timeout and
+ * finds the ones that have expired without scanning them all.
+ * 
+ * Entries are kept in a hierarchical timing wheel ({@value #LEVELS} levels of
+ * {@value #SLOTS} slots) bucketed by their expected expiration time.  The time
+ * an entry was last seen is read from the entry itself via the
+ * {@code lastSeen} function, so refreshing an entry is just a write to the
+ * entry and never touches the wheel.  When a bucket comes due each entry in it
+ * is checked, the ones that have been refreshed are moved to the bucket for
+ * their new expiration time, the others are expired.  Adding, removing and
+ * expiring an entry are all O(1), and {@link #expire(long)} only visits the
+ * buckets that have come due since the previous call.
+ * 
+ * If an entry's last seen time moves backwards {@link #reschedule(Object)}
+ * must be invoked or it may be expired late.
+ * 
+ * Times are supplied by the caller so that this may be driven by any clock.
+ */
+public class LivenessTracker<K, V> {
+   private static final int SHIFT = 6;
+   static final int SLOTS = 1 << SHIFT;
+   private static final int MASK = SLOTS - 1;
+   static final int LEVELS = 4;
+   private static final long UNSTARTED = Long.MIN_VALUE;
+
+   private final long timeoutMs;
+   private final long tickMs;
+   private final ToLongFunction<? super V> lastSeen;
+   private final ConcurrentMap<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+   
+   // guarded by this
+   private final Node<K, V>[][] wheel;
+   private long currentTick = UNSTARTED;
+   private final int[] scheduled = new int[LEVELS];
+
+   /**
+    * Creates a tracker with a tick of 1/{@value #SLOTS} of the timeout, so
+    * the first level of the wheel spans the timeout.
+    */
+   public LivenessTracker(long timeoutMs, ToLongFunction<? super V> lastSeen) {
+      this(timeoutMs, Math.max(1, timeoutMs / SLOTS), lastSeen);
+   }
+   
+   @SuppressWarnings("unchecked")
+   public LivenessTracker(long timeoutMs, long tickMs, ToLongFunction<? super V> lastSeen) {
+      Preconditions.checkArgument(timeoutMs >= 0, "timeoutMs must be non-negative");
+      Preconditions.checkArgument(tickMs > 0, "tickMs must be positive");
+      this.timeoutMs = timeoutMs;
+      this.tickMs = tickMs;
+      this.lastSeen = Preconditions.checkNotNull(lastSeen, "lastSeen may not be null");
+      this.wheel = new Node[LEVELS][SLOTS];
+      for(int level = 0; level < LEVELS; level++) {
+         for(int slot = 0; slot < SLOTS; slot++) {
+            wheel[level][slot] = new Node<>(null, null);
+         }
+      }
+   }
+
+   public long getTimeoutMs() {
+      return timeoutMs;
+   }
+
+   public int size() {
+      return entries.size();
+   }
+
+   @Nullable
+   public V get(K key) {
+      Node<K, V> node = entries.get(key);
+      return node != null ? node.value : null;
+   }
+
+   public boolean contains(K key) {
+      return entries.containsKey(key);
+   }
+
+   /**
+    * A snapshot of the tracked entries.
+    */
+   public List<V> values() {
+      return entries.values().stream().map((node) -> node.value).collect(Collectors.toList());
+   }
+
+   /**
+    * Returns the entry for key, invoking factory to create and start tracking
+    * it if there isn't one.  The factory is invoked at most once per key.
+    */
+   public V computeIfAbsent(K key, Function<? super K, ? extends V> factory, long nowMs) {
+      Node<K, V> node = entries.get(key);
+      if(node != null) {
+         return node.value;
+      }
+      node = entries.computeIfAbsent(key, (k) -> new Node<>(k, factory.apply(k)));
+      if(!node.linked()) {
+         schedule(node, nowMs);
+      }
+      return node.value;
+   }
+
+   /**
+    * Starts tracking value if there isn't already an entry for key.
+    * @return
+    *    The existing entry, or {@code null} if value was added.
+    */
+   @Nullable
+   public V putIfAbsent(K key, V value, long nowMs) {
+      Node<K, V> node = new Node<>(key, value);
+      Node<K, V> existing = entries.putIfAbsent(key, node);
+      if(existing != null) {
+         return existing.value;
+      }
+      schedule(node, nowMs);
+      return null;
+   }
+
+   @Nullable
+   public V remove(K key) {
+      Node<K, V> node = entries.remove(key);
+      if(node == null) {
+         return null;
+      }
+      unschedule(node);
+      return node.value;
+   }
+
+   public boolean remove(K key, V value) {
+      Node<K, V> node = entries.get(key);
+      if(node == null || node.value != value || !entries.remove(key, node)) {
+         return false;
+      }
+      unschedule(node);
+      return true;
+   }
+
+   /**
+    * Stops tracking all the entries that match, this is O(n).
+    */
+   public void removeIf(Predicate<? super V> predicate) {
+      for(Node<K, V> node: entries.values()) {
+         if(predicate.test(node.value) && entries.remove(node.key, node)) {
+            unschedule(node);
+         }
+      }
+   }
+
+   /**
+    * Re-buckets the entry for key, this only needs to be invoked when
+    * the entry's last seen time has moved backwards.
+    */
+   public void reschedule(K key) {
+      Node<K, V> node = entries.get(key);
+      if(node == null) {
+         return;
+      }
+      synchronized(this) {
+         if(!node.removed) {
+            link(node);
+         }
+      }
+   }
+
+   /**
+    * Stops tracking and returns every entry whose last seen time is more
+    * than the timeout before nowMs.
+    */
+   public List<V> expire(long nowMs) {
+      List<Node<K, V>> due = new ArrayList<>();
+      synchronized(this) {
+         long nowTick = Math.floorDiv(nowMs, tickMs);
+         if(currentTick == UNSTARTED || currentTick > nowTick) {
+            currentTick = nowTick;
+         }
+         drain(wheel[0][slot(currentTick, 0)], due);
+         while(currentTick < nowTick) {
+            // skip ahead to the next tick where a bucket could come due
+            int level = 0;
+            while(level < LEVELS && scheduled[level] == 0) {
+               level++;
+            }
+            long next;
+            if(level == 0) {
+               next = currentTick + 1;
+            }
+            else if(level == LEVELS) {
+               next = nowTick;
+            }
+            else {
+               next = ((currentTick >> (SHIFT * level)) + 1) << (SHIFT * level);
+            }
+            if(next > nowTick) {
+               currentTick = nowTick;
+               break;
+            }
+            currentTick = next;
+            cascade(currentTick);
+            drain(wheel[0][slot(currentTick, 0)], due);
+         }
+         
+         // anything that isn't expired goes back into the wheel
+         int expired = 0;
+         for(Node<K, V> node: due) {
+            if(isExpired(node, nowMs)) {
+               due.set(expired++, node);
+            }
+            else {
+               link(node);
+            }
+         }
+         due.subList(expired, due.size()).clear();
+      }
+      
+      List<V> results = new ArrayList<>(due.size());
+      for(Node<K, V> node: due) {
+         // check again in case it was refreshed while it was out of the wheel
+         if(isExpired(node, nowMs) && entries.remove(node.key, node)) {
+            node.removed = true;
+            results.add(node.value);
+         }
+         else {
+            synchronized(this) {
+               if(!node.removed) {
+                  link(node);
+               }
+            }
+         }
+      }
+      return results;
+   }
+
+   private boolean isExpired(Node<K, V> node, long nowMs) {
+      return lastSeen.applyAsLong(node.value) + timeoutMs < nowMs;
+   }
+
+   private synchronized void schedule(Node<K, V> node, long nowMs) {
+      if(node.removed || node.linked()) {
+         return;
+      }
+      if(currentTick == UNSTARTED) {
+         currentTick = Math.floorDiv(nowMs, tickMs);
+      }
+      link(node);
+   }
+
+   private synchronized void unschedule(Node<K, V> node) {
+      node.removed = true;
+      unlink(node);
+   }
+
+   // must hold the lock
+   private void link(Node<K, V> node) {
+      unlink(node);
+      long tick = Math.max(currentTick, Math.floorDiv(lastSeen.applyAsLong(node.value) + timeoutMs, tickMs));
+      int level = 0;
+      while(level < LEVELS && (tick >> (SHIFT * level)) - (currentTick >> (SHIFT * level)) >= SLOTS) {
+         level++;
+      }
+      if(level == LEVELS) {
+         // beyond the end of the wheel, park it in the last bucket and it will be re-evaluated when that cascades
+         level = LEVELS - 1;
+         tick = ((currentTick >> (SHIFT * level)) + SLOTS - 1) << (SHIFT * level);
+      }
+      Node<K, V> head = wheel[level][slot(tick, level)];
+      node.prev = head.prev;
+      node.next = head;
+      node.level = level;
+      head.prev.next = node;
+      head.prev = node;
+      scheduled[level]++;
+   }
+
+   // must hold the lock
+   private void unlink(Node<K, V> node) {
+      if(!node.linked()) {
+         return;
+      }
+      node.prev.next = node.next;
+      node.next.prev = node.prev;
+      node.prev = null;
+      node.next = null;
+      scheduled[node.level]--;
+   }
+
+   // must hold the lock
+   private void drain(Node<K, V> head, List<Node<K, V>> into) {
+      Node<K, V> node = head.next;
+      while(node != head) {
+         Node<K, V> next = node.next;
+         unlink(node);
+         into.add(node);
+         node = next;
+      }
+   }
+
+   // must hold the lock, moves buckets from the upper levels that start at tick down the wheel
+   private void cascade(long tick) {
+      List<Node<K, V>> nodes = new ArrayList<>();
+      for(int level = LEVELS - 1; level > 0; level--) {
+         if((tick & ((1L << (SHIFT * level)) - 1)) == 0) {
+            drain(wheel[level][slot(tick, level)], nodes);
+         }
+      }
+      for(Node<K, V> node: nodes) {
+         link(node);
+      }
+   }
+
+   private static int slot(long tick, int level) {
+      return (int) ((tick >> (SHIFT * level)) & MASK);
+   }
+
+   private static final class Node<K, V> {
+      private final K key;
+      private final V value;
+      // guarded by the tracker, an unlinked node has a null prev and next,
+      // except for the bucket heads which always point at least to themselves
+      private Node<K, V> prev;
+      private Node<K, V> next;
+      private int level;
+      private volatile boolean removed;
+
+      Node(K key, V value) {
+         this.key = key;
+         this.value = value;
+         if(key == null) {
+            this.prev = this;
+            this.next = this;
+         }
+      }
+
+      boolean linked() {
+         return prev != null;
+      }
+   }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.iris.io.Deserializer;
+import com.iris.io.Serializer;
+import com.iris.io.json.JSON;
+import com.iris.messages.HubMessage;
+
+public class TestBinaryHubMessageCodec {
+   private final Serializer<HubMessage> json = JSON.createSerializer(HubMessage.class);
+   private final Serializer<HubMessage> binary = new BinaryHubMessageSerializer();
+   private final Deserializer<HubMessage> deserializer = new BinaryHubMessageDeserializer(JSON.createDeserializer(HubMessage.class));
+
+   private final byte[] payload = "{\"type\":\"base:Ping\",\"attributes\":{}}".getBytes(StandardCharsets.UTF_8);
+
+   @Test
+   public void testRoundTrip() throws Exception {
+      for(HubMessage.Type type: HubMessage.Type.values()) {
+         byte[] bytes = binary.serialize(HubMessage.create(type, payload));
+         assertTrue(BinaryHubMessageSerializer.isBinary(bytes));
+         assertEquals(payload.length + BinaryHubMessageSerializer.HEADER_LENGTH, bytes.length);
+
+         HubMessage decoded = deserializer.deserialize(bytes);
+         assertEquals(type, decoded.getType());
+         assertArrayEquals(payload, decoded.getPayload());
+
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         binary.serialize(HubMessage.create(type, payload), out);
+         assertArrayEquals(bytes, out.toByteArray());
+      }
+   }
+
+   @Test
+   public void testEmptyPayload() {
+      HubMessage decoded = deserializer.deserialize(binary.serialize(HubMessage.create(null, null)));
+      assertNull(decoded.getType());
+      assertEquals(0, decoded.getPayload().length);
+   }
+
+   @Test
+   public void testJsonFallback() {
+      byte[] bytes = json.serialize(HubMessage.createProtocol(payload));
+      assertFalse(BinaryHubMessageSerializer.isBinary(bytes));
+
+      HubMessage decoded = deserializer.deserialize(bytes);
+      assertEquals(HubMessage.Type.PROTOCOL, decoded.getType());
+      assertArrayEquals(payload, decoded.getPayload());
+   }
+
+   @Test
+   public void testSmallerThanJson() {
+      HubMessage message = HubMessage.createPlatform(payload);
+      assertTrue(binary.serialize(message).length < json.serialize(message).length);
+   }
+
+   @Test
+   public void testTrailingBytesIgnored() {
+      byte[] bytes = binary.serialize(HubMessage.createLog(payload));
+      byte[] padded = new byte[bytes.length + 16];
+      System.arraycopy(bytes, 0, padded, 4, bytes.length);
+
+      HubMessage decoded = ((BinaryHubMessageDeserializer) deserializer).deserialize(padded, 4, bytes.length + 12);
+      assertEquals(HubMessage.Type.LOG, decoded.getType());
+      assertArrayEquals(payload, decoded.getPayload());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testTruncatedFrame() {
+      byte[] bytes = binary.serialize(HubMessage.createPlatform(payload));
+      ((BinaryHubMessageDeserializer) deserializer).deserialize(bytes, 0, bytes.length - 1);
+   }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.iris.io.Deserializer;
+import com.iris.io.Serializer;
+import com.iris.io.json.JSON;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+
+public class TestBinaryPlatformMessageCodec {
+   private final Serializer<PlatformMessage> json = JSON.createSerializer(PlatformMessage.class);
+   private final Deserializer<PlatformMessage> jsonDeserializer = JSON.createDeserializer(PlatformMessage.class);
+   private final Serializer<PlatformMessage> binary = new BinaryPlatformMessageSerializer();
+   private final Deserializer<PlatformMessage> deserializer = new BinaryPlatformMessageDeserializer(jsonDeserializer);
+
+   private void assertSameAsJson(PlatformMessage message) {
+      byte[] bytes = binary.serialize(message);
+      assertTrue(BinaryPlatformMessageSerializer.isBinary(bytes));
+
+      PlatformMessage expected = jsonDeserializer.deserialize(json.serialize(message));
+      PlatformMessage actual = deserializer.deserialize(bytes);
+      assertEquals(expected, actual);
+      assertEquals(expected.getValue(), actual.getValue());
+   }
+
+   @Test
+   public void testValueChange() {
+      Map<String, Object> attributes = new HashMap<>();
+      attributes.put("devpow:battery", 87);
+      attributes.put("temp:temperature", 21.5F);
+      attributes.put("humid:humidity", 41.0D);
+      attributes.put("devconn:lastchange", new Date());
+      attributes.put("swit:state", "ON");
+      attributes.put("base:tags", ImmutableSet.of("kitchen", "upstairs"));
+      attributes.put("test:nested", ImmutableMap.of("list", ImmutableList.of(1, 2L, "three")));
+      attributes.put("test:null", null);
+      assertSameAsJson(
+            PlatformMessage
+               .buildEvent(MessageBody.buildMessage("base:ValueChange", attributes), Address.hubDriverAddress("ABC-1234", UUID.randomUUID()))
+               .withPlaceId(UUID.randomUUID())
+               .withPopulation("general")
+               .create()
+      );
+   }
+
+   @Test
+   public void testRequestResponse() {
+      PlatformMessage request =
+            PlatformMessage
+               .buildRequest(
+                     MessageBody.buildMessage("swit:SetAttributes", ImmutableMap.<String, Object>of("swit:state", "OFF")),
+                     Address.clientAddress("android", "session-1"),
+                     Address.platformDriverAddress(UUID.randomUUID())
+               )
+               .withActor(Address.platformService(UUID.randomUUID(), "person"))
+               .withCorrelationId(UUID.randomUUID().toString())
+               .withPlaceId("not-a-uuid")
+               .withTimeToLive(30000)
+               .withClientTime(new Date())
+               .create();
+      assertSameAsJson(request);
+      assertSameAsJson(PlatformMessage.buildResponse(request, MessageBody.emptyMessage()).create());
+   }
+
+   @Test
+   public void testServiceAddresses() {
+      assertSameAsJson(
+            PlatformMessage
+               .buildRequest(MessageBody.ping(), Address.platformService("subs"), Address.platformService("ruletmpl-1", "ruletmpl"))
+               .create()
+      );
+      assertSameAsJson(
+            PlatformMessage
+               .buildRequest(MessageBody.ping(), Address.hubService("ABC-1234", "hub"), Address.platformService(UUID.randomUUID(), "rule", 3))
+               .create()
+      );
+   }
+
+   @Test
+   public void testReadsJson() {
+      PlatformMessage message =
+            PlatformMessage
+               .buildEvent(MessageBody.buildMessage("base:Added", ImmutableMap.<String, Object>of("base:name", "test")), Address.platformDriverAddress(UUID.randomUUID()))
+               .create();
+      byte[] bytes = json.serialize(message);
+      assertFalse(BinaryPlatformMessageSerializer.isBinary(bytes));
+      assertEquals(jsonDeserializer.deserialize(bytes), deserializer.deserialize(bytes));
+   }
+
+   @Test
+   public void testLazyPayload() {
+      PlatformMessage message =
+            PlatformMessage
+               .buildEvent(MessageBody.buildMessage("base:ValueChange", ImmutableMap.<String, Object>of("swit:state", "ON")), Address.platformDriverAddress(UUID.randomUUID()))
+               .withPlaceId(UUID.randomUUID())
+               .create();
+      PlatformMessage actual = new BinaryPlatformMessageDeserializer(jsonDeserializer, true).deserialize(binary.serialize(message));
+      assertFalse(actual.isPayloadDecoded());
+      assertEquals(message.getPlaceId(), actual.getPlaceId());
+      assertEquals(message.getValue(), actual.getValue());
+      assertTrue(actual.isPayloadDecoded());
+   }
+
+   @Test
+   public void testSmallerThanJson() {
+      PlatformMessage message =
+            PlatformMessage
+               .buildEvent(MessageBody.buildMessage("base:ValueChange", ImmutableMap.<String, Object>of("swit:state", "ON")), Address.platformDriverAddress(UUID.randomUUID()))
+               .withPlaceId(UUID.randomUUID())
+               .withPopulation("general")
+               .create();
+      assertTrue(binary.serialize(message).length < json.serialize(message).length / 2);
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testUnsupportedVersion() {
+      deserializer.deserialize(new byte[] { BinaryPlatformMessageSerializer.MAGIC, 99 });
+   }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.io.json.gson;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.iris.io.Deserializer;
+import com.iris.io.Serializer;
+import com.iris.io.json.JSON;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+
+public class TestLazyPlatformMessageDeserializer {
+   private final Serializer<PlatformMessage> serializer = JSON.createSerializer(PlatformMessage.class);
+   private final Deserializer<PlatformMessage> eager = JSON.createDeserializer(PlatformMessage.class);
+   private final Deserializer<PlatformMessage> lazy = new LazyPlatformMessageDeserializer(eager);
+
+   private PlatformMessage createMessage() {
+      return
+            PlatformMessage
+               .buildRequest(
+                     MessageBody.buildMessage("test:Request", ImmutableMap.<String, Object>of("test:attr", "value")),
+                     Address.clientAddress("android", "session"),
+                     Address.platformDriverAddress(UUID.randomUUID())
+               )
+               .withPlaceId(UUID.randomUUID())
+               .withPopulation("general")
+               .withActor(Address.platformService(UUID.randomUUID(), "person"))
+               .withCorrelationId("correlation")
+               .withTimeToLive(30000)
+               .create();
+   }
+
+   /**
+    * An eager deserializer with the expired message optimization enabled.
+    */
+   private static Deserializer<PlatformMessage> expiringDeserializer(int defaultTtl) {
+      Gson gson =
+            new GsonBuilder()
+               .registerTypeAdapterFactory(new MessageBodyTypeAdapterFactory())
+               .create();
+      MessageTypeAdapter adapter = new MessageTypeAdapter(gson, defaultTtl);
+      return new Deserializer<PlatformMessage>() {
+         @Override
+         public PlatformMessage deserialize(byte[] input) {
+            try {
+               return adapter.fromJson(new String(input, StandardCharsets.UTF_8));
+            }
+            catch(IOException e) {
+               throw new IllegalArgumentException(e);
+            }
+         }
+
+         @Override
+         public PlatformMessage deserialize(InputStream input) throws IOException {
+            return deserialize(ByteStreams.toByteArray(input));
+         }
+      };
+   }
+
+   @Test
+   public void testEnvelopeWithoutPayload() {
+      PlatformMessage expected = createMessage();
+      PlatformMessage actual = lazy.deserialize(serializer.serialize(expected));
+
+      assertFalse(actual.isPayloadDecoded());
+      assertEquals(expected.getSource(), actual.getSource());
+      assertEquals(expected.getDestination(), actual.getDestination());
+      assertEquals(expected.getMessageType(), actual.getMessageType());
+      assertEquals(expected.getPlaceId(), actual.getPlaceId());
+      assertEquals(expected.getPopulation(), actual.getPopulation());
+      assertEquals(expected.getActor(), actual.getActor());
+      assertEquals(expected.getCorrelationId(), actual.getCorrelationId());
+      assertEquals(expected.getTimestamp(), actual.getTimestamp());
+      assertEquals(expected.getTimeToLive(), actual.getTimeToLive());
+      assertEquals(expected.isRequest(), actual.isRequest());
+      assertFalse(actual.isPayloadDecoded());
+   }
+
+   @Test
+   public void testPayloadDecodedOnAccess() {
+      PlatformMessage expected = createMessage();
+      PlatformMessage actual = lazy.deserialize(serializer.serialize(expected));
+
+      assertEquals(expected.getValue(), actual.getValue());
+      assertTrue(actual.isPayloadDecoded());
+      assertEquals(eager.deserialize(serializer.serialize(expected)), actual);
+   }
+
+   @Test
+   public void testPayloadBeforeEnvelope() {
+      String json =
+            "{\"payload\":{\"messageType\":\"test:Event\",\"attributes\":{\"test:attr\":1}}," +
+            "\"source\":\"" + Address.platformDriverAddress(UUID.randomUUID()).getRepresentation() + "\",\"type\":\"test:Event\",\"placeId\":\"place\"}";
+      PlatformMessage actual = lazy.deserialize(json.getBytes(StandardCharsets.UTF_8));
+
+      assertFalse(actual.isPayloadDecoded());
+      assertEquals("test:Event", actual.getMessageType());
+      assertEquals("place", actual.getPlaceId());
+      assertTrue(actual.getDestination().isBroadcast());
+      assertEquals("test:Event", actual.getValue().getMessageType());
+      assertEquals(1L, ((Number) actual.getValue().getAttributes().get("test:attr")).longValue());
+   }
+
+   @Test
+   public void testExpiredAtDecodeMatchesEager() {
+      PlatformMessage expected =
+            PlatformMessage
+               .builder(createMessage())
+               .withTimestamp(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1))
+               .withTimeToLive(1000)
+               .create();
+      byte[] serialized = serializer.serialize(expected);
+      Deserializer<PlatformMessage> expiring = expiringDeserializer(1000);
+      Deserializer<PlatformMessage> lazyExpiring = new LazyPlatformMessageDeserializer(expiring, 1000);
+
+      PlatformMessage eagerResult = expiring.deserialize(serialized);
+      PlatformMessage lazyResult = lazyExpiring.deserialize(serialized);
+
+      assertTrue(lazyResult.isPayloadDecoded());
+      assertNull(eagerResult.getValue());
+      assertNull(lazyResult.getValue());
+      assertEquals(eagerResult.getMessageType(), lazyResult.getMessageType());
+      assertEquals(eagerResult.getPlaceId(), lazyResult.getPlaceId());
+      assertEquals(eagerResult.getCorrelationId(), lazyResult.getCorrelationId());
+   }
+
+   @Test
+   public void testNotExpiredAtDecodeMatchesEager() {
+      PlatformMessage expected = createMessage();
+      byte[] serialized = serializer.serialize(expected);
+      Deserializer<PlatformMessage> expiring = expiringDeserializer(1000);
+      Deserializer<PlatformMessage> lazyExpiring = new LazyPlatformMessageDeserializer(expiring, 1000);
+
+      PlatformMessage lazyResult = lazyExpiring.deserialize(serialized);
+
+      assertFalse(lazyResult.isPayloadDecoded());
+      assertEquals(expiring.deserialize(serialized), lazyResult);
+   }
+
+   @Test
+   public void testPayloadLoadedAfterExpiration() {
+      PlatformMessage expected = createMessage();
+      // simulates the message expiring between reading the envelope and accessing the payload
+      Deserializer<PlatformMessage> expiresLater = new Deserializer<PlatformMessage>() {
+         @Override
+         public PlatformMessage deserialize(byte[] input) {
+            PlatformMessage message = eager.deserialize(input);
+            return
+                  PlatformMessage
+                     .builder()
+                     .from(message.getSource())
+                     .to(message.getDestination())
+                     .createExpired(message.getMessageType());
+         }
+
+         @Override
+         public PlatformMessage deserialize(InputStream input) throws IOException {
+            return deserialize(ByteStreams.toByteArray(input));
+         }
+      };
+      PlatformMessage actual = new LazyPlatformMessageDeserializer(expiresLater).deserialize(serializer.serialize(expected));
+
+      assertFalse(actual.isPayloadDecoded());
+      assertEquals(expected.getValue(), actual.getValue());
+      assertEquals(expected.getPlaceId(), actual.getPlaceId());
+   }
+
+}
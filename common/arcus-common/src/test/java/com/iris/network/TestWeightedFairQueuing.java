@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import org.junit.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.iris.network.PacketSchedulerTestCase.DropCounter;
+import com.iris.network.PacketSchedulerTestCase.DropCounterSupplier;
+
+public class TestWeightedFairQueuing {
+
+   @Test
+   public void testWeightsDivideOutput() throws Exception {
+      PacketScheduler<String> scheduler = PacketSchedulers.<String>fairQueuing().build();
+      PacketScheduler.Producer<String> heavy = scheduler.attach(new ArrayBlockingQueue<String>(100), RateLimiters.unlimited().build(), 3);
+      PacketScheduler.Producer<String> light = scheduler.attach(new ArrayBlockingQueue<String>(100), RateLimiters.unlimited().build(), 1);
+      for (int i = 0; i < 100; ++i) {
+         heavy.send("heavy");
+         light.send("light");
+      }
+
+      int heavyCount = 0;
+      for (int i = 0; i < 40; ++i) {
+         if ("heavy".equals(scheduler.poll())) {
+            heavyCount++;
+         }
+      }
+      assertEquals(30, heavyCount);
+   }
+
+   @Test
+   public void testIdleProducerDoesNotDelayOthers() throws Exception {
+      PacketScheduler<String> scheduler =
+            PacketSchedulers.<String>fairQueuing()
+               .useArrayQueue(10)
+               .setProducerWeight(4)
+               .build();
+      PacketScheduler.Producer<String> idle = scheduler.attach();
+      PacketScheduler.Producer<String> busy = scheduler.attach();
+      for (int i = 0; i < 10; ++i) {
+         busy.send("busy" + i);
+      }
+      for (int i = 0; i < 10; ++i) {
+         assertEquals("busy" + i, scheduler.poll());
+      }
+      assertNull(scheduler.poll());
+
+      idle.send("idle");
+      assertEquals("idle", scheduler.poll());
+   }
+
+   @Test
+   public void testRateLimitedProducerIsSkipped() throws Exception {
+      Supplier<DropCounter> drops = Suppliers.memoize(DropCounterSupplier.INSTANCE);
+      PacketScheduler<String> scheduler =
+            PacketSchedulers.<String>fairQueuing()
+               .useArrayQueue(10)
+               .dropOnQueueFull()
+               .setDropHandler(drops)
+               .build();
+      PacketScheduler.Producer<String> noisy = scheduler.attach(new ArrayBlockingQueue<String>(10), RateLimiters.tokenBucket(2, 0.001).build(), 1);
+      PacketScheduler.Producer<String> quiet = scheduler.attach();
+      for (int i = 0; i < 20; ++i) {
+         noisy.offer("noisy");
+      }
+      quiet.send("quiet");
+
+      // the noisy producer only has 2 tokens, the quiet one should still get through
+      int noisyCount = 0;
+      int quietCount = 0;
+      String packet;
+      while ((packet = scheduler.poll()) != null) {
+         if ("noisy".equals(packet)) {
+            noisyCount++;
+         }
+         else {
+            quietCount++;
+         }
+      }
+      assertEquals(2, noisyCount);
+      assertEquals(1, quietCount);
+      assertEquals(10L, drops.get().get());
+   }
+
+   @Test
+   public void testDetachDropsQueuedPackets() throws Exception {
+      Supplier<DropCounter> drops = Suppliers.memoize(DropCounterSupplier.INSTANCE);
+      PacketScheduler<String> scheduler =
+            PacketSchedulers.<String>fairQueuing()
+               .useArrayQueue(10)
+               .dropOnQueueFull()
+               .setDropHandler(drops)
+               .build();
+      PacketScheduler.Producer<String> detached = scheduler.attach();
+      PacketScheduler.Producer<String> attached = scheduler.attach();
+      for (int i = 0; i < 3; ++i) {
+         detached.send("detached");
+      }
+      attached.send("attached");
+
+      scheduler.detach(detached);
+      assertEquals(3L, drops.get().get());
+      assertEquals("attached", scheduler.take());
+      assertNull(scheduler.poll());
+
+      // the permits for the dropped packets are gone so take waits for the next packet
+      attached.send("next");
+      assertEquals("next", scheduler.take());
+      scheduler.detach(attached);
+      assertNull(scheduler.poll());
+   }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestRegexDfaTable extends RegexTestCase {
+
+   @Test
+   public void testSingleMatch() {
+      for (int i = 0; i < 256; ++i) {
+         RegexDfaTable<List<String>> regex = RegexDfaTable.compile(parse(Integer.toHexString(i), "m"));
+         assertFalse(regex.matches(new byte[] { }));
+         assertTrue(regex.matches(new byte[] { (byte)i }));
+         assertFalse(regex.matches(new byte[] { (byte)(i+1) }));
+         assertFalse(regex.matches(new byte[] { (byte)i, (byte)i }));
+         assertEquals(2, regex.getNumClasses());
+      }
+   }
+
+   @Test
+   public void testWildcardUsesSingleClass() {
+      RegexDfaTable<List<String>> regex = RegexDfaTable.compile(parse(".*", "m"));
+      assertEquals(1, regex.getNumClasses());
+      assertTrue(regex.matches(new byte[] { }));
+      for (int i = 0; i < 256; ++i) {
+         assertTrue(regex.matches(new byte[] { (byte)i, (byte)(i+1) }));
+      }
+   }
+
+   @Test
+   public void testMatchingValue() {
+      RegexDfaByte<List<String>> dfa = parse("00 01 .*", "on");
+      RegexDfaTable<List<String>> table = RegexDfaTable.compile(dfa);
+      assertEquals(dfa.matching(new byte[] { 0, 1, 5 }), table.matching(new byte[] { 0, 1, 5 }));
+      assertNull(table.matching(new byte[] { 0, 2, 5 }));
+      assertNull(table.matching(new byte[] { 0 }));
+   }
+
+   @Test
+   public void testOffsetAndBuffers() {
+      RegexDfaTable<List<String>> table = RegexDfaTable.compile(parse("00 01 ff", "m"));
+      byte[] input = new byte[] { 7, 0, 1, (byte)0xFF, 7 };
+      assertFalse(table.matches(input));
+      assertTrue(table.matches(input, 1, 3));
+
+      ByteBuffer heap = ByteBuffer.wrap(input, 1, 3).slice();
+      assertTrue(table.matches(heap));
+      assertEquals(0, heap.position());
+
+      ByteBuffer direct = ByteBuffer.allocateDirect(input.length);
+      direct.put(input);
+      direct.position(1);
+      direct.limit(4);
+      assertTrue(table.matches(direct));
+      assertEquals(1, direct.position());
+   }
+
+   @Test
+   public void testSymbolEncoder() {
+      RegexDfaTable<List<String>> table = RegexDfaTable.compile(parse("00 (01|02) ff", "m"));
+      RegexSymbolEncoder<Byte> encoder = table.getSymbolEncoder();
+      assertEquals(encoder.encode((byte)1)[0], encoder.encode((byte)2)[0]);
+      assertEquals(encoder.encode((byte)3)[0], encoder.encode((byte)4)[0]);
+      assertFalse(encoder.encode((byte)0)[0] == encoder.encode((byte)1)[0]);
+   }
+
+   @Test
+   public void testSameResultsAsByteDfa() {
+      // patterned after the matches generated for zwave and zigbee reflexes
+      List<RegexNfa<Byte,String>> all = new ArrayList<>();
+      all.add(Regex.parseByteRegex("00 . . . . . 20 03 ff .*", "on"));
+      all.add(Regex.parseByteRegex("00 . . . . . 20 03 00 .*", "off"));
+      all.add(Regex.parseByteRegex("00 . . . . . 25 03 (00|ff) .*", "switch"));
+      all.add(Regex.parseByteRegex("00 . . . . . 26 03 . .*", "level"));
+      all.add(Regex.parseByteRegex("01 . . . . 06 00 . . 0a 00 00 10 . .*", "onoff"));
+      RegexDfaByte<List<String>> dfa = RegexUtil.dfaToByteRep(RegexUtil.dfaMinimize(RegexUtil.nfaConvertToDfa(RegexNfa.<Byte,String>append(all))));
+      RegexDfaTable<List<String>> table = RegexDfaTable.compile(dfa);
+      assertTrue(table.getNumClasses() < 16);
+
+      Random random = new Random(42);
+      byte[] alphabet = new byte[] { 0x00, 0x01, 0x03, 0x06, 0x0a, 0x10, 0x20, 0x25, 0x26, (byte)0xff, 0x42 };
+      int matched = 0;
+      for (int i = 0; i < 20000; ++i) {
+         byte[] input = new byte[random.nextInt(16)];
+         for (int j = 0; j < input.length; ++j) {
+            input[j] = alphabet[random.nextInt(alphabet.length)];
+         }
+         if (random.nextBoolean() && input.length > 8) {
+            input[0] = 0x00;
+            input[6] = 0x20;
+            input[7] = 0x03;
+         }
+
+         List<String> expected = dfa.matching(input);
+         assertEquals(expected, table.matching(input));
+         assertEquals(dfa.matches(input), table.matches(input));
+         if (expected != null) {
+            matched++;
+         }
+      }
+
+      assertTrue(matched > 0);
+   }
+
+   private static RegexDfaByte<List<String>> parse(String regex, String value) {
+      return RegexUtil.dfaToByteRep(RegexUtil.dfaMinimize(RegexUtil.nfaConvertToDfa(Regex.parseByteRegex(regex,value))));
+   }
+}
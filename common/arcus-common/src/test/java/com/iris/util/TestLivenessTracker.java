@@ -0,0 +1,192 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class TestLivenessTracker {
+   private static final long TIMEOUT = 1000;
+   private static final long TICK = 10;
+
+   private final LivenessTracker<String, Entry> tracker = new LivenessTracker<>(TIMEOUT, TICK, (e) -> e.lastSeen);
+
+   @Test
+   public void testExpiresAfterTimeout() {
+      Entry e = add("a", 0);
+      assertEquals(1, tracker.size());
+      assertTrue(tracker.expire(TIMEOUT).isEmpty());
+      assertEquals(list(e), tracker.expire(TIMEOUT + 1));
+      assertEquals(0, tracker.size());
+      assertNull(tracker.get("a"));
+      assertTrue(tracker.expire(10 * TIMEOUT).isEmpty());
+   }
+
+   @Test
+   public void testRefreshDelaysExpiration() {
+      Entry e = add("a", 0);
+      e.lastSeen = 500;
+      assertTrue(tracker.expire(TIMEOUT + 1).isEmpty());
+      assertTrue(tracker.expire(TIMEOUT + 500).isEmpty());
+      assertEquals(list(e), tracker.expire(TIMEOUT + 501));
+   }
+
+   @Test
+   public void testComputeIfAbsentCreatesOnce() {
+      Entry e = tracker.computeIfAbsent("a", (k) -> new Entry(k, 0), 0);
+      assertSame(e, tracker.computeIfAbsent("a", (k) -> { throw new AssertionError("Should not be invoked"); }, 0));
+      assertSame(e, tracker.putIfAbsent("a", new Entry("a", 0), 0));
+      assertSame(e, tracker.get("a"));
+   }
+
+   @Test
+   public void testRemove() {
+      Entry a = add("a", 0);
+      Entry b = add("b", 0);
+      Entry c = add("c", 0);
+      assertFalse(tracker.remove("a", new Entry("a", 0)));
+      assertTrue(tracker.remove("a", a));
+      assertSame(b, tracker.remove("b"));
+      assertNull(tracker.remove("b"));
+      assertEquals(list(c), tracker.expire(2 * TIMEOUT));
+   }
+
+   @Test
+   public void testRemoveIf() {
+      add("a", 0);
+      Entry b = add("b", 0);
+      add("c", 0);
+      tracker.removeIf((e) -> !e.id.equals("b"));
+      assertEquals(1, tracker.size());
+      assertEquals(list(b), tracker.expire(2 * TIMEOUT));
+   }
+
+   @Test
+   public void testRescheduleEarlier() {
+      Entry e = add("a", 5 * TIMEOUT);
+      assertTrue(tracker.expire(TIMEOUT).isEmpty());
+      e.lastSeen = TIMEOUT;
+      tracker.reschedule("a");
+      assertEquals(list(e), tracker.expire(2 * TIMEOUT + 1));
+   }
+
+   @Test
+   public void testBeyondTheWheel() {
+      long far = TICK * (1L << 30);
+      Entry e = add("a", far);
+      assertTrue(tracker.expire(far).isEmpty());
+      assertTrue(tracker.expire(far + TIMEOUT).isEmpty());
+      assertEquals(list(e), tracker.expire(far + TIMEOUT + 1));
+   }
+
+   @Test
+   public void testLargeGapsBetweenChecks() {
+      Entry a = add("a", 0);
+      Entry b = add("b", 0);
+      b.lastSeen = 300 * TIMEOUT;
+      assertEquals(list(a), tracker.expire(100 * TIMEOUT));
+      assertTrue(tracker.expire(301 * TIMEOUT).isEmpty());
+      assertEquals(list(b), tracker.expire(301 * TIMEOUT + 1));
+   }
+
+   /**
+    * Compares the tracker to a full scan with random refreshes and
+    * random intervals between checks.
+    */
+   @Test
+   public void testMatchesFullScan() {
+      Random random = new Random(42);
+      Map<String, Entry> expected = new HashMap<>();
+      long now = 1_000_000;
+      for(int round = 0; round < 2000; round++) {
+         for(int i = 0; i < 20; i++) {
+            String id = String.valueOf(random.nextInt(500));
+            Entry e = tracker.computeIfAbsent(id, (k) -> new Entry(k, 0), now);
+            e.lastSeen = now;
+            expected.put(id, e);
+         }
+         if(random.nextInt(50) == 0) {
+            // clock skew, a refresh that moves backwards
+            Entry e = expected.values().iterator().next();
+            e.lastSeen -= random.nextInt((int) TIMEOUT);
+            tracker.reschedule(e.id);
+         }
+
+         int gap = random.nextInt(10);
+         now += gap == 0 ? random.nextInt(100 * (int) TIMEOUT) : random.nextInt((int) TIMEOUT / 4);
+
+         Set<String> expired = new HashSet<>();
+         for(Entry e: expected.values()) {
+            if(e.lastSeen + TIMEOUT < now) {
+               expired.add(e.id);
+            }
+         }
+         expected.keySet().removeAll(expired);
+
+         Set<String> actual = new HashSet<>();
+         for(Entry e: tracker.expire(now)) {
+            actual.add(e.id);
+         }
+         assertEquals("Round " + round, expired, actual);
+         assertEquals(expected.size(), tracker.size());
+      }
+   }
+
+   private Entry add(String id, long lastSeen) {
+      Entry e = new Entry(id, lastSeen);
+      assertNull(tracker.putIfAbsent(id, e, 0));
+      return e;
+   }
+
+   private static List<Entry> list(Entry... entries) {
+      List<Entry> list = new ArrayList<>();
+      for(Entry e: entries) {
+         list.add(e);
+      }
+      return list;
+   }
+
+   private static class Entry {
+      private final String id;
+      private volatile long lastSeen;
+
+      Entry(String id, long lastSeen) {
+         this.id = id;
+         this.lastSeen = lastSeen;
+      }
+
+      @Override
+      public String toString() {
+         return id + "@" + lastSeen;
+      }
+   }
+}
@@ -20,6 +20,9 @@ package com.iris.driver;
 
 import java.util.Map;
 
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.base.Predicate;
 import com.iris.device.attributes.AttributeKey;
 import com.iris.device.attributes.AttributeMap;
 import com.iris.driver.event.DriverEvent;
@@ -44,6 +47,16 @@ public interface DeviceDriver {
 	 */
 	public boolean supports(AttributeMap attributes);
 
+	/**
+	 * The predicate used to implement {@link #supports(AttributeMap)}, this
+	 * may be inspected to determine which attributes the driver matches on.
+	 * @return The matcher or {@code null} if it isn't known.
+	 */
+	@Nullable
+	default Predicate<AttributeMap> getMatcher() {
+	   return null;
+	}
+
 	// TODO is this strictly required?
 	public DeviceDriverDefinition getDefinition();
 
@@ -119,6 +119,11 @@ class DeviceDriverImpl implements DeviceDriver {
       return matcher.apply(attributes);
    }
 
+   @Override
+   public Predicate<AttributeMap> getMatcher() {
+      return matcher;
+   }
+
    /* (non-Javadoc)
     * @see com.iris.core.driver.DeviceDriver#getDefinition()
     */
@@ -20,6 +20,7 @@ package com.iris.driver;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -27,6 +28,7 @@ import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
 import com.iris.Utils;
 import com.iris.device.attributes.AttributeKey;
 import com.iris.device.attributes.AttributeMap;
@@ -79,37 +81,56 @@ public class DriverPredicates {
          final AttributeKey<T> key,
          final T value
    ) {
-      return attributeMatches(key, Predicates.equalTo(value));
+      return attributeMatches(key, equalTo(value));
    }
 
-   public static <T> Predicate<AttributeMap> attributeMatches(
+   public static <T> AttributeMatcher<T> attributeMatches(
          final AttributeKey<T> key,
          final Predicate<? super T> predicate
    ) {
       Utils.assertNotNull(key);
       Utils.assertNotNull(predicate);
-      return new Predicate<AttributeMap>() {
+      return new AttributeMatcher<T>(key, predicate);
+   }
+
+   /**
+    * Like {@link Predicates#and(Iterable)} but the components may be
+    * inspected, which allows drivers to be indexed by their matchers.
+    */
+   public static Predicate<AttributeMap> and(Collection<? extends Predicate<AttributeMap>> components) {
+      return new Conjunction(components);
+   }
+
+   /**
+    * Like {@link Predicates#or(Iterable)} but the components may be
+    * inspected, which allows drivers to be indexed by their matchers.
+    */
+   public static Predicate<AttributeMap> or(Collection<? extends Predicate<AttributeMap>> components) {
+      return new Disjunction(components);
+   }
+
+   public static <T> ValuePredicate<T> equalTo(final T value) {
+      return new ValuePredicate<T>() {
          @Override
-         public boolean apply(AttributeMap input) {
-            if(input == null) {
-               return false;
-            }
-            T value = input.get(key);
-            if(value == null) {
-               return false;
-            }
-            return predicate.apply(value);
+         public boolean apply(T input) {
+            return value == null ? input == null : value.equals(input);
+         }
+
+         @Override
+         public Collection<T> getValues() {
+            // attribute matchers never pass null values, so equalTo(null) can't match
+            return value == null ? Collections.<T>emptySet() : Collections.singleton(value);
          }
 
          @Override
          public String toString() {
-            return "Predicate<AttributeMap> [" + key + " matches " + predicate + "]";
+            return "equalTo(" + value + ")";
          }
       };
    }
 
-   public static <T> Predicate<T> isIn(final Collection<T> value) {
-      return new Predicate<T>() {
+   public static <T> ValuePredicate<T> isIn(final Collection<T> value) {
+      return new ValuePredicate<T>() {
          @Override
          public boolean apply(T input) {
             if (input == null) {
@@ -117,6 +138,16 @@ public class DriverPredicates {
             }
             return value.contains(input);
          }
+
+         @Override
+         public Collection<T> getValues() {
+            return Collections.unmodifiableCollection(value);
+         }
+
+         @Override
+         public String toString() {
+            return "in(" + value + ")";
+         }
       };
    }
    
@@ -175,7 +206,7 @@ public class DriverPredicates {
       }
 
       public R equalTo(T value) {
-         return matches(Predicates.equalTo(value));
+         return matches(DriverPredicates.equalTo(value));
       }
 
       public R matches(final Predicate<? super T> predicate) {
@@ -216,9 +247,107 @@ public class DriverPredicates {
          if(matchers.size() == 1) {
             return matchers.get(0);
          }
-         return Predicates.and(matchers);
+         return and(matchers);
+      }
+
+   }
+
+   /**
+    * A predicate which only accepts a known set of values.
+    */
+   public interface ValuePredicate<T> extends Predicate<T> {
+
+      Collection<T> getValues();
+
+   }
+
+   public static class AttributeMatcher<T> implements Predicate<AttributeMap> {
+      private final AttributeKey<T> key;
+      private final Predicate<? super T> predicate;
+
+      AttributeMatcher(AttributeKey<T> key, Predicate<? super T> predicate) {
+         this.key = key;
+         this.predicate = predicate;
+      }
+
+      public AttributeKey<T> getKey() {
+         return key;
       }
 
+      public Predicate<? super T> getPredicate() {
+         return predicate;
+      }
+
+      @Override
+      public boolean apply(AttributeMap input) {
+         if(input == null) {
+            return false;
+         }
+         T value = input.get(key);
+         if(value == null) {
+            return false;
+         }
+         return predicate.apply(value);
+      }
+
+      @Override
+      public String toString() {
+         return "Predicate<AttributeMap> [" + key + " matches " + predicate + "]";
+      }
+   }
+
+   public static class Conjunction implements Predicate<AttributeMap> {
+      private final List<Predicate<AttributeMap>> components;
+
+      Conjunction(Collection<? extends Predicate<AttributeMap>> components) {
+         this.components = ImmutableList.copyOf(components);
+      }
+
+      public List<Predicate<AttributeMap>> getComponents() {
+         return components;
+      }
+
+      @Override
+      public boolean apply(AttributeMap input) {
+         for(Predicate<AttributeMap> component: components) {
+            if(!component.apply(input)) {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      @Override
+      public String toString() {
+         return "and" + components;
+      }
+   }
+
+   public static class Disjunction implements Predicate<AttributeMap> {
+      private final List<Predicate<AttributeMap>> components;
+
+      Disjunction(Collection<? extends Predicate<AttributeMap>> components) {
+         this.components = ImmutableList.copyOf(components);
+      }
+
+      public List<Predicate<AttributeMap>> getComponents() {
+         return components;
+      }
+
+      @Override
+      public boolean apply(AttributeMap input) {
+         for(Predicate<AttributeMap> component: components) {
+            if(component.apply(input)) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      @Override
+      public String toString() {
+         return "or" + components;
+      }
    }
 
 }
@@ -69,6 +69,7 @@ import com.iris.protocol.zigbee.msg.ZigbeeMessage;
 import com.iris.protocol.zigbee.zcl.IasZone;
 import com.iris.protocol.zwave.Protocol;
 import com.iris.regex.RegexDfaByte;
+import com.iris.regex.RegexDfaTable;
 
 public class ReflexDriver {
    private static final Logger log = LoggerFactory.getLogger(ReflexDriver.class);
@@ -1426,9 +1427,12 @@ public class ReflexDriver {
 
    private static final class RegexMatch extends AbstractProtocolMatch {
       RegexDfaByte<List<Action>> dfa;
+      // flattened copy of dfa used for matching, dfa is kept for debugging
+      RegexDfaTable<List<Action>> table;
 
       public RegexMatch(RegexDfaByte<List<Action>> dfa) {
          this.dfa = dfa;
+         this.table = RegexDfaTable.compile(dfa);
       }
 
       public static int getRequiredReflexVersion() {
@@ -1467,7 +1471,7 @@ public class ReflexDriver {
             start = System.nanoTime();
          }
 
-         List<Action> results = dfa.matching(protocol);
+         List<Action> results = table.matching(protocol);
 
          if (log.isTraceEnabled()) {
             long elapsed = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
@@ -148,6 +148,18 @@ public final class ReflexDriverDefinition {
       return hash;
    }
 
+   /**
+    * The key used to identify this definition when the hub and platform
+    * exchange driver hashes during reflex synchronization.
+    */
+   public String getSyncKey() {
+      return getSyncKey(name, version);
+   }
+
+   public static String getSyncKey(String name, Version version) {
+      return name + ":" + version.getRepresentation();
+   }
+
    public long getOfflineTimeout() {
       return offlineTimeout;
    }
@@ -66,6 +66,22 @@ public class DriverConfig {
    @Inject(optional = true)
    @Named("driver.tombstoneTimeoutSec")
    private long driverTombstoneTimeoutSec = TimeUnit.MINUTES.toSeconds(5);
+
+   @Inject(optional = true)
+   @Named("driver.executor.maxCached")
+   private int driverExecutorMaxCached = 0;
+
+   @Inject(optional = true)
+   @Named("driver.executor.idleTimeoutSec")
+   private long driverExecutorIdleTimeoutSec = 0;
+
+   @Inject(optional = true)
+   @Named("driver.executor.evictionIntervalSec")
+   private long driverExecutorEvictionIntervalSec = TimeUnit.MINUTES.toSeconds(1);
+
+   @Inject(optional = true)
+   @Named("driver.load.threads")
+   private int driverLoadThreads = Runtime.getRuntime().availableProcessors();
    
    public String getApplicationDirectory() {
       return applicationDirectory;
@@ -155,6 +171,55 @@ public class DriverConfig {
       this.driverTombstoneTimeoutSec = driverTombstoneTimeoutSec;
    }
 
+   /**
+    * @return the maximum number of driver executors to keep in memory, 0 or less is unbounded
+    */
+   public int getDriverExecutorMaxCached() {
+      return driverExecutorMaxCached;
+   }
+
+   public void setDriverExecutorMaxCached(int driverExecutorMaxCached) {
+      this.driverExecutorMaxCached = driverExecutorMaxCached;
+   }
+
+   /**
+    * @return how long a driver executor may go without processing an event before it is unloaded, 0 or less disables idle eviction
+    */
+   public long getDriverExecutorIdleTimeoutSec() {
+      return driverExecutorIdleTimeoutSec;
+   }
+
+   public long getDriverExecutorIdleTimeout(TimeUnit unit) {
+      return driverExecutorIdleTimeoutSec <= 0 ? 0 : unit.convert(driverExecutorIdleTimeoutSec, TimeUnit.SECONDS);
+   }
+
+   public void setDriverExecutorIdleTimeoutSec(long driverExecutorIdleTimeoutSec) {
+      this.driverExecutorIdleTimeoutSec = driverExecutorIdleTimeoutSec;
+   }
+
+   public long getDriverExecutorEvictionIntervalSec() {
+      return driverExecutorEvictionIntervalSec;
+   }
+
+   public long getDriverExecutorEvictionInterval(TimeUnit unit) {
+      return driverExecutorEvictionIntervalSec <= 0 ? 0 : unit.convert(driverExecutorEvictionIntervalSec, TimeUnit.SECONDS);
+   }
+
+   public void setDriverExecutorEvictionIntervalSec(long driverExecutorEvictionIntervalSec) {
+      this.driverExecutorEvictionIntervalSec = driverExecutorEvictionIntervalSec;
+   }
+
+   /**
+    * @return the number of driver scripts that may be compiled concurrently, 0 loads them on the calling thread
+    */
+   public int getDriverLoadThreads() {
+      return driverLoadThreads;
+   }
+
+   public void setDriverLoadThreads(int driverLoadThreads) {
+      this.driverLoadThreads = driverLoadThreads;
+   }
+
    // TODO move this to a utility
    public Properties toProperties() {
       Properties props = new Properties();
@@ -24,6 +24,9 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
@@ -32,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.AbstractFuture;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.iris.common.scheduler.Scheduler;
 import com.iris.driver.DeviceDriver;
 import com.iris.driver.DeviceDriverContext;
@@ -64,6 +68,9 @@ public class DefaultDriverExecutor implements DriverExecutor {
    private final DeviceDriverContext context;
    private final Scheduler           scheduler;
    private final ConcurrentMap<String, NamedEvent> namedEvents;
+   // events handed to the scheduler which have not fired or been cancelled yet
+   private final AtomicInteger scheduledEvents = new AtomicInteger();
+   private volatile long lastActivityNanos = System.nanoTime();
    
    /**
     * This lock is used to make sure that running / messages are
@@ -77,6 +84,8 @@ public class DefaultDriverExecutor implements DriverExecutor {
    private Thread running = null;
    private PriorityQueue<DeferredEvent> events;
    private boolean stopped = false;
+   // set once this executor has been evicted, supplies the executor which replaced it
+   private Supplier<DriverExecutor> successor = null;
    
    public DefaultDriverExecutor(
          DeviceDriver driver,
@@ -133,11 +142,19 @@ public class DefaultDriverExecutor implements DriverExecutor {
     */
    @Override
    public void stop() {
-      context().getLogger().debug("Stopping driver [{}]", driver.getDriverId());
-      cancelNamedEvents();
+      Supplier<DriverExecutor> successor;
       synchronized(lock) {
-         this.stopped = true;
+         successor = this.successor;
+         if(successor == null) {
+            this.stopped = true;
+         }
       }
+      if(successor != null) {
+         successor.get().stop();
+         return;
+      }
+      context().getLogger().debug("Stopping driver [{}]", driver.getDriverId());
+      cancelNamedEvents();
       run(new DeferredEvent(DriverEvent.driverStopped()));
    }
    
@@ -151,6 +168,7 @@ public class DefaultDriverExecutor implements DriverExecutor {
       else {
          // have to do this through the scheduler instead of just queuing to
          // ensure there is a thread for it when it runs
+         trackScheduled(e);
          scheduler.scheduleDelayed(e, 0, TimeUnit.MILLISECONDS);
       }
       return e;
@@ -159,6 +177,7 @@ public class DefaultDriverExecutor implements DriverExecutor {
    @Override
    public ListenableFuture<Void> defer(Object event, Date timestamp) {
       DeferredEvent e = new DeferredEvent(event);
+      trackScheduled(e);
       scheduler.scheduleAt(e, timestamp);
       return e;
    }
@@ -166,16 +185,30 @@ public class DefaultDriverExecutor implements DriverExecutor {
    @Override
    public ListenableFuture<Void> defer(String key, Object event, Date timestamp) {
       NamedEvent e = new NamedEvent(key, event);
-      NamedEvent old = namedEvents.put(key, e);
+      NamedEvent old;
+      Supplier<DriverExecutor> successor;
+      synchronized(lock) {
+         // register under the lock so evict() can't miss it
+         successor = this.successor;
+         old = successor == null ? namedEvents.put(key, e) : null;
+      }
+      if(successor != null) {
+         return successor.get().defer(key, event, timestamp);
+      }
       if(old != null) {
          old.cancel(false);
       }
+      trackScheduled(e);
       scheduler.scheduleAt(e, timestamp);
       return e;
    }
 
    @Override
    public boolean cancel(String key) {
+      DriverExecutor successor = getSuccessor();
+      if(successor != null) {
+         return successor.cancel(key);
+      }
       NamedEvent e = namedEvents.remove(key);
       if(e == null) {
          return false;
@@ -216,6 +249,68 @@ public class DefaultDriverExecutor implements DriverExecutor {
       return events.size();
    }
 
+   /**
+    * An executor is idle when it isn't processing or holding any events, has
+    * no deferred events waiting on the scheduler and the driver isn't in the
+    * middle of a request.  Idle executors hold no state that isn't persisted,
+    * so they may be discarded and re-created when the next event arrives.
+    */
+   public boolean isIdle() {
+      synchronized(lock) {
+         if(running != null || !events.isEmpty()) {
+            return false;
+         }
+      }
+      return
+            scheduledEvents.get() == 0 &&
+            namedEvents.isEmpty() &&
+            !context.hasMessageContext();
+   }
+
+   /**
+    * Unloads this executor if it is idle.  The idle check, {@code remove} and
+    * marking the executor as evicted happen atomically with respect to new events,
+    * so an executor which picked up work is never evicted.  Anything delivered to
+    * an evicted executor afterwards, for instance by a caller which loaded it just
+    * before the eviction, is forwarded to the executor returned by {@code successor}
+    * so a device never has two executors processing events at once.  The driver is
+    * not stopped, its state has already been persisted.
+    * @param remove
+    *    Unloads the executor, invoked while the executor is locked.  Returning
+    *    {@code false} leaves the executor as it was.
+    * @param successor
+    *    Loads the executor which replaces this one.
+    * @return {@code true} if the executor was evicted
+    */
+   public boolean evict(BooleanSupplier remove, Supplier<DriverExecutor> successor) {
+      Preconditions.checkNotNull(successor, "successor may not be null");
+      synchronized(lock) {
+         if(this.successor != null || stopped || !isIdle()) {
+            return false;
+         }
+         // set first so isEvicted() is already true for any removal listeners
+         this.successor = successor;
+         if(!remove.getAsBoolean()) {
+            this.successor = null;
+            return false;
+         }
+         return true;
+      }
+   }
+
+   public boolean isEvicted() {
+      synchronized(lock) {
+         return successor != null;
+      }
+   }
+
+   /**
+    * The time since this executor last started or finished processing an event.
+    */
+   public long getIdleTime(TimeUnit unit) {
+      return unit.convert(System.nanoTime() - lastActivityNanos, TimeUnit.NANOSECONDS);
+   }
+
    /* (non-Javadoc)
     * @see java.lang.Object#toString()
     */
@@ -226,7 +321,17 @@ public class DefaultDriverExecutor implements DriverExecutor {
    }
 
    protected final void run(DeferredEvent event) {
-      DeferredEvent e = lockOrQueue(event);
+      Supplier<DriverExecutor> successor;
+      DeferredEvent e;
+      synchronized(lock) {
+         successor = this.successor;
+         e = successor == null ? lockOrQueue(event) : null;
+      }
+      if(successor != null) {
+         event.forward(successor);
+         return;
+      }
+      lastActivityNanos = System.nanoTime();
       if(e == null) {
          return;
       }
@@ -239,6 +344,7 @@ public class DefaultDriverExecutor implements DriverExecutor {
       finally {
          // safety, this should never be needed
          unlock();
+         lastActivityNanos = System.nanoTime();
       }
    }
    
@@ -380,6 +486,20 @@ public class DefaultDriverExecutor implements DriverExecutor {
       }
    }
    
+   @Nullable
+   private DriverExecutor getSuccessor() {
+      Supplier<DriverExecutor> successor;
+      synchronized(lock) {
+         successor = this.successor;
+      }
+      return successor != null ? successor.get() : null;
+   }
+
+   private void trackScheduled(DeferredEvent event) {
+      scheduledEvents.incrementAndGet();
+      event.addListener(scheduledEvents::decrementAndGet, MoreExecutors.directExecutor());
+   }
+
    private void cancelNamedEvents() {
 	   Set<String> allEventNames = namedEvents.keySet();
 	   if(allEventNames.size() > 0) {
@@ -414,6 +534,18 @@ public class DefaultDriverExecutor implements DriverExecutor {
          set(null);
       }
 
+      void forward(Supplier<DriverExecutor> successor) {
+         if(isCancelled()) {
+            return;
+         }
+         try {
+            setFuture(successor.get().fire(event));
+         }
+         catch(Exception e) {
+            setException(e);
+         }
+      }
+
       /* (non-Javadoc)
        * @see com.google.common.util.concurrent.AbstractFuture#get(long, java.util.concurrent.TimeUnit)
        */
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.driver.service.matcher;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import com.iris.device.attributes.AttributeKey;
+import com.iris.device.attributes.AttributeMap;
+import com.iris.driver.DeviceDriver;
+import com.iris.driver.DriverPredicates;
+import com.iris.driver.DriverPredicates.AttributeMatcher;
+import com.iris.driver.DriverPredicates.ValuePredicate;
+import com.iris.messages.model.DriverId;
+
+/**
+ * Selects the same driver as {@link SortedDiscoveryAlgorithmFactory}, but
+ * rather than testing every driver in order, drivers are bucketed by the
+ * values their matchers require (protocol, vendor / model, manufacturer and
+ * product ids, etc) and only drivers in the buckets for the device's
+ * attributes are tested.
+ * 
+ * A driver matches if any of its match conditions match, and each condition
+ * is a list of attributes that must all match.  For every condition the
+ * attribute shared by the fewest other drivers is picked as the index key, if
+ * the device's value for that attribute isn't one of the values the condition
+ * accepts the condition can't match.  Drivers with any condition that can't
+ * be indexed (regular expressions, collection matchers, custom matchers) are
+ * always tested.
+ */
+public class IndexedDiscoveryAlgorithmFactory implements DiscoveryAlgorithmFactory {
+   private final Comparator<DeviceDriver> comparator;
+
+   public IndexedDiscoveryAlgorithmFactory() {
+      this(SortedDiscoveryAlgorithmFactory.getDefaultComparator());
+   }
+
+   public IndexedDiscoveryAlgorithmFactory(Comparator<DeviceDriver> comparator) {
+      this.comparator = comparator;
+   }
+
+   @Override
+   public DiscoveryAlgorithm create(Collection<DeviceDriver> drivers) {
+      List<DeviceDriver> sorted = new ArrayList<>(drivers);
+      Collections.sort(sorted, comparator);
+
+      Map<String, List<DeviceDriver>> populations = new LinkedHashMap<>();
+      for(DeviceDriver driver: sorted) {
+         for(String population: driver.getDefinition().getPopulations()) {
+            populations.computeIfAbsent(population, (p) -> new ArrayList<>()).add(driver);
+         }
+      }
+
+      ImmutableMap.Builder<String, DriverIndex> indexes = ImmutableMap.builder();
+      for(Map.Entry<String, List<DeviceDriver>> population: populations.entrySet()) {
+         indexes.put(population.getKey(), DriverIndex.build(population.getValue()));
+      }
+      return new IndexedDiscoveryAlgorithm(indexes.build());
+   }
+
+   /**
+    * Breaks a matcher down into its conditions, and each condition into the
+    * attribute matchers that accept a fixed set of values.
+    * @return The indexable matchers for each condition, or {@code null} if
+    *    any condition has no indexable matchers.
+    */
+   @Nullable
+   static List<List<AttributeMatcher<?>>> getConditions(@Nullable Predicate<AttributeMap> matcher) {
+      if(matcher == null) {
+         return null;
+      }
+      if(Predicates.alwaysFalse().equals(matcher)) {
+         return Collections.emptyList();
+      }
+
+      List<Predicate<AttributeMap>> branches =
+            matcher instanceof DriverPredicates.Disjunction ?
+                  ((DriverPredicates.Disjunction) matcher).getComponents() :
+                  Collections.singletonList(matcher);
+      List<List<AttributeMatcher<?>>> conditions = new ArrayList<>(branches.size());
+      for(Predicate<AttributeMap> branch: branches) {
+         List<Predicate<AttributeMap>> terms =
+               branch instanceof DriverPredicates.Conjunction ?
+                     ((DriverPredicates.Conjunction) branch).getComponents() :
+                     Collections.singletonList(branch);
+         List<AttributeMatcher<?>> indexable = new ArrayList<>(terms.size());
+         for(Predicate<AttributeMap> term: terms) {
+            if(term instanceof AttributeMatcher && ((AttributeMatcher<?>) term).getPredicate() instanceof ValuePredicate) {
+               indexable.add((AttributeMatcher<?>) term);
+            }
+         }
+         if(indexable.isEmpty()) {
+            return null;
+         }
+         conditions.add(indexable);
+      }
+      return conditions;
+   }
+
+   private static Collection<?> getValues(AttributeMatcher<?> matcher) {
+      return ((ValuePredicate<?>) matcher.getPredicate()).getValues();
+   }
+
+   private static class DriverIndex {
+      private final DeviceDriver[] drivers;
+      private final int[] minimumReflexVersions;
+      private final BitSet wildcards;
+      private final Map<AttributeKey<?>, Map<Object, int[]>> index;
+
+      DriverIndex(DeviceDriver[] drivers, BitSet wildcards, Map<AttributeKey<?>, Map<Object, int[]>> index) {
+         this.drivers = drivers;
+         this.minimumReflexVersions = new int[drivers.length];
+         for(int i = 0; i < drivers.length; i++) {
+            minimumReflexVersions[i] = drivers[i].getDefinition().getMinimumRequiredReflexVersion();
+         }
+         this.wildcards = wildcards;
+         this.index = index;
+      }
+
+      static DriverIndex build(List<DeviceDriver> drivers) {
+         List<List<List<AttributeMatcher<?>>>> conditions = new ArrayList<>(drivers.size());
+         // how many drivers require each value, used to pick the most selective key for each condition
+         Map<AttributeKey<?>, Map<Object, Integer>> counts = new HashMap<>();
+         for(DeviceDriver driver: drivers) {
+            List<List<AttributeMatcher<?>>> driverConditions = getConditions(driver.getMatcher());
+            conditions.add(driverConditions);
+            if(driverConditions == null) {
+               continue;
+            }
+            for(List<AttributeMatcher<?>> condition: driverConditions) {
+               for(AttributeMatcher<?> matcher: condition) {
+                  Map<Object, Integer> valueCounts = counts.computeIfAbsent(matcher.getKey(), (k) -> new HashMap<>());
+                  for(Object value: getValues(matcher)) {
+                     valueCounts.merge(value, 1, Integer::sum);
+                  }
+               }
+            }
+         }
+
+         BitSet wildcards = new BitSet(drivers.size());
+         Map<AttributeKey<?>, Map<Object, List<Integer>>> buckets = new HashMap<>();
+         for(int i = 0; i < drivers.size(); i++) {
+            List<List<AttributeMatcher<?>>> driverConditions = conditions.get(i);
+            if(driverConditions == null) {
+               wildcards.set(i);
+               continue;
+            }
+            for(List<AttributeMatcher<?>> condition: driverConditions) {
+               AttributeMatcher<?> selected = selectKey(condition, counts);
+               Map<Object, List<Integer>> values = buckets.computeIfAbsent(selected.getKey(), (k) -> new HashMap<>());
+               for(Object value: getValues(selected)) {
+                  List<Integer> ordinals = values.computeIfAbsent(value, (v) -> new ArrayList<>(2));
+                  // a driver may have multiple conditions on the same value
+                  if(ordinals.isEmpty() || ordinals.get(ordinals.size() - 1) != i) {
+                     ordinals.add(i);
+                  }
+               }
+            }
+         }
+
+         Map<AttributeKey<?>, Map<Object, int[]>> index = new HashMap<>((buckets.size() + 1) * 4 / 3);
+         for(Map.Entry<AttributeKey<?>, Map<Object, List<Integer>>> bucket: buckets.entrySet()) {
+            Map<Object, int[]> values = new HashMap<>((bucket.getValue().size() + 1) * 4 / 3);
+            for(Map.Entry<Object, List<Integer>> value: bucket.getValue().entrySet()) {
+               values.put(value.getKey(), Ints.toArray(value.getValue()));
+            }
+            index.put(bucket.getKey(), values);
+         }
+         return new DriverIndex(drivers.toArray(new DeviceDriver[drivers.size()]), wildcards, index);
+      }
+
+      private static AttributeMatcher<?> selectKey(List<AttributeMatcher<?>> condition, Map<AttributeKey<?>, Map<Object, Integer>> counts) {
+         AttributeMatcher<?> selected = null;
+         int selectedCount = Integer.MAX_VALUE;
+         for(AttributeMatcher<?> matcher: condition) {
+            Map<Object, Integer> valueCounts = counts.get(matcher.getKey());
+            int count = 0;
+            for(Object value: getValues(matcher)) {
+               count += valueCounts.get(value);
+            }
+            if(count < selectedCount) {
+               selected = matcher;
+               selectedCount = count;
+            }
+         }
+         return selected;
+      }
+
+      DriverId discover(AttributeMap attributes, int maxReflexVersion) {
+         if(attributes == null) {
+            return null;
+         }
+         BitSet candidates = (BitSet) wildcards.clone();
+         for(Map.Entry<AttributeKey<?>, Map<Object, int[]>> entry: index.entrySet()) {
+            Object value = attributes.get(entry.getKey());
+            if(value == null) {
+               continue;
+            }
+            int[] ordinals = entry.getValue().get(value);
+            if(ordinals != null) {
+               for(int ordinal: ordinals) {
+                  candidates.set(ordinal);
+               }
+            }
+         }
+
+         for(int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if(minimumReflexVersions[i] > maxReflexVersion) {
+               continue;
+            }
+            if(drivers[i].supports(attributes)) {
+               return drivers[i].getDriverId();
+            }
+         }
+         return null;
+      }
+   }
+
+   private static class IndexedDiscoveryAlgorithm implements DiscoveryAlgorithm {
+      private final Map<String, DriverIndex> indexes;
+
+      IndexedDiscoveryAlgorithm(Map<String, DriverIndex> indexes) {
+         this.indexes = indexes;
+      }
+
+      @Override
+      public DriverId discover(String population, AttributeMap protocolAttributes, Integer maxReflexVersion) {
+         DriverIndex index = indexes.get(population);
+         return index != null ? index.discover(protocolAttributes, maxReflexVersion == null ? 0 : maxReflexVersion) : null;
+      }
+   }
+}
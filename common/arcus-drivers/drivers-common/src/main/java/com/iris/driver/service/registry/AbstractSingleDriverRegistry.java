@@ -32,7 +32,7 @@ import com.iris.driver.DeviceDriver;
 import com.iris.driver.reflex.ReflexRunMode;
 import com.iris.driver.service.matcher.DiscoveryAlgorithm;
 import com.iris.driver.service.matcher.DiscoveryAlgorithmFactory;
-import com.iris.driver.service.matcher.SortedDiscoveryAlgorithmFactory;
+import com.iris.driver.service.matcher.IndexedDiscoveryAlgorithmFactory;
 import com.iris.messages.model.DriverId;
 import com.iris.model.Version;
 
@@ -43,7 +43,7 @@ public abstract class AbstractSingleDriverRegistry extends AbstractDriverRegistr
          new AtomicReference<>();
    // TODO inject this
    private final DiscoveryAlgorithmFactory selectorFactory =
-         new SortedDiscoveryAlgorithmFactory();
+         new IndexedDiscoveryAlgorithmFactory();
 
    public AbstractSingleDriverRegistry() {
 
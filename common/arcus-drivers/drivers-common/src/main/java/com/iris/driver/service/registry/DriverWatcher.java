@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
+import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.util.HashSet;
@@ -93,12 +94,27 @@ public class DriverWatcher {
                   logger.error("Interrupted Exception encountered [{}]", e);
                }
                if (key != null) {
-                  if (key.pollEvents().size() > 0) {
-                     // Something has changed. That's all we need to know.
+                  Set<String> changed = new HashSet<>();
+                  boolean overflow = false;
+                  for (WatchEvent<?> event : key.pollEvents()) {
+                     if (event.context() instanceof Path) {
+                        changed.add(((Path) event.context()).getFileName().toString());
+                     }
+                     else {
+                        // events were lost, let listeners reload everything
+                        overflow = true;
+                     }
+                  }
+                  if (overflow) {
                      for (DriverWatcherListener listener : listeners) {
                         listener.onChange();
                      }
                   }
+                  else if (!changed.isEmpty()) {
+                     for (DriverWatcherListener listener : listeners) {
+                        listener.onChange(changed);
+                     }
+                  }
                   boolean isValid = key.reset();
                   if (!isValid) {
                      logger.error("Unable to watch driver directory. Watcher key invalid.");
@@ -15,7 +15,17 @@
  */
 package com.iris.driver.service.registry;
 
+import java.util.Set;
+
 public interface DriverWatcherListener {
    void onChange();
+
+   /**
+    * Invoked with the names of the files that were created, modified or
+    * deleted in the driver directory.
+    */
+   default void onChange(Set<String> fileNames) {
+      onChange();
+   }
 }
 
@@ -21,6 +21,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.annotation.PreDestroy;
 
@@ -47,6 +48,11 @@ public abstract class FilesystemDriverRegistry extends AbstractSingleDriverRegis
          public void onChange() {
             invalidate();
          }
+
+         @Override
+         public void onChange(Set<String> fileNames) {
+            onDriversChanged(fileNames);
+         }
       });
       watcher.watch();
    }
@@ -58,6 +64,14 @@ public abstract class FilesystemDriverRegistry extends AbstractSingleDriverRegis
 
    protected abstract String getDirectoryPath();
 
+   /**
+    * Invoked when the given files in the driver directory have changed,
+    * by default all drivers are reloaded.
+    */
+   protected void onDriversChanged(Set<String> fileNames) {
+      invalidate();
+   }
+
    protected abstract Map<DriverId, DeviceDriver> getScriptedDrivers(File driverDir, List<DriverScriptInfo> driversInfo);
 
    @Override
@@ -46,6 +46,7 @@ import com.iris.device.model.AttributeDefinition;
 import com.iris.device.model.CapabilityDefinition;
 import com.iris.driver.DeviceDriverDefinition;
 import com.iris.driver.DriverConstants;
+import com.iris.driver.DriverPredicates;
 import com.iris.driver.capability.Capability;
 import com.iris.driver.config.DriverConfigurationStateMachine;
 import com.iris.driver.event.DriverEvent;
@@ -209,7 +210,7 @@ public class GroovyDriverBuilder extends GroovyBuilder {
             attributeMatchers.add(predicators.get(0));
          }
          else if(predicators.size() > 1) {
-            attributeMatchers.add(Predicates.and(predicators));
+            attributeMatchers.add(DriverPredicates.and(predicators));
          }
       }
       return this;
@@ -481,7 +482,7 @@ public class GroovyDriverBuilder extends GroovyBuilder {
          GroovyValidator.error("No valid match conditions were found, this driver won't match any devices");
          return Predicates.alwaysFalse();
       }
-      return Predicates.or(attributeMatchers);
+      return DriverPredicates.or(attributeMatchers);
    }
 
    protected AttributeBindingHandler createAttributeBindingHandler () {
@@ -26,7 +26,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.lang3.StringUtils;
 import org.codehaus.groovy.runtime.InvokerHelper;
+import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,6 +70,7 @@ import com.iris.util.IrisCollections;
 import com.iris.validators.ValidationException;
 import com.iris.validators.Validator;
 
+import groovy.lang.Binding;
 import groovy.lang.Script;
 import groovy.util.GroovyScriptEngine;
 
@@ -90,8 +93,17 @@ public class GroovyDriverFactory {
    
    @Inject(optional=true) @Named("groovy.driver.default.populations")
    private String defaultPopulationsStr = "general,qa,beta";
+
+   // compile scripts outside the engine so they may be loaded concurrently and cached by content
+   @Inject(optional=true) @Named("groovy.driver.cache.enabled")
+   private boolean scriptCacheEnabled = true;
+
+   // when set compiled scripts are saved here and re-used across restarts
+   @Inject(optional=true) @Named("groovy.driver.cache.path")
+   private String scriptCachePath = "";
    
    private final AtomicReference<List<String>> defaultPopulations = new AtomicReference<>();
+   private final AtomicReference<ScriptClassCache> scriptCache = new AtomicReference<>();
 
    @Inject
    public GroovyDriverFactory(
@@ -127,7 +139,7 @@ public class GroovyDriverFactory {
       }
 
       if (script == null) {
-         script = engine.createScript(driver, binding);
+         script = createScript(driver, binding);
       }
 
       GroovyValidator.addDriverClassname(script.getClass().getName());
@@ -203,7 +215,7 @@ public class GroovyDriverFactory {
          }
 
          if (capabilityScript == null) {
-            capabilityScript = engine.createScript(capabilityName.replace('.', File.separatorChar) + "." + GroovyDrivers.GROOVY_CAPABILITY_EXTENSION, binding);
+            capabilityScript = createScript(capabilityName.replace('.', File.separatorChar) + "." + GroovyDrivers.GROOVY_CAPABILITY_EXTENSION, binding);
          }
 
          //Script capabilityScript = engine.createScript(capabilityName.replace('.', File.separatorChar) + "." + GroovyDrivers.GROOVY_CAPABILITY_EXTENSION, binding);
@@ -231,6 +243,29 @@ public class GroovyDriverFactory {
       return capability;
    }
 
+   private Script createScript(String scriptName, Binding binding) throws Exception {
+      ScriptClassCache cache = getScriptCache();
+      if(cache == null) {
+         return engine.createScript(scriptName, binding);
+      }
+      return InvokerHelper.createScript(cache.load(scriptName), binding);
+   }
+
+   @Nullable
+   private ScriptClassCache getScriptCache() {
+      if(!scriptCacheEnabled) {
+         return null;
+      }
+      ScriptClassCache cache = scriptCache.get();
+      if(cache == null) {
+         // options are field injected, so this can't be created in the constructor
+         File directory = StringUtils.isEmpty(scriptCachePath) ? null : new File(scriptCachePath);
+         scriptCache.compareAndSet(null, new ScriptClassCache(engine, registry, directory));
+         cache = scriptCache.get();
+      }
+      return cache;
+   }
+
    private String getHash(Script script) {
       try {
          return (String) script.getClass().getField("_HASH").get(script);
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.driver.groovy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.iris.capability.registry.CapabilityRegistry;
+import com.iris.device.model.CapabilityDefinition;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import groovy.lang.Script;
+import groovy.util.GroovyScriptEngine;
+
+/**
+ * Compiles driver and capability scripts, caching the generated classes
+ * by a hash of the script content.
+ * 
+ * Unlike {@link GroovyScriptEngine#loadScriptByName(String)}, which serializes
+ * all compilation on a single lock, each script is compiled in its own
+ * {@link CompilationUnit} so multiple scripts may be compiled concurrently.
+ * When a cache directory is configured the generated bytecode is also
+ * written to disk so that subsequent restarts only need to define the
+ * classes.  The cache key includes the groovy and groovy-bindings versions
+ * as well as the registered capabilities, since those are compiled into
+ * the script by {@link com.iris.driver.groovy.customizer.DriverCompilationCustomizer}.
+ */
+public class ScriptClassCache {
+   private static final Logger logger = LoggerFactory.getLogger(ScriptClassCache.class);
+   private static final String EXTENSION = ".classes";
+
+   private final GroovyScriptEngine engine;
+   @Nullable
+   private final File directory;
+   private final String salt;
+   private final Cache<String, Class<? extends Script>> classes =
+         CacheBuilder
+            .newBuilder()
+            .weakValues()
+            .build();
+
+   private final Counter memoryHits;
+   private final Counter diskHits;
+   private final Timer compile;
+
+   public ScriptClassCache(GroovyScriptEngine engine, CapabilityRegistry registry, @Nullable File directory) {
+      this.engine = engine;
+      this.directory = directory;
+      this.salt = salt(registry);
+      if(directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+         logger.warn("Unable to create script cache directory [{}], compiled scripts will not be saved", directory);
+      }
+
+      IrisMetricSet metrics = IrisMetrics.metrics("drivers.compiler");
+      this.memoryHits = metrics.counter("cache.memory");
+      this.diskHits = metrics.counter("cache.disk");
+      this.compile = metrics.timer("compile");
+   }
+
+   /**
+    * Loads the class for the given script, compiling it if it hasn't
+    * been seen before.
+    * @param scriptName
+    *    The name of the script relative to the engine's roots, as would
+    *    be passed to {@link GroovyScriptEngine#createScript(String, groovy.lang.Binding)}
+    */
+   public Class<? extends Script> load(String scriptName) throws Exception {
+      URLConnection connection = engine.getResourceConnection(scriptName);
+      String path = connection.getURL().toExternalForm();
+      String text;
+      try(InputStream is = connection.getInputStream()) {
+         text = IOUtils.toString(is, StandardCharsets.UTF_8);
+      }
+      String key = key(path, text);
+
+      Class<? extends Script> cls = classes.getIfPresent(key);
+      if(cls != null) {
+         memoryHits.inc();
+         return cls;
+      }
+      try {
+         return classes.get(key, () -> loadOrCompile(key, path, text));
+      }
+      catch(ExecutionException e) {
+         Throwables.propagateIfPossible(e.getCause(), Exception.class);
+         throw e;
+      }
+   }
+
+   private Class<? extends Script> loadOrCompile(String key, String path, String text) throws Exception {
+      File file = directory != null ? new File(directory, key + EXTENSION) : null;
+      if(file != null && file.isFile()) {
+         try {
+            Class<? extends Script> cls = read(file).define(engine.getGroovyClassLoader());
+            diskHits.inc();
+            return cls;
+         }
+         catch(Exception e) {
+            logger.warn("Unable to load cached classes for [{}] from [{}], recompiling", path, file, e);
+            file.delete();
+         }
+      }
+
+      CompiledScript compiled;
+      try(Timer.Context context = compile.time()) {
+         compiled = compile(path, text);
+      }
+      if(file != null) {
+         write(file, compiled);
+      }
+      return compiled.define(engine.getGroovyClassLoader());
+   }
+
+   private CompiledScript compile(String path, String text) {
+      GroovyClassLoader loader = new GroovyClassLoader(engine.getGroovyClassLoader(), engine.getConfig());
+      CompilationUnit unit = new CompilationUnit(engine.getConfig(), null, loader);
+      unit.addSource(path, text);
+      unit.compile(Phases.CLASS_GENERATION);
+
+      // the script class is named after the file, but scripts may declare other classes as well
+      String scriptName = StringUtils.substringBeforeLast(StringUtils.substringAfterLast(path, "/"), ".");
+      List<GroovyClass> generated = unit.getClasses();
+      Map<String, byte[]> bytecode = new HashMap<>((generated.size() + 1) * 4 / 3);
+      String main = null;
+      for(GroovyClass cls: generated) {
+         bytecode.put(cls.getName(), cls.getBytes());
+         if(cls.getName().equals(scriptName) || (main == null && cls.getName().indexOf('$') < 0)) {
+            main = cls.getName();
+         }
+      }
+      if(main == null) {
+         throw new IllegalStateException("No script class generated for " + path);
+      }
+      return new CompiledScript(main, bytecode);
+   }
+
+   private static CompiledScript read(File file) throws IOException {
+      try(DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+         String main = in.readUTF();
+         int count = in.readInt();
+         Map<String, byte[]> bytecode = new HashMap<>((count + 1) * 4 / 3);
+         for(int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            bytecode.put(name, bytes);
+         }
+         return new CompiledScript(main, bytecode);
+      }
+   }
+
+   private static void write(File file, CompiledScript compiled) {
+      // write to a temp file and move into place so a concurrent reader never sees a partial entry
+      File temp = new File(file.getParentFile(), file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+      try {
+         try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeUTF(compiled.main);
+            out.writeInt(compiled.bytecode.size());
+            for(Map.Entry<String, byte[]> entry: compiled.bytecode.entrySet()) {
+               out.writeUTF(entry.getKey());
+               out.writeInt(entry.getValue().length);
+               out.write(entry.getValue());
+            }
+         }
+         Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      catch(Exception e) {
+         logger.warn("Unable to write compiled script to [{}]", file, e);
+         temp.delete();
+      }
+   }
+
+   private String key(String path, String text) {
+      return
+            Hashing
+               .sha256()
+               .newHasher()
+               .putString(salt, StandardCharsets.UTF_8)
+               // the class name is derived from the file name
+               .putString(StringUtils.substringAfterLast(path, "/"), StandardCharsets.UTF_8)
+               .putString(text, StandardCharsets.UTF_8)
+               .hash()
+               .toString();
+   }
+
+   private static String salt(CapabilityRegistry registry) {
+      Hasher hasher = Hashing.sha256().newHasher();
+      hasher.putString(GroovySystem.getVersion(), StandardCharsets.UTF_8);
+      hasher.putString(String.valueOf(System.getProperty("groovy.target.indy")), StandardCharsets.UTF_8);
+      hasher.putString(bindingsVersion(), StandardCharsets.UTF_8);
+      TreeSet<String> capabilities = new TreeSet<>();
+      for(CapabilityDefinition definition: registry.listCapabilityDefinitions()) {
+         capabilities.add(definition.getCapabilityName() + ":" + definition.getNamespace());
+      }
+      for(String capability: capabilities) {
+         hasher.putString(capability, StandardCharsets.UTF_8);
+      }
+      return hasher.hash().toString();
+   }
+
+   private static String bindingsVersion() {
+      String version = ScriptClassCache.class.getPackage().getImplementationVersion();
+      try {
+         // development builds don't have a version in the manifest, use the build time
+         File location = new File(ScriptClassCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+         return version + "-" + location.lastModified();
+      }
+      catch(Exception e) {
+         return String.valueOf(version);
+      }
+   }
+
+   private static class CompiledScript {
+      private final String main;
+      private final Map<String, byte[]> bytecode;
+
+      CompiledScript(String main, Map<String, byte[]> bytecode) {
+         this.main = main;
+         this.bytecode = bytecode;
+      }
+
+      Class<? extends Script> define(ClassLoader parent) throws ClassNotFoundException {
+         return new ScriptLoader(parent, bytecode).loadClass(main).asSubclass(Script.class);
+      }
+   }
+
+   private static class ScriptLoader extends ClassLoader {
+      private final Map<String, byte[]> bytecode;
+
+      ScriptLoader(ClassLoader parent, Map<String, byte[]> bytecode) {
+         super(parent);
+         this.bytecode = bytecode;
+      }
+
+      @Override
+      protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+         // the script's own classes must not be delegated, the engine
+         // loader will try to compile a script with the same name
+         byte[] bytes = bytecode.get(name);
+         if(bytes == null) {
+            return super.loadClass(name, resolve);
+         }
+         synchronized(getClassLoadingLock(name)) {
+            Class<?> cls = findLoadedClass(name);
+            if(cls == null) {
+               cls = defineClass(name, bytes, 0, bytes.length);
+            }
+            if(resolve) {
+               resolveClass(cls);
+            }
+            return cls;
+         }
+      }
+   }
+}
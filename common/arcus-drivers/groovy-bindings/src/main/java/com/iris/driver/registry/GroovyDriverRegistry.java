@@ -16,9 +16,16 @@
 package com.iris.driver.registry;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -26,6 +33,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 import com.iris.driver.DeviceDriver;
 import com.iris.driver.groovy.GroovyDriverFactory;
@@ -33,19 +43,36 @@ import com.iris.driver.service.DriverConfig;
 import com.iris.driver.service.registry.DriverScriptInfo;
 import com.iris.driver.service.registry.FilesystemDriverRegistry;
 import com.iris.messages.model.DriverId;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
+import com.iris.util.ThreadPoolBuilder;
 import com.iris.validators.ValidationException;
 import com.netflix.governator.annotations.WarmUp;
 
 public class GroovyDriverRegistry extends FilesystemDriverRegistry {
    private final static Logger logger = LoggerFactory.getLogger(GroovyDriverRegistry.class);
+   private static final String DRIVER_EXTENSION = ".driver";
+
    private final DriverConfig driverConfig;
    private GroovyDriverFactory factory;
    private Pattern filterPattern = null;
 
+   // the result of the last load of each file, re-used until the file changes
+   private final Map<String, LoadedScript> loaded = new ConcurrentHashMap<>();
+   private final Set<String> changed = ConcurrentHashMap.newKeySet();
+   private volatile boolean reloadAll = true;
+
+   private final Timer coldLoad;
+   private final Timer warmLoad;
+
    @Inject
    public GroovyDriverRegistry(DriverConfig driverConfig, GroovyDriverFactory factory) {
       this.driverConfig = driverConfig;
       this.factory = factory;
+
+      IrisMetricSet metrics = IrisMetrics.metrics("drivers.registry");
+      this.coldLoad = metrics.timer("load.cold");
+      this.warmLoad = metrics.timer("load.warm");
    }
 
    @WarmUp
@@ -61,37 +88,154 @@ public class GroovyDriverRegistry extends FilesystemDriverRegistry {
       return driverConfig.evaluateAbsoluteDriverDirectory();
    }
 
+   @Override
+   protected void onDriversChanged(Set<String> fileNames) {
+      for(String fileName: fileNames) {
+         if(!fileName.endsWith(DRIVER_EXTENSION)) {
+            // capabilities and other shared scripts may be used by any driver
+            logger.debug("Non-driver file [{}] changed, reloading all drivers", fileName);
+            reloadAll = true;
+         }
+      }
+      changed.addAll(fileNames);
+      invalidate();
+   }
+
    @Override
    protected Map<DriverId, DeviceDriver> getScriptedDrivers(File driverDir, List<DriverScriptInfo> driversInfo) {
       Map<DriverId, DeviceDriver> newDrivers = new HashMap<>();
       File[] files = driverDir.listFiles();
 
-      long loaded = 0;
+      boolean cold = reloadAll || loaded.isEmpty();
+      reloadAll = false;
+      if(cold) {
+         loaded.clear();
+      }
+      for(String fileName: changed) {
+         changed.remove(fileName);
+         loaded.remove(fileName);
+      }
+
+      long loadedCount = 0;
+      long reused = 0;
       long total = 0;
       long start = System.nanoTime();
+      List<File> drivers = new ArrayList<>();
       for (File driver : files) {
          if (driver.isFile() && driver.canRead() && (filterPattern == null || filterPattern.matcher(driver.getName()).matches())) {
+            drivers.add(driver);
+         }
+      }
+
+      ExecutorService executor = createExecutor(drivers.size());
+      try {
+         List<Future<LoadedScript>> results = new ArrayList<>(drivers.size());
+         for (File driver : drivers) {
+            LoadedScript previous = loaded.get(driver.getName());
+            if (previous != null && previous.isCurrent(driver)) {
+               reused++;
+               results.add(Futures.immediateFuture(previous));
+            }
+            else {
+               results.add(executor.submit(() -> load(driver)));
+            }
+         }
+
+         for (int i = 0; i < drivers.size(); i++) {
+            File driver = drivers.get(i);
             total++;
-            try {
-               DeviceDriver deviceDriver = factory.load(driver.getName());
-               newDrivers.put(deviceDriver.getDriverId(), deviceDriver);
-               driversInfo.add(new DriverScriptInfo(driver.getName(), deviceDriver.getDriverId()));
-               logger.debug("Loaded driver [{}] from driver directory", deviceDriver.getDriverId().getName());
-               loaded++;
-            } catch (ValidationException e) {
-               driversInfo.add(new DriverScriptInfo(driver.getName(), e));
-               if (logger.isDebugEnabled()) {
-                  logger.error("Driver [{}] failed to validate [{}]", driver.getName(), e.getMessage(), e);
-               } else {
-                  logger.error("Driver [{}] failed to validate [{}]", driver.getName(), e.getMessage());
-               }
+            LoadedScript result = get(driver, results.get(i));
+            loaded.put(driver.getName(), result);
+            if (result.driver != null) {
+               newDrivers.put(result.driver.getDriverId(), result.driver);
+               driversInfo.add(new DriverScriptInfo(driver.getName(), result.driver.getDriverId()));
+               loadedCount++;
+            }
+            else {
+               driversInfo.add(new DriverScriptInfo(driver.getName(), result.error));
             }
          }
       }
-      long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
-      logger.info("loaded {} of {} drivers in {}ms", loaded, total, elapsed);
+      finally {
+         executor.shutdownNow();
+      }
+      // forget drivers which have been deleted
+      loaded.keySet().retainAll(names(drivers));
+
+      long elapsedNs = System.nanoTime() - start;
+      (cold ? coldLoad : warmLoad).update(elapsedNs, TimeUnit.NANOSECONDS);
+      logger.info("loaded {} of {} drivers ({} unchanged) in {}ms", loadedCount, total, reused, TimeUnit.NANOSECONDS.toMillis(elapsedNs));
 
       return newDrivers;
    }
-}
 
+   private ExecutorService createExecutor(int drivers) {
+      int threads = Math.min(drivers, driverConfig.getDriverLoadThreads());
+      if(threads <= 0) {
+         return MoreExecutors.newDirectExecutorService();
+      }
+      return
+            new ThreadPoolBuilder()
+               .withBlockingBacklog()
+               .withMaxPoolSize(threads)
+               .withKeepAliveMs(1000)
+               .withNameFormat("driver-loader-%d")
+               .withDaemon(true)
+               .build();
+   }
+
+   private LoadedScript load(File driver) {
+      try {
+         DeviceDriver deviceDriver = factory.load(driver.getName());
+         logger.debug("Loaded driver [{}] from driver directory", deviceDriver.getDriverId().getName());
+         return new LoadedScript(driver, deviceDriver, null);
+      } catch (ValidationException e) {
+         if (logger.isDebugEnabled()) {
+            logger.error("Driver [{}] failed to validate [{}]", driver.getName(), e.getMessage(), e);
+         } else {
+            logger.error("Driver [{}] failed to validate [{}]", driver.getName(), e.getMessage());
+         }
+         return new LoadedScript(driver, null, e);
+      }
+   }
+
+   private static LoadedScript get(File driver, Future<LoadedScript> result) {
+      try {
+         return result.get();
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while loading driver " + driver.getName(), e);
+      }
+      catch(ExecutionException e) {
+         logger.error("Driver [{}] failed to load", driver.getName(), e.getCause());
+         return new LoadedScript(driver, null, new ValidationException("Unable to load driver " + driver.getName() + ": " + e.getCause().getMessage(), e.getCause()));
+      }
+   }
+
+   private static Set<String> names(List<File> files) {
+      Set<String> names = new HashSet<>(files.size() * 4 / 3 + 1);
+      for(File file: files) {
+         names.add(file.getName());
+      }
+      return names;
+   }
+
+   private static class LoadedScript {
+      private final long lastModified;
+      private final long length;
+      private final DeviceDriver driver;
+      private final ValidationException error;
+
+      LoadedScript(File file, DeviceDriver driver, ValidationException error) {
+         this.lastModified = file.lastModified();
+         this.length = file.length();
+         this.driver = driver;
+         this.error = error;
+      }
+
+      boolean isCurrent(File file) {
+         return lastModified == file.lastModified() && length == file.length();
+      }
+   }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableSet;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.ContactCapability;
+import com.iris.messages.capability.DeviceAdvancedCapability;
+import com.iris.messages.capability.DeviceCapability;
+import com.iris.messages.capability.DeviceConnectionCapability;
+import com.iris.messages.capability.DevicePowerCapability;
+
+/**
+ * Loads a place worth of device models as {@link SimpleModel}s and as
+ * {@link CompactModel}s.  Run with {@code -prof gc} and compare
+ * {@code gc.alloc.rate.norm}, which is the number of bytes allocated to hold
+ * the models, the read benchmarks show the cost of the array lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PerfModelFootprint {
+
+   @Param({ "50", "250" })
+   int devices;
+
+   List<Map<String, Object>> attributes;
+   List<Model> simple;
+   List<Model> compact;
+
+   @Setup
+   public void setUp() {
+      attributes = new ArrayList<>(devices);
+      for(int i = 0; i < devices; i++) {
+         attributes.add(device(i));
+      }
+      simple = loadSimple();
+      compact = loadCompact();
+   }
+
+   @Benchmark
+   public List<Model> loadSimple() {
+      List<Model> models = new ArrayList<>(attributes.size());
+      for(Map<String, Object> a: attributes) {
+         models.add(new SimpleModel(a));
+      }
+      return models;
+   }
+
+   @Benchmark
+   public List<Model> loadCompact() {
+      List<Model> models = new ArrayList<>(attributes.size());
+      for(Map<String, Object> a: attributes) {
+         models.add(new CompactModel(a));
+      }
+      return models;
+   }
+
+   @Benchmark
+   public int readSimple() {
+      return read(simple);
+   }
+
+   @Benchmark
+   public int readCompact() {
+      return read(compact);
+   }
+
+   private static int read(List<Model> models) {
+      int open = 0;
+      for(Model model: models) {
+         if(ContactCapability.CONTACT_OPENED.equals(model.getAttribute(ContactCapability.ATTR_CONTACT))) {
+            open++;
+         }
+      }
+      return open;
+   }
+
+   private static Map<String, Object> device(int i) {
+      Address address = Address.platformDriverAddress(UUID.randomUUID());
+      Map<String, Object> attributes = new HashMap<>();
+      attributes.put(Capability.ATTR_ID, address.getId().toString());
+      attributes.put(Capability.ATTR_ADDRESS, address.getRepresentation());
+      attributes.put(Capability.ATTR_TYPE, DeviceCapability.NAMESPACE);
+      attributes.put(Capability.ATTR_CAPS, ImmutableSet.of(
+            Capability.NAMESPACE,
+            DeviceCapability.NAMESPACE,
+            DeviceAdvancedCapability.NAMESPACE,
+            DeviceConnectionCapability.NAMESPACE,
+            DevicePowerCapability.NAMESPACE,
+            ContactCapability.NAMESPACE
+      ));
+      attributes.put(DeviceCapability.ATTR_NAME, "Contact Sensor " + i);
+      attributes.put(DeviceCapability.ATTR_VENDOR, "Iris");
+      attributes.put(DeviceCapability.ATTR_MODEL, "Contact");
+      attributes.put(DeviceConnectionCapability.ATTR_STATE, DeviceConnectionCapability.STATE_ONLINE);
+      attributes.put(DeviceConnectionCapability.ATTR_SIGNAL, 90);
+      attributes.put(DevicePowerCapability.ATTR_SOURCE, DevicePowerCapability.SOURCE_BATTERY);
+      attributes.put(DevicePowerCapability.ATTR_BATTERY, 80);
+      attributes.put(ContactCapability.ATTR_CONTACT, i % 5 == 0 ? ContactCapability.CONTACT_OPENED : ContactCapability.CONTACT_CLOSED);
+      attributes.put(ContactCapability.ATTR_CONTACTCHANGED, new Date());
+      return attributes;
+   }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.DeviceCapability;
+import com.iris.messages.capability.PersonCapability;
+
+/**
+ * Compares re-scanning the store with a predicate after every change, the
+ * way most subsystems query today, to reading an incrementally maintained
+ * {@link ModelView}.  Each operation applies one value change and then
+ * walks the matching models.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PerfModelView {
+   private static final String ATTR_STATE = "test:state";
+   private static final Predicate<Model> OPEN = (model) -> "OPEN".equals(model.getAttribute(ATTR_STATE));
+
+   @Param({ "50", "250", "1000" })
+   int devices;
+
+   SimpleModelStore scanned;
+   SimpleModelStore indexed;
+   ModelView view;
+   List<PlatformMessage> changes;
+   int next = 0;
+
+   @Setup
+   public void setUp() {
+      scanned = new SimpleModelStore();
+      indexed = new SimpleModelStore();
+      List<Address> addresses = new ArrayList<>();
+      for(int i = 0; i < devices; i++) {
+         Address address = add(DeviceCapability.NAMESPACE, ImmutableMap.<String, Object>of(ATTR_STATE, i % 10 == 0 ? "OPEN" : "CLOSED"));
+         addresses.add(address);
+      }
+      for(int i = 0; i < 5; i++) {
+         add(PersonCapability.NAMESPACE, ImmutableMap.<String, Object>of());
+      }
+      view = indexed.createView(OPEN);
+
+      changes = new ArrayList<>();
+      for(Address address: addresses) {
+         changes.add(valueChange(address, "OPEN"));
+         changes.add(valueChange(address, "CLOSED"));
+      }
+   }
+
+   @Benchmark
+   public int perfScan() {
+      scanned.update(nextChange());
+      int count = 0;
+      for(Model model: scanned.getModels(OPEN)) {
+         count += model.getAttributes().size();
+      }
+      return count;
+   }
+
+   @Benchmark
+   public int perfView() {
+      indexed.update(nextChange());
+      int count = 0;
+      for(Model model: view) {
+         count += model.getAttributes().size();
+      }
+      return count;
+   }
+
+   private PlatformMessage nextChange() {
+      PlatformMessage change = changes.get(next);
+      next = (next + 1) % changes.size();
+      return change;
+   }
+
+   private Address add(String type, ImmutableMap<String, Object> attributes) {
+      UUID id = UUID.randomUUID();
+      Address address = Address.platformService(id, type);
+      ImmutableMap<String, Object> model =
+            ImmutableMap
+               .<String, Object>builder()
+               .put(Capability.ATTR_ID, id.toString())
+               .put(Capability.ATTR_ADDRESS, address.getRepresentation())
+               .put(Capability.ATTR_TYPE, type)
+               .putAll(attributes)
+               .build();
+      scanned.addModel(model);
+      indexed.addModel(model);
+      return address;
+   }
+
+   private static PlatformMessage valueChange(Address address, String state) {
+      return
+            PlatformMessage
+               .broadcast()
+               .from(address)
+               .withPayload(Capability.EVENT_VALUE_CHANGE, ImmutableMap.<String, Object>of(ATTR_STATE, state))
+               .create();
+   }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.iris.capability.definition.AttributeDefinition;
+import com.iris.capability.definition.CapabilityDefinition;
+import com.iris.messages.capability.Capability;
+import com.iris.util.IrisAttributeLookup;
+
+/**
+ * Assigns each attribute defined by a set of capabilities a fixed slot so
+ * that {@link CompactModel}s can store their values in an array.  Layouts
+ * are built from the capability definitions and shared by every model with
+ * the same capabilities.
+ */
+final class AttributeLayout {
+   static final AttributeLayout EMPTY = new AttributeLayout(ImmutableMap.<String, Integer>of(), new String[0], new boolean[0]);
+
+   // stored directly on the model
+   private static final Set<String> SPECIAL_ATTRIBUTES =
+         ImmutableSet.of(Capability.ATTR_ID, Capability.ATTR_ADDRESS, Capability.ATTR_TYPE, Capability.ATTR_CAPS);
+   private static final ConcurrentMap<Set<String>, AttributeLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+   static AttributeLayout forCapabilities(@Nullable String type, @Nullable Set<String> capabilities) {
+      Set<String> namespaces;
+      if(capabilities == null || capabilities.isEmpty()) {
+         if(type == null) {
+            return EMPTY;
+         }
+         namespaces = ImmutableSet.of(type);
+      }
+      else if(type == null || capabilities.contains(type)) {
+         namespaces = capabilities;
+      }
+      else {
+         namespaces = ImmutableSet.<String>builder().addAll(capabilities).add(type).build();
+      }
+      return LAYOUTS.computeIfAbsent(namespaces, AttributeLayout::create);
+   }
+
+   private static AttributeLayout create(Set<String> namespaces) {
+      ImmutableMap.Builder<String, Integer> slots = ImmutableMap.builder();
+      // sorted so the layout doesn't depend on capability order
+      Map<String, AttributeDefinition> attributes = new TreeMap<>();
+      for(String namespace: namespaces) {
+         CapabilityDefinition definition = IrisAttributeLookup.capability(namespace);
+         if(definition == null) {
+            continue;
+         }
+         for(AttributeDefinition attribute: definition.getAttributes()) {
+            String name = SimpleModel.STRING_INTERN.intern(namespace + ":" + attribute.getName());
+            if(!SPECIAL_ATTRIBUTES.contains(name)) {
+               attributes.put(name, attribute);
+            }
+         }
+      }
+      
+      String[] slotNames = new String[attributes.size()];
+      boolean[] enums = new boolean[attributes.size()];
+      int slot = 0;
+      for(Map.Entry<String, AttributeDefinition> attribute: attributes.entrySet()) {
+         slots.put(attribute.getKey(), slot);
+         slotNames[slot] = attribute.getKey();
+         enums[slot] = attribute.getValue().getType().isEnum();
+         slot++;
+      }
+      return new AttributeLayout(slots.build(), slotNames, enums);
+   }
+
+   private final ImmutableMap<String, Integer> slots;
+   private final String[] names;
+   private final boolean[] enums;
+
+   private AttributeLayout(ImmutableMap<String, Integer> slots, String[] names, boolean[] enums) {
+      this.slots = slots;
+      this.names = names;
+      this.enums = enums;
+   }
+
+   /**
+    * The slot for the given attribute or -1 if it isn't
+    * part of this layout.
+    */
+   int slot(String name) {
+      Integer slot = slots.get(name);
+      return slot != null ? slot : -1;
+   }
+
+   String name(int slot) {
+      return names[slot];
+   }
+
+   /**
+    * Enum values are drawn from a small, fixed set of strings
+    * so they are worth interning.
+    */
+   boolean isEnum(int slot) {
+      return enums[slot];
+   }
+
+   int size() {
+      return names.length;
+   }
+
+}
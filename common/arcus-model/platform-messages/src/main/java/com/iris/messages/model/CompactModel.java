@@ -0,0 +1,335 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.iris.capability.definition.AttributeTypes;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.util.IrisAttributeLookup;
+import com.iris.util.TypeMarker;
+
+/**
+ * A {@link Model} which stores the attributes defined by its capabilities
+ * in an array laid out by a shared {@link AttributeLayout} rather than a
+ * {@link HashMap}, avoiding a map entry per attribute.  Attributes which
+ * aren't part of any of the model's capabilities (instance attributes,
+ * private attributes, etc) are kept in an overflow map.
+ * 
+ * This behaves the same as {@link SimpleModel}, but uses considerably less
+ * memory for large numbers of models with known capabilities.
+ */
+public class CompactModel implements Model {
+   private static final TypeMarker<Map<String, Set<String>>> TYPE_INSTANCES =
+         new TypeMarker<Map<String,Set<String>>>() {};
+   private static final Object[] NO_VALUES = new Object[0];
+
+   private String id;
+   private Address address;
+   private String type;
+   private Set<String> capabilities;
+   private AttributeLayout layout = AttributeLayout.EMPTY;
+   private Object[] values = NO_VALUES;
+   @Nullable
+   private Map<String, Object> overflow;
+
+   public CompactModel() {
+   }
+
+   public CompactModel(Map<String, Object> attributes) {
+      if(attributes == null || attributes.isEmpty()) {
+         return;
+      }
+      // determine the layout up front so values are only placed once
+      Object type = attributes.get(Capability.ATTR_TYPE);
+      if(type != null) {
+         this.type = SimpleModel.STRING_INTERN.intern((String) type);
+      }
+      Object caps = attributes.get(Capability.ATTR_CAPS);
+      if(caps != null) {
+         this.capabilities = SimpleModel.CAPS_INTERN.intern((Set<String>) Capability.TYPE_CAPS.coerce(caps));
+      }
+      relayout();
+      for(Map.Entry<String, Object> attribute: attributes.entrySet()) {
+         updateInternal(attribute.getKey(), attribute.getValue());
+      }
+   }
+
+   public CompactModel(@Nullable Model copy) {
+      this(copy != null ? copy.toMap() : Collections.<String, Object>emptyMap());
+   }
+
+   @Override
+   public String getId() {
+      return id;
+   }
+
+   @Override
+   public Address getAddress() {
+      return address;
+   }
+
+   @Override
+   public String getType() {
+      return type;
+   }
+
+   @Override
+   public Set<String> getCapabilities() {
+      return capabilities;
+   }
+
+   @Override
+   public Map<String, Set<String>> getInstances() {
+      return getAttribute(TYPE_INSTANCES, Capability.ATTR_INSTANCES, ImmutableMap.<String, Set<String>>of());
+   }
+
+   @Override
+   public boolean supports(String capabilityNamespace) {
+      Preconditions.checkNotNull(capabilityNamespace, "capabilityNamespace may not be null");
+      if(Capability.NAMESPACE.equals(capabilityNamespace)) {
+         return true;
+      }
+      if(StringUtils.equals(type, capabilityNamespace)) {
+         return true;
+      }
+      return this.capabilities != null && this.capabilities.contains(capabilityNamespace);
+   }
+
+   @Override
+   public boolean hasInstanceOf(String instanceId, String capabilityNamespace) {
+      Preconditions.checkNotNull(instanceId, "instanceId may not be null");
+      Preconditions.checkNotNull(capabilityNamespace, "capabilityNamespace may not be null");
+
+      Set<String> caps = getInstances().get(instanceId);
+      return caps != null && caps.contains(capabilityNamespace);
+   }
+
+   @Override
+   public Object getAttribute(String name) {
+      Preconditions.checkNotNull(name, "name may not be null");
+      switch(name) {
+      case Capability.ATTR_ID:
+         return id;
+      case Capability.ATTR_ADDRESS:
+         return address != null ? address.getRepresentation() : null;
+      case Capability.ATTR_TYPE:
+         return type;
+      case Capability.ATTR_CAPS:
+         return capabilities;
+      default:
+         int slot = layout.slot(name);
+         if(slot >= 0) {
+            return values[slot];
+         }
+         return overflow != null ? overflow.get(name) : null;
+      }
+   }
+
+   @Override
+   public <T> Optional<T> getAttribute(TypeMarker<T> type, String name) {
+      Object value = getAttribute(name);
+      if(value == null) {
+         return Optional.<T>absent();
+      }
+      T coerced = (T) AttributeTypes.fromJavaType(type.getType()).coerce(value);
+      return Optional.fromNullable(coerced);
+   }
+
+   @Override
+   public <T> T getAttribute(TypeMarker<T> type, String name, T defaultValue) {
+      return getAttribute(type, name).or(defaultValue);
+   }
+
+   @Override
+   public Object setAttribute(String name, Object value) {
+      return updateInternal(name, value);
+   }
+
+   @Override
+   public void update(Map<String, Object> attributes) {
+      if(attributes == null) {
+         return;
+      }
+      for(Map.Entry<String, Object> attribute: attributes.entrySet()) {
+         updateInternal(attribute.getKey(), attribute.getValue());
+      }
+   }
+
+   @Override
+   public Map<String, Object> toMap() {
+      Map<String, Object> map = new HashMap<String, Object>((values.length + (overflow != null ? overflow.size() : 0) + 5)*4/3,0.75f);
+      for(int i = 0; i < values.length; i++) {
+         if(values[i] != null) {
+            map.put(layout.name(i), values[i]);
+         }
+      }
+      if(overflow != null) {
+         map.putAll(overflow);
+      }
+      map.put(Capability.ATTR_ID, this.id);
+      if(this.address != null) {
+         map.put(Capability.ATTR_ADDRESS, this.address.getRepresentation());
+      }
+      map.put(Capability.ATTR_TYPE, this.type);
+      map.put(Capability.ATTR_CAPS, this.capabilities);
+      return map;
+   }
+
+   @Override
+   public Iterable<String> keys() {
+      List<String> keys = new ArrayList<>(values.length + 4);
+      keys.add(Capability.ATTR_ID);
+      keys.add(Capability.ATTR_ADDRESS);
+      keys.add(Capability.ATTR_TYPE);
+      keys.add(Capability.ATTR_CAPS);
+      for(int i = 0; i < values.length; i++) {
+         if(values[i] != null) {
+            keys.add(layout.name(i));
+         }
+      }
+      if(overflow != null) {
+         keys.addAll(overflow.keySet());
+      }
+      return keys;
+   }
+
+   @Override
+   public Iterable<Object> values() {
+      List<Object> result = new ArrayList<>(values.length + 4);
+      result.add(id);
+      result.add(address);
+      result.add(type);
+      result.add(capabilities);
+      for(int i = 0; i < values.length; i++) {
+         if(values[i] != null) {
+            result.add(values[i]);
+         }
+      }
+      if(overflow != null) {
+         result.addAll(overflow.values());
+      }
+      return result;
+   }
+
+   private Object updateInternal(String key, Object value) {
+      Preconditions.checkNotNull(key, "name may not be null");
+      String name = SimpleModel.STRING_INTERN.intern(key);
+
+      Object old;
+      switch(name) {
+      case Capability.ATTR_ID:
+         old = id;
+         id = String.valueOf(value);
+         break;
+      case Capability.ATTR_ADDRESS:
+         old = address;
+         if (value instanceof Address) {
+            address = (Address) value;
+         } else {
+            address = Address.fromString(String.valueOf(value));
+         }
+         break;
+      case Capability.ATTR_TYPE:
+         old = type;
+         type = SimpleModel.STRING_INTERN.intern((String) value);
+         relayout();
+         break;
+      case Capability.ATTR_CAPS:
+         old = capabilities;
+         capabilities = SimpleModel.CAPS_INTERN.intern((Set<String>) Capability.TYPE_CAPS.coerce(value));
+         relayout();
+         break;
+      default:
+         old = put(name, value != null ? IrisAttributeLookup.coerce(name, value) : null);
+      }
+      return old;
+   }
+
+   private Object put(String name, @Nullable Object value) {
+      int slot = layout.slot(name);
+      if(slot >= 0) {
+         Object old = values[slot];
+         values[slot] = value instanceof String && layout.isEnum(slot) ? SimpleModel.STRING_INTERN.intern((String) value) : value;
+         return old;
+      }
+      if(value == null) {
+         return overflow != null ? overflow.remove(name) : null;
+      }
+      if(overflow == null) {
+         overflow = new HashMap<>(4);
+      }
+      return overflow.put(name, value);
+   }
+
+   private void relayout() {
+      AttributeLayout next = AttributeLayout.forCapabilities(type, capabilities);
+      if(next == layout) {
+         return;
+      }
+      
+      AttributeLayout previous = this.layout;
+      Object[] previousValues = this.values;
+      Map<String, Object> previousOverflow = this.overflow;
+      this.layout = next;
+      this.values = next.size() == 0 ? NO_VALUES : new Object[next.size()];
+      this.overflow = null;
+      for(int i = 0; i < previousValues.length; i++) {
+         if(previousValues[i] != null) {
+            put(previous.name(i), previousValues[i]);
+         }
+      }
+      if(previousOverflow != null) {
+         for(Map.Entry<String, Object> attribute: previousOverflow.entrySet()) {
+            put(attribute.getKey(), attribute.getValue());
+         }
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "CompactModel [address=" + address + ", attributes=" + toMap() + "]";
+   }
+
+   @Override
+   public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + toMap().hashCode();
+      return result;
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (obj == null) return false;
+      if (getClass() != obj.getClass()) return false;
+      Model other = (Model) obj;
+      return this.toMap().equals(other.toMap());
+   }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import java.util.Collection;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.iris.messages.address.Address;
+
+/**
+ * A {@link ModelView} which re-runs the query against the store on
+ * every access, used by stores which don't maintain views incrementally.
+ */
+class FilteredModelView implements ModelView {
+   private final ModelStore store;
+   private final Predicate<? super Model> predicate;
+
+   FilteredModelView(ModelStore store, Predicate<? super Model> predicate) {
+      this.store = store;
+      this.predicate = predicate;
+   }
+
+   @Override
+   public Collection<Model> getModels() {
+      return ImmutableList.copyOf(store.getModels(predicate));
+   }
+
+   @Override
+   public boolean contains(Address address) {
+      Model model = store.getModelByAddress(address);
+      return model != null && predicate.apply(model);
+   }
+
+   @Override
+   public void close() {
+      // no-op
+   }
+
+}
@@ -44,5 +44,26 @@ public interface ModelStore {
 
    Subscription addListener(Listener<ModelEvent> listener);
 
+   /**
+    * Creates a view of the models matching the given predicate.  Stores
+    * which support it keep the view up to date as models are added,
+    * changed and removed so that it may be read repeatedly without
+    * re-scanning every model, the default implementation re-runs
+    * {@link #getModels(Predicate)} on each access.
+    * 
+    * A model-query expression may be used by compiling it to a
+    * predicate first.  The predicate must only depend on the
+    * state of the model it is applied to.
+    * @param p
+    * @return
+    */
+   default ModelView createView(Predicate<? super Model> p) {
+      return new FilteredModelView(this, p);
+   }
+
+   default ModelView createViewByType(String type) {
+      return createView((model) -> model != null && type.equals(model.getType()));
+   }
+
 }
 
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+import com.iris.messages.address.Address;
+
+/**
+ * A live view of the models in a {@link ModelStore} which match a
+ * query.  Views are created via {@link ModelStore#createView(com.google.common.base.Predicate)}
+ * and should be closed once they are no longer needed.
+ * 
+ * Like the store itself a view is not thread-safe, it should only be
+ * accessed from the thread that updates the store.
+ */
+public interface ModelView extends Iterable<Model>, AutoCloseable {
+
+   /**
+    * The models currently matching the query, this collection
+    * is not modifiable and reflects changes to the store.
+    * @return
+    */
+   Collection<Model> getModels();
+   
+   boolean contains(Address address);
+
+   default int size() {
+      return getModels().size();
+   }
+
+   default boolean isEmpty() {
+      return getModels().isEmpty();
+   }
+
+   @Override
+   default Iterator<Model> iterator() {
+      return getModels().iterator();
+   }
+
+   /**
+    * Stops tracking changes to the store, the view should
+    * not be used after this is called.
+    */
+   @Override
+   void close();
+
+}
@@ -49,8 +49,8 @@ public class SimpleModel implements Model {
    private static final TypeMarker<Map<String, Set<String>>> TYPE_INSTANCES =
          new TypeMarker<Map<String,Set<String>>>() {};
 
-   private static final IrisInterner<String> STRING_INTERN = IrisInterners.strings();
-   private static final IrisInterner<Set<String>> CAPS_INTERN = IrisInterners.interner("capabilities", -1, new Function<Set<String>,Set<String>>() {
+   static final IrisInterner<String> STRING_INTERN = IrisInterners.strings();
+   static final IrisInterner<Set<String>> CAPS_INTERN = IrisInterners.interner("capabilities", -1, new Function<Set<String>,Set<String>>() {
       @Override
       public Set<String> apply(Set<String> caps) {
          ImmutableSet.Builder<String> bld = ImmutableSet.builder();
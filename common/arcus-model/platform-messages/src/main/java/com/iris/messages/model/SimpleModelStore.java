@@ -58,6 +58,8 @@ public class SimpleModelStore implements ModelStore {
    private Collection<Model> unmodifiableModels;
    private ListenerList<ModelEvent> listeners;
    private Set<String> types = null;
+   private List<IncrementalView> views = new ArrayList<>(2);
+   private boolean compactModels = false;
 
    public SimpleModelStore() {
       // use linked implementations because we want efficient iteration
@@ -80,6 +82,18 @@ public class SimpleModelStore implements ModelStore {
       }
    }
    
+   public boolean isCompactModels() {
+      return compactModels;
+   }
+
+   /**
+    * When enabled models added from attributes are stored as {@link CompactModel}s
+    * instead of {@link SimpleModel}s.
+    */
+   public void setCompactModels(boolean compactModels) {
+      this.compactModels = compactModels;
+   }
+
    public void addModel(Collection<Map<String, Object>> attributes) {
       if (attributes != null) {
          for(Map<String, Object> a: attributes) {
@@ -102,6 +116,7 @@ public class SimpleModelStore implements ModelStore {
       }
 
       models.put(key, model);
+      updateViews(key, model);
       fireModelAdded(addr);
       return model;
    }
@@ -117,25 +132,34 @@ public class SimpleModelStore implements ModelStore {
          return false;
       }
 
+      List<Object[]> changes = new ArrayList<>(attributes.size());
       for(Map.Entry<String, Object> attribute: attributes.entrySet()) {
          String name = attribute.getKey();
          Object newValue = attribute.getValue();
          Object oldValue = model.setAttribute(name, newValue);
          if(!Objects.equal(newValue, oldValue)) {
-            fireAttributeValueChanged(model.getAddress(), name, newValue, oldValue);
+            changes.add(new Object[] { name, newValue, oldValue });
          }
       }
+      if(!changes.isEmpty()) {
+         updateViews(key, model);
+      }
+      emitModelChanges(model.getAddress(), changes);
       return true;
    }
 
    public boolean removeModel(Address address) {
-      Model model = models.remove( getKey(address) );
+      String key = getKey(address);
+      Model model = models.remove(key);
       if(model == null) {
          // TODO use the context logger
          logger.debug("Received delete for un-tracked model [{}]", address);
          return false;
       }
 
+      for(IncrementalView view: views) {
+         view.remove(key);
+      }
       fireModelRemoved(model);
       return true;
    }
@@ -167,6 +191,23 @@ public class SimpleModelStore implements ModelStore {
       return Iterables.filter(models.values(), p);
    }
 
+   /**
+    * Creates a view which is updated as models are added, changed
+    * and removed from this store.  Models are listed in the order they
+    * started matching the predicate, which may differ from the order
+    * of {@link #getModels()}.
+    */
+   @Override
+   public ModelView createView(Predicate<? super Model> p) {
+      Preconditions.checkNotNull(p, "predicate may not be null");
+      IncrementalView view = new IncrementalView(p);
+      for(Map.Entry<String, Model> entry: models.entrySet()) {
+         view.update(entry.getKey(), entry.getValue());
+      }
+      views.add(view);
+      return view;
+   }
+
    @Override
    @Nullable
    public Object getAttributeValue(Address address, String attributeName) {
@@ -213,6 +254,7 @@ public class SimpleModelStore implements ModelStore {
 
       Model model = newModel(message.getValue().getAttributes());
       models.put(key, model);
+      updateViews(key, model);
       fireModelAdded(source);
    }
 
@@ -232,6 +274,9 @@ public class SimpleModelStore implements ModelStore {
 
    protected void updateEventValueChange(PlatformMessage message, Address source, Model model) {
       List<Object[]> changes = updateDifferences(model, message);
+      if(!changes.isEmpty()) {
+         updateViews(getKey(source), model);
+      }
       emitModelChanges(source, changes);
    }
 
@@ -251,6 +296,9 @@ public class SimpleModelStore implements ModelStore {
 
    protected void updateEventAttrReport(PlatformMessage message, Address source, Model model) {
       List<Object[]> changes = updateDifferences(model, message);
+      if(!changes.isEmpty()) {
+         updateViews(getKey(source), model);
+      }
       ModelReportEvent.Builder builder = ModelReportEvent.builder();
       builder.withAddress(source);
 
@@ -290,8 +338,26 @@ public class SimpleModelStore implements ModelStore {
       return listeners.addListener(listener);
    }
 
+   /**
+    * Re-evaluates the model at the given address against any views,
+    * subclasses which change models without going through this class
+    * should invoke this before firing the associated events.
+    */
+   protected void updateViews(Address address) {
+      String key = getKey(address);
+      if(key != null && !views.isEmpty()) {
+         updateViews(key, models.get(key));
+      }
+   }
+
+   private void updateViews(String key, Model model) {
+      for(IncrementalView view: views) {
+         view.update(key, model);
+      }
+   }
+
    protected Model newModel(Map<String, Object> attributes) {
-   	return new SimpleModel(attributes);
+   	return compactModels ? new CompactModel(attributes) : new SimpleModel(attributes);
    }
    
    protected void fire(ModelEvent event) {
@@ -324,5 +390,45 @@ public class SimpleModelStore implements ModelStore {
       return address.getRepresentation();
    }
 
-}
+   private class IncrementalView implements ModelView {
+      private final Predicate<? super Model> predicate;
+      private final Map<String, Model> matches = new LinkedHashMap<>();
+      private final Collection<Model> unmodifiableMatches = Collections.unmodifiableCollection(matches.values());
+
+      IncrementalView(Predicate<? super Model> predicate) {
+         this.predicate = predicate;
+      }
+
+      void update(String key, @Nullable Model model) {
+         if(model != null && predicate.apply(model)) {
+            matches.put(key, model);
+         }
+         else {
+            matches.remove(key);
+         }
+      }
+
+      void remove(String key) {
+         matches.remove(key);
+      }
+
+      @Override
+      public Collection<Model> getModels() {
+         return unmodifiableMatches;
+      }
+
+      @Override
+      public boolean contains(Address address) {
+         String key = getKey(address);
+         return key != null && matches.containsKey(key);
+      }
 
+      @Override
+      public void close() {
+         views.remove(this);
+         matches.clear();
+      }
+
+   }
+
+}
@@ -37,6 +37,9 @@ public class TransactionalModelStore extends SimpleModelStore {
       }
 
       List<ModelChangedEvent> events = model.commit(attributes);
+      if(!events.isEmpty()) {
+         updateViews(address);
+      }
 		for(ModelChangedEvent event: events) {
 			fire(event);
 		}
@@ -47,7 +50,9 @@ public class TransactionalModelStore extends SimpleModelStore {
 		for(Model model: getModels()) {
 			TransactionalModel m = (TransactionalModel) model;
 			if(m.isDirty()) {
-				for(ModelChangedEvent event: m.commit()) {
+				List<ModelChangedEvent> events = m.commit();
+				updateViews(m.getAddress());
+				for(ModelChangedEvent event: events) {
 					fire(event);
 				}
 			}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.messages.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.ContactCapability;
+import com.iris.messages.capability.DeviceCapability;
+
+public class TestCompactModel {
+
+   private Map<String, Object> contactSensor() {
+      Address address = Address.platformDriverAddress(UUID.randomUUID());
+      Map<String, Object> attributes = new HashMap<>();
+      attributes.put(Capability.ATTR_ID, address.getId().toString());
+      attributes.put(Capability.ATTR_ADDRESS, address.getRepresentation());
+      attributes.put(Capability.ATTR_TYPE, DeviceCapability.NAMESPACE);
+      attributes.put(Capability.ATTR_CAPS, ImmutableSet.of(Capability.NAMESPACE, DeviceCapability.NAMESPACE, ContactCapability.NAMESPACE));
+      attributes.put(DeviceCapability.ATTR_NAME, "Front Door");
+      attributes.put(ContactCapability.ATTR_CONTACT, ContactCapability.CONTACT_OPENED);
+      attributes.put(ContactCapability.ATTR_CONTACTCHANGED, new Date(1000));
+      attributes.put("test:custom", "value");
+      return attributes;
+   }
+
+   @Test
+   public void testSameAsSimpleModel() {
+      Map<String, Object> attributes = contactSensor();
+      CompactModel compact = new CompactModel(attributes);
+      SimpleModel simple = new SimpleModel(attributes);
+
+      assertEquals(simple.toMap(), compact.toMap());
+      assertEquals(simple.getId(), compact.getId());
+      assertEquals(simple.getAddress(), compact.getAddress());
+      assertEquals(simple.getType(), compact.getType());
+      assertEquals(simple.getCapabilities(), compact.getCapabilities());
+      for(String key: simple.keys()) {
+         assertEquals(key, simple.getAttribute(key), compact.getAttribute(key));
+      }
+      assertEquals(ImmutableSet.copyOf(simple.keys()), ImmutableSet.copyOf(compact.keys()));
+      assertEquals(Iterables.size(simple.values()), Iterables.size(compact.values()));
+      assertTrue(compact.supports(ContactCapability.NAMESPACE));
+      assertFalse(compact.supports("swit"));
+   }
+
+   @Test
+   public void testSetAndClearAttributes() {
+      CompactModel model = new CompactModel(contactSensor());
+
+      assertEquals(ContactCapability.CONTACT_OPENED, model.setAttribute(ContactCapability.ATTR_CONTACT, ContactCapability.CONTACT_CLOSED));
+      assertEquals(ContactCapability.CONTACT_CLOSED, model.getAttribute(ContactCapability.ATTR_CONTACT));
+      // enums are interned so every model shares the same instance
+      CompactModel other = new CompactModel(contactSensor());
+      other.setAttribute(ContactCapability.ATTR_CONTACT, new String(ContactCapability.CONTACT_CLOSED));
+      assertSame(model.getAttribute(ContactCapability.ATTR_CONTACT), other.getAttribute(ContactCapability.ATTR_CONTACT));
+
+      assertEquals("value", model.setAttribute("test:custom", null));
+      assertNull(model.getAttribute("test:custom"));
+      assertEquals("Front Door", model.setAttribute(DeviceCapability.ATTR_NAME, null));
+      assertNull(model.getAttribute(DeviceCapability.ATTR_NAME));
+      assertFalse(model.toMap().containsKey(DeviceCapability.ATTR_NAME));
+      assertFalse(model.toMap().containsKey("test:custom"));
+   }
+
+   @Test
+   public void testChangingCapabilitiesKeepsValues() {
+      Map<String, Object> attributes = contactSensor();
+      attributes.put(Capability.ATTR_CAPS, ImmutableSet.of(Capability.NAMESPACE, DeviceCapability.NAMESPACE));
+      CompactModel model = new CompactModel(attributes);
+      assertEquals(ContactCapability.CONTACT_OPENED, model.getAttribute(ContactCapability.ATTR_CONTACT));
+
+      model.setAttribute(Capability.ATTR_CAPS, ImmutableSet.of(Capability.NAMESPACE, DeviceCapability.NAMESPACE, ContactCapability.NAMESPACE));
+      assertEquals(ContactCapability.CONTACT_OPENED, model.getAttribute(ContactCapability.ATTR_CONTACT));
+      assertEquals("Front Door", model.getAttribute(DeviceCapability.ATTR_NAME));
+      assertEquals("value", model.getAttribute("test:custom"));
+      assertEquals(new SimpleModel(contactSensor()).toMap().keySet(), model.toMap().keySet());
+
+      model.setAttribute(Capability.ATTR_CAPS, ImmutableSet.of(Capability.NAMESPACE));
+      assertEquals(ContactCapability.CONTACT_OPENED, model.getAttribute(ContactCapability.ATTR_CONTACT));
+      assertEquals("Front Door", model.getAttribute(DeviceCapability.ATTR_NAME));
+   }
+
+   @Test
+   public void testCopyAndEquals() {
+      CompactModel model = new CompactModel(contactSensor());
+      CompactModel copy = new CompactModel(model);
+      assertEquals(model, copy);
+      assertEquals(model.hashCode(), copy.hashCode());
+
+      copy.setAttribute(ContactCapability.ATTR_CONTACT, ContactCapability.CONTACT_CLOSED);
+      assertFalse(model.equals(copy));
+      // same as SimpleModel, different implementations aren't equal
+      assertFalse(model.equals(new SimpleModel(model)));
+   }
+
+   @Test
+   public void testUpdate() {
+      CompactModel model = new CompactModel(contactSensor());
+      Map<String, Object> changes = new HashMap<>();
+      changes.put(ContactCapability.ATTR_CONTACT, ContactCapability.CONTACT_CLOSED);
+      changes.put("test:other", 1);
+      model.update(changes);
+
+      assertEquals(ContactCapability.CONTACT_CLOSED, model.getAttribute(ContactCapability.ATTR_CONTACT));
+      assertEquals(1, model.getAttribute("test:other"));
+      Set<String> keys = new HashSet<>();
+      Iterables.addAll(keys, model.keys());
+      assertTrue(keys.contains("test:other"));
+   }
+
+   @Test
+   public void testStoreCreatesCompactModels() {
+      SimpleModelStore store = new SimpleModelStore();
+      store.setCompactModels(true);
+      Model model = store.addModel(contactSensor());
+      assertTrue(model instanceof CompactModel);
+      assertEquals(ContactCapability.CONTACT_OPENED, store.getAttributeValue(model.getAddress(), ContactCapability.ATTR_CONTACT));
+   }
+}
@@ -16,6 +16,8 @@
 package com.iris.messages.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,6 +27,7 @@ import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.iris.messages.MessageBody;
@@ -72,6 +75,70 @@ public class TestSimpleModelStore {
       assertEquals(1, events.size());
    }
 
+   @Test
+   public void testViewByType() {
+      PlatformMessage device = baseAdded(DeviceCapability.NAMESPACE);
+      store.update(device);
+      ModelView view = store.createViewByType(DeviceCapability.NAMESPACE);
+      assertEquals(1, view.size());
+      assertTrue(view.contains(device.getSource()));
+      
+      store.update(baseAdded(RecordingCapability.NAMESPACE));
+      PlatformMessage device2 = baseAdded(DeviceCapability.NAMESPACE);
+      store.update(device2);
+      assertEquals(
+            ImmutableList.of(store.getModelByAddress(device.getSource()), store.getModelByAddress(device2.getSource())), 
+            ImmutableList.copyOf(view)
+      );
+      
+      store.update(deleted(device.getSource()));
+      assertEquals(1, view.size());
+      assertFalse(view.contains(device.getSource()));
+      assertTrue(view.contains(device2.getSource()));
+   }
+
+   @Test
+   public void testViewUpdatedOnValueChange() {
+      PlatformMessage device = baseAdded(DeviceCapability.NAMESPACE);
+      store.update(device);
+      ModelView view = store.createView((model) -> "test".equals(model.getAttribute(DeviceCapability.ATTR_NAME)));
+      assertTrue(view.isEmpty());
+      
+      // the view should be up to date before listeners are notified
+      List<Integer> sizes = new ArrayList<>();
+      store.addListener((event) -> sizes.add(view.size()));
+      
+      store.update(valueChange(device.getSource(), DeviceCapability.ATTR_NAME, "test"));
+      assertEquals(ImmutableList.of(1), sizes);
+      assertTrue(view.contains(device.getSource()));
+      
+      store.updateModel(device.getSource(), ImmutableMap.of(DeviceCapability.ATTR_NAME, "other"));
+      assertEquals(ImmutableList.of(1, 0), sizes);
+      assertTrue(view.isEmpty());
+      
+      view.close();
+      store.update(valueChange(device.getSource(), DeviceCapability.ATTR_NAME, "test"));
+      assertTrue(view.isEmpty());
+   }
+
+   private PlatformMessage valueChange(Address address, String attribute, Object value) {
+      return 
+            PlatformMessage
+               .broadcast()
+               .from(address)
+               .withPayload(Capability.EVENT_VALUE_CHANGE, ImmutableMap.<String, Object>of(attribute, value))
+               .create();
+   }
+
+   private PlatformMessage deleted(Address address) {
+      return 
+            PlatformMessage
+               .broadcast()
+               .from(address)
+               .withPayload(Capability.EVENT_DELETED, ImmutableMap.<String, Object>of())
+               .create();
+   }
+
    private PlatformMessage baseAdded(String namespace) {
       UUID id = UUID.randomUUID();
       Address address = Address.platformService(id, namespace);
@@ -18,9 +18,14 @@
  */
 package com.iris.driver.platform;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.UniformReservoir;
 import com.google.common.base.Preconditions;
@@ -69,6 +75,10 @@ import com.iris.messages.model.Device;
 import com.iris.messages.model.DriverId;
 import com.iris.metrics.IrisMetricSet;
 import com.iris.metrics.IrisMetrics;
+import com.iris.platform.partition.PartitionChangedEvent;
+import com.iris.platform.partition.PartitionListener;
+import com.iris.platform.partition.Partitioner;
+import com.iris.platform.partition.PlatformPartition;
 import com.iris.population.PlacePopulationCacheManager;
 import com.iris.util.Initializer;
 
@@ -76,7 +86,7 @@ import com.iris.util.Initializer;
  *
  */
 @Singleton
-public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
+public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry, PartitionListener {
    private static final Logger logger =
          LoggerFactory.getLogger(PlatformDriverExecutorRegistry.class);
 
@@ -84,9 +94,19 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
    private final DeviceDAO deviceDao;
    private final Scheduler scheduler;
    private final PlacePopulationCacheManager populationCacheMgr;
+   private final Partitioner partitioner;
 
    private final int driverQueueBacklog;
    private final long tombstonedDriverTimeoutMs;
+   private final int maxCachedExecutors;
+   private final long executorIdleTimeoutMs;
+   private final long executorEvictionIntervalMs;
+   private final Meter idleEvictions;
+   private final Meter sizeEvictions;
+   private final Meter reloads;
+   // executors unloaded by evictExecutors() and not loaded since, these are reloaded without re-starting the driver,
+   // keyed to the partition of the device so they can be forgotten when the partition moves to another node
+   private final ConcurrentMap<DeviceDriverAddress, Integer> evictedAddresses = new ConcurrentHashMap<>();
    private final Cache<DeviceProtocolAddress, DeviceDriverAddress> protocolToDriverCache =
          CacheBuilder
             .newBuilder()
@@ -110,18 +130,138 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
          DriverRegistry registry, 
          DeviceDAO deviceDao, 
          Scheduler scheduler, 
-         PlacePopulationCacheManager populationCacheMgr
+         PlacePopulationCacheManager populationCacheMgr,
+         Partitioner partitioner
    ) {
       this.driverQueueBacklog = config.getDriverBacklogSize();
       this.tombstonedDriverTimeoutMs = config.getDriverTombstoneTimeout(TimeUnit.MILLISECONDS);
+      this.maxCachedExecutors = config.getDriverExecutorMaxCached();
+      this.executorIdleTimeoutMs = config.getDriverExecutorIdleTimeout(TimeUnit.MILLISECONDS);
+      this.executorEvictionIntervalMs = config.getDriverExecutorEvictionInterval(TimeUnit.MILLISECONDS);
       this.registry = registry;
       this.deviceDao = deviceDao;
       this.scheduler = scheduler;
       this.populationCacheMgr = populationCacheMgr;
+      this.partitioner = partitioner;
       IrisMetricSet drivers = IrisMetrics.metrics("drivers");
       drivers.monitor("cache.executor", executorCache);
       drivers.monitor("cache.protocol", protocolToDriverCache);
       drivers.gauge("backlog", (Gauge<Map<String, Object>>) () -> queueBacklog());
+      this.idleEvictions = drivers.meter("cache.executor.evicted.idle");
+      this.sizeEvictions = drivers.meter("cache.executor.evicted.size");
+      this.reloads = drivers.meter("cache.executor.reloaded");
+      
+      if(executorEvictionIntervalMs > 0 && (maxCachedExecutors > 0 || executorIdleTimeoutMs > 0)) {
+         scheduleEviction();
+      }
+      partitioner.addPartitionListener(this);
+   }
+
+   /**
+    * Forgets the executors unloaded from partitions this node no longer owns.
+    * Another node may run the driver while it owns the partition, so if the
+    * partition comes back the driver must be started again when it is loaded.
+    */
+   @Override
+   public void onPartitionsChanged(PartitionChangedEvent event) {
+      Set<Integer> owned = new HashSet<>();
+      for(PlatformPartition partition: event.getPartitions()) {
+         owned.add(partition.getId());
+      }
+      evictedAddresses.values().removeIf((partitionId) -> !owned.contains(partitionId));
+   }
+
+   /**
+    * Unloads idle executors, first any that have been idle longer than the
+    * idle timeout and then the longest idle ones until the cache is back under
+    * its maximum size.  Executors which are processing or holding events,
+    * have deferred events scheduled or are waiting to respond to a request
+    * are never removed, so the cache may temporarily exceed its maximum size.
+    * Unloaded executors are re-created by {@link #loadConsumer(Address)} when
+    * the next event for the device arrives, without re-running the driver's
+    * started handler.
+    * @return the number of executors that were removed
+    */
+   int evictExecutors() {
+      int evicted = 0;
+      int excess = maxCachedExecutors > 0 ? (int) executorCache.size() - maxCachedExecutors : 0;
+      List<EvictionCandidate> candidates = new ArrayList<>();
+      for(Map.Entry<DeviceDriverAddress, DriverExecutor> entry: executorCache.asMap().entrySet()) {
+         DriverExecutor executor = entry.getValue();
+         if(!isIdle(executor)) {
+            continue;
+         }
+
+         long idleMs = ((DefaultDriverExecutor) executor).getIdleTime(TimeUnit.MILLISECONDS);
+         if(executorIdleTimeoutMs > 0 && idleMs >= executorIdleTimeoutMs) {
+            if(evict(entry.getKey(), executor)) {
+               idleEvictions.mark();
+               evicted++;
+            }
+         }
+         else if(excess > 0) {
+            candidates.add(new EvictionCandidate(entry.getKey(), executor, idleMs));
+         }
+      }
+
+      if(evicted < excess) {
+         // longest idle first
+         candidates.sort(Comparator.comparingLong((EvictionCandidate c) -> c.idleMs).reversed());
+         for(EvictionCandidate candidate: candidates) {
+            if(evicted >= excess) {
+               break;
+            }
+            // re-check, it may have picked up work while we were scanning
+            if(isIdle(candidate.executor) && evict(candidate.address, candidate.executor)) {
+               sizeEvictions.mark();
+               evicted++;
+            }
+         }
+      }
+      if(evicted > 0) {
+         logger.debug("Unloaded [{}] idle driver executors, [{}] remaining", evicted, executorCache.size());
+      }
+      return evicted;
+   }
+
+   private void scheduleEviction() {
+      scheduler.scheduleDelayed(
+            () -> {
+               try {
+                  evictExecutors();
+               }
+               catch(Exception e) {
+                  logger.warn("Error unloading idle driver executors", e);
+               }
+               finally {
+                  scheduleEviction();
+               }
+            },
+            executorEvictionIntervalMs,
+            TimeUnit.MILLISECONDS
+      );
+   }
+
+   private boolean isIdle(DriverExecutor executor) {
+      return executor instanceof DefaultDriverExecutor && ((DefaultDriverExecutor) executor).isIdle();
+   }
+
+   private boolean evict(DeviceDriverAddress address, DriverExecutor executor) {
+      int partitionId = partitioner.getPartitionForPlaceId(executor.context().getPlaceId()).getId();
+      // only removes the entry if it hasn't been replaced and the executor is still idle,
+      // callers still holding the old executor have their events forwarded to the reloaded one
+      return ((DefaultDriverExecutor) executor).evict(
+            () -> {
+               // marked before the removal so a concurrent reload doesn't start the driver
+               evictedAddresses.put(address, partitionId);
+               if(executorCache.asMap().remove(address, executor)) {
+                  return true;
+               }
+               evictedAddresses.remove(address);
+               return false;
+            },
+            () -> loadConsumer(address)
+      );
    }
 
    private Map<String, Object> queueBacklog() {
@@ -266,6 +406,7 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
          return;
       }
       else if(address instanceof DeviceDriverAddress) {
+         evictedAddresses.remove(address);
          executorCache.invalidate(address);
       }
       else if(address instanceof DeviceProtocolAddress) {
@@ -276,6 +417,7 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
          }
          // always remove from the dispatcher side, removal here will trigger onExecutorEvicted and clean up
          // the protocol side
+         evictedAddresses.remove(driverAddress);
          executorCache.invalidate(driverAddress);
       }
    }
@@ -284,6 +426,10 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
       logger.debug("Message consumer cache entry expired: [{}]", consumer);
       DeviceProtocolAddress protocolAddress =  (DeviceProtocolAddress) consumer.context().getProtocolAddress();
       protocolToDriverCache.invalidate(protocolAddress);
+      if(consumer instanceof DefaultDriverExecutor && ((DefaultDriverExecutor) consumer).isEvicted()) {
+         // unloaded while idle, the driver keeps running in the executor that replaces it
+         return;
+      }
       scheduler.scheduleDelayed(consumer::stop, 0, TimeUnit.MILLISECONDS);
    }
    
@@ -396,11 +542,23 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
       if(device.getDriverId() == null) {
          throw new IllegalStateException("Unable to load driver for device");
       }
+      boolean reloaded = false;
+      if(!evictedAddresses.isEmpty()) {
+         DeviceDriverAddress address = (DeviceDriverAddress) Address.fromString(device.getAddress());
+         reloaded = evictedAddresses.remove(address) != null;
+         if(reloaded) {
+            reloads.mark();
+         }
+      }
       DeviceDriverContext context = loadContext(device, device.getDriverId());
       if(context == null) {
          throw new IllegalStateException("Unable to load context for device");
       }
       boolean startDriver = mode != Mode.TOMBSTONE; // don't start tombstoned drivers we're just loading all the data to fully remove them
+      if(reloaded) {
+         // the driver was never stopped when it was evicted, so don't start it again
+         startDriver = false;
+      }
       if(mode == Mode.DELETE && context.isTombstoned()) {
          // also don't start it if we're just cleaning out the tombstone
          startDriver = false;
@@ -464,6 +622,18 @@ public class PlatformDriverExecutorRegistry implements DriverExecutorRegistry {
       }      
    }
    
+   private static class EvictionCandidate {
+      private final DeviceDriverAddress address;
+      private final DriverExecutor executor;
+      private final long idleMs;
+
+      EvictionCandidate(DeviceDriverAddress address, DriverExecutor executor, long idleMs) {
+         this.address = address;
+         this.executor = executor;
+         this.idleMs = idleMs;
+      }
+   }
+
    private enum Mode {
       LOAD,
       REMOVE,
@@ -76,6 +76,8 @@ import com.iris.messages.capability.HubCapability;
 import com.iris.messages.errors.Errors;
 import com.iris.messages.errors.NotFoundException;
 import com.iris.messages.model.Device;
+import com.iris.messages.type.DegradedInfo;
+import com.iris.messages.type.SyncDeviceInfo;
 import com.iris.messages.type.SyncDeviceState;
 import com.iris.model.Version;
 import com.iris.population.PlacePopulationCacheManager;
@@ -385,13 +387,13 @@ public class PlatformDriverService implements DriverService {
       List<Device> updatedDegraded
    ) {
       for (Map<String,Object> report : reported) {
-         MessageBody sync = MessageBody.buildMessage(com.iris.messages.type.SyncDeviceInfo.NAME, report);
+         MessageBody sync = MessageBody.buildMessage(SyncDeviceInfo.NAME, report);
 
-         String reportedProtocol = com.iris.messages.type.SyncDeviceInfo.getProtocol(sync);
+         String reportedProtocol = SyncDeviceInfo.getProtocol(sync);
          String protocol = canonicalProtocolAddress(hubId, reportedProtocol);
-         Boolean online = com.iris.messages.type.SyncDeviceInfo.getOnline(sync);
-         Boolean degraded = com.iris.messages.type.SyncDeviceInfo.getDegraded(sync);
-         Map<String,Object> attrs = com.iris.messages.type.SyncDeviceInfo.getAttrs(sync);
+         Boolean online = SyncDeviceInfo.getOnline(sync);
+         Boolean degraded = SyncDeviceInfo.getDegraded(sync);
+         Map<String,Object> attrs = SyncDeviceInfo.getAttrs(sync);
          Device device = devicesByProtocol.get(protocol);
 
          if (device != null) {
@@ -533,10 +535,13 @@ public class PlatformDriverService implements DriverService {
 
    /*************************************************************************
     * Compute a list of ReflexDriverDefintion JSON objects given a map of 
-    * driver name and version to DeviceDriverDefinition.
+    * driver name and version to DeviceDriverDefinition.  If the hub
+    * reported the hashes of the definitions it already has then only
+    * missing or changed definitions are included.
     ************************************************************************/
    private List<JsonObject> getSyncDriverReflexes(
-      Map<String,Map<Version,DeviceDriverDefinition>> driverDefinitions
+      Map<String,Map<Version,DeviceDriverDefinition>> driverDefinitions,
+      @Nullable Map<String,String> hubDriverHashes
    ) {
       List<JsonObject> driverReflexes = new ArrayList<>();
       for (Map.Entry<String,Map<Version,DeviceDriverDefinition>> driverNameEntry : driverDefinitions.entrySet()) {
@@ -547,7 +552,7 @@ public class PlatformDriverService implements DriverService {
             }
             try {
                ReflexDriverDefinition reflexDefs = definition.getReflexes();
-               if (reflexDefs != null) {
+               if (reflexDefs != null && !isKnownToHub(reflexDefs, hubDriverHashes)) {
                   JsonObject json = ReflexJson.toJsonObject(reflexDefs);
                   driverReflexes.add(json);
                }
@@ -560,14 +565,22 @@ public class PlatformDriverService implements DriverService {
       return driverReflexes;
    }
 
+   private static boolean isKnownToHub(ReflexDriverDefinition reflexDefs, @Nullable Map<String,String> hubDriverHashes) {
+      return hubDriverHashes != null && reflexDefs.getHash().equals(hubDriverHashes.get(reflexDefs.getSyncKey()));
+   }
+
    /*************************************************************************
     * Compute a list of SyncDeviceState give a set of devices that are
     * known to both the hub and the platform and a map of driver name
-    * and driver version to DeviceDriverDefinition.
+    * and driver version to DeviceDriverDefinition.  If the hub reported
+    * the hashes of the definitions it already has then devices which the
+    * hub is already running with the current driver are left out.
     ************************************************************************/
    private List<Map<String,Object>> getSyncDeviceStates(
 	   Set<Device> knownToBoth,
-      Map<String,Map<Version,DeviceDriverDefinition>> driverDefinitions
+      Map<String,Map<Version,DeviceDriverDefinition>> driverDefinitions,
+      @Nullable Map<String,String> hubDriverHashes,
+      Map<Device,MessageBody> reportedByDevice
    ) {
       List<Map<String,Object>> deviceStates = new ArrayList<>(knownToBoth.size());
       for (Device device : knownToBoth) {
@@ -582,6 +595,9 @@ public class PlatformDriverService implements DriverService {
             if (definition == null) {
                LOGGER.info("device has unknown driver definition: {}", device);
             }
+            else if (isUnchangedOnHub(device, definition, hubDriverHashes, reportedByDevice.get(device))) {
+               continue;
+            }
 
             state.setProtocol(device.getProtocolAddress());
             state.setPlatform(device.getAddress());
@@ -597,6 +613,23 @@ public class PlatformDriverService implements DriverService {
       return deviceStates;
    }
 
+   private static boolean isUnchangedOnHub(
+         Device device,
+         DeviceDriverDefinition definition,
+         @Nullable Map<String,String> hubDriverHashes,
+         @Nullable MessageBody reported
+   ) {
+      if (hubDriverHashes == null || reported == null || definition.getReflexes() == null) {
+         return false;
+      }
+
+      return
+            isKnownToHub(definition.getReflexes(), hubDriverHashes) &&
+            device.getDrivername().equals(SyncDeviceInfo.getDriver(reported)) &&
+            device.getDriverversion().getRepresentation().equals(SyncDeviceInfo.getVersion(reported)) &&
+            definition.getHash().equals(SyncDeviceInfo.getHash(reported));
+   }
+
    /*************************************************************************
     * Persists the degraded code and sends a value change indicating the
     * change given a list of devices that have had their degraded status
@@ -621,6 +654,16 @@ public class PlatformDriverService implements DriverService {
     * hub's view of devices at a place.
     ************************************************************************/
    public Pair<List<Map<String,Object>>,List<JsonObject>> syncDevices(String hubId, UUID place, Integer reflexVersion, List<Device> devices, List<Map<String,Object>> reported) {
+      return syncDevices(hubId, place, reflexVersion, devices, reported, null);
+   }
+
+   /*************************************************************************
+    * Synchronize the platform's view of the devices at a place with the
+    * hub's view of devices at a place.  When hubDriverHashes is non-null
+    * the result only contains the device states and reflex driver
+    * definitions that differ from what the hub reported.
+    ************************************************************************/
+   public Pair<List<Map<String,Object>>,List<JsonObject>> syncDevices(String hubId, UUID place, Integer reflexVersion, List<Device> devices, List<Map<String,Object>> reported, @Nullable Map<String,String> hubDriverHashes) {
       Map<String,Device> devicesByProtocol = getHubDevicesByProtocol(hubId, devices);
       Set<String> unknownToHub = new HashSet<>(devicesByProtocol.keySet());
 
@@ -633,8 +676,11 @@ public class PlatformDriverService implements DriverService {
       reconcileHubDevicesWithPlatform(place, reflexVersion, devicesByProtocol, unknownToHub, unknownToPlatform, knownToBothOnline, knownToBothAttrs);
 
       Map<String,Map<Version,DeviceDriverDefinition>> driverDefinitions = getDriverDefinitionForDevices(knownToBothOnline.keySet());
-      List<JsonObject> driverReflexes = getSyncDriverReflexes(driverDefinitions);
-      List<Map<String,Object>> deviceStates = getSyncDeviceStates(knownToBothOnline.keySet(), driverDefinitions);
+      Map<Device,MessageBody> reportedByDevice = (hubDriverHashes != null)
+         ? getReportedByDevice(hubId, devicesByProtocol, reported)
+         : ImmutableMap.of();
+      List<JsonObject> driverReflexes = getSyncDriverReflexes(driverDefinitions, hubDriverHashes);
+      List<Map<String,Object>> deviceStates = getSyncDeviceStates(knownToBothOnline.keySet(), driverDefinitions, hubDriverHashes, reportedByDevice);
 
       if (!updatedDegraded.isEmpty()) {
          dispatchDegradedCodeUpdates(updatedDegraded);
@@ -643,6 +689,19 @@ public class PlatformDriverService implements DriverService {
       return Pair.of(deviceStates, driverReflexes);
    }
 
+   private static Map<Device,MessageBody> getReportedByDevice(String hubId, Map<String,Device> devicesByProtocol, List<Map<String,Object>> reported) {
+      Map<Device,MessageBody> reportedByDevice = Maps.newHashMapWithExpectedSize(reported.size());
+      for (Map<String,Object> report : reported) {
+         MessageBody sync = MessageBody.buildMessage(SyncDeviceInfo.NAME, report);
+         Device device = devicesByProtocol.get(canonicalProtocolAddress(hubId, SyncDeviceInfo.getProtocol(sync)));
+         if (device != null) {
+            reportedByDevice.put(device, sync);
+         }
+      }
+
+      return reportedByDevice;
+   }
+
    /*************************************************************************
     * Synchronize the platform's view of each device's degraded state
     * with the hub's view of each device's degraded state at a place.
@@ -652,11 +711,11 @@ public class PlatformDriverService implements DriverService {
       List<Device> updated = null;
       for (Map<String,Object> report : reported) {
          try {
-            MessageBody sync = MessageBody.buildMessage(com.iris.messages.type.DegradedInfo.NAME, report);
+            MessageBody sync = MessageBody.buildMessage(DegradedInfo.NAME, report);
 
-            String reportedProtocol = com.iris.messages.type.DegradedInfo.getProtocol(sync);
+            String reportedProtocol = DegradedInfo.getProtocol(sync);
             String protocol = canonicalProtocolAddress(hubId, reportedProtocol);
-            Boolean degraded = com.iris.messages.type.DegradedInfo.getDegraded(sync);
+            Boolean degraded = DegradedInfo.getDegraded(sync);
 
             Device device = devicesByProtocol.get(protocol);
             if (device != null && updateDegradedCode(device, degraded != null && degraded)) {
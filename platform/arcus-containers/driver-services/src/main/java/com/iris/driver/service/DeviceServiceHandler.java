@@ -233,10 +233,11 @@ public class DeviceServiceHandler extends AbstractPlatformService {
       try {
          String reportedDevices = com.iris.messages.service.DeviceService.SyncDevicesRequest.getDevices(request);
          Integer reflexVersion = com.iris.messages.service.DeviceService.SyncDevicesRequest.getReflexVersion(request);
+         Map<String,String> driverHashes = com.iris.messages.service.DeviceService.SyncDevicesRequest.getDriverHashes(request);
          List<Map<String,Object>> reportedStates = decompress(reportedDevices, List.class);
 
          try {
-            Pair<List<Map<String,Object>>,List<JsonObject>> rsp = driverService.syncDevices(hub.getId(), place, reflexVersion, devices, reportedStates);
+            Pair<List<Map<String,Object>>,List<JsonObject>> rsp = driverService.syncDevices(hub.getId(), place, reflexVersion, devices, reportedStates, driverHashes);
             List<Map<String,Object>> deviceStates = rsp.getLeft();
             List<JsonObject> driverReflexes = rsp.getRight();
 
@@ -252,6 +253,7 @@ public class DeviceServiceHandler extends AbstractPlatformService {
                .withPins(doGetAllPinHashes(place,personDao,personPlaceAssocDao))
                .withDevices(syncDeviceStates)
                .withDrivers(syncDriverReflexes)
+               .withIncremental(driverHashes != null)
                .build();
          } catch (Exception ex) {
             logger.warn("failed to sync devices:", ex);
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.driver.platform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.iris.common.scheduler.ExecutorScheduler;
+import com.iris.core.dao.DeviceDAO;
+import com.iris.core.driver.DeviceDriverStateHolder;
+import com.iris.driver.DeviceDriver;
+import com.iris.driver.DeviceDriverContext;
+import com.iris.driver.DeviceDriverDefinition;
+import com.iris.driver.service.DriverConfig;
+import com.iris.driver.service.executor.DriverExecutor;
+import com.iris.driver.service.registry.DriverRegistry;
+import com.iris.messages.address.Address;
+import com.iris.messages.model.Device;
+import com.iris.messages.model.Fixtures;
+import com.iris.model.Version;
+import com.iris.platform.partition.PartitionChangedEvent;
+import com.iris.platform.partition.Partitioner;
+import com.iris.platform.partition.PlatformPartition;
+import com.iris.population.PlacePopulationCacheManager;
+
+public class TestPlatformDriverExecutorRegistry {
+   private static final PlatformPartition P0 = () -> 0;
+   private static final PlatformPartition P1 = () -> 1;
+
+   private ExecutorScheduler scheduler;
+   private final Semaphore started = new Semaphore(0);
+   private Device device;
+   private PlatformDriverExecutorRegistry registry;
+
+   @Before
+   public void setUp() throws Exception {
+      device = Fixtures.createDevice();
+      device.setPlace(UUID.randomUUID());
+
+      DeviceDriver driver = EasyMock.createNiceMock(DeviceDriver.class);
+      EasyMock.expect(driver.getDriverId()).andStubReturn(device.getDriverId());
+      EasyMock
+         .expect(driver.getDefinition())
+         .andStubReturn(DeviceDriverDefinition.builder().withName("Switch").withVersion(Version.fromRepresentation("1.0")).create());
+      driver.onRestored(EasyMock.anyObject(DeviceDriverContext.class));
+      EasyMock.expectLastCall().andStubAnswer(() -> {
+         started.release();
+         return null;
+      });
+
+      DriverRegistry drivers = EasyMock.createNiceMock(DriverRegistry.class);
+      EasyMock.expect(drivers.loadDriverById(device.getDriverId())).andStubReturn(driver);
+
+      DeviceDAO devices = EasyMock.createNiceMock(DeviceDAO.class);
+      EasyMock.expect(devices.findById(device.getId())).andStubReturn(device);
+      EasyMock.expect(devices.loadDriverState(device)).andStubAnswer(() -> new DeviceDriverStateHolder());
+
+      Partitioner partitioner = EasyMock.createNiceMock(Partitioner.class);
+      EasyMock.expect(partitioner.getPartitionForPlaceId(device.getPlace())).andStubReturn(P0);
+
+      EasyMock.replay(driver, drivers, devices, partitioner);
+
+      DriverConfig config = new DriverConfig();
+      config.setDriverExecutorIdleTimeoutSec(1);
+      config.setDriverExecutorEvictionIntervalSec(0);
+      scheduler = new ExecutorScheduler(Executors.newScheduledThreadPool(1));
+      registry = new PlatformDriverExecutorRegistry(
+            config,
+            drivers,
+            devices,
+            scheduler,
+            EasyMock.createNiceMock(PlacePopulationCacheManager.class),
+            partitioner
+      );
+   }
+
+   @After
+   public void tearDown() {
+      scheduler.stop();
+   }
+
+   @Test
+   public void testReloadDoesNotRestartDriver() throws Exception {
+      DriverExecutor loaded = load();
+      assertTrue(started.tryAcquire(1, TimeUnit.SECONDS));
+
+      evict();
+      registry.onPartitionsChanged(partitionsChanged(ImmutableSet.of(P0, P1), ImmutableSet.of(1), ImmutableSet.of()));
+
+      assertNotSame(loaded, load());
+      assertFalse(started.tryAcquire(200, TimeUnit.MILLISECONDS));
+   }
+
+   @Test
+   public void testReloadAfterPartitionReturnsRestartsDriver() throws Exception {
+      DriverExecutor loaded = load();
+      assertTrue(started.tryAcquire(1, TimeUnit.SECONDS));
+
+      evict();
+      // another node may run the driver while it owns the partition
+      registry.onPartitionsChanged(partitionsChanged(ImmutableSet.of(P1), ImmutableSet.of(), ImmutableSet.of(0)));
+      registry.onPartitionsChanged(partitionsChanged(ImmutableSet.of(P0, P1), ImmutableSet.of(0), ImmutableSet.of()));
+
+      assertNotSame(loaded, load());
+      assertTrue(started.tryAcquire(1, TimeUnit.SECONDS));
+   }
+
+   private DriverExecutor load() {
+      return registry.loadConsumer(Address.fromString(device.getAddress()));
+   }
+
+   private void evict() throws Exception {
+      // the idle timeout is measured in seconds
+      Thread.sleep(1100);
+      assertEquals(1, registry.evictExecutors());
+   }
+
+   private static PartitionChangedEvent partitionsChanged(ImmutableSet<PlatformPartition> partitions, ImmutableSet<Integer> added, ImmutableSet<Integer> removed) {
+      PartitionChangedEvent event = new PartitionChangedEvent();
+      event.setPartitions(partitions);
+      event.setAddedPartitions(added);
+      event.setRemovedPartitions(removed);
+      return event;
+   }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.driver.platform;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonObject;
+import com.iris.core.platform.PlatformMessageBus;
+import com.iris.core.protocol.ProtocolMessageBus;
+import com.iris.driver.DeviceDriver;
+import com.iris.driver.DeviceDriverContext;
+import com.iris.driver.DeviceDriverDefinition;
+import com.iris.driver.reflex.ReflexDriverDefinition;
+import com.iris.driver.reflex.ReflexJson;
+import com.iris.driver.service.DriverConfig;
+import com.iris.driver.service.DriverServiceConfig;
+import com.iris.driver.service.executor.DriverExecutor;
+import com.iris.driver.service.executor.DriverExecutorRegistry;
+import com.iris.driver.service.registry.DriverRegistry;
+import com.iris.messages.address.Address;
+import com.iris.messages.address.ProtocolDeviceId;
+import com.iris.messages.model.Device;
+import com.iris.messages.type.SyncDeviceInfo;
+import com.iris.messages.type.SyncDeviceState;
+import com.iris.model.Version;
+import com.iris.population.PlacePopulationCacheManager;
+import com.iris.protocol.zigbee.ZigbeeProtocol;
+
+public class TestPlatformDriverServiceSync {
+   private static final String HUB_ID = "LWW-1250";
+   private static final Version V1 = Version.fromRepresentation("1.0");
+
+   private DeviceDriverDefinition switchDriver;
+   private DeviceDriverDefinition dimmerDriver;
+   private Device switchDevice;
+   private Device dimmerDevice;
+   private List<Device> devices;
+
+   private PlatformDriverService service;
+
+   @Before
+   public void setUp() throws Exception {
+      switchDriver = DeviceDriverDefinition.builder().withName("Switch").withVersion(V1).withHash("switch-hash").create();
+      dimmerDriver = DeviceDriverDefinition.builder().withName("Dimmer").withVersion(V1).withHash("dimmer-hash").create();
+      switchDevice = device(1, switchDriver);
+      dimmerDevice = device(2, dimmerDriver);
+      devices = new ArrayList<>();
+      devices.add(switchDevice);
+      devices.add(dimmerDevice);
+
+      DriverRegistry drivers = EasyMock.createNiceMock(DriverRegistry.class);
+      expectDriver(drivers, switchDriver);
+      expectDriver(drivers, dimmerDriver);
+
+      DeviceDriverContext context = EasyMock.createNiceMock(DeviceDriverContext.class);
+      EasyMock.expect(context.isTombstoned()).andReturn(false).anyTimes();
+      EasyMock.expect(context.isConnected()).andReturn(true).anyTimes();
+      DriverExecutor executor = EasyMock.createNiceMock(DriverExecutor.class);
+      EasyMock.expect(executor.context()).andReturn(context).anyTimes();
+      DriverExecutorRegistry executors = EasyMock.createNiceMock(DriverExecutorRegistry.class);
+      EasyMock.expect(executors.loadConsumer(EasyMock.anyObject(Address.class))).andReturn(executor).anyTimes();
+
+      ProtocolMessageBus protocolBus = EasyMock.createNiceMock(ProtocolMessageBus.class);
+      PlatformMessageBus platformBus = EasyMock.createNiceMock(PlatformMessageBus.class);
+      PlacePopulationCacheManager populationCacheMgr = EasyMock.createNiceMock(PlacePopulationCacheManager.class);
+      EasyMock.replay(drivers, context, executor, executors, protocolBus, platformBus, populationCacheMgr);
+
+      service = new PlatformDriverService(
+            new DriverConfig(),
+            new DriverServiceConfig(),
+            protocolBus,
+            platformBus,
+            drivers,
+            executors,
+            ImmutableSet.of(),
+            null,
+            ImmutableSet.of(),
+            ImmutableSet.of(),
+            populationCacheMgr
+      );
+   }
+
+   @Test
+   public void testFullSyncWithoutDriverHashes() {
+      List<Map<String,Object>> reported = reported(
+            info(switchDevice, switchDriver),
+            info(dimmerDevice, dimmerDriver)
+      );
+
+      Pair<List<Map<String,Object>>,List<JsonObject>> result = sync(reported, null);
+
+      assertEquals(ImmutableSet.of(switchDevice.getProtocolAddress(), dimmerDevice.getProtocolAddress()), protocols(result));
+      assertEquals(ImmutableSet.of("Switch", "Dimmer"), driverNames(result));
+   }
+
+   @Test
+   public void testUnchangedDriversAreNotResent() {
+      List<Map<String,Object>> reported = reported(
+            info(switchDevice, switchDriver),
+            info(dimmerDevice, dimmerDriver)
+      );
+
+      Pair<List<Map<String,Object>>,List<JsonObject>> result = sync(reported, hashes(switchDriver, dimmerDriver));
+
+      assertEquals(ImmutableSet.of(), protocols(result));
+      assertEquals(ImmutableSet.of(), driverNames(result));
+   }
+
+   @Test
+   public void testChangedDriverIsResent() {
+      DeviceDriverDefinition oldDimmerDriver = DeviceDriverDefinition.builder().withName("Dimmer").withVersion(V1).withHash("old-hash").create();
+      List<Map<String,Object>> reported = reported(
+            info(switchDevice, switchDriver),
+            info(dimmerDevice, oldDimmerDriver)
+      );
+
+      Pair<List<Map<String,Object>>,List<JsonObject>> result = sync(reported, hashes(switchDriver, oldDimmerDriver));
+
+      assertEquals(ImmutableSet.of(dimmerDevice.getProtocolAddress()), protocols(result));
+      assertEquals(ImmutableSet.of("Dimmer"), driverNames(result));
+      assertEquals("dimmer-hash", new SyncDeviceState(result.getLeft().get(0)).getHash());
+   }
+
+   @Test
+   public void testMissingDriverIsResent() {
+      List<Map<String,Object>> reported = reported(
+            info(switchDevice, switchDriver),
+            info(dimmerDevice, dimmerDriver)
+      );
+
+      Pair<List<Map<String,Object>>,List<JsonObject>> result = sync(reported, hashes(switchDriver));
+
+      assertEquals(ImmutableSet.of(dimmerDevice.getProtocolAddress()), protocols(result));
+      assertEquals(ImmutableSet.of("Dimmer"), driverNames(result));
+   }
+
+   @Test
+   public void testDeviceOnAnotherDriverIsResent() {
+      // the hub has the current definition but is still running the device with an older driver
+      DeviceDriverDefinition oldSwitchDriver = DeviceDriverDefinition.builder().withName("Switch").withVersion(Version.fromRepresentation("0.9")).withHash("old-hash").create();
+      List<Map<String,Object>> reported = reported(
+            info(switchDevice, oldSwitchDriver),
+            info(dimmerDevice, dimmerDriver)
+      );
+
+      Pair<List<Map<String,Object>>,List<JsonObject>> result = sync(reported, hashes(switchDriver, dimmerDriver));
+
+      assertEquals(ImmutableSet.of(switchDevice.getProtocolAddress()), protocols(result));
+      assertEquals(ImmutableSet.of(), driverNames(result));
+   }
+
+   private Pair<List<Map<String,Object>>,List<JsonObject>> sync(List<Map<String,Object>> reported, Map<String,String> hubDriverHashes) {
+      return service.syncDevices(HUB_ID, UUID.randomUUID(), 1, devices, reported, hubDriverHashes);
+   }
+
+   private static void expectDriver(DriverRegistry drivers, DeviceDriverDefinition definition) {
+      DeviceDriver driver = EasyMock.createNiceMock(DeviceDriver.class);
+      EasyMock.expect(driver.getDefinition()).andReturn(definition).anyTimes();
+      EasyMock.replay(driver);
+      EasyMock.expect(drivers.loadDriverById(definition.getName(), definition.getVersion())).andReturn(driver).anyTimes();
+   }
+
+   private static Device device(int id, DeviceDriverDefinition driver) {
+      Device device = new Device();
+      device.setId(UUID.randomUUID());
+      device.setAddress(Address.platformDriverAddress(device.getId()).getRepresentation());
+      device.setProtocol(ZigbeeProtocol.NAMESPACE);
+      device.setProtocolAddress(Address.hubProtocolAddress(HUB_ID, ZigbeeProtocol.NAMESPACE, ProtocolDeviceId.fromBytes(new byte[] { (byte) id })).getRepresentation());
+      device.setDrivername(driver.getName());
+      device.setDriverversion(driver.getVersion());
+      return device;
+   }
+
+   private static SyncDeviceInfo info(Device device, DeviceDriverDefinition driver) {
+      SyncDeviceInfo info = new SyncDeviceInfo();
+      info.setProtocol(device.getProtocolAddress());
+      info.setDriver(driver.getName());
+      info.setVersion(driver.getVersion().getRepresentation());
+      info.setHash(driver.getHash());
+      info.setOnline(true);
+      info.setDegraded(false);
+      info.setAttrs(ImmutableMap.of());
+      return info;
+   }
+
+   private static List<Map<String,Object>> reported(SyncDeviceInfo... infos) {
+      List<Map<String,Object>> reported = new ArrayList<>();
+      for (SyncDeviceInfo info : infos) {
+         reported.add(info.toMap());
+      }
+      return reported;
+   }
+
+   private static Map<String,String> hashes(DeviceDriverDefinition... drivers) {
+      Map<String,String> hashes = new HashMap<>();
+      for (DeviceDriverDefinition driver : drivers) {
+         hashes.put(driver.getReflexes().getSyncKey(), driver.getHash());
+      }
+      return hashes;
+   }
+
+   private static Set<String> protocols(Pair<List<Map<String,Object>>,List<JsonObject>> result) {
+      return result.getLeft().stream().map((state) -> new SyncDeviceState(state).getProtocol()).collect(Collectors.toSet());
+   }
+
+   private static Set<String> driverNames(Pair<List<Map<String,Object>>,List<JsonObject>> result) {
+      return result.getRight().stream().map(ReflexJson::fromJsonObject).map(ReflexDriverDefinition::getName).collect(Collectors.toSet());
+   }
+}
@@ -21,6 +21,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
@@ -52,6 +53,9 @@ import com.iris.messages.capability.DeviceCapability;
 import com.iris.messages.model.DriverId;
 import com.iris.messages.type.Population;
 import com.iris.model.Version;
+import com.iris.platform.partition.PartitionConfig;
+import com.iris.platform.partition.Partitioner;
+import com.iris.platform.partition.simple.SimplePartitioner;
 import com.iris.util.ThreadPoolBuilder;
 import com.netflix.governator.annotations.Modules;
 
@@ -86,6 +90,11 @@ public class TestDriverModule extends AbstractIrisModule {
       bind(DriverExecutorRegistry.class).to(PlatformDriverExecutorRegistry.class);
    }
    
+   @Provides @Singleton
+   public Partitioner partitioner() {
+      return new SimplePartitioner(new PartitionConfig(), Optional.absent());
+   }
+
    @Provides @Singleton
    public Scheduler scheduler() {
       return new ExecutorScheduler(Executors.newScheduledThreadPool(1));
@@ -18,8 +18,11 @@
  */
 package com.iris.driver.service.consumer;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -27,11 +30,15 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.Inject;
 import com.iris.common.scheduler.ExecutorScheduler;
@@ -246,6 +253,132 @@ public class TestDefaultDriverExecutor extends IrisMockTestCase {
       assertEquals(message2, driver.advance());
    }
 
+   @Test
+   public void testIdleAfterExecution() throws Exception {
+      assertTrue(dispatcher.isIdle());
+
+      Future<Future<Void>> f = submit(createPlatformMessage());
+      driver.await();
+      assertFalse(dispatcher.isIdle());
+      driver.respond(context);
+
+      f.get().get(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      assertTrue(dispatcher.isIdle());
+   }
+
+   @Test
+   public void testNotIdleWhileEventDeferred() throws Exception {
+      PlatformMessage message = createPlatformMessage();
+      dispatcher.defer("Test", message, new Date(System.currentTimeMillis() + 60000));
+      assertFalse(dispatcher.isIdle());
+
+      dispatcher.cancel("Test");
+      assertTrue(dispatcher.isIdle());
+   }
+
+   @Test
+   public void testEvictRefusedWhileBusy() throws Exception {
+      AtomicInteger removed = new AtomicInteger();
+      Future<Future<Void>> f = submit(createPlatformMessage());
+      driver.await();
+      assertFalse(dispatcher.evict(() -> removed.incrementAndGet() > 0, () -> dispatcher));
+      assertEquals(0, removed.get());
+      assertFalse(dispatcher.isEvicted());
+      driver.respond(context);
+
+      f.get().get(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      assertTrue(dispatcher.evict(() -> removed.incrementAndGet() > 0, () -> dispatcher));
+      assertEquals(1, removed.get());
+      assertTrue(dispatcher.isEvicted());
+   }
+
+   @Test
+   public void testEvictRefusedWhenNotRemoved() throws Exception {
+      assertFalse(dispatcher.evict(() -> false, () -> dispatcher));
+      assertFalse(dispatcher.isEvicted());
+   }
+
+   @Test
+   public void testEventsForwardedAfterEviction() throws Exception {
+      ExecutorHolder holder = new ExecutorHolder(driver);
+      DefaultDriverExecutor loaded = holder.load();
+      assertTrue(holder.sweep());
+      assertTrue(loaded.isEvicted());
+
+      // fired through a reference obtained before the eviction, should be handled by
+      // the replacement rather than cancelled
+      PlatformMessage message = createPlatformMessage();
+      final SettableFuture<Future<Void>> ref = SettableFuture.create();
+      executor.execute(() -> ref.set(loaded.fire(message)));
+      driver.await();
+      DefaultDriverExecutor replacement = holder.current.get();
+      assertNotNull(replacement);
+      assertNotSame(loaded, replacement);
+      assertTrue(replacement.isRunning());
+      assertFalse(loaded.isRunning());
+      assertSame(message, driver.respond(replacement.context()));
+      assertNull(ref.get().get(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+      assertEquals(2, holder.loads.get());
+   }
+
+   @Test
+   public void testLoadAndFireDuringSweep() throws Exception {
+      final int threads = 4;
+      final int eventsPerThread = 2000;
+      CountingDeviceDriver counting = new CountingDeviceDriver();
+      ExecutorHolder holder = new ExecutorHolder(counting);
+      AtomicBoolean done = new AtomicBoolean();
+      AtomicInteger evictions = new AtomicInteger();
+      Thread sweeper = new Thread(() -> {
+         while(!done.get()) {
+            if(holder.sweep()) {
+               evictions.incrementAndGet();
+            }
+            // don't starve the delivering thread of the executor lock
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+         }
+      }, "test-sweeper");
+      sweeper.setDaemon(true);
+      sweeper.start();
+
+      CountDownLatch start = new CountDownLatch(1);
+      List<SettableFuture<List<ListenableFuture<Void>>>> results = new ArrayList<>();
+      for(int i = 0; i < threads; i++) {
+         SettableFuture<List<ListenableFuture<Void>>> result = SettableFuture.create();
+         results.add(result);
+         executor.execute(() -> {
+            try {
+               start.await();
+               List<ListenableFuture<Void>> fired = new ArrayList<>(eventsPerThread);
+               for(int j = 0; j < eventsPerThread; j++) {
+                  fired.add(holder.load().fire(createProtocolMessage()));
+               }
+               result.set(fired);
+            }
+            catch(Throwable t) {
+               result.setException(t);
+            }
+         });
+      }
+      start.countDown();
+      try {
+         for(SettableFuture<List<ListenableFuture<Void>>> result: results) {
+            for(ListenableFuture<Void> fired: result.get(10, TimeUnit.SECONDS)) {
+               assertNull(fired.get(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            }
+         }
+      }
+      finally {
+         done.set(true);
+         sweeper.join(POLL_TIMEOUT_MS);
+      }
+
+      assertTrue("Expected at least one eviction", evictions.get() > 0);
+      assertEquals(threads * eventsPerThread, counting.delivered.get());
+      assertFalse("Events were delivered to two executors at once", counting.overlapped.get());
+      assertEquals(0, counting.stopped.get());
+   }
+
    @Test
    public void testCancelNamedEvent() throws Exception {
       PlatformMessage message = createPlatformMessage();
@@ -347,6 +480,61 @@ public class TestDefaultDriverExecutor extends IrisMockTestCase {
       }
    }
 
+   /**
+    * Stands in for the executor cache in PlatformDriverExecutorRegistry, loading
+    * a new executor with its own context whenever the current one is evicted.
+    */
+   class ExecutorHolder {
+      final DeviceDriver driver;
+      final AtomicReference<DefaultDriverExecutor> current = new AtomicReference<>();
+      final AtomicInteger loads = new AtomicInteger();
+
+      ExecutorHolder(DeviceDriver driver) {
+         this.driver = driver;
+      }
+
+      synchronized DefaultDriverExecutor load() {
+         DefaultDriverExecutor executor = current.get();
+         if(executor == null) {
+            loads.incrementAndGet();
+            executor = new DefaultDriverExecutor(driver, new PlatformDeviceDriverContext(device, driver, mockPopulationCacheMgr), scheduler, BACKLOG * 1000);
+            current.set(executor);
+         }
+         return executor;
+      }
+
+      boolean sweep() {
+         DefaultDriverExecutor executor = current.get();
+         return executor != null && executor.evict(() -> current.compareAndSet(executor, null), this::load);
+      }
+   }
+
+   /**
+    * Counts protocol messages without blocking and records if two executors
+    * were ever delivering at the same time.
+    */
+   public static class CountingDeviceDriver extends SynchronousDeviceDriver {
+      final AtomicInteger delivered = new AtomicInteger();
+      final AtomicInteger stopped = new AtomicInteger();
+      final AtomicBoolean delivering = new AtomicBoolean();
+      final AtomicBoolean overlapped = new AtomicBoolean();
+
+      @Override
+      public void handleProtocolMessage(ProtocolMessage message, DeviceDriverContext context) {
+         if(!delivering.compareAndSet(false, true)) {
+            overlapped.set(true);
+         }
+         delivered.incrementAndGet();
+         Thread.yield();
+         delivering.set(false);
+      }
+
+      @Override
+      public void onSuspended(DeviceDriverContext context) {
+         stopped.incrementAndGet();
+      }
+   }
+
    /**
     * DeviceDriver implementation that blocks in each event handling method
     * until {@link #advance()} or {@link #advance(Runnable)} are called.
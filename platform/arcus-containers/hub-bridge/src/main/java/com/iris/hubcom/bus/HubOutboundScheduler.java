@@ -0,0 +1,252 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.hubcom.bus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Suppliers;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.iris.bridge.server.session.Session;
+import com.iris.bridge.server.session.SessionListener;
+import com.iris.bridge.server.session.SessionRegistry;
+import com.iris.hubcom.server.session.HubSession;
+import com.iris.messages.HubMessage;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
+import com.iris.network.PacketScheduler;
+import com.iris.network.PacketSchedulers;
+import com.iris.network.RateLimiters;
+
+/**
+ * Outbound path for messages from the platform to the hubs.
+ * 
+ * Each connected hub gets its own bounded queue and token bucket, the queues
+ * are drained by a small pool of sender threads using a weighted fair
+ * scheduler.  A hub that is sent more than its share is throttled and then
+ * has messages dropped once its queue fills, rather than delaying the
+ * messages for every other hub on this bridge.
+ * 
+ * Hubs are sharded across the senders so that each hub is only ever drained
+ * by a single thread, which keeps the messages for a hub in order and never
+ * writes to the same session concurrently.
+ */
+@Singleton
+public class HubOutboundScheduler implements SessionListener {
+   private static final Logger logger = LoggerFactory.getLogger(HubOutboundScheduler.class);
+
+   @Inject(optional = true)
+   @Named("hub.bridge.outbound.scheduler.enabled")
+   private boolean enabled = true;
+
+   @Inject(optional = true)
+   @Named("hub.bridge.outbound.threads")
+   private int threads = 4;
+
+   @Inject(optional = true)
+   @Named("hub.bridge.outbound.queue.size")
+   private int queueSize = 500;
+
+   @Inject(optional = true)
+   @Named("hub.bridge.outbound.rate")
+   private double ratePerSecond = 100.0;
+
+   @Inject(optional = true)
+   @Named("hub.bridge.outbound.burst")
+   private int burst = 250;
+
+   /**
+    * The number of messages sent to a hub each time it is
+    * visited by the scheduler.
+    */
+   @Inject(optional = true)
+   @Named("hub.bridge.outbound.weight")
+   private int weight = 4;
+
+   private final SessionRegistry sessionRegistry;
+   private final ConcurrentMap<Session, Attached> producers = new ConcurrentHashMap<>();
+
+   private final Timer lag;
+   private final Counter dropped;
+   private final Counter failed;
+
+   private Sender[] senders;
+   private volatile boolean running;
+
+   @Inject
+   public HubOutboundScheduler(SessionRegistry sessionRegistry) {
+      this.sessionRegistry = sessionRegistry;
+
+      IrisMetricSet metrics = IrisMetrics.metrics("bridge.hub.outbound");
+      this.lag = metrics.timer("lag");
+      this.dropped = metrics.counter("dropped");
+      this.failed = metrics.counter("failed");
+      metrics.gauge("hubs", (Gauge<Integer>) () -> producers.size());
+   }
+
+   @PostConstruct
+   public void init() {
+      if (!enabled) {
+         logger.info("Outbound hub scheduling is disabled, messages will be sent directly");
+         return;
+      }
+
+      PacketScheduler.PacketDropHandler<Outbound> onDropped = (packet) -> dropped.inc();
+      running = true;
+      senders = new Sender[threads];
+      for (int i = 0; i < threads; i++) {
+         PacketScheduler<Outbound> scheduler = PacketSchedulers.<Outbound>fairQueuing()
+               .useArrayQueue(queueSize)
+               .dropOnQueueFull()
+               .setDropHandler(Suppliers.ofInstance(onDropped))
+               .setProducerRateLimiter(RateLimiters.tokenBucket(burst, ratePerSecond))
+               .setProducerWeight(weight)
+               .build();
+         senders[i] = new Sender(scheduler, "hub-outbound-" + i);
+         senders[i].setDaemon(true);
+         senders[i].start();
+      }
+   }
+
+   @PreDestroy
+   public void shutdown() {
+      running = false;
+      if (senders == null) {
+         return;
+      }
+      for (Sender sender : senders) {
+         sender.interrupt();
+      }
+   }
+
+   /**
+    * Queues the message to be sent to the hub, if the hub's queue
+    * is full or the hub has disconnected the message is dropped.
+    * 
+    * @return false if the message was dropped
+    */
+   public boolean send(HubSession session, HubMessage message) {
+      if (!running) {
+         session.sendMessage(message);
+         return true;
+      }
+
+      Attached attached = producers.get(session);
+      if (attached == null) {
+         if (sessionRegistry.getSession(session.getClientToken()) != session) {
+            // already disconnected
+            dropped.inc();
+            return false;
+         }
+         attached = producers.computeIfAbsent(session, this::attach);
+      }
+      return attached.producer.offer(new Outbound(session, message));
+   }
+
+   public int getQueuedHubs() {
+      return producers.size();
+   }
+
+   @Override
+   public void onSessionCreated(Session session) {
+      // queues are attached on the first message
+   }
+
+   @Override
+   public void onSessionDestroyed(Session session) {
+      Attached attached = producers.remove(session);
+      if (attached != null) {
+         attached.scheduler.detach(attached.producer);
+      }
+   }
+
+   private Attached attach(Session session) {
+      PacketScheduler<Outbound> scheduler = senders[Math.floorMod(session.hashCode(), senders.length)].scheduler;
+      return new Attached(scheduler, scheduler.attach());
+   }
+
+   private final class Sender extends Thread {
+      private final PacketScheduler<Outbound> scheduler;
+
+      Sender(PacketScheduler<Outbound> scheduler, String name) {
+         super(name);
+         this.scheduler = scheduler;
+      }
+
+      @Override
+      public void run() {
+         while (running) {
+            Outbound outbound;
+            try {
+               outbound = scheduler.take();
+            }
+            catch (InterruptedException e) {
+               logger.debug("Hub outbound sender interrupted");
+               return;
+            }
+
+            try {
+               HubSession session = outbound.session;
+               if (sessionRegistry.getSession(session.getClientToken()) != session) {
+                  // the hub disconnected while the message was queued
+                  onSessionDestroyed(session);
+                  dropped.inc();
+                  continue;
+               }
+               session.sendMessage(outbound.message);
+               lag.update(System.nanoTime() - outbound.queuedNs, TimeUnit.NANOSECONDS);
+            }
+            catch (Exception e) {
+               failed.inc();
+               logger.warn("Unable to send message to hub [{}]", outbound.session.getHubId(), e);
+            }
+         }
+      }
+   }
+
+   private static final class Attached {
+      private final PacketScheduler<Outbound> scheduler;
+      private final PacketScheduler.Producer<Outbound> producer;
+
+      Attached(PacketScheduler<Outbound> scheduler, PacketScheduler.Producer<Outbound> producer) {
+         this.scheduler = scheduler;
+         this.producer = producer;
+      }
+   }
+
+   private static final class Outbound {
+      private final HubSession session;
+      private final HubMessage message;
+      private final long queuedNs = System.nanoTime();
+
+      Outbound(HubSession session, HubMessage message) {
+         this.session = session;
+         this.message = message;
+      }
+   }
+}
@@ -22,6 +22,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 import com.iris.bridge.bus.PlatformBusListener;
+import com.iris.bridge.bus.PlatformBusService;
 import com.iris.bridge.server.netty.BridgeMdcUtil;
 import com.iris.bridge.server.session.ClientToken;
 import com.iris.bridge.server.session.Session;
@@ -35,6 +36,7 @@ import com.iris.messages.PlatformMessage;
 import com.iris.messages.capability.CellBackupSubsystemCapability;
 import com.iris.messages.capability.HubCapability;
 import com.iris.messages.capability.HubNetworkCapability;
+import com.iris.messages.errors.Errors;
 import com.iris.util.MdcContext.MdcContextReference;
 
 public class HubPlatformBusListener implements PlatformBusListener {
@@ -44,15 +46,17 @@ public class HubPlatformBusListener implements PlatformBusListener {
 
    private final HubMessageFilter filter;
    private final SessionRegistry sessionRegistry;
+   private final HubOutboundScheduler outbound;
+   private final PlatformBusService platformBusService;
    private final Serializer<PlatformMessage> platformSerializer;
-   private final Serializer<HubMessage> hubSerializer;
 
    @Inject
-   public HubPlatformBusListener(HubMessageFilter filter, SessionRegistry sessionRegistry) {
+   public HubPlatformBusListener(HubMessageFilter filter, SessionRegistry sessionRegistry, HubOutboundScheduler outbound, PlatformBusService platformBusService) {
       this.filter = filter;
       this.sessionRegistry = sessionRegistry;
+      this.outbound = outbound;
+      this.platformBusService = platformBusService;
       this.platformSerializer = JSON.createSerializer(PlatformMessage.class);
-      this.hubSerializer = JSON.createSerializer(HubMessage.class);
    }
 
    @Override
@@ -88,8 +92,11 @@ public class HubPlatformBusListener implements PlatformBusListener {
          }
 
          byte[] payload = platformSerializer.serialize(msg);
-         byte[] message = hubSerializer.serialize(HubMessage.createPlatform(payload));
-         session.sendMessage(message);
+         boolean queued = outbound.send((HubSession) session, HubMessage.createPlatform(payload));
+         if (!queued && msg.isResponseRequired()) {
+            logger.debug("Dropped request [{}] for hub [{}], queue is full or hub is disconnected", msg.getMessageType(), ((HubSession) session).getHubId());
+            platformBusService.placeMessageOnPlatformBus(PlatformMessage.buildResponse(msg, Errors.serviceUnavailable()).create());
+         }
       }
    }
 
@@ -38,16 +38,16 @@ public class HubProtocolBusListener implements ProtocolBusListener {
    private final ProtocolMessageBus protocolMessageBus;
    private final HubMessageFilter filter;
    private final SessionRegistry sessionRegistry;
+   private final HubOutboundScheduler outbound;
    private final Serializer<ProtocolMessage> protocolSerializer;
-   private final Serializer<HubMessage> hubSerializer;
 
    @Inject
-   public HubProtocolBusListener(ProtocolMessageBus protocolMessageBus, HubMessageFilter filter, SessionRegistry sessionRegistry) {
+   public HubProtocolBusListener(ProtocolMessageBus protocolMessageBus, HubMessageFilter filter, SessionRegistry sessionRegistry, HubOutboundScheduler outbound) {
       this.protocolMessageBus = protocolMessageBus;
       this.filter = filter;
       this.sessionRegistry = sessionRegistry;
+      this.outbound = outbound;
       this.protocolSerializer = JSON.createSerializer(ProtocolMessage.class);
-      this.hubSerializer = JSON.createSerializer(HubMessage.class);
    }
 
    @Override
@@ -66,8 +66,7 @@ public class HubProtocolBusListener implements ProtocolBusListener {
          }
 
          byte[] payload = protocolSerializer.serialize(msg);
-         byte[] message = hubSerializer.serialize(HubMessage.createProtocol(payload));
-         session.sendMessage(message);
+         outbound.send((HubSession) session, HubMessage.createProtocol(payload));
       }
 
    }
@@ -20,6 +20,8 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.iris.bridge.bus.AbstractPlatformBusService;
@@ -31,7 +33,9 @@ import com.iris.messages.address.AddressMatchers;
 import com.iris.messages.PlatformMessage;
 import com.iris.core.platform.PlatformMessageBus;
 import com.iris.hubcom.server.session.HubClientToken;
+import com.iris.hubcom.server.session.HubSessionRegistry;
 import com.iris.messages.MessageConstants;
+import com.iris.platform.partition.PlatformPartition;
 
 @Singleton
 public class PlatformBusServiceImpl extends AbstractPlatformBusService {
@@ -43,9 +47,27 @@ public class PlatformBusServiceImpl extends AbstractPlatformBusService {
                MessageConstants.DRIVER, MessageConstants.HUB
          );
 
-   @Inject
    public PlatformBusServiceImpl(PlatformMessageBus platformBus, BridgeMetrics bridgeMetrics, Set<PlatformBusListener> listeners) {
-      super(platformBus, bridgeMetrics, ADDRESSES);
+      this(platformBus, bridgeMetrics, Predicates.alwaysTrue(), listeners);
+   }
+
+   @Inject
+   public PlatformBusServiceImpl(
+         PlatformMessageBus platformBus,
+         BridgeMetrics bridgeMetrics,
+         HubSessionRegistry sessionRegistry,
+         Set<PlatformBusListener> listeners
+   ) {
+      this(platformBus, bridgeMetrics, sessionRegistry::isLocalPartition, listeners);
+   }
+
+   private PlatformBusServiceImpl(
+         PlatformMessageBus platformBus,
+         BridgeMetrics bridgeMetrics,
+         Predicate<? super PlatformPartition> partitions,
+         Set<PlatformBusListener> listeners
+   ) {
+      super(platformBus, bridgeMetrics, ADDRESSES, partitions);
       for (PlatformBusListener listener : listeners) {
          addPlatformListener(listener);
       }
@@ -31,6 +31,7 @@ import com.iris.messages.address.AddressMatchers;
 import com.iris.protocol.ProtocolMessage;
 import com.iris.core.protocol.ProtocolMessageBus;
 import com.iris.hubcom.server.session.HubClientToken;
+import com.iris.hubcom.server.session.HubSessionRegistry;
 import com.iris.messages.MessageConstants;
 
 @Singleton
@@ -43,9 +44,10 @@ public class ProtocolBusServiceImpl extends AbstractProtocolBusService {
    public ProtocolBusServiceImpl(
          ProtocolMessageBus protocolBus,
          BridgeMetrics bridgeMetrics,
+         HubSessionRegistry sessionRegistry,
          Set<ProtocolBusListener> listeners
    ) {
-      super(protocolBus, ADDRESSES, bridgeMetrics);
+      super(protocolBus, ADDRESSES, sessionRegistry::isLocalPartition, bridgeMetrics);
       for (ProtocolBusListener listener : listeners) {
          addProtocolListener(listener);
       }
@@ -58,6 +58,7 @@ import com.iris.bridge.server.ssl.BridgeServerTlsContextImpl;
 import com.iris.bridge.server.ssl.BridgeServerTrustManagerFactory;
 import com.iris.hubcom.authz.DefaultHubMessageFilterImpl;
 import com.iris.hubcom.authz.HubMessageFilter;
+import com.iris.hubcom.bus.HubOutboundScheduler;
 import com.iris.hubcom.bus.HubPlatformBusListener;
 import com.iris.hubcom.bus.HubProtocolBusListener;
 import com.iris.hubcom.bus.PlatformBusServiceImpl;
@@ -132,8 +133,9 @@ public class HubServerModule extends AbstractIrisModule {
         bind(RequestMatcher.class).annotatedWith(Names.named("WebSocketUpgradeMatcher")).to(WebSocketUpgradeMatcher.class);
         bind(RequestAuthorizer.class).annotatedWith(Names.named("SessionAuthorizer")).to(AlwaysAllow.class);
 
-        // No Session Listeners
+        // releases the outbound queue when a hub disconnects
         Multibinder<SessionListener> slBindings = Multibinder.newSetBinder(binder(), SessionListener.class);
+        slBindings.addBinding().to(HubOutboundScheduler.class);
 
         // Bind Http Handlers
         Multibinder<RequestHandler> rhBindings = Multibinder.newSetBinder(binder(), RequestHandler.class);
@@ -90,7 +90,11 @@ public abstract class DirectMessageHandler {
 
    protected void sendToHub(Session session, PlatformMessage msg) {
       byte[] payload = platformMessageSerializer.serialize(msg);
-      byte[] message = hubMessageSerializer.serialize(HubMessage.createPlatform(payload));
+      HubMessage hubMessage = HubMessage.createPlatform(payload);
+      byte[] message =
+            session instanceof HubSession ?
+                  ((HubSession) session).serialize(hubMessage) :
+                  hubMessageSerializer.serialize(hubMessage);
       if (session.getChannel().isActive()) {
          session.sendMessage(message);
       } else {
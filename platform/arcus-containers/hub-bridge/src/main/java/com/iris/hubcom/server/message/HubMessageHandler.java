@@ -60,6 +60,8 @@ import com.iris.hubcom.server.session.HubSession;
 import com.iris.hubcom.server.session.HubSession.State;
 import com.iris.info.IrisApplicationInfo;
 import com.iris.io.Deserializer;
+import com.iris.io.binary.BinaryHubMessageDeserializer;
+import com.iris.io.binary.BinaryHubMessageSerializer;
 import com.iris.io.json.JSON;
 import com.iris.messages.HubMessage;
 import com.iris.messages.MessageConstants;
@@ -92,6 +94,7 @@ public class HubMessageHandler implements Closeable, DeviceMessageHandler<ByteBu
    private final HubMessageFilter filter;
    private final Deserializer<PlatformMessage> platformDeserializer = JSON.createDeserializer(PlatformMessage.class);
    private final Deserializer<ProtocolMessage> protocolDeserializer = JSON.createDeserializer(ProtocolMessage.class);
+   private final BinaryHubMessageDeserializer hubDeserializer = new BinaryHubMessageDeserializer(JSON.createDeserializer(HubMessage.class));
    private final DirectMessageExecutor directExecutor;
    private final PlacePopulationCacheManager populationCacheMgr;
 
@@ -427,6 +430,11 @@ public class HubMessageHandler implements Closeable, DeviceMessageHandler<ByteBu
    }
 
    private HubMessage byteBufToObject(ByteBuf byteBuf) {
+      if (byteBuf.hasArray() && byteBuf.isReadable() && BinaryHubMessageSerializer.isBinary(byteBuf.getByte(byteBuf.readerIndex()))) {
+         // binary frames can be read in place
+         return hubDeserializer.deserialize(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+      }
+
       byte[] bytes;
       if (byteBuf.hasArray()) {
          bytes = byteBuf.array();
@@ -436,7 +444,7 @@ public class HubMessageHandler implements Closeable, DeviceMessageHandler<ByteBu
          byteBuf.getBytes(byteBuf.readerIndex(), bytes);
       }
 
-      HubMessage msgObj = JSON.createDeserializer(HubMessage.class).deserialize(bytes);
+      HubMessage msgObj = hubDeserializer.deserialize(bytes);
       return msgObj;
    }
 
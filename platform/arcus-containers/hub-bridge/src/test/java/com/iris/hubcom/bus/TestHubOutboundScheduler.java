@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.hubcom.bus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+import com.iris.bridge.server.session.ClientToken;
+import com.iris.bridge.server.session.Session;
+import com.iris.bridge.server.session.SessionRegistry;
+import com.iris.hubcom.server.session.HubClientToken;
+import com.iris.hubcom.server.session.HubSession;
+import com.iris.messages.HubMessage;
+
+public class TestHubOutboundScheduler {
+   private final Map<ClientToken, Session> connected = new ConcurrentHashMap<>();
+   private HubOutboundScheduler scheduler;
+
+   @After
+   public void tearDown() {
+      if (scheduler != null) {
+         scheduler.shutdown();
+      }
+   }
+
+   @Test
+   public void testMessagesForAHubStayInOrder() throws Exception {
+      start(4, 1000);
+      int messagesPerHub = 500;
+      List<RecordingSession> hubs = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+         hubs.add(connect(String.format("ABC-%04d", i), messagesPerHub));
+      }
+
+      for (int i = 0; i < messagesPerHub; i++) {
+         for (RecordingSession hub : hubs) {
+            assertTrue(scheduler.send(hub, message(i)));
+         }
+      }
+
+      for (RecordingSession hub : hubs) {
+         assertTrue(hub.done.await(10, TimeUnit.SECONDS));
+         assertFalse("concurrent send to " + hub.getHubId(), hub.concurrent);
+         assertEquals(messagesPerHub, hub.received.size());
+         for (int i = 0; i < messagesPerHub; i++) {
+            assertEquals(String.valueOf(i), hub.received.get(i));
+         }
+      }
+   }
+
+   @Test
+   public void testDetachOnDisconnect() throws Exception {
+      start(1, 10);
+      RecordingSession blocked = connect("ABC-0001", 1);
+      RecordingSession other = connect("ABC-0002", 1);
+      blocked.block();
+
+      // the first message is picked up by the sender and blocks it
+      assertTrue(scheduler.send(blocked, message(0)));
+      assertTrue(blocked.sending.await(10, TimeUnit.SECONDS));
+      for (int i = 1; i < 5; i++) {
+         assertTrue(scheduler.send(blocked, message(i)));
+      }
+      assertTrue(scheduler.send(other, message(0)));
+      assertEquals(2, scheduler.getQueuedHubs());
+
+      disconnect(blocked);
+      assertEquals(1, scheduler.getQueuedHubs());
+      assertFalse(scheduler.send(blocked, message(5)));
+
+      blocked.unblock();
+      assertTrue(other.done.await(10, TimeUnit.SECONDS));
+      assertEquals(1, blocked.received.size());
+      assertEquals(1, other.received.size());
+
+      // the sender is still alive for hubs that connect afterwards
+      RecordingSession reconnected = connect("ABC-0001", 1);
+      assertTrue(scheduler.send(reconnected, message(0)));
+      assertTrue(reconnected.done.await(10, TimeUnit.SECONDS));
+   }
+
+   @Test
+   public void testFullQueueDropsMessage() throws Exception {
+      start(1, 2);
+      RecordingSession hub = connect("ABC-0001", 3);
+      hub.block();
+
+      assertTrue(scheduler.send(hub, message(0)));
+      assertTrue(hub.sending.await(10, TimeUnit.SECONDS));
+      assertTrue(scheduler.send(hub, message(1)));
+      assertTrue(scheduler.send(hub, message(2)));
+      assertFalse(scheduler.send(hub, message(3)));
+
+      hub.unblock();
+      assertTrue(hub.done.await(10, TimeUnit.SECONDS));
+      assertEquals(3, hub.received.size());
+   }
+
+   private void start(int threads, int queueSize) {
+      SessionRegistry registry = EasyMock.createNiceMock(SessionRegistry.class);
+      EasyMock
+         .expect(registry.getSession(EasyMock.anyObject(ClientToken.class)))
+         .andAnswer(() -> connected.get(EasyMock.getCurrentArguments()[0]))
+         .anyTimes();
+      EasyMock.replay(registry);
+
+      Map<String, String> config = ImmutableMap.of(
+            "hub.bridge.outbound.threads", String.valueOf(threads),
+            "hub.bridge.outbound.queue.size", String.valueOf(queueSize),
+            "hub.bridge.outbound.rate", "1000000",
+            "hub.bridge.outbound.burst", "1000000"
+      );
+      scheduler = Guice.createInjector((binder) -> {
+         Names.bindProperties(binder, config);
+         binder.bind(SessionRegistry.class).toInstance(registry);
+      }).getInstance(HubOutboundScheduler.class);
+      scheduler.init();
+   }
+
+   private RecordingSession connect(String hubId, int expected) {
+      RecordingSession session = new RecordingSession(hubId, expected);
+      connected.put(session.getClientToken(), session);
+      return session;
+   }
+
+   private void disconnect(RecordingSession session) {
+      connected.remove(session.getClientToken());
+      scheduler.onSessionDestroyed(session);
+   }
+
+   private static HubMessage message(int sequence) {
+      return HubMessage.createPlatform(String.valueOf(sequence).getBytes(StandardCharsets.UTF_8));
+   }
+
+   private static class RecordingSession extends HubSession {
+      private final List<String> received = new CopyOnWriteArrayList<>();
+      private final AtomicInteger inFlight = new AtomicInteger();
+      private final CountDownLatch done;
+      private final CountDownLatch sending = new CountDownLatch(1);
+      private volatile CountDownLatch blocked;
+      private volatile boolean concurrent;
+
+      RecordingSession(String hubId, int expected) {
+         super(null, null, null, HubClientToken.fromHubID(hubId));
+         this.done = new CountDownLatch(expected);
+      }
+
+      void block() {
+         blocked = new CountDownLatch(1);
+      }
+
+      void unblock() {
+         blocked.countDown();
+      }
+
+      @Override
+      public void sendMessage(HubMessage message) {
+         if (inFlight.incrementAndGet() > 1) {
+            concurrent = true;
+         }
+         try {
+            sending.countDown();
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+               latch.await(10, TimeUnit.SECONDS);
+            }
+            received.add(new String(message.getPayload(), StandardCharsets.UTF_8));
+            done.countDown();
+         }
+         catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         finally {
+            inFlight.decrementAndGet();
+         }
+      }
+   }
+}
@@ -136,6 +136,31 @@ public class TestHubSessionRegistry extends IrisMockTestCase {
       messages.clear();
    }
 
+   @Test
+   public void testAllPartitionsLocalWithoutAffinity() {
+      ClientFactory cf = ServiceLocator.getInstance(ClientFactory.class);
+      HubSessionRegistry empty = new HubSessionRegistry(cf, ImmutableSet.of(), partitioner, intraServiceBus, hubDao);
+      for(int i=0; i<partitioner.getPartitionCount(); i++) {
+         assertTrue(empty.isLocalPartition(partitioner.getPartitionById(i)));
+      }
+   }
+
+   @Test
+   public void testLocalPartitionsWithAffinity() {
+      ClientFactory cf = ServiceLocator.getInstance(ClientFactory.class);
+      HubSessionRegistry registry = new HubSessionRegistry(cf, ImmutableSet.of(), partitioner, intraServiceBus, hubDao);
+      registry.setPartitionAffinity(true);
+      assertFalse(registry.isLocalPartition(partitioner.getPartitionById(1)));
+      assertTrue("messages without a partition are always accepted", registry.isLocalPartition(null));
+
+      registry.putSession(new HubSession(registry, null, null, new HubClientToken("AAA-0001")));
+      registry.putSession(new HubSession(registry, null, null, new HubClientToken("AAA-0012")));
+      registry.refreshLocalPartitions();
+      for(int i=0; i<partitioner.getPartitionCount(); i++) {
+         assertEquals("partition " + i, i == 1 || i == 3, registry.isLocalPartition(partitioner.getPartitionById(i)));
+      }
+   }
+
    private List<PlatformMessage> takeHeartbeats(int count) throws InterruptedException, TimeoutException {
       List<PlatformMessage> messages = new ArrayList<>(count);
       for(int i=0; i<count; i++) {
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import com.google.common.io.CountingOutputStream;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * A gzip compressed JSON array of datapoints to be posted to kairos, along with
+ * the kafka offsets that may be committed once it has been accepted.  Datapoints
+ * are serialized as they are added so the batch never holds a tree of
+ * {@link JsonObject}s.
+ */
+final class KairosBatch {
+   private final Gson gson;
+   private final long createdMs;
+   private final ByteArrayOutputStream buffer;
+   private final CountingOutputStream uncompressed;
+   private final JsonWriter writer;
+   private final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+   private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+   private int datapoints;
+
+   KairosBatch(Gson gson, long createdMs) {
+      this.gson = gson;
+      this.createdMs = createdMs;
+      this.buffer = new ByteArrayOutputStream(8192);
+      try {
+         this.uncompressed = new CountingOutputStream(new GZIPOutputStream(buffer, 8192));
+         this.writer = new JsonWriter(new OutputStreamWriter(uncompressed, StandardCharsets.UTF_8));
+         this.writer.beginArray();
+      }
+      catch(IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   void add(JsonObject datapoint) {
+      gson.toJson(datapoint, writer);
+      datapoints++;
+   }
+
+   /**
+    * Marks the record at offset as fully reported into this batch.
+    */
+   void consumed(TopicPartition partition, long offset) {
+      offsets.put(partition, new OffsetAndMetadata(offset + 1));
+      firstOffsets.putIfAbsent(partition, offset);
+   }
+
+   long getCreatedMs() {
+      return createdMs;
+   }
+
+   int getDatapoints() {
+      return datapoints;
+   }
+
+   /**
+    * The number of uncompressed bytes written so far, this may lag
+    * by the size of the writer's buffer.
+    */
+   long getBytes() {
+      return uncompressed.getCount();
+   }
+
+   Map<TopicPartition, OffsetAndMetadata> getOffsets() {
+      return offsets;
+   }
+
+   /**
+    * The offset of the first record consumed into this batch from each partition.
+    */
+   Map<TopicPartition, Long> getFirstOffsets() {
+      return firstOffsets;
+   }
+
+   /**
+    * Completes the array and returns the compressed request body,
+    * no more datapoints may be added.
+    */
+   byte[] finish() {
+      try {
+         writer.endArray();
+         writer.close();
+         return buffer.toByteArray();
+      }
+      catch(IOException e) {
+         throw new UncheckedIOException(e);
+      }
+   }
+}
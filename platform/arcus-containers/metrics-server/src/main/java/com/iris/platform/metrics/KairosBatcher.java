@@ -0,0 +1,238 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.metrics;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Counter;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gson.JsonObject;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
+import com.iris.platform.metrics.KairosDB.PostResult;
+
+/**
+ * Collects datapoints from the metrics consumer into batches and posts them to
+ * kairos once they are large or old enough.  Posting blocks while the maximum
+ * number of posts are already in-flight, which in turn stops the consumer from
+ * polling.
+ * 
+ * Offsets are only released by {@link #acknowledged()} once the batch containing
+ * them, and every batch before it, is done with: accepted by kairos, or rejected
+ * by kairos and dropped.  A batch that could not be posted blocks the commit
+ * until it is {@link #rewind() rewound} and re-consumed, or dropped once it has
+ * been rewound too many times.  This is not thread-safe, it is intended to be
+ * driven by the consumer thread.
+ */
+class KairosBatcher {
+   private static final Logger log = LoggerFactory.getLogger(KairosBatcher.class);
+   private static final IrisMetricSet METRICS = IrisMetrics.metrics("kairos.batch");
+
+   private final KairosDB kairos;
+   private final int maxDatapoints;
+   private final long maxBytes;
+   private final long maxDelayMs;
+   private final int maxRewinds;
+   private final Deque<PendingBatch> pending = new ArrayDeque<>();
+   private final Counter dropped = METRICS.counter("dropped");
+   @Nullable
+   private KairosBatch batch;
+   // rewinds since a batch was last done with, the re-consumed batch is at the head again
+   private int rewinds;
+
+   KairosBatcher(KairosDB kairos, MetricsServerConfig config) {
+      this.kairos = kairos;
+      this.maxDatapoints = config.getKairosBatchMaxDatapoints();
+      this.maxBytes = config.getKairosBatchMaxBytes();
+      this.maxDelayMs = config.getKairosBatchMaxDelayMs();
+      this.maxRewinds = Math.max(0, config.getKairosBatchMaxRewinds());
+   }
+
+   void add(JsonObject datapoint) {
+      current().add(datapoint);
+   }
+
+   void consumed(TopicPartition partition, long offset) {
+      current().consumed(partition, offset);
+   }
+
+   /**
+    * Posts the current batch if it has reached its size or age limit.
+    */
+   void flushIfNeeded(long nowMs) throws InterruptedException {
+      if(
+            batch != null && (
+               batch.getDatapoints() >= maxDatapoints ||
+               batch.getBytes() >= maxBytes ||
+               nowMs - batch.getCreatedMs() >= maxDelayMs
+            )
+      ) {
+         flush();
+      }
+   }
+
+   void flush() throws InterruptedException {
+      if(batch == null) {
+         return;
+      }
+
+      KairosBatch flushing = batch;
+      batch = null;
+      ListenableFuture<PostResult> result;
+      if(flushing.getDatapoints() == 0) {
+         // everything was filtered, just need to commit the offsets
+         result = Futures.immediateFuture(PostResult.ACCEPTED);
+      }
+      else {
+         result = kairos.post(flushing.finish(), flushing.getDatapoints());
+      }
+      pending.addLast(new PendingBatch(result, flushing.getDatapoints(), flushing.getOffsets(), flushing.getFirstOffsets()));
+   }
+
+   /**
+    * Removes the batches which are done with, in order, and returns the
+    * offsets that may now be committed.  Stops at the first batch that failed.
+    */
+   Map<TopicPartition, OffsetAndMetadata> acknowledged() {
+      Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+      while(!pending.isEmpty() && pending.peekFirst().isDone()) {
+         offsets.putAll(pending.removeFirst().offsets);
+         rewinds = 0;
+      }
+      return offsets;
+   }
+
+   /**
+    * True if the oldest pending batch failed to post, nothing after it will be
+    * acknowledged until it is {@link #rewind() rewound}.
+    */
+   boolean hasFailed() {
+      return !pending.isEmpty() && pending.peekFirst().isFailed();
+   }
+
+   /**
+    * Discards the failed batch along with every batch after it, including the one
+    * being collected, and passes the offset of the first discarded record in each
+    * partition to seek so they will be consumed again.  Later batches which are still
+    * in-flight may be posted twice.
+    * 
+    * Once the failed batch has been rewound the maximum number of times it is
+    * dropped instead, and its offsets are released by the next {@link #acknowledged()}.
+    */
+   void rewind(BiConsumer<TopicPartition, Long> seek) {
+      if(!hasFailed()) {
+         return;
+      }
+
+      if(rewinds >= maxRewinds) {
+         PendingBatch failed = pending.peekFirst();
+         log.warn("could not post [{}] metrics to kairosdb after [{}] rewinds, dropping them", failed.datapoints, rewinds);
+         dropped.inc(failed.datapoints);
+         failed.drop();
+         return;
+      }
+
+      rewinds++;
+      Map<TopicPartition, Long> positions = new HashMap<>();
+      for(PendingBatch discarded: pending) {
+         discarded.firstOffsets.forEach((partition, offset) -> positions.putIfAbsent(partition, offset));
+      }
+      pending.clear();
+      if(batch != null) {
+         batch.getFirstOffsets().forEach((partition, offset) -> positions.putIfAbsent(partition, offset));
+         batch = null;
+      }
+      positions.forEach(seek);
+   }
+
+   int getPendingBatches() {
+      return pending.size();
+   }
+
+   /**
+    * Waits for all the posted batches to complete.
+    * @return {@code true} if they all completed within timeoutMs
+    */
+   boolean awaitPending(long timeoutMs) throws InterruptedException {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+      for(PendingBatch batch: pending) {
+         try {
+            batch.result.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+         }
+         catch(ExecutionException e) {
+            // already logged by kairos, the batch is done
+         }
+         catch(TimeoutException e) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private KairosBatch current() {
+      if(batch == null) {
+         batch = kairos.newBatch();
+      }
+      return batch;
+   }
+
+   private static class PendingBatch {
+      private final ListenableFuture<PostResult> result;
+      private final int datapoints;
+      private final Map<TopicPartition, OffsetAndMetadata> offsets;
+      private final Map<TopicPartition, Long> firstOffsets;
+      private boolean dropped;
+
+      PendingBatch(
+            ListenableFuture<PostResult> result,
+            int datapoints,
+            Map<TopicPartition, OffsetAndMetadata> offsets,
+            Map<TopicPartition, Long> firstOffsets
+      ) {
+         this.result = result;
+         this.datapoints = datapoints;
+         this.offsets = offsets;
+         this.firstOffsets = firstOffsets;
+      }
+
+      void drop() {
+         this.dropped = true;
+      }
+
+      // a rejected batch will never be accepted, it was dropped by kairos
+      boolean isDone() {
+         return dropped || (result.isDone() && Futures.getUnchecked(result) != PostResult.FAILED);
+      }
+
+      boolean isFailed() {
+         return result.isDone() && !isDone();
+      }
+   }
+}
@@ -17,13 +17,15 @@ package com.iris.platform.metrics;
 
 import java.io.IOException;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PreDestroy;
 import javax.net.ssl.SSLContext;
 
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.config.Registry;
@@ -31,7 +33,8 @@ import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
@@ -40,8 +43,13 @@ import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.iris.metrics.IrisMetricSet;
@@ -49,21 +57,47 @@ import com.iris.metrics.IrisMetrics;
 import com.iris.util.ThreadPoolBuilder;
 
 @Singleton
-public final class KairosDB {
+public class KairosDB {
    private static final Logger log = LoggerFactory.getLogger(KairosDB.class);
    private static final IrisMetricSet METRICS = IrisMetrics.metrics("kairos.post");
+   // kairos only accepts a compressed body as an application/gzip entity, not as a content encoding
+   static final ContentType GZIP = ContentType.create("application/gzip");
+
+   enum PostResult {
+      /** Kairos stored the datapoints. */
+      ACCEPTED,
+      /** Kairos refused the datapoints, posting them again will not help. */
+      REJECTED,
+      /** The datapoints could not be posted, they may be posted again later. */
+      FAILED
+   }
 
    private final Gson gson;
    private final MetricsServerConfig config;
    private final CloseableHttpClient client;
    private final URI uri;
+   private final int retries;
+   private final long retryDelayMs;
    
    private final ExecutorService executor;
+   private final int maxInFlight;
+   private final Semaphore inFlight;
+
+   private final Meter datapoints = METRICS.meter("datapoints");
+   private final Histogram bytes = METRICS.histogram("bytes");
+   private final Counter retried = METRICS.counter("retried");
+   private final Counter rejected = METRICS.counter("rejected");
+   private final Counter failed = METRICS.counter("failed");
    
    @Inject
-   private KairosDB(Gson gson, MetricsServerConfig config) {
+   KairosDB(Gson gson, MetricsServerConfig config) {
       this.gson = gson;
       this.config = config;
+      this.retries = Math.max(0, config.getKairosPostRetries());
+      this.retryDelayMs = config.getKairosPostRetryDelayMs();
+      this.maxInFlight = Math.max(1, config.getKairosPostThreadsMax());
+      this.inFlight = new Semaphore(maxInFlight);
+      METRICS.gauge("inflight", (Gauge<Integer>) () -> maxInFlight - inFlight.availablePermits());
       
       this.executor = new ThreadPoolBuilder()
               .withMaxPoolSize(config.getKairosPostThreadsMax())
@@ -91,6 +125,12 @@ public final class KairosDB {
             .setConnectionManager(conman)
             .setMaxConnTotal(config.getKairosPostThreadsMax()) // connections == threads
             .setMaxConnPerRoute(config.getKairosPostThreadsMax()) // connections == threads
+            .setDefaultRequestConfig(
+               RequestConfig.custom()
+                  .setConnectTimeout(config.getKairosPostTimeoutMs())
+                  .setSocketTimeout(config.getKairosPostTimeoutMs())
+                  .build()
+            )
             .evictIdleConnections(60L, TimeUnit.SECONDS)
             .evictExpiredConnections()
             .build();
@@ -104,34 +144,88 @@ public final class KairosDB {
       this.executor.shutdownNow();
    }
 
-   public void post(JsonArray metrics) {    
-	   executor.submit(() -> {
-		   long startTime = System.nanoTime();
-		   HttpPost post = new HttpPost(uri);
-		   StringEntity entity = new StringEntity(gson.toJson(metrics), StandardCharsets.UTF_8);
-		   post.setEntity(entity);
-
-		   try (CloseableHttpResponse rsp = this.client.execute(post)) {
-
-			   int sc = rsp.getStatusLine().getStatusCode();		  
-			   if (sc == 204) {
-				   METRICS.counter("success").inc();
-				   METRICS.timer("post." + sc + ".success").update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-			   } else {
-				   METRICS.counter("failure." + sc).inc();
-				   METRICS.timer("post." + sc + ".fail").update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-                   log.warn("could not post metrics to kairosdb: {}", gson.toJson(metrics));
-			   }
-
-               log.debug("posted metrics to kairosdb: response status code is {}", sc);
-
-			   EntityUtils.consumeQuietly(rsp.getEntity());
-		   } catch (IOException ex) {
-			   METRICS.counter("failure").inc();
-			   METRICS.timer("post.exception.fail").update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-			   log.warn("could not post metrics to kairosdb: {}", ex.getMessage(), ex);
-		   } 
-	   });
+   KairosBatch newBatch() {
+      return new KairosBatch(gson, System.currentTimeMillis());
+   }
+
+   /**
+    * Posts a gzip compressed JSON array of datapoints, blocking while the maximum
+    * number of posts are already in-flight.  Failed posts are retried up to the
+    * configured number of times, a client error (4xx) means kairos will never
+    * accept the body so it is not retried.
+    * @return
+    *    A future with the result of the last attempt, it will not fail.
+    */
+   public ListenableFuture<PostResult> post(byte[] gzippedBody, int count) throws InterruptedException {
+      SettableFuture<PostResult> result = SettableFuture.create();
+      inFlight.acquire();
+      try {
+         executor.execute(() -> {
+            try {
+               result.set(send(gzippedBody, count));
+            }
+            catch(Throwable t) {
+               log.warn("could not post metrics to kairosdb", t);
+               failed.inc(count);
+               result.set(PostResult.FAILED);
+            }
+            finally {
+               inFlight.release();
+            }
+         });
+      }
+      catch(RejectedExecutionException e) {
+         inFlight.release();
+         log.warn("could not post metrics to kairosdb, shutting down");
+         failed.inc(count);
+         result.set(PostResult.FAILED);
+      }
+      return result;
+   }
+
+   private PostResult send(byte[] gzippedBody, int count) throws InterruptedException {
+      for(int attempt = 0; ; attempt++) {
+         long startTime = System.nanoTime();
+         HttpPost post = new HttpPost(uri);
+         post.setEntity(new ByteArrayEntity(gzippedBody, GZIP));
+
+         try (CloseableHttpResponse rsp = this.client.execute(post)) {
+            int sc = rsp.getStatusLine().getStatusCode();
+            EntityUtils.consumeQuietly(rsp.getEntity());
+            log.debug("posted metrics to kairosdb: response status code is {}", sc);
+            if (sc == 204) {
+               METRICS.counter("success").inc();
+               METRICS.timer("post." + sc + ".success").update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+               datapoints.mark(count);
+               bytes.update(gzippedBody.length);
+               return PostResult.ACCEPTED;
+            }
+
+            METRICS.counter("failure." + sc).inc();
+            METRICS.timer("post." + sc + ".fail").update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            if (isRejected(sc)) {
+               log.warn("kairosdb rejected [{}] metrics: response status code is {}, dropping them", count, sc);
+               rejected.inc(count);
+               return PostResult.REJECTED;
+            }
+            log.warn("could not post [{}] metrics to kairosdb: response status code is {}", count, sc);
+         } catch (IOException ex) {
+            METRICS.counter("failure").inc();
+            METRICS.timer("post.exception.fail").update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            log.warn("could not post [{}] metrics to kairosdb: {}", count, ex.getMessage(), ex);
+         }
+
+         if(attempt >= retries) {
+            failed.inc(count);
+            return PostResult.FAILED;
+         }
+         retried.inc();
+         Thread.sleep(retryDelayMs * (attempt + 1));
+      }
    }
-}
 
+   // a request timeout or throttling may succeed later, any other client error won't
+   private static boolean isRejected(int sc) {
+      return sc >= 400 && sc < 500 && sc != 408 && sc != 429;
+   }
+}
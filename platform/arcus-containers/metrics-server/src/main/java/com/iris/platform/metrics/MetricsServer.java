@@ -32,6 +32,8 @@ import java.util.function.Predicate;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -70,8 +72,6 @@ public class MetricsServer extends IrisAbstractApplication {
 
    private long mediumTTLFrequency;
    private long highTTLFrequency;
-   
-   private JsonArray MetricCache = new JsonArray();
 
    @Inject
    public MetricsServer(MetricsServerConfig metricsConfig, KafkaOpsConfig kafkaOpsConfig, KairosDB kairos) {
@@ -95,6 +95,8 @@ public class MetricsServer extends IrisAbstractApplication {
       log.info("Starting metrics processing server...");
 
       Properties props = kafkaOpsConfig.toNuConsumerProperties();
+      // offsets are committed once kairos has accepted the batch they were written to
+      props.put("enable.auto.commit", "false");
       Deserializer<JsonObject> delegate = JSON.createDeserializer(JsonObject.class);
       KafkaConsumer<String, JsonObject> consumer = new KafkaConsumer<>(props, new StringDeserializer(), new org.apache.kafka.common.serialization.Deserializer<JsonObject>() {
          @Override
@@ -118,13 +120,19 @@ public class MetricsServer extends IrisAbstractApplication {
             // no-op
          }
       });
+      KairosBatcher batcher = new KairosBatcher(kairos, metricsConfig);
       try {
          log.info("starting metrics consumer...");
          consumer.subscribe(ImmutableSet.of(kafkaOpsConfig.getTopicMetrics()));
          while(true) {
             ConsumerRecords<String, JsonObject> records = consumer.poll(kafkaOpsConfig.getPollingTimeoutMs());
             if(!records.isEmpty()) {
-               consume(records);
+               consume(records, batcher);
+            }
+            batcher.flushIfNeeded(System.currentTimeMillis());
+            commit(consumer, batcher.acknowledged(), false);
+            if(batcher.hasFailed()) {
+               batcher.rewind((partition, offset) -> seek(consumer, partition, offset));
             }
          }
       }
@@ -132,49 +140,75 @@ public class MetricsServer extends IrisAbstractApplication {
          log.warn("exiting abnormally: {}", ex.getMessage(), ex);
       }
       finally {
-         consumer.commitSync();
+         try {
+            batcher.flush();
+            if(!batcher.awaitPending(metricsConfig.getKairosShutdownTimeoutMs())) {
+               log.warn("timed out waiting for metrics to be posted, [{}] batches will be re-consumed", batcher.getPendingBatches());
+            }
+         }
+         catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         commit(consumer, batcher.acknowledged(), true);
          consumer.close();
       }
    }
 
-   private void consume(ConsumerRecords<?, JsonObject> records) {
-	   for (ConsumerRecord<?, JsonObject> record : records) {
-		   try {
-			   JsonObject obj = record.value();
-			   if (obj == null) {
-				   continue;
-			   }
-			   //allows tags to be pushed from collectd
-			   JsonObject existingTags = null;
-			   if (obj.get("tags") != null){
-				   existingTags = obj.get("tags").getAsJsonObject();
-			   }
-			   JsonArray output = new JsonArray();
-			   report(output, obj, existingTags);
-
-			   if (!obj.has(CONTAINER)) {
-				   // Only cache up the metrics that come from collectd.
-				   if ( this.MetricCache.size() >= metricsConfig.getMetricsCacheMax()) {
-					   kairos.post(this.MetricCache);
-					   this.MetricCache = new JsonArray();
-				   } 
-				   else {
-					   this.MetricCache.addAll(output);
-				   }
-			   }
-			   else if (output.size() >= 0 ) {
-				   kairos.post(output);
-			   } else {
-				   log.warn("Shouldn't hit this block??");
-			   }
-
-		   } catch (Exception ex) {
-			   log.warn("could not report metrics: {}", ex.getMessage(), ex);
-		   }
-	   }
+   private void consume(ConsumerRecords<?, JsonObject> records, KairosBatcher batcher) throws InterruptedException {
+      for (TopicPartition partition : records.partitions()) {
+         for (ConsumerRecord<?, JsonObject> record : records.records(partition)) {
+            try {
+               JsonObject obj = record.value();
+               if (obj != null) {
+                  //allows tags to be pushed from collectd
+                  JsonObject existingTags = null;
+                  if (obj.get("tags") != null){
+                     existingTags = obj.get("tags").getAsJsonObject();
+                  }
+                  report(batcher, obj, existingTags);
+               }
+            } catch (Exception ex) {
+               log.warn("could not report metrics: {}", ex.getMessage(), ex);
+            }
+            batcher.consumed(partition, record.offset());
+            batcher.flushIfNeeded(System.currentTimeMillis());
+         }
+      }
+   }
+
+   private void commit(KafkaConsumer<?, ?> consumer, Map<TopicPartition, OffsetAndMetadata> offsets, boolean sync) {
+      if(offsets.isEmpty()) {
+         return;
+      }
+      try {
+         if(sync) {
+            consumer.commitSync(offsets);
+         }
+         else {
+            consumer.commitAsync(offsets, (committed, ex) -> {
+               if(ex != null) {
+                  log.warn("could not commit metrics offsets: {}", ex.getMessage());
+               }
+            });
+         }
+      }
+      catch(Exception ex) {
+         log.warn("could not commit metrics offsets: {}", ex.getMessage(), ex);
+      }
+   }
+
+   private void seek(KafkaConsumer<?, ?> consumer, TopicPartition partition, long offset) {
+      log.warn("could not post metrics to kairosdb, re-consuming [{}] from offset [{}]", partition, offset);
+      try {
+         consumer.seek(partition, offset);
+      }
+      catch(IllegalStateException ex) {
+         // no longer assigned, the new owner will start from the last committed offset
+         log.debug("could not seek [{}]: {}", partition, ex.getMessage());
+      }
    }
 
-   private void report(JsonArray output, JsonObject metrics, JsonObject existingTags) throws Exception {
+   private void report(KairosBatcher output, JsonObject metrics, JsonObject existingTags) throws Exception {
       JsonElement jts = metrics.get(TS);
       if (jts == null || jts.isJsonNull() || !jts.isJsonPrimitive()) {
          log.warn("invalid metrics format: {}", metrics);
@@ -232,7 +266,7 @@ public class MetricsServer extends IrisAbstractApplication {
       }
    }
 
-   private void reportGauge(JsonArray output, JsonObject metric, double ts, JsonObject tags) throws Exception {
+   private void reportGauge(KairosBatcher output, JsonObject metric, double ts, JsonObject tags) throws Exception {
       JsonElement jname = metric.get("name");
       if (jname == null || jname.isJsonNull()) {
          return;
@@ -253,7 +287,7 @@ public class MetricsServer extends IrisAbstractApplication {
       addEntryReport(output, ts, value, tags, name);
    }
 
-   private void reportCounter(JsonArray output, JsonObject metric, double ts, JsonObject tags) throws Exception {
+   private void reportCounter(KairosBatcher output, JsonObject metric, double ts, JsonObject tags) throws Exception {
       JsonElement jname = metric.get("name");
       if (jname == null || jname.isJsonNull()) {
          return;
@@ -264,7 +298,7 @@ public class MetricsServer extends IrisAbstractApplication {
       reportEntryAs(output, metric, ts, tags, name, "count");
    }
 
-   private void reportHistogram(JsonArray output, JsonObject metric, double ts, JsonObject tags) throws Exception {
+   private void reportHistogram(KairosBatcher output, JsonObject metric, double ts, JsonObject tags) throws Exception {
       JsonElement jname = metric.get("name");
       if (jname == null || jname.isJsonNull()) {
          return;
@@ -285,7 +319,7 @@ public class MetricsServer extends IrisAbstractApplication {
       reportEntry(output, metric, ts, tags, name, "p999");
    }
 
-   private void reportMeter(JsonArray output, JsonObject metric, double ts, JsonObject tags) throws Exception {
+   private void reportMeter(KairosBatcher output, JsonObject metric, double ts, JsonObject tags) throws Exception {
       JsonElement jname = metric.get("name");
       if (jname == null || jname.isJsonNull()) {
          return;
@@ -300,27 +334,28 @@ public class MetricsServer extends IrisAbstractApplication {
       reportEntry(output, metric, ts, tags, name, "mean15", "m15");
    }
 
-   private void reportTimer(JsonArray output, JsonObject metric, double ts, JsonObject tags) throws Exception {
+   private void reportTimer(KairosBatcher output, JsonObject metric, double ts, JsonObject tags) throws Exception {
       // Timers have the same structure as a histogram, they just have an implied unit of durations.
       reportHistogram(output, metric, ts, tags);
    }
 
-   private void reportEntry(JsonArray output, JsonObject metric, double ts, JsonObject tags, String name, String property) throws Exception {
+   private void reportEntry(KairosBatcher output, JsonObject metric, double ts, JsonObject tags, String name, String property) throws Exception {
       reportEntry(output, metric, ts, tags, name, property, property);
    }
 
-   private void reportEntry(JsonArray output, JsonObject metric, double ts, JsonObject tags, String name, String reportName, String property) throws Exception {
+   private void reportEntry(KairosBatcher output, JsonObject metric, double ts, JsonObject tags, String name, String reportName, String property) throws Exception {
       reportEntryAs(output, metric, ts, tags, name + "." + reportName, property);
    }
 
-   private void reportEntryAs(JsonArray output, JsonObject metric, double ts, JsonObject tags, String name, String property) throws Exception {
+   private void reportEntryAs(KairosBatcher output, JsonObject metric, double ts, JsonObject tags, String name, String property) throws Exception {
       JsonElement elem = metric.get(property);
       if (elem != null && !elem.isJsonNull()) {
          addEntryReport(output, ts, elem, tags, name);
       }
    }
 
-   private void addEntryReport(JsonArray output, double ts, JsonElement elem, JsonObject tags, String name) throws Exception {
+   // the report is serialized into the batch immediately so tags may be modified afterwards
+   private void addEntryReport(KairosBatcher output, double ts, JsonElement elem, JsonObject tags, String name) throws Exception {
 
       JsonObject report = new JsonObject();
       report.addProperty("name", name);
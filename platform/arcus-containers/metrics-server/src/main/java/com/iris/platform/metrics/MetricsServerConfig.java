@@ -66,11 +66,36 @@ public class MetricsServerConfig {
    @Inject(optional = true) @Named("rollup.highTTLFrequencyMinutes")
    protected long highTTLFrequencyMinutes = TimeUnit.HOURS.toMinutes(12);
 
-   @Inject(optional = true) @Named("metrics.cacheMax")
-   private int metricsCacheMax = 50;
-   
+   // the maximum number of posts to kairos in-flight at once, when they are all busy consuming blocks
    @Inject(optional = true) @Named("kairos.postThreadsMax")
-   private int kairosPostThreadsMax = 50;
+   private int kairosPostThreadsMax = 4;
+
+   @Inject(optional = true) @Named("kairos.post.timeoutMs")
+   private int kairosPostTimeoutMs = (int) TimeUnit.SECONDS.toMillis(30);
+
+   @Inject(optional = true) @Named("kairos.post.retries")
+   private int kairosPostRetries = 2;
+
+   @Inject(optional = true) @Named("kairos.post.retryDelayMs")
+   private long kairosPostRetryDelayMs = 500;
+
+   // a batch is posted when it reaches any of these limits
+   @Inject(optional = true) @Named("kairos.batch.maxDatapoints")
+   private int kairosBatchMaxDatapoints = 5000;
+
+   // uncompressed
+   @Inject(optional = true) @Named("kairos.batch.maxBytes")
+   private long kairosBatchMaxBytes = 4 * 1024 * 1024;
+
+   @Inject(optional = true) @Named("kairos.batch.maxDelayMs")
+   private long kairosBatchMaxDelayMs = 1000;
+
+   // a batch kairos keeps failing is dropped after being re-consumed this many times
+   @Inject(optional = true) @Named("kairos.batch.maxRewinds")
+   private int kairosBatchMaxRewinds = 5;
+
+   @Inject(optional = true) @Named("kairos.shutdownTimeoutMs")
+   private long kairosShutdownTimeoutMs = TimeUnit.SECONDS.toMillis(10);
    
    public String getUrl() {
       return url;
@@ -182,14 +207,6 @@ public class MetricsServerConfig {
    private List<String> splitOnCommas(String value) {
       return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(value);
    }
-	
-	public int getMetricsCacheMax() {
-		return metricsCacheMax;
-	}
-	
-	public void setMetricsCacheMax(int metricsCacheMax) {
-		this.metricsCacheMax = metricsCacheMax;
-	}
 
 	public int getKairosPostThreadsMax() {
 		return kairosPostThreadsMax;
@@ -198,5 +215,69 @@ public class MetricsServerConfig {
 	public void setKairosPostThreadsMax(int kairosPostThreadsMax) {
 		this.kairosPostThreadsMax = kairosPostThreadsMax;
 	}
+
+	public int getKairosPostTimeoutMs() {
+		return kairosPostTimeoutMs;
+	}
+
+	public void setKairosPostTimeoutMs(int kairosPostTimeoutMs) {
+		this.kairosPostTimeoutMs = kairosPostTimeoutMs;
+	}
+
+	public int getKairosPostRetries() {
+		return kairosPostRetries;
+	}
+
+	public void setKairosPostRetries(int kairosPostRetries) {
+		this.kairosPostRetries = kairosPostRetries;
+	}
+
+	public long getKairosPostRetryDelayMs() {
+		return kairosPostRetryDelayMs;
+	}
+
+	public void setKairosPostRetryDelayMs(long kairosPostRetryDelayMs) {
+		this.kairosPostRetryDelayMs = kairosPostRetryDelayMs;
+	}
+
+	public int getKairosBatchMaxDatapoints() {
+		return kairosBatchMaxDatapoints;
+	}
+
+	public void setKairosBatchMaxDatapoints(int kairosBatchMaxDatapoints) {
+		this.kairosBatchMaxDatapoints = kairosBatchMaxDatapoints;
+	}
+
+	public long getKairosBatchMaxBytes() {
+		return kairosBatchMaxBytes;
+	}
+
+	public void setKairosBatchMaxBytes(long kairosBatchMaxBytes) {
+		this.kairosBatchMaxBytes = kairosBatchMaxBytes;
+	}
+
+	public long getKairosBatchMaxDelayMs() {
+		return kairosBatchMaxDelayMs;
+	}
+
+	public void setKairosBatchMaxDelayMs(long kairosBatchMaxDelayMs) {
+		this.kairosBatchMaxDelayMs = kairosBatchMaxDelayMs;
+	}
+
+	public int getKairosBatchMaxRewinds() {
+		return kairosBatchMaxRewinds;
+	}
+
+	public void setKairosBatchMaxRewinds(int kairosBatchMaxRewinds) {
+		this.kairosBatchMaxRewinds = kairosBatchMaxRewinds;
+	}
+
+	public long getKairosShutdownTimeoutMs() {
+		return kairosShutdownTimeoutMs;
+	}
+
+	public void setKairosShutdownTimeoutMs(long kairosShutdownTimeoutMs) {
+		this.kairosShutdownTimeoutMs = kairosShutdownTimeoutMs;
+	}
 }
 
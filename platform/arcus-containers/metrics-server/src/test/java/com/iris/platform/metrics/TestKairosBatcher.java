@@ -0,0 +1,235 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.iris.platform.metrics.KairosDB.PostResult;
+
+public class TestKairosBatcher {
+   private static final TopicPartition P0 = new TopicPartition("metrics", 0);
+   private static final TopicPartition P1 = new TopicPartition("metrics", 1);
+   private static final TopicPartition P2 = new TopicPartition("metrics", 2);
+
+   private List<SettableFuture<PostResult>> posts = new ArrayList<>();
+   private KairosDB kairos;
+   private KairosBatcher batcher;
+
+   @Before
+   public void setUp() throws Exception {
+      kairos = EasyMock.createMock(KairosDB.class);
+      EasyMock
+         .expect(kairos.newBatch())
+         .andStubAnswer(() -> new KairosBatch(new Gson(), 0));
+      EasyMock
+         .expect(kairos.post(EasyMock.anyObject(byte[].class), EasyMock.anyInt()))
+         .andStubAnswer(() -> {
+            SettableFuture<PostResult> result = SettableFuture.create();
+            posts.add(result);
+            return result;
+         });
+      EasyMock.replay(kairos);
+
+      MetricsServerConfig config = new MetricsServerConfig();
+      config.setKairosBatchMaxDatapoints(2);
+      config.setKairosBatchMaxDelayMs(1000);
+      config.setKairosBatchMaxRewinds(2);
+      batcher = new KairosBatcher(kairos, config);
+   }
+
+   @Test
+   public void testFlushIfNeeded() throws Exception {
+      consume(P0, 0);
+      batcher.flushIfNeeded(999);
+      assertEquals(0, batcher.getPendingBatches());
+
+      batcher.flushIfNeeded(1000);
+      assertEquals(1, batcher.getPendingBatches());
+
+      consume(P0, 1);
+      consume(P0, 2);
+      batcher.flushIfNeeded(0);
+      assertEquals(2, batcher.getPendingBatches());
+      assertEquals(2, posts.size());
+   }
+
+   @Test
+   public void testAcknowledgedInOrder() throws Exception {
+      consume(P0, 0);
+      consume(P1, 0);
+      batcher.flush();
+      consume(P0, 1);
+      batcher.flush();
+      consume(P1, 1);
+      batcher.flush();
+      assertEquals(3, posts.size());
+
+      posts.get(1).set(PostResult.ACCEPTED);
+      assertEquals(ImmutableMap.of(), batcher.acknowledged());
+
+      posts.get(0).set(PostResult.ACCEPTED);
+      assertEquals(ImmutableMap.of(P0, new OffsetAndMetadata(2), P1, new OffsetAndMetadata(1)), batcher.acknowledged());
+      assertEquals(1, batcher.getPendingBatches());
+
+      posts.get(2).set(PostResult.ACCEPTED);
+      assertEquals(ImmutableMap.of(P1, new OffsetAndMetadata(2)), batcher.acknowledged());
+      assertEquals(0, batcher.getPendingBatches());
+   }
+
+   @Test
+   public void testFilteredBatchIsAcknowledgedWithoutPosting() throws Exception {
+      batcher.consumed(P0, 7);
+      batcher.flush();
+
+      assertEquals(0, posts.size());
+      assertEquals(ImmutableMap.of(P0, new OffsetAndMetadata(8)), batcher.acknowledged());
+   }
+
+   @Test
+   public void testFailedBatchBlocksCommit() throws Exception {
+      consume(P0, 0);
+      batcher.flush();
+      consume(P0, 1);
+      batcher.flush();
+
+      posts.get(1).set(PostResult.ACCEPTED);
+      posts.get(0).set(PostResult.FAILED);
+      assertEquals(ImmutableMap.of(), batcher.acknowledged());
+      assertTrue(batcher.hasFailed());
+      assertEquals(ImmutableMap.of(), batcher.acknowledged());
+   }
+
+   @Test
+   public void testRewind() throws Exception {
+      consume(P0, 5);
+      consume(P1, 7);
+      batcher.flush();
+      consume(P1, 8);
+      consume(P2, 3);
+      batcher.flush();
+      consume(P0, 6);
+      consume(P2, 4);
+      batcher.flush();
+      batcher.consumed(P0, 7);
+      batcher.consumed(P2, 5);
+
+      posts.get(0).set(PostResult.ACCEPTED);
+      posts.get(1).set(PostResult.FAILED);
+      assertEquals(ImmutableMap.of(P0, new OffsetAndMetadata(6), P1, new OffsetAndMetadata(8)), batcher.acknowledged());
+      assertTrue(batcher.hasFailed());
+
+      Map<TopicPartition, Long> seeks = new HashMap<>();
+      batcher.rewind(seeks::put);
+      assertEquals(ImmutableMap.of(P0, 6L, P1, 8L, P2, 3L), seeks);
+      assertFalse(batcher.hasFailed());
+      assertEquals(0, batcher.getPendingBatches());
+
+      // a late result from a discarded batch doesn't release anything
+      posts.get(2).set(PostResult.ACCEPTED);
+      assertEquals(ImmutableMap.of(), batcher.acknowledged());
+
+      consume(P1, 8);
+      batcher.flush();
+      posts.get(3).set(PostResult.ACCEPTED);
+      assertEquals(ImmutableMap.of(P1, new OffsetAndMetadata(9)), batcher.acknowledged());
+   }
+
+   @Test
+   public void testRejectedBatchIsAcknowledged() throws Exception {
+      consume(P0, 0);
+      batcher.flush();
+      consume(P0, 1);
+      batcher.flush();
+
+      posts.get(0).set(PostResult.REJECTED);
+      posts.get(1).set(PostResult.ACCEPTED);
+      assertFalse(batcher.hasFailed());
+      assertEquals(ImmutableMap.of(P0, new OffsetAndMetadata(2)), batcher.acknowledged());
+      assertEquals(0, batcher.getPendingBatches());
+   }
+
+   @Test
+   public void testFailedBatchIsDroppedAfterMaxRewinds() throws Exception {
+      Map<TopicPartition, Long> seeks = new HashMap<>();
+      for(int i = 0; i < 2; i++) {
+         consume(P0, 5);
+         batcher.flush();
+         posts.get(i).set(PostResult.FAILED);
+         assertTrue(batcher.hasFailed());
+
+         seeks.clear();
+         batcher.rewind(seeks::put);
+         assertEquals(ImmutableMap.of(P0, 5L), seeks);
+         assertEquals(ImmutableMap.of(), batcher.acknowledged());
+      }
+
+      consume(P0, 5);
+      batcher.flush();
+      consume(P0, 6);
+      batcher.flush();
+      posts.get(2).set(PostResult.FAILED);
+      posts.get(3).set(PostResult.ACCEPTED);
+
+      seeks.clear();
+      batcher.rewind(seeks::put);
+      assertEquals(ImmutableMap.of(), seeks);
+      assertFalse(batcher.hasFailed());
+      assertEquals(ImmutableMap.of(P0, new OffsetAndMetadata(7)), batcher.acknowledged());
+   }
+
+   @Test
+   public void testProgressResetsRewinds() throws Exception {
+      for(int i = 0; i < 3; i++) {
+         consume(P0, i);
+         batcher.flush();
+         posts.get(2 * i).set(PostResult.FAILED);
+
+         Map<TopicPartition, Long> seeks = new HashMap<>();
+         batcher.rewind(seeks::put);
+         assertEquals(ImmutableMap.of(P0, (long) i), seeks);
+
+         consume(P0, i);
+         batcher.flush();
+         posts.get(2 * i + 1).set(PostResult.ACCEPTED);
+         assertEquals(ImmutableMap.of(P0, new OffsetAndMetadata(i + 1)), batcher.acknowledged());
+      }
+   }
+
+   private void consume(TopicPartition partition, long offset) {
+      JsonObject datapoint = new JsonObject();
+      datapoint.addProperty("name", "metric");
+      datapoint.addProperty("value", offset);
+      batcher.add(datapoint);
+      batcher.consumed(partition, offset);
+   }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CharStreams;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.iris.platform.metrics.KairosDB.PostResult;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+
+public class TestKairosDB {
+   private HttpServer server;
+   private List<Headers> headers = new CopyOnWriteArrayList<>();
+   private List<byte[]> bodies = new CopyOnWriteArrayList<>();
+   private List<Integer> responses = new CopyOnWriteArrayList<>();
+   private MetricsServerConfig config;
+   private KairosDB kairos;
+
+   @Before
+   public void setUp() throws Exception {
+      server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+      server.createContext("/api/v1/datapoints", (exchange) -> {
+         headers.add(exchange.getRequestHeaders());
+         bodies.add(ByteStreams.toByteArray(exchange.getRequestBody()));
+         int status = responses.size() > 1 ? responses.remove(0) : responses.get(0);
+         exchange.sendResponseHeaders(status, -1);
+         exchange.close();
+      });
+      server.start();
+
+      config = new MetricsServerConfig();
+      config.setUrl("http://localhost:" + server.getAddress().getPort());
+      config.setKairosPostRetries(2);
+      config.setKairosPostRetryDelayMs(1);
+      config.setKairosPostTimeoutMs(5000);
+      kairos = new KairosDB(new Gson(), config);
+   }
+
+   @After
+   public void tearDown() {
+      kairos.shutdown();
+      server.stop(0);
+   }
+
+   @Test
+   public void testPostSendsGzipEntity() throws Exception {
+      responses.add(204);
+      KairosBatch batch = kairos.newBatch();
+      batch.add(datapoint("first", 1));
+      batch.add(datapoint("second", 2));
+      byte[] body = batch.finish();
+
+      assertEquals(PostResult.ACCEPTED, kairos.post(body, 2).get(5, TimeUnit.SECONDS));
+
+      assertEquals(1, headers.size());
+      assertEquals("application/gzip", headers.get(0).getFirst("Content-Type"));
+      assertNull(headers.get(0).getFirst("Content-Encoding"));
+      JsonArray datapoints = new JsonParser().parse(gunzip(bodies.get(0))).getAsJsonArray();
+      assertEquals(2, datapoints.size());
+      assertEquals(datapoint("first", 1), datapoints.get(0));
+      assertEquals(datapoint("second", 2), datapoints.get(1));
+   }
+
+   @Test
+   public void testRejectedPostIsNotRetried() throws Exception {
+      responses.add(400);
+      responses.add(204);
+
+      assertEquals(PostResult.REJECTED, kairos.post(body(), 1).get(5, TimeUnit.SECONDS));
+      assertEquals(1, bodies.size());
+   }
+
+   @Test
+   public void testThrottledPostIsRetried() throws Exception {
+      responses.add(429);
+      responses.add(204);
+
+      assertEquals(PostResult.ACCEPTED, kairos.post(body(), 1).get(5, TimeUnit.SECONDS));
+      assertEquals(2, bodies.size());
+   }
+
+   @Test
+   public void testServerErrorIsRetried() throws Exception {
+      responses.add(500);
+      responses.add(503);
+      responses.add(204);
+
+      assertEquals(PostResult.ACCEPTED, kairos.post(body(), 1).get(5, TimeUnit.SECONDS));
+      assertEquals(3, bodies.size());
+   }
+
+   @Test
+   public void testServerErrorFailsAfterRetries() throws Exception {
+      responses.add(500);
+
+      assertEquals(PostResult.FAILED, kairos.post(body(), 1).get(5, TimeUnit.SECONDS));
+      assertEquals(3, bodies.size());
+   }
+
+   @Test
+   public void testConsumptionMovesPastRejectedBatches() throws Exception {
+      TopicPartition partition = new TopicPartition("metrics", 0);
+      responses.add(400);
+      config.setKairosBatchMaxDatapoints(2);
+      KairosBatcher batcher = new KairosBatcher(kairos, config);
+
+      for(long offset = 0; offset < 4; offset++) {
+         batcher.add(datapoint("metric", offset));
+         batcher.consumed(partition, offset);
+         batcher.flushIfNeeded(System.currentTimeMillis());
+      }
+      assertTrue(batcher.awaitPending(5000));
+
+      Map<TopicPartition, OffsetAndMetadata> acknowledged = batcher.acknowledged();
+      assertFalse(batcher.hasFailed());
+      assertEquals(ImmutableMap.of(partition, new OffsetAndMetadata(4)), acknowledged);
+      assertEquals(2, bodies.size());
+   }
+
+   private byte[] body() {
+      KairosBatch batch = kairos.newBatch();
+      batch.add(datapoint("metric", 1));
+      return batch.finish();
+   }
+
+   private static JsonObject datapoint(String name, long value) {
+      JsonObject datapoint = new JsonObject();
+      datapoint.addProperty("name", name);
+      datapoint.addProperty("value", value);
+      datapoint.addProperty("timestamp", 1000L);
+      return datapoint;
+   }
+
+   private static String gunzip(byte[] body) throws IOException {
+      try(InputStreamReader reader = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(body)), StandardCharsets.UTF_8)) {
+         return CharStreams.toString(reader);
+      }
+   }
+}
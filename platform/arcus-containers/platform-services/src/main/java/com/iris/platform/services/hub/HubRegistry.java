@@ -23,8 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ScheduledExecutorService;
@@ -54,6 +52,7 @@ import com.iris.platform.partition.PartitionChangedEvent;
 import com.iris.platform.partition.PartitionListener;
 import com.iris.platform.partition.Partitioner;
 import com.iris.population.PlacePopulationCacheManager;
+import com.iris.util.LivenessTracker;
 import com.iris.util.ThreadPoolBuilder;
 import com.netflix.governator.annotations.WarmUp;
 
@@ -68,7 +67,7 @@ public class HubRegistry implements PartitionListener {
    private final Partitioner partitioner;
    private final PlatformMessageBus platformBus;
    private final ScheduledExecutorService executor;
-   private final ConcurrentMap<String, HubState> hubs;
+   private final LivenessTracker<String, HubState> hubs;
 
    private final long offlineTimeoutMs;
    private final long timeoutIntervalMs;
@@ -95,7 +94,7 @@ public class HubRegistry implements PartitionListener {
       this.timeoutIntervalMs = TimeUnit.SECONDS.toMillis(config.getTimeoutIntervalSec());
       
       this.executor = ThreadPoolBuilder.newSingleThreadedScheduler("hub-heartbeat-watchdog");
-      this.hubs = new ConcurrentHashMap<>();
+      this.hubs = new LivenessTracker<>(offlineTimeoutMs, (state) -> state.lastHeartbeat);
    }
 
    @WarmUp
@@ -133,9 +132,10 @@ public class HubRegistry implements PartitionListener {
     */
    public void online(String hubId, int partitionId, String hubBridge) {
       try {
+         long now = clock.millis();
          hubs
-            .computeIfAbsent(hubId, (ha) -> this.connected(hubId, partitionId))
-            .updateHeartbeat(hubBridge, clock.millis());
+            .computeIfAbsent(hubId, (ha) -> this.connected(hubId, partitionId, now), now)
+            .updateHeartbeat(hubBridge, now);
       }
       catch(Exception e) {
          logger.warn("Unable to mark hub [{}] as online", hubId, e);
@@ -155,6 +155,8 @@ public class HubRegistry implements PartitionListener {
       }
       else {
          logger.debug("Hub reconnected [{}]", hubId);
+         // dropping a bridge may have moved the last heartbeat back
+         hubs.reschedule(hubId);
       }
    }
 
@@ -175,17 +177,12 @@ public class HubRegistry implements PartitionListener {
 
    protected void timeout() {
       logger.info("Checking for expired hubs");
-      long expirationTime = clock.millis() - offlineTimeoutMs;
-      for(HubState state: hubs.values()) {
-         if(state.lastHeartbeat < expirationTime) {
-            if(hubs.remove(state.getHubId(), state)) {
-               try {
-                  onTimeout(state.getHubId());
-               }
-               catch(Exception e) {
-                  logger.warn("Error sending timeout for [{}]", state.getHubId(), e);
-               }
-            }
+      for(HubState state: hubs.expire(clock.millis())) {
+         try {
+            onTimeout(state.getHubId());
+         }
+         catch(Exception e) {
+            logger.warn("Error sending timeout for [{}]", state.getHubId(), e);
          }
       }
    }
@@ -210,7 +207,7 @@ public class HubRegistry implements PartitionListener {
       broadcast(address, placeId, disconnected);
    }
    
-   private HubState connected(String hubId, int partitionId) {
+   private HubState connected(String hubId, int partitionId, long ts) {
       // note a db outage will prevent the hub from being marked online
       // but it should keep retrying as more heartbeats are received
       Map<String, Object> event = hubDao.connected(hubId);
@@ -224,7 +221,7 @@ public class HubRegistry implements PartitionListener {
             broadcast(address, hub.getPlace(), vc);
          }
       }
-      return new HubState(hubId, partitionId);
+      return new HubState(hubId, partitionId, ts);
    }
 
    private void disconnected(String hubId) {
@@ -253,7 +250,7 @@ public class HubRegistry implements PartitionListener {
          // skip this
       }
       else {
-         hubs.putIfAbsent(hub.getId(), new HubState(hub.getId(), partitionId, ts));
+         hubs.putIfAbsent(hub.getId(), new HubState(hub.getId(), partitionId, ts), ts);
       }
    }
    
@@ -301,14 +298,7 @@ public class HubRegistry implements PartitionListener {
          return;
       }
       
-      Iterator<HubState> it = hubs.values().iterator();
-      while(it.hasNext()) {
-         HubState state = it.next();
-         int partitionId = state.getPartitionId();
-         if(removedPartitions.contains(partitionId)) {
-            it.remove();
-         }
-      }
+      hubs.removeIf((state) -> removedPartitions.contains(state.getPartitionId()));
    }
    
    private static class HubState {
@@ -317,12 +307,6 @@ public class HubRegistry implements PartitionListener {
       private final Map<String, Long> heartbeats;
       private volatile long lastHeartbeat;
       
-      HubState(String hubId, int partitionId) {
-         this.hubId = hubId;
-         this.partitionId = partitionId;
-         this.heartbeats = new HashMap<>(4);
-      }
-      
       HubState(String hubId, int partitionId, long timestamp) {
          this.hubId = hubId;
          this.partitionId = partitionId;
@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
@@ -65,6 +66,7 @@ import com.iris.messages.errors.Errors;
 import com.iris.messages.model.Device;
 import com.iris.messages.model.Place;
 import com.iris.messages.service.BridgeService;
+import com.iris.messages.service.IpcdService.DeviceHeartBeatEvent;
 import com.iris.messages.services.PlatformConstants;
 import com.iris.metrics.IrisMetricSet;
 import com.iris.metrics.IrisMetrics;
@@ -81,6 +83,7 @@ import com.iris.protocol.ipcd.IpcdDevice;
 import com.iris.protocol.ipcd.IpcdDevice.ConnState;
 import com.iris.protocol.ipcd.IpcdDeviceTypeRegistry;
 import com.iris.protocol.ipcd.IpcdProtocol;
+import com.iris.util.LivenessTracker;
 import com.iris.util.ThreadPoolBuilder;
 import com.netflix.governator.annotations.WarmUp;
 
@@ -102,7 +105,9 @@ public class IpcdRegistry implements PartitionListener {
    private final PlatformBusClient busClient;
    private final ProtocolMessageBus protocolBus;
    private final ScheduledExecutorService watchDogExecutor;
-   private final ConcurrentMap<String, IpcdDeviceState> ipcdDevices = new ConcurrentHashMap<>();
+   private final LivenessTracker<String, IpcdDeviceState> ipcdDevices;
+   // the devices each bridge has reported for a partition via delta heartbeats
+   private final ConcurrentMap<String, BridgeView> bridgeViews = new ConcurrentHashMap<>();
    private final long offlineTimeoutMs;
    private final long timeoutIntervalMs;
    private final IpcdRegistryMetrics metrics;
@@ -134,6 +139,7 @@ public class IpcdRegistry implements PartitionListener {
       this.watchDogExecutor = ThreadPoolBuilder.newSingleThreadedScheduler("ipcd-heartbeat-watchdog");
       offlineTimeoutMs = TimeUnit.MILLISECONDS.convert(config.getOfflineTimeoutMin(), TimeUnit.MINUTES);
       timeoutIntervalMs = TimeUnit.MILLISECONDS.convert(config.getTimeoutIntervalSec(), TimeUnit.SECONDS);
+      this.ipcdDevices = new LivenessTracker<>(offlineTimeoutMs, IpcdDeviceState::lastSeen);
       this.metrics = new IpcdRegistryMetrics(IrisMetrics.metrics("service.platform.ipcdregistry"));
    }
 
@@ -256,61 +262,145 @@ public class IpcdRegistry implements PartitionListener {
          return;
       }
       logger.debug("[{}]:  handling online event: [{}]", protocolAddress, message);
-      online(protocolAddress, partitioner.getPartitionForMessage(message).getId(), (String) actor.getId());
+      online(protocolAddress, partitioner.getPartitionForMessage(message).getId(), (String) actor.getId(), clock.millis());
    }
 
    public void onHeartBeat(PlatformMessage message) {
       MessageBody body = message.getValue();
       logger.debug("handling heartbeat message: [{}]", body);
-      Integer partitionId = com.iris.messages.service.IpcdService.DeviceHeartBeatEvent.getPartitionId(body);
+      Integer partitionId = DeviceHeartBeatEvent.getPartitionId(body);
       if(partitionId == null) {
          logger.warn("heartbeat did not contain a partition id, ignoring");
          return;
       }
-      Set<String> protocolAddresses = com.iris.messages.service.IpcdService.DeviceHeartBeatEvent.getConnectedDevices(body);
+      Set<String> protocolAddresses = DeviceHeartBeatEvent.getConnectedDevices(body);
       String bridgeId = (String) message.getSource().getId();
-      for(String protocolAddress : protocolAddresses) {
-         online(protocolAddress, partitionId, bridgeId);
+      long now = clock.millis();
+      Boolean full = DeviceHeartBeatEvent.getFull(body);
+      Integer sequence = DeviceHeartBeatEvent.getSequence(body);
+      if(full == null || sequence == null) {
+         // older bridges send every connected device on every heartbeat
+         for(String protocolAddress : protocolAddresses) {
+            online(protocolAddress, partitionId, bridgeId, now);
+         }
+         return;
       }
-   }
 
-   private void timeout() {
-      logger.info("Checking for expired ipcd devices");
-      long expirationTime = clock.millis() - offlineTimeoutMs;
-      for(IpcdDeviceState state: ipcdDevices.values()) {
-         if(state.lastHeartbeat < expirationTime) {
-            if(ipcdDevices.remove(state.getProtocolAddress(), state)) {
-               try {
-                  onTimeout(state.getProtocolAddress());
-               }
-               catch(Exception e) {
-                  logger.warn("Error sending timeout for [{}]", state.getProtocolAddress(), e);
+      BridgeView view = bridgeViews.computeIfAbsent(bridgeId + ":" + partitionId, (k) -> new BridgeView(bridgeId, partitionId));
+      synchronized(view) {
+         if(!view.started || sequence != view.sequence) {
+            // first batch of a new heartbeat, anything that wasn't in the last full sync has disconnected
+            if(view.syncing) {
+               prune(view);
+            }
+            if(view.started && !full && sequence != view.sequence + 1) {
+               logger.debug("Missed heartbeat from [{}] for partition [{}], expected [{}] received [{}]", bridgeId, partitionId, view.sequence + 1, sequence);
+               metrics.onHeartbeatGap();
+            }
+            view.started = true;
+            view.sequence = sequence;
+            view.syncing = full;
+            if(full) {
+               view.generation++;
+            }
+         }
+         if(full) {
+            attach(view, protocolAddresses, now);
+         }
+         else {
+            attach(view, DeviceHeartBeatEvent.getAddedDevices(body), now);
+            Set<String> removed = DeviceHeartBeatEvent.getRemovedDevices(body);
+            if(removed != null) {
+               for(String protocolAddress: removed) {
+                  detach(view, protocolAddress);
                }
             }
          }
+         // set this last so devices that were removed are considered last seen on the previous heartbeat
+         view.lastBeat = now;
       }
    }
 
-   private void onTimeout(String protocolAddress) {
-      logger.debug("[{}]:  timed out", protocolAddress);
-      metrics.onTimeout();
-      ipcdDeviceDao.offline(protocolAddress);
-      emitOffline(protocolAddress);
+   // must hold the lock on view
+   private void attach(BridgeView view, Set<String> protocolAddresses, long now) {
+      if(protocolAddresses == null) {
+         return;
+      }
+      for(String protocolAddress: protocolAddresses) {
+         view.members.put(protocolAddress, view.generation);
+         online(protocolAddress, view.partitionId, view.bridgeId, now).attach(view);
+      }
    }
 
-   private void removeDevicesFromOldPartitions(Set<Integer> removedPartitions) {
-      if(removedPartitions.isEmpty()) {
+   // must hold the lock on view
+   private void detach(BridgeView view, String protocolAddress) {
+      if(view.members.remove(protocolAddress) == null) {
          return;
       }
+      IpcdDeviceState state = ipcdDevices.get(protocolAddress);
+      if(state != null) {
+         state.detach(view);
+      }
+   }
 
-      Iterator<IpcdDeviceState> it = ipcdDevices.values().iterator();
+   // must hold the lock on view
+   private void prune(BridgeView view) {
+      Iterator<Map.Entry<String, Long>> it = view.members.entrySet().iterator();
       while(it.hasNext()) {
-         IpcdDeviceState state = it.next();
-         int partitionId = state.getPartitionId();
-         if(removedPartitions.contains(partitionId)) {
+         Map.Entry<String, Long> member = it.next();
+         if(member.getValue() < view.generation) {
             it.remove();
+            IpcdDeviceState state = ipcdDevices.get(member.getKey());
+            if(state != null) {
+               state.detach(view);
+            }
          }
       }
+      view.syncing = false;
+   }
+
+   private void timeout() {
+      logger.info("Checking for expired ipcd devices");
+      long now = clock.millis();
+      long expirationTime = now - offlineTimeoutMs;
+      // bridges that have stopped sending heartbeats
+      bridgeViews.values().removeIf((view) -> view.lastBeat < expirationTime);
+
+      List<String> expired =
+            ipcdDevices
+               .expire(now)
+               .stream()
+               .map(IpcdDeviceState::getProtocolAddress)
+               .collect(Collectors.toList());
+      if(expired.isEmpty()) {
+         return;
+      }
+
+      logger.debug("[{}] ipcd devices timed out", expired.size());
+      metrics.onTimeout(expired.size());
+      try {
+         ipcdDeviceDao.offline(expired);
+      }
+      catch(Exception e) {
+         logger.warn("Error marking [{}] timed out ipcd devices offline", expired.size(), e);
+      }
+      for(String protocolAddress: expired) {
+         try {
+            emitOffline(protocolAddress);
+         }
+         catch(Exception e) {
+            logger.warn("Error sending timeout for [{}]", protocolAddress, e);
+         }
+      }
+   }
+
+   private void removeDevicesFromOldPartitions(Set<Integer> removedPartitions) {
+      if(removedPartitions.isEmpty()) {
+         return;
+      }
+
+      bridgeViews.values().removeIf((view) -> removedPartitions.contains(view.partitionId));
+      ipcdDevices.removeIf((state) -> removedPartitions.contains(state.getPartitionId()));
    }
 
    private void addDevicesFromNewPartitions(Set<Integer> addedPartitions) {
@@ -347,10 +437,7 @@ public class IpcdRegistry implements PartitionListener {
          // skip this
       } else {
          IpcdDeviceState newState = new IpcdDeviceState(ipcdDevice.getProtocolAddress(), partitionId, ts);
-         IpcdDeviceState existingState = ipcdDevices.putIfAbsent(ipcdDevice.getProtocolAddress(), newState);
-         if(existingState == null) {
-            existingState = newState;
-         }
+         ipcdDevices.putIfAbsent(ipcdDevice.getProtocolAddress(), newState, ts);
 
          // handle the case where registration was partial due to platform services being restarted during registration flow
          if(ipcdDevice.getRegistrationState() == IpcdDevice.RegistrationState.PENDING_DRIVER) {
@@ -535,9 +622,10 @@ public class IpcdRegistry implements PartitionListener {
       return ipcdDevices.get(protocolAddress) != null;
    }
 
-   private void online(String protocolAddress, int partitionId, String ipcdBridge) {
-      ipcdDevices.computeIfAbsent(protocolAddress, (s) -> new IpcdDeviceState(protocolAddress, partitionId))
-         .updateHeartbeat(ipcdBridge, clock.millis());
+   private IpcdDeviceState online(String protocolAddress, int partitionId, String ipcdBridge, long now) {
+      IpcdDeviceState state = ipcdDevices.computeIfAbsent(protocolAddress, (s) -> new IpcdDeviceState(protocolAddress, partitionId, now), now);
+      state.updateHeartbeat(ipcdBridge, now);
+      return state;
    }
 
    private void offline(String protocolAddress, String ipcdBridge) {
@@ -549,6 +637,10 @@ public class IpcdRegistry implements PartitionListener {
          logger.debug("[{}]:  IPCD device disconnected", protocolAddress);
          metrics.onDisconnected();
       }
+      else {
+         // dropping a bridge may have moved the last heartbeat back
+         ipcdDevices.reschedule(protocolAddress);
+      }
    }
 
    private Map<String, String> readAttrs(MessageBody body) {
@@ -600,16 +692,14 @@ public class IpcdRegistry implements PartitionListener {
       private final String protocolAddress;
       private volatile int partitionId;
       private volatile long lastHeartbeat;
+      // the bridge reporting this device via delta heartbeats, if any
+      private volatile BridgeView view;
       private final Map<String, Long> heartbeats;
 
-      IpcdDeviceState(String protocolAddress, int partitionId) {
+      IpcdDeviceState(String protocolAddress, int partitionId, long ts) {
          this.protocolAddress = protocolAddress;
          this.partitionId = partitionId;
          this.heartbeats = new HashMap<>(4);
-      }
-
-      IpcdDeviceState(String protocolAddress, int partitionId, long ts) {
-         this(protocolAddress, partitionId);
          this.lastHeartbeat = ts;
       }
 
@@ -625,6 +715,17 @@ public class IpcdRegistry implements PartitionListener {
          this.partitionId = partitionId;
       }
 
+      /**
+       * While attached the device is considered seen every time the bridge heartbeats.
+       */
+      long lastSeen() {
+         BridgeView view = this.view;
+         if(view != null && view.members.containsKey(protocolAddress)) {
+            return Math.max(lastHeartbeat, view.lastBeat);
+         }
+         return lastHeartbeat;
+      }
+
       void updateHeartbeat(String ipcdBridge, long ts) {
          this.lastHeartbeat = ts;
          synchronized(heartbeats) {
@@ -632,8 +733,28 @@ public class IpcdRegistry implements PartitionListener {
          }
       }
 
+      void attach(BridgeView view) {
+         synchronized(heartbeats) {
+            this.view = view;
+         }
+      }
+
+      void detach(BridgeView view) {
+         synchronized(heartbeats) {
+            if(this.view == view) {
+               long ts = Math.max(lastHeartbeat, view.lastBeat);
+               this.heartbeats.put(view.bridgeId, ts);
+               this.lastHeartbeat = ts;
+               this.view = null;
+            }
+         }
+      }
+
       boolean offline(String ipcdBridge, long expirationTime) {
          synchronized(heartbeats) {
+            if(this.view != null && this.view.bridgeId.equals(ipcdBridge)) {
+               this.view = null;
+            }
             this.lastHeartbeat = 0;
             this.heartbeats.remove(ipcdBridge);
             Iterator<Long> timestamps = this.heartbeats.values().iterator();
@@ -652,17 +773,37 @@ public class IpcdRegistry implements PartitionListener {
                }
             }
          }
-         return this.lastHeartbeat == 0;
+         return this.lastHeartbeat == 0 && this.view == null;
+      }
+   }
+
+   private static class BridgeView {
+      private final String bridgeId;
+      private final int partitionId;
+      // protocol address -> the generation of the last full sync it was reported in
+      private final Map<String, Long> members = new ConcurrentHashMap<>();
+      private volatile long lastBeat;
+      // guarded by this
+      private boolean started;
+      private boolean syncing;
+      private int sequence;
+      private long generation;
+
+      BridgeView(String bridgeId, int partitionId) {
+         this.bridgeId = bridgeId;
+         this.partitionId = partitionId;
       }
    }
 
    private class IpcdRegistryMetrics {
       private final Counter timedout;
       private final Counter disconnected;
+      private final Counter heartbeatGaps;
 
       IpcdRegistryMetrics(IrisMetricSet metrics) {
          disconnected = metrics.counter("disconnected");
          timedout = metrics.counter("timedout");
+         heartbeatGaps = metrics.counter("heartbeat.gaps");
          metrics.gauge("online", (Supplier<Integer>) () -> getOnlineDevices());
       }
 
@@ -670,8 +811,12 @@ public class IpcdRegistry implements PartitionListener {
          disconnected.inc();
       }
 
-      public void onTimeout() {
-         timedout.inc();
+      public void onTimeout(int count) {
+         timedout.inc(count);
+      }
+
+      public void onHeartbeatGap() {
+         heartbeatGaps.inc();
       }
 
    }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.rule.environment;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.collect.ImmutableSet;
+import com.iris.messages.address.Address;
+
+/**
+ * Indexes {@link PlaceEventHandler}s by the attributes they declare
+ * in {@link PlaceEventHandler#getAttributeDependencies()} so that an
+ * attribute change is only dispatched to the handlers that may care
+ * about it.  Handlers which don't declare their dependencies receive
+ * every change.
+ * 
+ * Handlers are returned in the order they were first added so dispatch
+ * order matches un-indexed delivery.  This is not thread-safe, it is
+ * expected to be accessed only from the place's dispatch thread.
+ */
+class AttributeDispatchIndex {
+   private final Map<Address, Entry> entries = new HashMap<>();
+   private final NavigableMap<Integer, PlaceEventHandler> wildcard = new TreeMap<>();
+   private final Map<String, NavigableMap<Integer, PlaceEventHandler>> byAttribute = new HashMap<>();
+   private int nextOrdinal = 0;
+
+   /**
+    * Adds the handler or, if it is already indexed, re-reads its
+    * dependencies.
+    */
+   public void update(PlaceEventHandler handler) {
+      Set<String> dependencies = handler.getAttributeDependencies();
+      if(dependencies != null) {
+         dependencies = ImmutableSet.copyOf(dependencies);
+      }
+      Entry entry = entries.get(handler.getAddress());
+      if(entry != null) {
+         if(entry.handler == handler && Objects.equals(entry.dependencies, dependencies)) {
+            return;
+         }
+         unindex(entry);
+         entry = new Entry(handler, entry.ordinal, dependencies);
+      }
+      else {
+         entry = new Entry(handler, nextOrdinal++, dependencies);
+      }
+      entries.put(handler.getAddress(), entry);
+      index(entry);
+   }
+
+   public void remove(PlaceEventHandler handler) {
+      Entry entry = entries.remove(handler.getAddress());
+      if(entry != null) {
+         unindex(entry);
+      }
+   }
+
+   public void clear() {
+      entries.clear();
+      wildcard.clear();
+      byAttribute.clear();
+   }
+
+   /**
+    * A snapshot of the handlers that should receive a change
+    * to the given attribute.
+    */
+   public List<PlaceEventHandler> getHandlers(String attributeName) {
+      NavigableMap<Integer, PlaceEventHandler> declared = byAttribute.get(attributeName);
+      if(declared == null) {
+         return new ArrayList<>(wildcard.values());
+      }
+      if(wildcard.isEmpty()) {
+         return new ArrayList<>(declared.values());
+      }
+      NavigableMap<Integer, PlaceEventHandler> merged = new TreeMap<>(wildcard);
+      merged.putAll(declared);
+      return new ArrayList<>(merged.values());
+   }
+
+   private void index(Entry entry) {
+      if(entry.dependencies == null) {
+         wildcard.put(entry.ordinal, entry.handler);
+         return;
+      }
+      for(String attribute: entry.dependencies) {
+         byAttribute.computeIfAbsent(attribute, (k) -> new TreeMap<>()).put(entry.ordinal, entry.handler);
+      }
+   }
+
+   private void unindex(Entry entry) {
+      if(entry.dependencies == null) {
+         wildcard.remove(entry.ordinal);
+         return;
+      }
+      for(String attribute: entry.dependencies) {
+         NavigableMap<Integer, PlaceEventHandler> handlers = byAttribute.get(attribute);
+         if(handlers != null) {
+            handlers.remove(entry.ordinal);
+            if(handlers.isEmpty()) {
+               byAttribute.remove(attribute);
+            }
+         }
+      }
+   }
+
+   private static class Entry {
+      private final PlaceEventHandler handler;
+      private final int ordinal;
+      private final Set<String> dependencies;
+
+      Entry(PlaceEventHandler handler, int ordinal, Set<String> dependencies) {
+         this.handler = handler;
+         this.ordinal = ordinal;
+         this.dependencies = dependencies;
+      }
+   }
+}
@@ -18,7 +18,7 @@
  */
 package com.iris.platform.rule.environment;
 
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import com.iris.common.rule.event.AttributeValueChangedEvent;
 import com.iris.common.rule.event.MessageReceivedEvent;
 import com.iris.common.rule.event.RuleEvent;
 import com.iris.core.messaging.SingleThreadDispatcher;
@@ -40,6 +41,7 @@ import com.iris.messages.Message;
 import com.iris.messages.MessageBody;
 import com.iris.messages.PlatformMessage;
 import com.iris.messages.address.Address;
+import com.iris.messages.capability.PlaceCapability;
 import com.iris.messages.errors.Errors;
 import com.iris.platform.rule.RuleEnvironment;
 import com.iris.util.MdcContext;
@@ -47,6 +49,12 @@ import com.iris.util.MdcContext.MdcContextReference;
 
 /**
  * Maintains a single thread of execution for a set of PlaceEventHandlers.
+ * 
+ * When dispatch indexing is enabled attribute changes are only delivered
+ * to the handlers which declare a dependency on that attribute (see
+ * {@link PlaceEventHandler#getAttributeDependencies()}) or which don't
+ * declare their dependencies at all.  All other events, and changes to the
+ * place service level, are delivered to every handler.
  */
 public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
    private static final Logger logger = LoggerFactory.getLogger(DefaultPlaceExecutor.class);
@@ -61,7 +69,10 @@ public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
    private final RuleModelStore models;
    private final ExecutorService executor;
 
+   private final boolean indexDispatch;
+
    private volatile Map<Address, PlaceEventHandler> handlers;
+   private volatile AttributeDispatchIndex index = new AttributeDispatchIndex();
    private volatile boolean running = false;
 
    public DefaultPlaceExecutor(
@@ -71,8 +82,21 @@ public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
          ExecutorService executor,
          int maxQueueDepth,
          String ruleCascadeMode
+   ) {
+      this(platformBus, environment, models, executor, maxQueueDepth, ruleCascadeMode, true);
+   }
+
+   public DefaultPlaceExecutor(
+         PlatformMessageBus platformBus,
+         RuleEnvironment environment,
+         RuleModelStore models,
+         ExecutorService executor,
+         int maxQueueDepth,
+         String ruleCascadeMode,
+         boolean indexDispatch
    ) {
       this.platformBus = platformBus;
+      this.indexDispatch = indexDispatch;
       this.dispatcher = new SingleThreadDispatcher<>((event) -> onEvent(event), maxQueueDepth);
       this.executor = executor;
       this.models = models;
@@ -83,14 +107,18 @@ public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
    //  is a circular dependency between the RuleExecutor and the RuleContext in
    //  order to enable scheduling
    public void setHandlers(List<PlaceEventHandler> handlers) {
+      AttributeDispatchIndex index = new AttributeDispatchIndex();
       if(handlers.isEmpty()) {
+         this.index = index;
          this.handlers = new LinkedHashMap<Address, PlaceEventHandler>();
       }
       else {
          Map<Address, PlaceEventHandler> temp = new LinkedHashMap<>(2 * handlers.size());
          for(PlaceEventHandler handler: handlers) {
             temp.put(handler.getAddress(), handler);
+            index.update(handler);
          }
+         this.index = index;
          this.handlers = temp;
       }
    }
@@ -188,6 +216,7 @@ public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
          catch(Exception e) {
             handler.getContext().logger().warn("Unable to activate rule", e);
          }
+         index.update(handler);
       }
    }
 
@@ -247,22 +276,40 @@ public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
             models.update(message);
          }
    
-         Iterator<PlaceEventHandler> it = handlers.values().iterator();
-         while(it.hasNext()) {
-            PlaceEventHandler handler = it.next();
+         for(PlaceEventHandler handler: getHandlers(event)) {
             try {
                MDC.put(MdcContext.MDC_TARGET, handler.getAddress().getRepresentation());
                handler.onEvent(event);
             } catch(Exception e) {
                handler.getContext().logger().warn("Error dispatching [{}]", event, e);
             }
-            if(handler.isDeleted()) {
-               it.remove();
-            }
+            onDispatched(handler);
          }
       }
    }
    
+   private List<PlaceEventHandler> getHandlers(RuleEvent event) {
+      if(indexDispatch && event instanceof AttributeValueChangedEvent) {
+         String attributeName = ((AttributeValueChangedEvent) event).getAttributeName();
+         // service level changes may enable / disable any rule
+         if(!PlaceCapability.ATTR_SERVICELEVEL.equals(attributeName)) {
+            return index.getHandlers(attributeName);
+         }
+      }
+      return new ArrayList<>(handlers.values());
+   }
+   
+   private void onDispatched(PlaceEventHandler handler) {
+      if(handler.isDeleted()) {
+         handlers.remove(handler.getAddress());
+         index.remove(handler);
+      }
+      else {
+         // dependencies change as rules start and stop firing
+         index.update(handler);
+      }
+   }
+   
    private MessageBody dispatch(PlatformMessage message) {
       Address destination = message.getDestination();
       Map<Address, PlaceEventHandler> handlers = this.handlers; // de-reference volatile
@@ -274,9 +321,7 @@ public class DefaultPlaceExecutor implements PlaceEnvironmentExecutor {
          return handler.handleRequest(message);
       }
       finally {
-         if(handler.isDeleted()) {
-            handlers.remove(destination);
-         }
+         onDispatched(handler);
       }
    }
 
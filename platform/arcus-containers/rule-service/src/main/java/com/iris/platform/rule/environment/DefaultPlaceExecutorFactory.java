@@ -81,6 +81,9 @@ public class DefaultPlaceExecutorFactory implements PlaceExecutorFactory {
    @Inject(optional=true)
    @Named("rule.cascade.mode")
    private String ruleCascadeMode = "DISABLE";
+   @Inject(optional=true)
+   @Named("rule.dispatch.indexed")
+   private boolean indexDispatch = true;
 
    private final PlatformMessageBus platformBus;
    private final AnalyticsMessageBus analyticsBus;
@@ -206,7 +209,7 @@ public class DefaultPlaceExecutorFactory implements PlaceExecutorFactory {
          return null;
       }
       RuleModelStore models = loadModels(environment);
-      DefaultPlaceExecutor placeExecutor = new DefaultPlaceExecutor(platformBus, environment, models, executor, maxQueueDepth, ruleCascadeMode);
+      DefaultPlaceExecutor placeExecutor = new DefaultPlaceExecutor(platformBus, environment, models, executor, maxQueueDepth, ruleCascadeMode, indexDispatch);
       initialize(environment, placeExecutor);
       return placeExecutor;
    }
@@ -15,6 +15,10 @@
  */
 package com.iris.platform.rule.environment;
 
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.iris.common.rule.Context;
 import com.iris.common.rule.event.RuleEvent;
 import com.iris.messages.MessageBody;
@@ -37,6 +41,17 @@ public interface PlaceEventHandler {
    
    void onEvent(RuleEvent event);
    
+   /**
+    * The attributes this handler currently needs to see changes
+    * for, or {@code null} (the default) if every event should be
+    * delivered.  This may change after {@link #start()} or
+    * {@link #onEvent(RuleEvent)}.
+    */
+   @Nullable
+   default Set<String> getAttributeDependencies() {
+      return null;
+   }
+   
    MessageBody handleRequest(PlatformMessage message);
 }
 
@@ -17,6 +17,7 @@ package com.iris.platform.rule.environment;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -164,6 +165,11 @@ public class RuleHandler implements PlaceEventHandler {
       }
    }
    
+   @Override
+   public Set<String> getAttributeDependencies() {
+      return rule.getAttributeDependencies();
+   }
+   
    private void syncOrReload(){
       //TODO: need to catch the exception and reload the rule
       try{
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.rule.environment;
+
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.iris.common.rule.Context;
+import com.iris.common.rule.event.RuleEvent;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+
+public class TestAttributeDispatchIndex extends Assert {
+   AttributeDispatchIndex index;
+   StubHandler contact;
+   StubHandler wildcard;
+   StubHandler motion;
+   StubHandler timer;
+
+   @Before
+   public void setUp() {
+      index = new AttributeDispatchIndex();
+      contact = new StubHandler(ImmutableSet.of("cont:contact"));
+      wildcard = new StubHandler(null);
+      motion = new StubHandler(ImmutableSet.of("mot:motion", "cont:contact"));
+      timer = new StubHandler(ImmutableSet.of());
+      index.update(contact);
+      index.update(wildcard);
+      index.update(motion);
+      index.update(timer);
+   }
+
+   @Test
+   public void testDispatchOrderIsPreserved() {
+      assertEquals(ImmutableList.of(contact, wildcard, motion), index.getHandlers("cont:contact"));
+      assertEquals(ImmutableList.of(wildcard, motion), index.getHandlers("mot:motion"));
+   }
+
+   @Test
+   public void testUndeclaredAttributeOnlyGoesToWildcard() {
+      assertEquals(ImmutableList.of(wildcard), index.getHandlers("temp:temperature"));
+   }
+
+   @Test
+   public void testDependenciesChange() {
+      // e.g. the rule started firing
+      timer.dependencies = null;
+      index.update(timer);
+      assertEquals(ImmutableList.of(wildcard, timer), index.getHandlers("temp:temperature"));
+
+      // and stopped
+      timer.dependencies = ImmutableSet.of();
+      index.update(timer);
+      assertEquals(ImmutableList.of(wildcard), index.getHandlers("temp:temperature"));
+
+      // order is retained across updates
+      contact.dependencies = ImmutableSet.of("mot:motion");
+      index.update(contact);
+      assertEquals(ImmutableList.of(wildcard, motion), index.getHandlers("cont:contact"));
+      assertEquals(ImmutableList.of(contact, wildcard, motion), index.getHandlers("mot:motion"));
+   }
+
+   @Test
+   public void testRemove() {
+      index.remove(wildcard);
+      index.remove(motion);
+      assertEquals(ImmutableList.of(contact), index.getHandlers("cont:contact"));
+      assertEquals(ImmutableList.of(), index.getHandlers("mot:motion"));
+   }
+
+   private static class StubHandler implements PlaceEventHandler {
+      private final Address address = Address.platformService(UUID.randomUUID(), "rule", 1);
+      private Set<String> dependencies;
+
+      StubHandler(Set<String> dependencies) {
+         this.dependencies = dependencies;
+      }
+
+      @Override
+      public Set<String> getAttributeDependencies() {
+         return dependencies;
+      }
+
+      @Override
+      public boolean isDeleted() {
+         return false;
+      }
+
+      @Override
+      public boolean isAvailable() {
+         return true;
+      }
+
+      @Override
+      public void start() {
+      }
+
+      @Override
+      public void stop() {
+      }
+
+      @Override
+      public Address getAddress() {
+         return address;
+      }
+
+      @Override
+      public Context getContext() {
+         return null;
+      }
+
+      @Override
+      public void onEvent(RuleEvent event) {
+      }
+
+      @Override
+      public MessageBody handleRequest(PlatformMessage message) {
+         return null;
+      }
+
+      @Override
+      public String toString() {
+         return "StubHandler [" + dependencies + "]";
+      }
+   }
+}
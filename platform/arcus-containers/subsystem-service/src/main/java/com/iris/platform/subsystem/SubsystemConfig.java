@@ -56,6 +56,14 @@ public class SubsystemConfig {
    @Inject(optional = true) @Named("subsystem.place.preload")
    private boolean preloadPlaces = true;
 
+   // when > 0 changes to persisted subsystems are batched up per place and written at most once per window
+   @Inject(optional = true) @Named("subsystem.writebehind.ms")
+   private long writeBehindMs = 0;
+
+   // store non-subsystem models using the schema based layout, trades cpu on write for a smaller heap
+   @Inject(optional = true) @Named("subsystem.models.compact")
+   private boolean compactModels = false;
+
    /**
     * @return the maxThreads
     */
@@ -118,5 +126,25 @@ public class SubsystemConfig {
    public void setPreloadPlaces(boolean preloadPlaces) {
 		this.preloadPlaces = preloadPlaces;
 	}
+
+   public boolean isWriteBehindEnabled() {
+      return writeBehindMs > 0;
+   }
+
+   public long getWriteBehindMs() {
+      return writeBehindMs;
+   }
+
+   public void setWriteBehindMs(long writeBehindMs) {
+      this.writeBehindMs = writeBehindMs;
+   }
+
+   public boolean isCompactModels() {
+      return compactModels;
+   }
+
+   public void setCompactModels(boolean compactModels) {
+      this.compactModels = compactModels;
+   }
 }
 
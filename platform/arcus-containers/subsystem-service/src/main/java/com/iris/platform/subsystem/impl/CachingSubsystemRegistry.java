@@ -46,6 +46,7 @@ import com.iris.messages.capability.SchedulerCapability;
 import com.iris.messages.capability.SubsystemCapability;
 import com.iris.messages.context.PlaceContext;
 import com.iris.messages.context.SimplePlaceContext;
+import com.iris.messages.model.CompactModel;
 import com.iris.messages.model.Model;
 import com.iris.messages.model.SimpleModel;
 import com.iris.metrics.IrisMetricSet;
@@ -78,6 +79,7 @@ public class CachingSubsystemRegistry implements SubsystemRegistry {
    private PlaceDAO placeDao;
    private ModelDao modelDao;
    private final PlacePopulationCacheManager populationCacheMgr;
+   private final boolean compactModels;
    
    // it would be nice to use optional here, but we don't
    // want negative caching
@@ -98,6 +100,7 @@ public class CachingSubsystemRegistry implements SubsystemRegistry {
       this.placeDao = placeDao;
       this.modelDao = modelDao;
       this.populationCacheMgr = populationCacheMgr;
+      this.compactModels = config.isCompactModels();
       
       CacheBuilder<Object,Object> bld = CacheBuilder.newBuilder();
       if (config.getPlaceCacheConcurrencyLevel() > 0) {
@@ -215,17 +218,22 @@ public class CachingSubsystemRegistry implements SubsystemRegistry {
 
       PlatformSubsystemModelStore store = new PlatformSubsystemModelStore();
       store.setTrackedTypes(TRACKED_TYPES);
+      store.setCompactModels(compactModels);
       store.addModels(
       		models
       			.stream()
       			.filter((m) -> m != null)
       			// replace non-subsystems with SimpleModel so that we don't
       			// un-necessarilly track changes on those
-      			.map((m) -> SubsystemCapability.NAMESPACE.equals(m.getAttribute(Capability.ATTR_TYPE)) ? m : new SimpleModel(m))
+      			.map((m) -> SubsystemCapability.NAMESPACE.equals(m.getAttribute(Capability.ATTR_TYPE)) ? m : copy(m))
       			.collect(Collectors.toList())
 		);
 
       return new SimplePlaceContext(placeId, population, accountId, LoggerFactory.getLogger("subsystem." + placeId), store);
    }
+
+   private Model copy(Model model) {
+      return compactModels ? new CompactModel(model) : new SimpleModel(model);
+   }
 }
 
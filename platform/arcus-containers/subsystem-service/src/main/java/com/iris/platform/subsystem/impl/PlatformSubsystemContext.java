@@ -90,12 +90,14 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
    // allows access to the event loop without holding onto a reference to "this"
    // FIXME should replace with a proper EventLoop with invoke, defer, schedule
    private final Listener<? super AddressableEvent> eventListener;
+   private final boolean writeBehind;
    private boolean deleted = false;
    private boolean added;
    private volatile TimeZone tz;
    private final List<Subscription> bindSubscriptions = new ArrayList<>();
 
    // See the commit() method for a description of what this is used for.
+   // When writeBehind is enabled this also holds changes waiting for flush().
    private @Nullable Map<String,Object> failedToSave;
    
    private PlatformSubsystemContext(
@@ -111,7 +113,8 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
          IrisCorrelator<ResponseAction<?>> correlator,
          Scheduler scheduler,
          Listener<? super AddressableEvent> eventListener,
-         TimeZone tz
+         TimeZone tz,
+         boolean writeBehind
    ) {
       super(placeId, population, accountId, logger, models);
       this.entity = entity;
@@ -122,6 +125,7 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
       this.scheduler = scheduler;
       this.eventListener = eventListener;
       this.tz=tz;
+      this.writeBehind = writeBehind;
       this.added = entity.isPersisted();
    }
 
@@ -346,11 +350,27 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
       //       failed DB operations for places that are not receiving
       //       important messages regularly. We may want to implement that
       //       behavior at some point.
+      //
+      // NOTE: In write-behind mode the DB operation for an already persisted
+      //       entity is skipped entirely, the dirty attributes are treated
+      //       the same as a failed save and written out by the next flush()
+      //       or commit that does hit the DB. Events are still sent
+      //       immediately so clients observe the same sequence of changes.
       if(deleted) {
          logger().debug("Ignoring commit on deleted model");
       } else if(!entity.isPersisted() && !added) {
          added();
          save(ImmutableMap.of());
+      } else if(writeBehind && entity.isPersisted() && entity.isDirty()) {
+         // unlike changed() this includes variables, which must be persisted as well
+         Map<String,Object> dirty = entity.getDirtyAttributes();
+         changed();
+         if (failedToSave == null) {
+            failedToSave = new HashMap<>();
+         }
+         failedToSave.putAll(dirty);
+         List<ModelChangedEvent> changes = entity.commit();
+         fireChangeEvents(changes);
       } else if(entity.isDirty()) {
          Map<String,Object> newValues = changed();
          try {
@@ -365,6 +385,26 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
       actor = null;
    }
    
+   /**
+    * Indicates there are committed changes which haven't been written
+    * to the database yet, either because write-behind is enabled or
+    * because a previous save failed.
+    */
+   public boolean hasUnsavedChanges() {
+      return !deleted && failedToSave != null;
+   }
+
+   /**
+    * Writes any unsaved changes to the database.  Like {@link #commit()}
+    * this must be invoked from the subsystem event loop.
+    */
+   public void flush() {
+      if(!hasUnsavedChanges() || !entity.isPersisted()) {
+         return;
+      }
+      save(ImmutableMap.of());
+   }
+
    /* (non-Javadoc)
     * @see com.iris.common.subsystem.SubsystemContext#delete()
     */
@@ -539,6 +579,7 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
       private Scheduler scheduler;
       private Listener<? super AddressableEvent> scheduledEventListener;
       private TimeZone tz;
+      private boolean writeBehind;
       
       /**
        * @param placeId the placeId to set
@@ -607,6 +648,15 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
          this.tz = tz;
          return this;
       }
+
+      /**
+       * @param writeBehind when true changes to a persisted model are only
+       *        written by {@link PlatformSubsystemContext#flush()}
+       */
+      public Builder withWriteBehind(boolean writeBehind) {
+         this.writeBehind = writeBehind;
+         return this;
+      }
       /**
        * @param executor the executor to set
        */
@@ -617,7 +667,7 @@ public class PlatformSubsystemContext<M extends SubsystemModel>
 
       public <M extends SubsystemModel> PlatformSubsystemContext<M> build(Class<M> type, ModelEntity entity) throws Exception {
          M model = type.getConstructor(Model.class).newInstance(entity);
-         return new PlatformSubsystemContext<M>(placeId, population, accountId, logger, models, model, entity, subsystemDao, platformBus, correlator, scheduler, scheduledEventListener,tz);
+         return new PlatformSubsystemContext<M>(placeId, population, accountId, logger, models, model, entity, subsystemDao, platformBus, correlator, scheduler, scheduledEventListener,tz, writeBehind);
       }
    }
    
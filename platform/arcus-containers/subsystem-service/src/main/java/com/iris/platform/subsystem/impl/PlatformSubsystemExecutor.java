@@ -25,12 +25,15 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.MDC;
 
+import com.iris.common.scheduler.Scheduler;
 import com.iris.common.subsystem.Subsystem;
 import com.iris.common.subsystem.SubsystemContext;
 import com.iris.common.subsystem.SubsystemContext.ResponseAction;
@@ -85,6 +88,9 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
    private final PlaceContext rootContext;
    private final SingleThreadDispatcher<AddressableEvent> dispatcher;
    private final ConcurrentMap<Address, SubsystemAndContext<?>> subsystems;
+   private final Scheduler scheduler;
+   private final long writeBehindMs;
+   private final AtomicBoolean flushScheduled = new AtomicBoolean();
    
    /**
     * 
@@ -97,6 +103,28 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
          Collection<Subsystem<?>> subsystems,
          int maxQueueDepth
    ) {
+      this(platformBus, correlator, factory, context, subsystems, maxQueueDepth, null, 0);
+   }
+
+   /**
+    * @param scheduler
+    *    Used to flush pending changes, may be {@code null} if write-behind is disabled
+    * @param writeBehindMs
+    *    The maximum amount of time committed subsystem changes may be held
+    *    before they are written to the database, {@code 0} to disable
+    */
+   public PlatformSubsystemExecutor(
+         PlatformMessageBus platformBus,
+         IrisCorrelator<ResponseAction<?>> correlator,
+         SubsystemFactory factory,
+         PlaceContext context,
+         Collection<Subsystem<?>> subsystems,
+         int maxQueueDepth,
+         Scheduler scheduler,
+         long writeBehindMs
+   ) {
+      this.scheduler = scheduler;
+      this.writeBehindMs = scheduler != null ? writeBehindMs : 0;
       this.platformBus = platformBus;
       this.correlator = correlator;
       this.factory = factory;
@@ -157,6 +185,8 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
    public void stop() {
       context().logger().debug("Stopping subsystem executor");
       dispatchToAllSubsystems(SubsystemLifecycleEvent::stopped);
+      // write out anything still pending before the executor is discarded
+      flushAllSubsystems();
    }
 
    /* (non-Javadoc)
@@ -291,6 +321,10 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
                dispatchToSubsystem(mrevent);
             }
          }
+         else if(event instanceof FlushEvent) {
+            flushScheduled.set(false);
+            flushAllSubsystems();
+         }
          else if(event instanceof ScheduledEvent || event instanceof SubsystemResponseEvent) {
             SubsystemAndContext<?> subsystem = subsystems.get(event.getAddress());
             if(subsystem == null) {
@@ -303,6 +337,7 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
          else {
             dispatchToAllSubsystems(event);
          }
+         scheduleFlushIfNeeded();
       }
    }
 
@@ -328,6 +363,55 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
       }
    }
    
+   protected void flushAllSubsystems() {
+      for(SubsystemAndContext<?> subsystem: subsystems.values()) {
+         try {
+            subsystem.flush();
+         }
+         catch(Exception e) {
+            subsystem.context.logger().warn("Error flushing context model", e);
+         }
+      }
+   }
+
+   private boolean hasUnsavedChanges() {
+      for(SubsystemAndContext<?> subsystem: subsystems.values()) {
+         if(subsystem.hasUnsavedChanges()) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   private void scheduleFlushIfNeeded() {
+      if(writeBehindMs <= 0 || flushScheduled.get() || !hasUnsavedChanges()) {
+         return;
+      }
+      if(!flushScheduled.compareAndSet(false, true)) {
+         return;
+      }
+      try {
+         scheduler.scheduleDelayed(
+               () -> {
+                  try {
+                     dispatcher.dispatchOrQueue(new FlushEvent(placeAddress));
+                  }
+                  catch(Exception e) {
+                     // try again after the next event
+                     flushScheduled.set(false);
+                     context().logger().warn("Unable to queue write-behind flush", e);
+                  }
+               },
+               writeBehindMs,
+               TimeUnit.MILLISECONDS
+         );
+      }
+      catch(Exception e) {
+         flushScheduled.set(false);
+         throw e;
+      }
+   }
+
    protected MessageBody handleServiceRequest(PlatformMessage message) {
       if(ListSubsystemsRequest.NAME.equals(message.getMessageType())) {
          MessageBody value = message.getValue();
@@ -490,9 +574,43 @@ public class PlatformSubsystemExecutor implements Consumer<AddressableEvent>, Su
          }
       }
       
+      public boolean hasUnsavedChanges() {
+         return
+               context instanceof PlatformSubsystemContext &&
+               ((PlatformSubsystemContext<?>) context).hasUnsavedChanges();
+      }
+
+      public void flush() {
+         if(context instanceof PlatformSubsystemContext) {
+            ((PlatformSubsystemContext<?>) context).flush();
+         }
+      }
+
       public Map<String, Object> toMap() {
          return context.model().toMap();
       }
    }
+
+   /**
+    * Queued to write out changes held back by write-behind, this is
+    * handled by the executor and never delivered to the subsystems.
+    */
+   private static final class FlushEvent extends AddressableEvent {
+      private final Address address;
+
+      FlushEvent(Address address) {
+         this.address = address;
+      }
+
+      @Override
+      public Address getAddress() {
+         return address;
+      }
+
+      @Override
+      public String toString() {
+         return "FlushEvent [address=" + address + "]";
+      }
+   }
 }
 
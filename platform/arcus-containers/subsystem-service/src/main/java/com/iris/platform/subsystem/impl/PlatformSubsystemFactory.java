@@ -68,6 +68,7 @@ public class PlatformSubsystemFactory implements SubsystemFactory {
    private final Scheduler scheduler;
    private final Listener<AddressableEvent> scheduledEventListener;
    private final int maxQueueDepth;
+   private final long writeBehindMs;
 
    /**
     * 
@@ -84,6 +85,7 @@ public class PlatformSubsystemFactory implements SubsystemFactory {
          Listener<AddressableEvent> scheduledEventListener
    ) {
       this.maxQueueDepth = config.getPerSubsystemQueueDepth();
+      this.writeBehindMs = config.getWriteBehindMs();
       this.platformBus = platformBus;
       this.correlator = correlator;
       this.scheduler = scheduler;
@@ -98,7 +100,7 @@ public class PlatformSubsystemFactory implements SubsystemFactory {
     */
    @Override
    public SubsystemExecutor createExecutor(PlaceContext rootContext) {
-      return new PlatformSubsystemExecutor(platformBus, correlator, this, rootContext, catalog.getSubsystems(), maxQueueDepth);
+      return new PlatformSubsystemExecutor(platformBus, correlator, this, rootContext, catalog.getSubsystems(), maxQueueDepth, scheduler, writeBehindMs);
    }
 
    /* (non-Javadoc)
@@ -164,6 +166,7 @@ public class PlatformSubsystemFactory implements SubsystemFactory {
                   .withScheduler(scheduler)
                   .withScheduledEventListener(scheduledEventListener)
                   .withTimezone(tz)
+                  .withWriteBehind(writeBehindMs > 0)
                   .build( subsystem.getType(), entity )
                   ;
       }
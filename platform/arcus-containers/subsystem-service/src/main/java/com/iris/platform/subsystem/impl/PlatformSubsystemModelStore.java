@@ -24,6 +24,7 @@ import com.iris.messages.PlatformMessage;
 import com.iris.messages.address.Address;
 import com.iris.messages.capability.Capability;
 import com.iris.messages.capability.SubsystemCapability;
+import com.iris.messages.event.ModelChangedEvent;
 import com.iris.messages.event.ModelEvent;
 import com.iris.messages.model.Model;
 import com.iris.messages.model.SimpleModelStore;
@@ -67,6 +68,9 @@ public class PlatformSubsystemModelStore extends SimpleModelStore {
    }
 
    void fireModelEvent(ModelEvent event) {
+      if(event instanceof ModelChangedEvent) {
+         updateViews(((ModelChangedEvent) event).getAddress());
+      }
       fire(event);
    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.subsystem.impl;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.inject.Inject;
+import com.google.inject.Provides;
+import com.iris.common.scheduler.Scheduler;
+import com.iris.core.platform.PlatformMessageBus;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.SubsystemCapability;
+import com.iris.messages.event.Listener;
+import com.iris.messages.event.ScheduledEvent;
+import com.iris.messages.model.subs.SubsystemModel;
+import com.iris.messages.model.test.ModelFixtures;
+import com.iris.platform.model.ModelEntity;
+import com.iris.platform.subsystem.SubsystemDao;
+import com.iris.test.IrisMockTestCase;
+import com.iris.test.Mocks;
+
+@Mocks({ PlatformMessageBus.class, Scheduler.class, SubsystemDao.class })
+public class TestPlatformSubsystemContextWriteBehind extends IrisMockTestCase {
+   PlatformSubsystemContext<SubsystemModel> context;
+
+   ModelEntity entity;
+   PlatformSubsystemModelStore models;
+
+   Capture<PlatformMessage> messages;
+
+   @Inject SubsystemDao mockSubsystemDao;
+   @Inject Scheduler mockScheduler;
+   @Inject Listener<ScheduledEvent> mockEventListener;
+   @Inject PlatformMessageBus platformBus;
+
+   // have to do this @Provides to get the proper type signature
+   @Provides
+   Listener<ScheduledEvent> mockEventListener() {
+      return EasyMock.createMock(Listener.class);
+   }
+
+   @Before
+   public void createContext() throws Exception {
+      entity = new ModelEntity(ModelFixtures.createServiceAttributes(SubsystemCapability.NAMESPACE));
+      entity.setCreated(new Date());
+      entity.setModified(new Date());
+
+      models = new PlatformSubsystemModelStore();
+      models.addModel(entity);
+      context =
+            PlatformSubsystemContext
+               .builder()
+               .withAccountId(UUID.randomUUID())
+               .withPlaceId(UUID.randomUUID())
+               .withLogger(LoggerFactory.getLogger(TestPlatformSubsystemContextWriteBehind.class))
+               .withModels(models)
+               .withPlatformBus(platformBus)
+               .withSubsystemDao(mockSubsystemDao)
+               .withScheduler(mockScheduler)
+               .withScheduledEventListener(mockEventListener)
+               .withWriteBehind(true)
+               .build(SubsystemModel.class, entity);
+   }
+
+   @Before
+   public void preparePlatformBus() {
+      messages = Capture.newInstance(CaptureType.ALL);
+      EasyMock
+         .expect(platformBus.send(EasyMock.capture(messages)))
+         .andReturn(Futures.immediateFuture(null))
+         .anyTimes();
+   }
+
+   @Test
+   public void testCommitSendsValueChangeWithoutSaving() {
+      replay();
+
+      context.model().setState(SubsystemCapability.STATE_ACTIVE);
+      context.commit();
+
+      PlatformMessage message = messages.getValue();
+      assertEquals(Capability.EVENT_VALUE_CHANGE, message.getMessageType());
+      assertEquals(SubsystemCapability.STATE_ACTIVE, message.getValue().getAttributes().get(SubsystemCapability.ATTR_STATE));
+      assertFalse(entity.isDirty());
+      assertTrue(context.hasUnsavedChanges());
+
+      verify();
+   }
+
+   @Test
+   public void testFlushSavesCoalescedChanges() {
+      Capture<Map<String, Object>> saved = expectSave();
+      replay();
+
+      context.model().setState(SubsystemCapability.STATE_ACTIVE);
+      context.commit();
+      context.setVariable("var1", "val1");
+      context.commit();
+      context.model().setState(SubsystemCapability.STATE_SUSPENDED);
+      context.commit();
+      context.flush();
+
+      assertEquals(SubsystemCapability.STATE_SUSPENDED, saved.getValue().get(SubsystemCapability.ATTR_STATE));
+      assertEquals("\"val1\"", saved.getValue().get("_subvars:var1"));
+      assertFalse(context.hasUnsavedChanges());
+      // nothing left to write
+      context.flush();
+
+      verify();
+   }
+
+   @Test
+   public void testFailedFlushIsRetried() {
+      EasyMock
+         .expect(mockSubsystemDao.save(EasyMock.same(entity), EasyMock.anyObject()))
+         .andThrow(new RuntimeException("BOOM"));
+      Capture<Map<String, Object>> saved = expectSave();
+      replay();
+
+      context.model().setState(SubsystemCapability.STATE_ACTIVE);
+      context.commit();
+      try {
+         context.flush();
+         fail("Expected flush to fail");
+      }
+      catch(RuntimeException e) {
+         // expected
+      }
+      assertTrue(context.hasUnsavedChanges());
+
+      context.flush();
+      assertEquals(SubsystemCapability.STATE_ACTIVE, saved.getValue().get(SubsystemCapability.ATTR_STATE));
+      assertFalse(context.hasUnsavedChanges());
+
+      verify();
+   }
+
+   @Test
+   public void testDeleteDiscardsUnsavedChanges() {
+      mockSubsystemDao.deleteByAddress(entity.getAddress());
+      EasyMock.expectLastCall();
+      replay();
+
+      context.model().setState(SubsystemCapability.STATE_ACTIVE);
+      context.commit();
+      context.delete();
+      assertFalse(context.hasUnsavedChanges());
+      context.flush();
+
+      verify();
+   }
+
+   private Capture<Map<String, Object>> expectSave() {
+      Capture<Map<String, Object>> saved = Capture.newInstance();
+      EasyMock
+         .expect(mockSubsystemDao.save(EasyMock.same(entity), EasyMock.capture(saved)))
+         .andReturn(new Date());
+      return saved;
+   }
+}
@@ -85,6 +85,26 @@ public class GoogleConfig extends VoiceConfig {
    @Named(value = "google.homegraph.resport.state.delay.sec")
    private int reportStateAfterSyncDelaySec = 10; // number of seconds after a SYNC response before sending a Report State
 
+   @Inject(optional = true)
+   @Named(value = "google.homegraph.report.state.debounce.ms")
+   private long reportStateDebounceMs = 500; // quiet period after the last change to a place before its Report State is sent
+
+   @Inject(optional = true)
+   @Named(value = "google.homegraph.report.state.max.latency.ms")
+   private long reportStateMaxLatencyMs = 2000; // upper bound on how long a change may be held back by the debounce
+
+   @Inject(optional = true)
+   @Named(value = "google.homegraph.report.state.max.inflight")
+   private int reportStateMaxInFlight = 20; // number of Report State posts that may be outstanding at once
+
+   @Inject(optional = true)
+   @Named(value = "google.homegraph.grpc.target")
+   private String gRpcTarget = "homegraph.googleapis.com";
+
+   @Inject(optional = true)
+   @Named(value = "google.homegraph.grpc.plaintext")
+   private boolean gRpcPlaintext = false; // only for local stubs, disables TLS and credentials
+
    public boolean isSuccessCheatEnabled() {
       return successCheatEnabled;
    }
@@ -205,5 +225,45 @@ public class GoogleConfig extends VoiceConfig {
       this.reportStateAfterSyncDelaySec = reportStateAfterSyncDelaySec;
    }
 
+   public long getReportStateDebounceMs() {
+      return this.reportStateDebounceMs;
+   }
+
+   public void setReportStateDebounceMs(long reportStateDebounceMs) {
+      this.reportStateDebounceMs = reportStateDebounceMs;
+   }
+
+   public long getReportStateMaxLatencyMs() {
+      return this.reportStateMaxLatencyMs;
+   }
+
+   public void setReportStateMaxLatencyMs(long reportStateMaxLatencyMs) {
+      this.reportStateMaxLatencyMs = reportStateMaxLatencyMs;
+   }
+
+   public int getReportStateMaxInFlight() {
+      return this.reportStateMaxInFlight;
+   }
+
+   public void setReportStateMaxInFlight(int reportStateMaxInFlight) {
+      this.reportStateMaxInFlight = reportStateMaxInFlight;
+   }
+
+   public String getgRpcTarget() {
+      return this.gRpcTarget;
+   }
+
+   public void setgRpcTarget(String gRpcTarget) {
+      this.gRpcTarget = gRpcTarget;
+   }
+
+   public boolean isgRpcPlaintext() {
+      return this.gRpcPlaintext;
+   }
+
+   public void setgRpcPlaintext(boolean gRpcPlaintext) {
+      this.gRpcPlaintext = gRpcPlaintext;
+   }
+
 }
 
@@ -18,6 +18,8 @@ package com.iris.voice.google;
 import java.util.concurrent.TimeUnit;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.iris.metrics.IrisMetricSet;
 import com.iris.metrics.IrisMetrics;
@@ -41,6 +43,15 @@ public enum GoogleMetrics {
    private static final Counter reportStateFailures = METRICS.counter("homegraph.reportstate.failure");
    private static final Counter reportStateSuccesses = METRICS.counter("homegraph.reportstate.success");
 
+   // coalescing is the number of device changes folded into each Report State, 1.0 means nothing was coalesced
+   private static final Meter reportStateChanges = METRICS.meter("homegraph.reportstate.changes");
+   private static final Meter reportStatePosts = METRICS.meter("homegraph.reportstate.posts");
+   private static final Counter reportStateDeferred = METRICS.counter("homegraph.reportstate.deferred");
+
+   static {
+      METRICS.ratio1("homegraph.reportstate.coalescing", reportStateChanges, reportStatePosts);
+   }
+
    static void timeHandlerSuccess(String method, long startTimeNanos) {
       successTimer.tag(TAG_NAME, tagValue(method)).update(System.nanoTime() - startTimeNanos, TimeUnit.NANOSECONDS);
    }
@@ -81,5 +92,22 @@ public enum GoogleMetrics {
    public static void incReportStateSuccesses() {
       reportStateSuccesses.inc();
    }
+
+   public static void markReportStateChange() {
+      reportStateChanges.mark();
+   }
+
+   public static void markReportStatePost() {
+      reportStatePosts.mark();
+   }
+
+   public static void incReportStateDeferred() {
+      reportStateDeferred.inc();
+   }
+
+   public static void registerReportStateQueue(Gauge<Integer> pendingPlaces, Gauge<Integer> inFlight) {
+      METRICS.gauge("homegraph.reportstate.pending", pendingPlaces);
+      METRICS.gauge("homegraph.reportstate.inflight", inFlight);
+   }
 }
 
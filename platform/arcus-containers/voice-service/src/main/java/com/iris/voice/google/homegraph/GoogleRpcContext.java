@@ -45,6 +45,7 @@ public class GoogleRpcContext {
    private GoogleCredentials creds;
    // Google says that building a channel and stub is a heavy operation.  They want us to hold onto the stub for multiple requests.
    private HomeGraphApiServiceGrpc.HomeGraphApiServiceBlockingStub blockingStub;
+   private HomeGraphApiServiceGrpc.HomeGraphApiServiceFutureStub futureStub;
 
    @Inject
    public GoogleRpcContext(GoogleConfig config, GoogleWhitelist whitelist, ProductCatalogManager prodCat) throws IOException {
@@ -53,8 +54,10 @@ public class GoogleRpcContext {
       this.prodCat = prodCat;
 
       if (this.reportStateEnabled) {
-         setupCredentials(config);
-         setupStub();
+         if (!config.isgRpcPlaintext()) {
+            setupCredentials(config);
+         }
+         setupStub(config);
       }
    }
 
@@ -71,7 +74,8 @@ public class GoogleRpcContext {
       ReportStateBuilder builder = new ReportStateBuilder()
             .withProdCat(this.prodCat)
             .withWhitelist(this.whitelist)
-            .withStub(this.blockingStub);
+            .withStub(this.blockingStub)
+            .withFutureStub(this.futureStub);
       // @formatter:on
 
       return builder;
@@ -94,13 +98,24 @@ public class GoogleRpcContext {
    }
 
    /**
-    * Build the HomeGraph stub for making rpc requests to google.
+    * Build the HomeGraph stubs for making rpc requests to google.  Both stubs share a single channel, which
+    * multiplexes concurrent requests over a pooled HTTP/2 connection.
     */
-   private void setupStub() {
-      ManagedChannel channel = ManagedChannelBuilder.forTarget("homegraph.googleapis.com").build();
+   private void setupStub(GoogleConfig config) {
+      ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forTarget(config.getgRpcTarget());
+      if (config.isgRpcPlaintext()) {
+         // local stubs only, there are no credentials to send
+         ManagedChannel channel = builder.usePlaintext(true).build();
+         this.blockingStub = HomeGraphApiServiceGrpc.newBlockingStub(channel);
+         this.futureStub = HomeGraphApiServiceGrpc.newFutureStub(channel);
+         return;
+      }
 
+      ManagedChannel channel = builder.build();
+      // See https://grpc.io/docs/guides/auth.html#authenticate-with-google-3.
       this.blockingStub = HomeGraphApiServiceGrpc.newBlockingStub(channel)
-            // See https://grpc.io/docs/guides/auth.html#authenticate-with-google-3.
+            .withCallCredentials(MoreCallCredentials.from(this.creds));
+      this.futureStub = HomeGraphApiServiceGrpc.newFutureStub(channel)
             .withCallCredentials(MoreCallCredentials.from(this.creds));
    }
 
@@ -17,8 +17,10 @@ package com.iris.voice.google.homegraph;
 
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -43,11 +45,18 @@ import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.home.graph.v1.HomeGraphApiServiceProto.ReportStateAndNotificationResponse;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.iris.google.Predicates;
 import com.iris.io.json.JSON;
+import com.iris.messages.address.Address;
 import com.iris.messages.model.Model;
 import com.iris.prodcat.ProductCatalogManager;
 import com.iris.voice.VoiceUtil;
@@ -183,16 +192,80 @@ public class HomeGraphAPI {
 
       }
       catch (Exception e) {
-         // sometimes we send google more information than they need.  It's difficult to know which device didn't get communicated with a SYNC call.
-         if (e.getMessage().contains("Requested entity was not found")) {
-            logger.trace("Sent data to Google for an unknown device in place [{}]: Request: {}", placeId, request, e);
-         }
-         else {
-            logger.warn("Failed to post ReportState for {}: Request: {}", placeId, request, e);
-         }
-         
-         GoogleMetrics.incReportStateFailures();
+         onReportStateFailure(placeId, request, e);
+      }
+   }
+
+   /**
+    * Post a Report State to Google for only the given devices at the place without blocking.  Addresses that are no
+    * longer in the place, or are not supported, are skipped.  The returned future always completes successfully once
+    * the post has finished, failures are logged and counted here.
+    */
+   public ListenableFuture<?> sendReportStateAsync(VoiceContext context, Collection<Address> addresses) {
+      if (!this.config.isReportStateEnabled()) {
+         logger.debug("Ignoring Report State to Google for {}. Reporting State is not enabled", context.getPlaceId());
+         return Futures.immediateFuture(null);
       }
+
+      boolean whitelisted = this.whitelist.isWhitelisted(context.getPlaceId());
+      List<Model> devices = addresses.stream()
+            .map(context::getModelByAddress)
+            .filter(Objects::nonNull)
+            .filter(model -> Predicates.isSupportedModel(model, whitelisted, VoiceUtil.getProduct(prodCat, model)))
+            .collect(Collectors.toList());
+      if (devices.isEmpty()) {
+         return Futures.immediateFuture(null);
+      }
+
+      UUID placeId = context.getPlaceId();
+      ReportStateRequest request = null;
+      Timer.Context ctxt = GoogleMetrics.startReportStateTimer();
+      try {
+         // @formatter:off
+         request = this.gRpcContext.getRequestBuilder()
+               .withPlaceId(placeId)
+               .withHubOffline(context.isHubOffline())
+               .withPayloadDevices(devices)
+               .build();
+         // @formatter:on
+
+         ReportStateRequest sent = request;
+         SettableFuture<Void> done = SettableFuture.create();
+         Futures.addCallback(request.sendAsync(), new FutureCallback<ReportStateAndNotificationResponse>() {
+            @Override
+            public void onSuccess(ReportStateAndNotificationResponse result) {
+               ctxt.stop();
+               logger.trace("Successfully posted ReportState for {}: Request: {}", placeId, sent);
+               GoogleMetrics.incReportStateSuccesses();
+               done.set(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               ctxt.stop();
+               onReportStateFailure(placeId, sent, t);
+               done.set(null);
+            }
+         }, MoreExecutors.directExecutor());
+         return done;
+      }
+      catch (Exception e) {
+         ctxt.stop();
+         onReportStateFailure(placeId, request, e);
+         return Futures.immediateFuture(null);
+      }
+   }
+
+   private void onReportStateFailure(UUID placeId, ReportStateRequest request, Throwable e) {
+      // sometimes we send google more information than they need.  It's difficult to know which device didn't get communicated with a SYNC call.
+      if (e.getMessage() != null && e.getMessage().contains("Requested entity was not found")) {
+         logger.trace("Sent data to Google for an unknown device in place [{}]: Request: {}", placeId, request, e);
+      }
+      else {
+         logger.warn("Failed to post ReportState for {}: Request: {}", placeId, request, e);
+      }
+
+      GoogleMetrics.incReportStateFailures();
    }
 
    private String createUrl(String method) {
@@ -23,7 +23,9 @@ import java.util.UUID;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.home.graph.v1.HomeGraphApiServiceGrpc.HomeGraphApiServiceBlockingStub;
+import com.google.home.graph.v1.HomeGraphApiServiceGrpc.HomeGraphApiServiceFutureStub;
 import com.google.home.graph.v1.HomeGraphApiServiceProto.ReportStateAndNotificationDevice;
 import com.google.home.graph.v1.HomeGraphApiServiceProto.ReportStateAndNotificationRequest;
 import com.google.home.graph.v1.HomeGraphApiServiceProto.ReportStateAndNotificationRequest.Builder;
@@ -70,6 +72,7 @@ public class ReportStateBuilder {
    private List<Model> payloadDevices;
    private Boolean hubOffline;
    private HomeGraphApiServiceBlockingStub blockingStub;
+   private HomeGraphApiServiceFutureStub futureStub;
 
    public ReportStateRequest build() {
       verify();
@@ -126,6 +129,11 @@ public class ReportStateBuilder {
       this.blockingStub = blockingStub;
       return this;
    }
+
+   public ReportStateBuilder withFutureStub(HomeGraphApiServiceFutureStub futureStub) {
+      this.futureStub = futureStub;
+      return this;
+   }
    
    private void verify() {
       if (this.placeId == null) {
@@ -192,6 +200,16 @@ public class ReportStateBuilder {
          return response;
       }
 
+      /**
+       * Posts the request without blocking the calling thread, the returned future fails if the post fails.
+       */
+      public ListenableFuture<ReportStateAndNotificationResponse> sendAsync() {
+         if (futureStub == null) {
+            throw new IllegalStateException("The future stub cannot be null.  Make sure you have properly defined google_homegraph_grpc_key_file");
+         }
+         return futureStub.reportStateAndNotification(this.request);
+      }
+
       public ReportStateAndNotificationRequest getRequest() {
          return this.request;
       }
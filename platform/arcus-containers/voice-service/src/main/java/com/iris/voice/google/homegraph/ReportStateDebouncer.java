@@ -0,0 +1,178 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.voice.google.homegraph;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.iris.messages.address.Address;
+import com.iris.voice.context.VoiceContext;
+import com.iris.voice.google.GoogleConfig;
+import com.iris.voice.google.GoogleMetrics;
+
+import io.netty.util.HashedWheelTimer;
+
+/**
+ * Coalesces Report State changes per place.  The first change at a place starts a debounce window, further changes
+ * extend it until the place has been quiet for {@link GoogleConfig#getReportStateDebounceMs()}, but never by more than
+ * {@link GoogleConfig#getReportStateMaxLatencyMs()} from the first change.  When the window closes a single Report
+ * State is posted containing only the devices that changed, rather than every device at the place.
+ *
+ * At most {@link GoogleConfig#getReportStateMaxInFlight()} posts are outstanding at once and only one per place, so
+ * state can't be reported out of order.  A place that can't be sent is deferred for another debounce window and
+ * continues to collect changes in the meantime.
+ */
+@Singleton
+public class ReportStateDebouncer {
+
+   private static final Logger logger = LoggerFactory.getLogger(ReportStateDebouncer.class);
+
+   private final GoogleConfig config;
+   private final HomeGraphAPI homegraph;
+   private final HashedWheelTimer timer;
+   private final long debounceNs;
+   private final long maxLatencyNs;
+   private final int maxInFlight;
+   private final Semaphore inFlight;
+   private final ConcurrentMap<UUID, PendingReport> pending = new ConcurrentHashMap<>();
+   private final Set<UUID> sending = ConcurrentHashMap.newKeySet();
+
+   @Inject
+   public ReportStateDebouncer(
+         GoogleConfig config,
+         HomeGraphAPI homegraph,
+         @Named(HomeGraphAPI.EXECUTOR_NAME) HashedWheelTimer timer
+   ) {
+      this.config = config;
+      this.homegraph = homegraph;
+      this.timer = timer;
+      this.debounceNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, config.getReportStateDebounceMs()));
+      this.maxLatencyNs = Math.max(debounceNs, TimeUnit.MILLISECONDS.toNanos(config.getReportStateMaxLatencyMs()));
+      this.maxInFlight = Math.max(1, config.getReportStateMaxInFlight());
+      this.inFlight = new Semaphore(maxInFlight);
+      GoogleMetrics.registerReportStateQueue((Gauge<Integer>) this::getPendingPlaces, (Gauge<Integer>) this::getInFlight);
+   }
+
+   /**
+    * Records that a tracked attribute on the device changed, the device will be included in the next Report State
+    * posted for the place.
+    */
+   public void submit(VoiceContext context, Address device) {
+      if (!this.config.isReportStateEnabled()) {
+         logger.debug("Ignoring Report State to Google for {}. Reporting State is not enabled", context.getPlaceId());
+         return;
+      }
+
+      GoogleMetrics.markReportStateChange();
+      long now = System.nanoTime();
+      pending.compute(context.getPlaceId(), (placeId, report) -> {
+         if (report == null) {
+            report = new PendingReport(placeId, now);
+            schedule(report, debounceNs);
+         }
+         report.add(context, device, now);
+         return report;
+      });
+   }
+
+   public int getPendingPlaces() {
+      return pending.size();
+   }
+
+   public int getInFlight() {
+      return maxInFlight - inFlight.availablePermits();
+   }
+
+   private void schedule(PendingReport report, long delayNs) {
+      timer.newTimeout((timeout) -> flush(report), delayNs, TimeUnit.NANOSECONDS);
+   }
+
+   private void flush(PendingReport report) {
+      long remainingNs = report.deadline() - System.nanoTime();
+      if (remainingNs > 0) {
+         schedule(report, remainingNs);
+         return;
+      }
+
+      UUID placeId = report.placeId;
+      if (!sending.add(placeId)) {
+         GoogleMetrics.incReportStateDeferred();
+         schedule(report, debounceNs);
+         return;
+      }
+      if (!inFlight.tryAcquire()) {
+         sending.remove(placeId);
+         GoogleMetrics.incReportStateDeferred();
+         schedule(report, debounceNs);
+         return;
+      }
+
+      // once removed any new changes start a new report, so the device set is no longer modified
+      pending.remove(placeId, report);
+      ListenableFuture<?> sent;
+      try {
+         GoogleMetrics.markReportStatePost();
+         sent = homegraph.sendReportStateAsync(report.context, report.devices);
+      }
+      catch (Exception e) {
+         logger.warn("Failed to post ReportState for {}", placeId, e);
+         sent = Futures.immediateFuture(null);
+      }
+      sent.addListener(() -> {
+         inFlight.release();
+         sending.remove(placeId);
+      }, MoreExecutors.directExecutor());
+   }
+
+   private class PendingReport {
+      private final UUID placeId;
+      private final long firstChangeNs;
+      private final Set<Address> devices = new LinkedHashSet<>();
+      private volatile VoiceContext context;
+      private volatile long lastChangeNs;
+
+      PendingReport(UUID placeId, long firstChangeNs) {
+         this.placeId = placeId;
+         this.firstChangeNs = firstChangeNs;
+      }
+
+      // only invoked while holding the pending map entry
+      void add(VoiceContext context, Address device, long changeNs) {
+         this.context = context;
+         this.devices.add(device);
+         this.lastChangeNs = changeNs;
+      }
+
+      long deadline() {
+         return Math.min(lastChangeNs + debounceNs, firstChangeNs + maxLatencyNs);
+      }
+   }
+}
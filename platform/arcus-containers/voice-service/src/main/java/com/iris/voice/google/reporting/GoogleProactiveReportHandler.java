@@ -29,6 +29,7 @@ import com.iris.prodcat.ProductCatalogManager;
 import com.iris.voice.context.VoiceContext;
 import com.iris.voice.google.GoogleWhitelist;
 import com.iris.voice.google.homegraph.HomeGraphAPI;
+import com.iris.voice.google.homegraph.ReportStateDebouncer;
 import com.iris.voice.proactive.ProactiveReportHandler;
 
 /**
@@ -48,14 +49,15 @@ public class GoogleProactiveReportHandler implements ProactiveReportHandler {
    public GoogleProactiveReportHandler(
       GoogleWhitelist whitelist,
       ProductCatalogManager prodCat,
-      HomeGraphAPI homegraph
+      HomeGraphAPI homegraph,
+      ReportStateDebouncer debouncer
    ) {
       this.whitelist = whitelist;
       this.prodCat = prodCat;
       this.homegraph = homegraph;
       
       this.handlers = ImmutableSet.of(
-            new ReportStateHandler(this.homegraph, this.prodCat, this.whitelist),
+            new ReportStateHandler(debouncer, this.prodCat, this.whitelist),
             new SyncRequestHandler(this.homegraph, this.prodCat, this.whitelist)
       );
    }
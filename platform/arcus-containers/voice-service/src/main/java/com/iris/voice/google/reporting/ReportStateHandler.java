@@ -44,7 +44,7 @@ import com.iris.prodcat.ProductCatalogManager;
 import com.iris.voice.VoiceUtil;
 import com.iris.voice.context.VoiceContext;
 import com.iris.voice.google.GoogleWhitelist;
-import com.iris.voice.google.homegraph.HomeGraphAPI;
+import com.iris.voice.google.homegraph.ReportStateDebouncer;
 import com.iris.voice.proactive.ProactiveReportHandler;
 
 public class ReportStateHandler implements ProactiveReportHandler {
@@ -74,10 +74,10 @@ public class ReportStateHandler implements ProactiveReportHandler {
 
    private final GoogleWhitelist whitelist;
    private final ProductCatalogManager prodCat;
-   private final HomeGraphAPI homegraph;
+   private final ReportStateDebouncer debouncer;
 
-   public ReportStateHandler(HomeGraphAPI homegraph, ProductCatalogManager prodCat, GoogleWhitelist whitelist) {
-      this.homegraph = homegraph;
+   public ReportStateHandler(ReportStateDebouncer debouncer, ProductCatalogManager prodCat, GoogleWhitelist whitelist) {
+      this.debouncer = debouncer;
       this.prodCat = prodCat;
       this.whitelist = whitelist;
    }
@@ -108,9 +108,12 @@ public class ReportStateHandler implements ProactiveReportHandler {
       return true;
    }
 
+   /**
+    * Changes are coalesced per place, only the devices that changed are reported once the place settles.
+    */
    @Override
-   public void report(VoiceContext context, Model m, MessageBody body) {           
-      homegraph.sendReportState(context);
+   public void report(VoiceContext context, Model m, MessageBody body) {
+      debouncer.submit(context, m.getAddress());
    }
 }
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.voice.google.homegraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.home.graph.v1.HomeGraphApiServiceGrpc.HomeGraphApiServiceImplBase;
+import com.google.home.graph.v1.HomeGraphApiServiceProto.ReportStateAndNotificationRequest;
+import com.google.home.graph.v1.HomeGraphApiServiceProto.ReportStateAndNotificationResponse;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.DeviceCapability;
+import com.iris.messages.capability.DeviceConnectionCapability;
+import com.iris.messages.capability.SwitchCapability;
+import com.iris.messages.model.Model;
+import com.iris.messages.model.SimpleModelStore;
+import com.iris.prodcat.ProductCatalogManager;
+import com.iris.voice.context.VoiceContext;
+import com.iris.voice.google.GoogleConfig;
+import com.iris.voice.google.GoogleWhitelist;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.netty.util.HashedWheelTimer;
+
+/**
+ * Runs the debouncer against a local HomeGraph stub.
+ */
+public class TestReportStateDebouncer {
+
+   private static final long DEBOUNCE_MS = 200;
+   private static final long MAX_LATENCY_MS = 600;
+
+   private final BlockingQueue<ReportStateAndNotificationRequest> requests = new LinkedBlockingQueue<>();
+   private Server server;
+   private HashedWheelTimer timer;
+   private HomeGraphAPI homegraph;
+   private ReportStateDebouncer debouncer;
+
+   private UUID placeId;
+   private SimpleModelStore models;
+   private VoiceContext context;
+   private List<Model> switches;
+
+   @Before
+   public void setUp() throws Exception {
+      server = ServerBuilder
+            .forPort(0)
+            .addService(new HomeGraphApiServiceImplBase() {
+               @Override
+               public void reportStateAndNotification(ReportStateAndNotificationRequest request, StreamObserver<ReportStateAndNotificationResponse> response) {
+                  requests.add(request);
+                  response.onNext(ReportStateAndNotificationResponse.getDefaultInstance());
+                  response.onCompleted();
+               }
+            })
+            .build()
+            .start();
+
+      GoogleConfig config = new GoogleConfig();
+      config.setReportStateEnabled(true);
+      config.setgRpcPlaintext(true);
+      config.setgRpcTarget("localhost:" + server.getPort());
+      config.setReportStateDebounceMs(DEBOUNCE_MS);
+      config.setReportStateMaxLatencyMs(MAX_LATENCY_MS);
+
+      ProductCatalogManager prodCat = EasyMock.createMock(ProductCatalogManager.class);
+      EasyMock.replay(prodCat);
+      GoogleWhitelist whitelist = new GoogleWhitelist(config);
+      timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+      homegraph = new HomeGraphAPI(config, new GoogleRpcContext(config, whitelist, prodCat), prodCat, whitelist, timer);
+      debouncer = new ReportStateDebouncer(config, homegraph, timer);
+
+      placeId = UUID.randomUUID();
+      models = new SimpleModelStore();
+      switches = new ArrayList<>();
+      for(int i = 0; i < 3; i++) {
+         switches.add(addSwitch());
+      }
+      context = new VoiceContext(placeId, models, ImmutableSet.of(), ImmutableMap.of());
+   }
+
+   @After
+   public void tearDown() throws Exception {
+      timer.stop();
+      homegraph.destroy();
+      server.shutdownNow();
+   }
+
+   @Test
+   public void testBurstIsCoalesced() throws Exception {
+      for(int i = 0; i < 20; i++) {
+         debouncer.submit(context, switches.get(0).getAddress());
+      }
+      debouncer.submit(context, switches.get(1).getAddress());
+      assertEquals(1, debouncer.getPendingPlaces());
+
+      ReportStateAndNotificationRequest request = requests.poll(5, TimeUnit.SECONDS);
+      assertNotNull(request);
+      assertEquals(placeId.toString(), request.getAgentUserId());
+      assertEquals(
+            ImmutableSet.of(switches.get(0).getAddress().getRepresentation(), switches.get(1).getAddress().getRepresentation()),
+            request.getPayload().getDevices().getStates().getFieldsMap().keySet()
+      );
+      assertNull(requests.poll(2 * DEBOUNCE_MS, TimeUnit.MILLISECONDS));
+      assertEquals(0, debouncer.getPendingPlaces());
+   }
+
+   @Test
+   public void testOnlyChangedDevicesAreReported() throws Exception {
+      debouncer.submit(context, switches.get(2).getAddress());
+
+      ReportStateAndNotificationRequest request = requests.poll(5, TimeUnit.SECONDS);
+      assertNotNull(request);
+      assertEquals(
+            ImmutableSet.of(switches.get(2).getAddress().getRepresentation()),
+            request.getPayload().getDevices().getStates().getFieldsMap().keySet()
+      );
+   }
+
+   @Test
+   public void testRemovedDevicesAreSkipped() throws Exception {
+      Address removed = switches.get(0).getAddress();
+      debouncer.submit(context, removed);
+      models.removeModel(removed);
+
+      assertNull(requests.poll(3 * DEBOUNCE_MS, TimeUnit.MILLISECONDS));
+      assertEquals(0, debouncer.getPendingPlaces());
+      assertEquals(0, debouncer.getInFlight());
+   }
+
+   @Test
+   public void testMaxLatencyBoundsDebounce() throws Exception {
+      // changes arrive faster than the debounce window, so without the bound nothing would be sent
+      long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(4 * MAX_LATENCY_MS);
+      while(System.nanoTime() < end) {
+         debouncer.submit(context, switches.get(0).getAddress());
+         Thread.sleep(DEBOUNCE_MS / 4);
+      }
+      assertTrue("Expected at least two reports but received " + requests.size(), requests.size() >= 2);
+   }
+
+   private Model addSwitch() {
+      UUID id = UUID.randomUUID();
+      return models.addModel(
+            ImmutableMap.<String, Object>builder()
+               .put(Capability.ATTR_ID, id.toString())
+               .put(Capability.ATTR_ADDRESS, Address.platformDriverAddress(id).getRepresentation())
+               .put(Capability.ATTR_TYPE, DeviceCapability.NAMESPACE)
+               .put(Capability.ATTR_CAPS, ImmutableSet.of(Capability.NAMESPACE, DeviceCapability.NAMESPACE, DeviceConnectionCapability.NAMESPACE, SwitchCapability.NAMESPACE))
+               .put(DeviceCapability.ATTR_DEVTYPEHINT, "Switch")
+               .put(DeviceConnectionCapability.ATTR_STATE, DeviceConnectionCapability.STATE_ONLINE)
+               .put(SwitchCapability.ATTR_STATE, SwitchCapability.STATE_ON)
+               .build()
+      );
+   }
+}
@@ -25,8 +25,13 @@ import java.util.Date;
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.iris.bridge.metrics.BridgeMetrics;
+import com.iris.bridge.server.netty.BridgeHeaders;
 import com.iris.bridge.server.session.DefaultSessionImpl;
 import com.iris.bridge.server.session.SessionRegistry;
+import com.iris.io.Serializer;
+import com.iris.io.binary.BinaryHubMessageSerializer;
+import com.iris.io.json.JSON;
+import com.iris.messages.HubMessage;
 import com.iris.platform.partition.PlatformPartition;
 
 /**
@@ -42,6 +47,9 @@ public class HubSession extends DefaultSessionImpl {
       BELOW_MIN_FW, UNREGISTERED, REGISTERING, ORPHANED, INVALID_ACCOUNT, HANDSHAKING, BANNED_CELL, UNAUTHENTICATED
    }
 
+   private static final Serializer<HubMessage> JSON_FRAMING = JSON.createSerializer(HubMessage.class);
+   private static final Serializer<HubMessage> BINARY_FRAMING = new BinaryHubMessageSerializer();
+
    private final String hubId;
    private volatile State state = State.CONNECTED;
    private volatile UnauthorizedReason unauthReason = UnauthorizedReason.HANDSHAKING;
@@ -66,6 +74,24 @@ public class HubSession extends DefaultSessionImpl {
       return hubId;
    }
 
+   /**
+    * Whether the hub asked for binary {@link HubMessage} framing when it connected.
+    */
+   public boolean isBinaryFraming() {
+      return Boolean.TRUE.equals(getChannel().attr(BridgeHeaders.ATTR_BINARY_HUB_FRAMING).get());
+   }
+
+   /**
+    * Frames the message using the framing negotiated with the hub.
+    */
+   public byte[] serialize(HubMessage message) {
+      return isBinaryFraming() ? BINARY_FRAMING.serialize(message) : JSON_FRAMING.serialize(message);
+   }
+
+   public void sendMessage(HubMessage message) {
+      sendMessage(serialize(message));
+   }
+
    public State getState() {
       return state;
    }
@@ -18,6 +18,7 @@
  */
 package com.iris.hubcom.server.session;
 
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -75,8 +76,21 @@ public class HubSessionRegistry extends DefaultSessionRegistryImpl {
    private long cellbackupDumpStartDelay = 1;
    @Inject(optional = true) @Named("hub.cellbackup.dump.interval.mins")
    private int cellbackupIntervalMins = 5;
+   /**
+    * Only read messages from the partitions of hubs connected to this node, this
+    * requires every sender to have {@code kafka.partition.by.hub} enabled.
+    */
+   @Inject(optional = true) @Named("hub.partition.affinity")
+   private boolean partitionAffinity = false;
+   @Inject(optional = true) @Named("hub.partition.affinity.refreshMs")
+   private long partitionAffinityRefreshMs = TimeUnit.SECONDS.toMillis(30);
 
    private final AtomicInteger nextHeartbeatPartition = new AtomicInteger(0);
+   // partitions with a hub connected to this node, a partition is added as soon as a
+   // hub connects and only removed by refreshLocalPartitions, so there is never a window
+   // where messages for a connected hub are dropped
+   private final Object localPartitionsLock = new Object();
+   private volatile BitSet localPartitions = new BitSet();
    private final Timer heartbeatTimer;
    private final HubDAO hubDao;
 
@@ -116,6 +130,9 @@ public class HubSessionRegistry extends DefaultSessionRegistryImpl {
             TimeUnit.MILLISECONDS.convert(cellbackupDumpStartDelay, TimeUnit.SECONDS),
             TimeUnit.MILLISECONDS.convert(cellbackupIntervalMins, TimeUnit.MINUTES),
             TimeUnit.MILLISECONDS);
+      if(partitionAffinity) {
+         executor.scheduleWithFixedDelay(() -> refreshLocalPartitions(), partitionAffinityRefreshMs, partitionAffinityRefreshMs, TimeUnit.MILLISECONDS);
+      }
    }
 
    @PreDestroy
@@ -124,6 +141,55 @@ public class HubSessionRegistry extends DefaultSessionRegistryImpl {
       cellDumpExecutor.shutdownNow();
    }
 
+   @Override
+   public void putSession(Session session) {
+      super.putSession(session);
+      PlatformPartition partition = getHubPartition(session);
+      if(partition == null) {
+         return;
+      }
+      // the check must be made under the lock so it can't race with refreshLocalPartitions
+      synchronized(localPartitionsLock) {
+         if(!localPartitions.get(partition.getId())) {
+            BitSet updated = (BitSet) localPartitions.clone();
+            updated.set(partition.getId());
+            localPartitions = updated;
+         }
+      }
+   }
+
+   public boolean isPartitionAffinity() {
+      return partitionAffinity;
+   }
+
+   public void setPartitionAffinity(boolean partitionAffinity) {
+      this.partitionAffinity = partitionAffinity;
+   }
+
+   /**
+    * Determines whether messages on the given partition may be addressed to a hub
+    * connected to this node, always true when partition affinity is disabled.
+    */
+   public boolean isLocalPartition(@Nullable PlatformPartition partition) {
+      return !partitionAffinity || partition == null || localPartitions.get(partition.getId());
+   }
+
+   /**
+    * Drops partitions which no longer have any hubs connected to this node.
+    */
+   public void refreshLocalPartitions() {
+      synchronized(localPartitionsLock) {
+         BitSet updated = new BitSet(partitioner.getPartitionCount());
+         for(Session session: getSessions()) {
+            PlatformPartition partition = getHubPartition(session);
+            if(partition != null) {
+               updated.set(partition.getId());
+            }
+         }
+         localPartitions = updated;
+      }
+   }
+
    public void heartbeat() {
       try(Timer.Context timer = heartbeatTimer.time()) {
          Map<PlatformPartition, Set<String>> connectedHubs = new LinkedHashMap<>(2 * partitionsPerHeartbeat);
@@ -153,6 +219,20 @@ public class HubSessionRegistry extends DefaultSessionRegistryImpl {
       hubDao.insertCellBackupTimes(Calendar.getInstance(), hubsOnCell, cellbackupIntervalMins);
    }
 
+   @Nullable
+   private PlatformPartition getHubPartition(Session session) {
+      if(!(session instanceof HubSession)) {
+         return null;
+      }
+      try {
+         // messages to hubs are partitioned by hub id, see kafka.partition.by.hub
+         return partitioner.getPartitionForHubId(((HubSession) session).getHubId());
+      }
+      catch(IllegalArgumentException e) {
+         return null;
+      }
+   }
+
    private void accumulate(@Nullable PlatformPartition partition, String hubId, Map<PlatformPartition, Set<String>> connectedHubs) {
       if(partition == null) {
          return;
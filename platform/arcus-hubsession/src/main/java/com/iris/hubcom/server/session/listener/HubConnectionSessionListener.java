@@ -107,9 +107,7 @@ public class HubConnectionSessionListener extends HubSessionAdapter {
       PlatformMessage msg = PlatformMessage.buildRequest(body, Address.platformService(PlatformConstants.SERVICE_HUB), Address.hubService(session.getHubId(), "hub")).create();
 
       byte[] payload = JSON.createSerializer(PlatformMessage.class).serialize(msg);
-      byte[] message = JSON.createSerializer(HubMessage.class).serialize(HubMessage.createPlatform(payload));
-
-      session.sendMessage(message);
+      session.sendMessage(HubMessage.createPlatform(payload));
    }
 
    /* (non-Javadoc)
@@ -20,6 +20,7 @@ package com.iris.core.messaging;
 
 import java.util.Set;
 
+import com.google.common.base.Predicate;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.iris.messages.address.AddressMatcher;
 import com.iris.platform.partition.PlatformPartition;
@@ -35,6 +36,20 @@ public interface MessageBus<M> {
    public ListenableFuture<Void> send(PlatformPartition partition, M message);
    
    public Subscription addMessageListener(Set<AddressMatcher> matcher, MessageListener<M> listener);
+
+   /**
+    * Add listener that is only interested in messages on some partitions.  Buses
+    * which know the partition before a message is decoded may skip decoding
+    * messages on partitions no listener is interested in, the default implementation
+    * ignores the partition filter.
+    * @param matcher
+    * @param partitions
+    * @param listener
+    * @return
+    */
+   public default Subscription addMessageListener(Set<AddressMatcher> matcher, Predicate<? super PlatformPartition> partitions, MessageListener<M> listener) {
+      return addMessageListener(matcher, listener);
+   }
    
    /**
     * Add listener that listens on broadcast messages based on the message's source field.
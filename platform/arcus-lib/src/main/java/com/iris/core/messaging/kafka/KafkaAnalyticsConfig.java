@@ -24,6 +24,13 @@ public class KafkaAnalyticsConfig extends AbstractKafkaConfig {
    private String topicAnalyticsTags = "tags";
    @Inject(optional = true) @Named("analytics.kafka.message.timeout")
    private long messageTimeoutMs = 0;
+   @Inject(optional = true) @Named("analytics.kafka.lazy.payload")
+   private boolean lazyPayload = false;
+   // must match the gson setting so lazy and eager decoding treat expired messages the same
+   @Inject(optional = true) @Named("gson.serialize.optimize.expired.default.ttl")
+   private int optimizeExpiredDefaultTtl = 0;
+   @Inject(optional = true) @Named("analytics.kafka.binary")
+   private boolean binary = false;
 
 	@Inject
 	public KafkaAnalyticsConfig(ConfigurationProvider configProvider) {
@@ -47,6 +54,38 @@ public class KafkaAnalyticsConfig extends AbstractKafkaConfig {
 		this.messageTimeoutMs = messageTimeoutMs;
 	}
 
+	/**
+	 * When enabled only the envelope of analytics messages is decoded when
+	 * they are read, the payload is deserialized on first access.
+	 */
+	public boolean isLazyPayload() {
+		return lazyPayload;
+	}
+
+	public void setLazyPayload(boolean lazyPayload) {
+		this.lazyPayload = lazyPayload;
+	}
+
+	public int getOptimizeExpiredDefaultTtl() {
+		return optimizeExpiredDefaultTtl;
+	}
+
+	public void setOptimizeExpiredDefaultTtl(int optimizeExpiredDefaultTtl) {
+		this.optimizeExpiredDefaultTtl = optimizeExpiredDefaultTtl;
+	}
+
+	/**
+	 * When enabled analytics messages are written using the compact binary
+	 * format, consumers always accept both binary and JSON.
+	 */
+	public boolean isBinary() {
+		return binary;
+	}
+
+	public void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
 	@Override
 	protected String getDefaultBootstrapServers() {
 		return "kafka.eyeris:9092";
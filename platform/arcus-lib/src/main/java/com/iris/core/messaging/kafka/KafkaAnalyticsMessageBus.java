@@ -17,7 +17,6 @@ package com.iris.core.messaging.kafka;
 
 import com.google.inject.Inject;
 import com.iris.core.platform.AnalyticsMessageBus;
-import com.iris.io.json.JSON;
 import com.iris.messages.PlatformMessage;
 import com.iris.messages.address.Address;
 import com.iris.messages.address.AddressMatcher;
@@ -38,8 +37,8 @@ public class KafkaAnalyticsMessageBus extends KafkaMessageBus<PlatformMessage, K
 				dispatcher,
 				config,
 				partitioner,
-				JSON.createSerializer(PlatformMessage.class),
-				JSON.createDeserializer(PlatformMessage.class)
+				createPlatformMessageSerializer(config.isBinary()),
+				createPlatformMessageDeserializer(config.isLazyPayload(), config.getOptimizeExpiredDefaultTtl())
 				);
 	}
 
@@ -48,6 +48,15 @@ public class KafkaConfig extends AbstractKafkaConfig {
    private String topicPlatform = "platform";
    @Named("kafka.topic.intraservice") @Inject(optional = true)
    private String topicIntraService = "intraservice";
+   @Named("kafka.platform.lazy.payload") @Inject(optional = true)
+   private boolean platformLazyPayload = false;
+   // must match the gson setting so lazy and eager decoding treat expired messages the same
+   @Named("gson.serialize.optimize.expired.default.ttl") @Inject(optional = true)
+   private int optimizeExpiredDefaultTtl = 0;
+   @Named("kafka.platform.binary") @Inject(optional = true)
+   private boolean platformBinary = false;
+   @Named("kafka.partition.by.hub") @Inject(optional = true)
+   private boolean partitionByHub = false;
 
    private Map<String, String> topicProtocols;
    private Map<String, String> topicServices;
@@ -155,6 +164,54 @@ public class KafkaConfig extends AbstractKafkaConfig {
       return this;
    }
 
+   /**
+    * When enabled only the envelope of platform messages is decoded when
+    * they are read, the payload is deserialized on first access.
+    */
+   public boolean isPlatformLazyPayload() {
+      return platformLazyPayload;
+   }
+
+   public KafkaConfig setPlatformLazyPayload(boolean platformLazyPayload) {
+      this.platformLazyPayload = platformLazyPayload;
+      return this;
+   }
+
+   public int getOptimizeExpiredDefaultTtl() {
+      return optimizeExpiredDefaultTtl;
+   }
+
+   public KafkaConfig setOptimizeExpiredDefaultTtl(int optimizeExpiredDefaultTtl) {
+      this.optimizeExpiredDefaultTtl = optimizeExpiredDefaultTtl;
+      return this;
+   }
+
+   /**
+    * When enabled platform messages are written using the compact binary
+    * format, consumers always accept both binary and JSON.
+    */
+   public boolean isPlatformBinary() {
+      return platformBinary;
+   }
+
+   public KafkaConfig setPlatformBinary(boolean platformBinary) {
+      this.platformBinary = platformBinary;
+      return this;
+   }
+
+   /**
+    * When enabled platform and protocol messages addressed to a hub are
+    * partitioned by the hub id instead of the place id.
+    */
+   public boolean isPartitionByHub() {
+      return partitionByHub;
+   }
+
+   public KafkaConfig setPartitionByHub(boolean partitionByHub) {
+      this.partitionByHub = partitionByHub;
+      return this;
+   }
+
    public Map<String, String> getTopicServices() {
       return this.topicServices;
    }
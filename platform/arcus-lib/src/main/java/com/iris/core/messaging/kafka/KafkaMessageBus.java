@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Timer;
+import com.google.common.base.Predicate;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
@@ -35,6 +36,10 @@ import com.iris.core.messaging.MessageListener;
 import com.iris.core.messaging.kafka.KafkaMessageSender.MessageTooBigException;
 import com.iris.io.Deserializer;
 import com.iris.io.Serializer;
+import com.iris.io.binary.BinaryPlatformMessageDeserializer;
+import com.iris.io.binary.BinaryPlatformMessageSerializer;
+import com.iris.io.json.JSON;
+import com.iris.io.json.gson.LazyPlatformMessageDeserializer;
 import com.iris.messages.Message;
 import com.iris.messages.PlatformMessage;
 import com.iris.messages.address.Address;
@@ -50,6 +55,30 @@ public abstract class KafkaMessageBus<M extends Message, C extends AbstractKafka
    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaMessageBus.class);
    private static final String ERROR_BIGASS_MESSAGE = "message.oversized";
 
+   /**
+    * Creates the serializer for a bus carrying {@link PlatformMessage}s, only enable
+    * {@code binary} once every consumer of the topic is able to read the binary format.
+    */
+   protected static Serializer<PlatformMessage> createPlatformMessageSerializer(boolean binary) {
+      return binary ? new BinaryPlatformMessageSerializer() : JSON.createSerializer(PlatformMessage.class);
+   }
+
+   /**
+    * Creates the deserializer for a bus carrying {@link PlatformMessage}s, when
+    * {@code lazyPayload} is set only the envelope is parsed before the message
+    * reaches the {@link TopicFilter}, so dropped messages never decode their payload.
+    * {@code optimizeExpiredDefaultTtl} must match the JSON deserializer's
+    * {@code gson.serialize.optimize.expired.default.ttl} so expired messages are
+    * handled the same either way.  Both the JSON and binary formats are always accepted.
+    */
+   protected static Deserializer<PlatformMessage> createPlatformMessageDeserializer(boolean lazyPayload, long optimizeExpiredDefaultTtl) {
+      Deserializer<PlatformMessage> deserializer = JSON.createDeserializer(PlatformMessage.class);
+      if(lazyPayload) {
+         deserializer = new LazyPlatformMessageDeserializer(deserializer, optimizeExpiredDefaultTtl);
+      }
+      return new BinaryPlatformMessageDeserializer(deserializer, lazyPayload);
+   }
+
    private final KafkaMetrics metrics;
    private final KafkaMessageSender sender;
    private final KafkaDispatcher dispatcher;
@@ -99,6 +128,9 @@ public abstract class KafkaMessageBus<M extends Message, C extends AbstractKafka
    @SuppressWarnings("unchecked") // there is an instanceof check in the if expression that guarantees M is a PlatformMessage
 	@Override
    public ListenableFuture<Void> send(@Nullable PlatformPartition partition, M message) {
+      if(isPartitionedByHub()) {
+         partition = getHubPartition(partition, message);
+      }
       if(partition == null) {
          LOGGER.warn("Sending message without a partition, this message may not be processed by clustered nodes");
       }
@@ -159,6 +191,26 @@ public abstract class KafkaMessageBus<M extends Message, C extends AbstractKafka
       };      
       return createSubscriptionsFromTopics(topics, l);
    }
+
+   @Override
+   public Subscription addMessageListener(
+         final Set<AddressMatcher> matchers,
+         final Predicate<? super PlatformPartition> partitions,
+         final MessageListener<M> listener
+   ) {
+      Set<String> topics = getTopics(matchers);
+      MessageListener<M> l = new MessageListener<M>() {
+         @Override
+         public void onMessage(M message) {
+            dispatchMessage(message, message.getDestination(), matchers, listener);
+         }
+      };
+      List<Subscription> subscriptions = new ArrayList<>(topics.size());
+      for(String topic: topics) {
+         subscriptions.add(cache.getUnchecked(topic).addMessageListener(l, partitions));
+      }
+      return Subscriptions.marshal(subscriptions);
+   }
    
    @Override
    public Subscription addBroadcastMessageListener(
@@ -212,6 +264,31 @@ public abstract class KafkaMessageBus<M extends Message, C extends AbstractKafka
    protected C getConfig() {
       return config;
    }
+
+   /**
+    * When enabled messages addressed to a hub are sent on the hub's partition
+    * rather than the place's, so that a hub-bridge only needs to read the partitions
+    * of the hubs connected to it.  This must be enabled on every sender before
+    * a consumer relies on it.
+    */
+   protected boolean isPartitionedByHub() {
+      return false;
+   }
+
+   @Nullable
+   private PlatformPartition getHubPartition(@Nullable PlatformPartition partition, M message) {
+      Address destination = message.getDestination();
+      if(destination == null || !destination.isHubAddress() || destination.getHubId() == null) {
+         return partition;
+      }
+      try {
+         return partitioner.getPartitionForHubId(destination.getHubId());
+      }
+      catch(IllegalArgumentException e) {
+         LOGGER.debug("Unable to partition message for hub [{}]", destination.getHubId(), e);
+         return partition;
+      }
+   }
    
    protected TopicFilter<PlatformPartition, M> registerTopicFilter(String topic) {
       MessageTopicFilter<M> filter = new MessageTopicFilter<>(metrics, getConfig(topic), deserializer);
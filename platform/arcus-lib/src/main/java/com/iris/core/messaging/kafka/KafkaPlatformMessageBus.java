@@ -22,7 +22,6 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.iris.core.platform.PlatformMessageBus;
-import com.iris.io.json.JSON;
 import com.iris.messages.MessageConstants;
 import com.iris.messages.PlatformMessage;
 import com.iris.messages.address.Address;
@@ -49,9 +48,8 @@ public class KafkaPlatformMessageBus extends KafkaMessageBus<PlatformMessage, Ka
 	         dispatcher,
 	         config,
 	         partitioner,
-	         // TODO switch to binary serializer
-	         JSON.createSerializer(PlatformMessage.class),
-	         JSON.createDeserializer(PlatformMessage.class)
+	         createPlatformMessageSerializer(config.isPlatformBinary()),
+	         createPlatformMessageDeserializer(config.isPlatformLazyPayload(), config.getOptimizeExpiredDefaultTtl())
    	);
    }
 	
@@ -73,6 +71,11 @@ public class KafkaPlatformMessageBus extends KafkaMessageBus<PlatformMessage, Ka
       return getTopic(address.getNamespace(), address.getGroup(), address.getId(), address.isHubAddress());
    }
 
+   @Override
+   protected boolean isPartitionedByHub() {
+      return getConfig().isPartitionByHub();
+   }
+
    @Override
    protected boolean isLogged() {
       return true;
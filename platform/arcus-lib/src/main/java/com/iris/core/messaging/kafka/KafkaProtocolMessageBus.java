@@ -126,6 +126,11 @@ public class KafkaProtocolMessageBus extends KafkaMessageBus<ProtocolMessage, Ka
       }
    }
 
+   @Override
+   protected boolean isPartitionedByHub() {
+      return getConfig().isPartitionByHub();
+   }
+
    @Override
    protected boolean isLogged() {
       return false;
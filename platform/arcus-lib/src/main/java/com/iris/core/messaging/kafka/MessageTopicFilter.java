@@ -123,6 +123,16 @@ public class MessageTopicFilter<M extends Message>
       return true;
    }
 
+   @Override
+   protected boolean isInterested(PlatformPartition key) {
+      if(super.isInterested(key)) {
+         return true;
+      }
+      logger.trace("Dropping message for partition with no interested listeners");
+      metrics.discard(key);
+      return false;
+   }
+
    @Override
    public void onPartitionsChanged(PartitionChangedEvent event) {
       Preconditions.checkNotNull(event);
@@ -134,9 +144,9 @@ public class MessageTopicFilter<M extends Message>
     * @see com.iris.core.messaging.kafka.TopicFilter#deliver(java.lang.Object)
     */
    @Override
-   protected void deliver(M message) {
+   protected void deliver(PlatformPartition key, M message) {
       try(MdcContextReference c = MdcContext.captureMdcContext()) {
-         super.deliver(message);
+         super.deliver(key, message);
       }
    }
 }
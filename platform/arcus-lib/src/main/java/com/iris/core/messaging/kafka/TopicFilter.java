@@ -25,6 +25,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicate;
 import com.iris.core.messaging.MessageListener;
 import com.iris.io.Deserializer;
 import com.iris.util.Subscription;
@@ -39,6 +40,8 @@ public class TopicFilter<K, M> implements MessageListener<ConsumerRecord<K, byte
 
    private final Deserializer<M> messageDeserializer;
    private final ConcurrentLinkedQueue<MessageListener<? super M>> listeners = new ConcurrentLinkedQueue<>();
+   // listeners which are only interested in some keys
+   private final ConcurrentLinkedQueue<KeyFilteredListener<K, M>> keyFilteredListeners = new ConcurrentLinkedQueue<>();
    private final String name;
    private final long defaultTimeoutMs;
    private final boolean forceAllStrategy; // we want this topic filter to listen to all partitions regardless of the singleton partitioner configuration
@@ -106,12 +109,15 @@ public class TopicFilter<K, M> implements MessageListener<ConsumerRecord<K, byte
       if (!acceptKey(key)) {
          return;
       }
+      if (!isInterested(key)) {
+         return;
+      }
 
       M payload = deserializeMessage(record.value());
       if (!acceptMessage(payload)) {
          return;
       }
-      deliver(payload);
+      deliver(key, payload);
    }
 
    public Subscription addMessageListener(MessageListener<? super M> listener) {
@@ -119,18 +125,53 @@ public class TopicFilter<K, M> implements MessageListener<ConsumerRecord<K, byte
       return () -> listeners.remove(listener);
    }
 
-   protected void deliver(M message) {
-      for (MessageListener<? super M> listener : listeners) {
-         try {
-            logger.trace("Dispatching message [{}] to [{}]", message, listener);
-            listener.onMessage(message);
+   /**
+    * Adds a listener which only receives messages whose key matches {@code keys}, when
+    * no listener is interested in a key the message is dropped without being deserialized.
+    * Messages with a {@code null} key are delivered to every listener.
+    */
+   public Subscription addMessageListener(MessageListener<? super M> listener, Predicate<? super K> keys) {
+      KeyFilteredListener<K, M> filtered = new KeyFilteredListener<>(listener, keys);
+      this.keyFilteredListeners.add(filtered);
+      return () -> keyFilteredListeners.remove(filtered);
+   }
+
+   /**
+    * Determines if any listener is interested in messages with the given key.
+    */
+   protected boolean isInterested(@Nullable K key) {
+      if (key == null || !listeners.isEmpty()) {
+         return true;
+      }
+      for (KeyFilteredListener<K, M> filtered : keyFilteredListeners) {
+         if (filtered.keys.apply(key)) {
+            return true;
          }
-         catch (Exception e) {
-            logger.warn("Error sending message to callback", e);
+      }
+      return false;
+   }
+
+   protected void deliver(@Nullable K key, M message) {
+      for (MessageListener<? super M> listener : listeners) {
+         dispatch(listener, message);
+      }
+      for (KeyFilteredListener<K, M> filtered : keyFilteredListeners) {
+         if (key == null || filtered.keys.apply(key)) {
+            dispatch(filtered.listener, message);
          }
       }
    }
 
+   private void dispatch(MessageListener<? super M> listener, M message) {
+      try {
+         logger.trace("Dispatching message [{}] to [{}]", message, listener);
+         listener.onMessage(message);
+      }
+      catch (Exception e) {
+         logger.warn("Error sending message to callback", e);
+      }
+   }
+
    @Override
    public String toString() {
       return "TopicFilter [name=" + name + ", defaultTimeoutMs=" + defaultTimeoutMs + ", forceAllStrategy=" + forceAllStrategy + ", totalPartitionCount=" + totalPartitionCount + "]";
@@ -178,5 +219,15 @@ public class TopicFilter<K, M> implements MessageListener<ConsumerRecord<K, byte
       return true;
    }
 
+   private static final class KeyFilteredListener<K, M> {
+      private final MessageListener<? super M> listener;
+      private final Predicate<? super K> keys;
+
+      KeyFilteredListener(MessageListener<? super M> listener, Predicate<? super K> keys) {
+         this.listener = listener;
+         this.keys = keys;
+      }
+   }
+
 }
 
@@ -15,6 +15,7 @@
  */
 package com.iris.core.protocol.ipcd;
 
+import java.util.Collection;
 import java.util.UUID;
 import java.util.stream.Stream;
 
@@ -49,5 +50,15 @@ public interface IpcdDeviceDao {
    void forceRegistration(String protocolAddress, UUID accountId, UUID placeId, String driverAddress);
    void delete(String protocolAddress, UUID placeId);
    void offline(String protocolAddress);
+
+   /**
+    * Marks all the given devices offline.  Implementations may issue the updates concurrently,
+    * if any of them fail the rest are still attempted and the first failure is thrown.
+    */
+   default void offline(Collection<String> protocolAddresses) {
+      for(String protocolAddress: protocolAddresses) {
+         offline(protocolAddress);
+      }
+   }
 }
 
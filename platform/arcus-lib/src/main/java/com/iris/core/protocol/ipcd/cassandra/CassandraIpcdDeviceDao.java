@@ -15,7 +15,10 @@
  */
 package com.iris.core.protocol.ipcd.cassandra;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -26,6 +29,7 @@ import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ColumnDefinitions;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
 import com.google.common.base.Objects;
@@ -46,6 +50,8 @@ import com.iris.protocol.ipcd.message.model.Device;
 
 @Singleton
 public class CassandraIpcdDeviceDao implements IpcdDeviceDao {
+   private static final int MAX_CONCURRENT_OFFLINE = 100;
+
    private final Session session;
    private final PreparedStatement findById;
    private final PreparedStatement update;
@@ -342,6 +348,43 @@ public class CassandraIpcdDeviceDao implements IpcdDeviceDao {
       session.execute(stmt);
    }
 
+   /**
+    * The offline update is conditional so these can't be combined into a batch, instead
+    * they are sent concurrently, at most {@link #MAX_CONCURRENT_OFFLINE} at a time.
+    */
+   @Override
+   public void offline(Collection<String> protocolAddresses) {
+      RuntimeException failure = null;
+      List<ResultSetFuture> results = new ArrayList<>(Math.min(protocolAddresses.size(), MAX_CONCURRENT_OFFLINE));
+      for(String protocolAddress: protocolAddresses) {
+         BoundStatement stmt = new BoundStatement(offline);
+         stmt.bind(IpcdDevice.ConnState.OFFLINE.name(), protocolAddress);
+         results.add(session.executeAsync(stmt));
+         if(results.size() >= MAX_CONCURRENT_OFFLINE) {
+            failure = await(results, failure);
+         }
+      }
+      failure = await(results, failure);
+      if(failure != null) {
+         throw failure;
+      }
+   }
+
+   private static RuntimeException await(List<ResultSetFuture> results, RuntimeException failure) {
+      for(ResultSetFuture result: results) {
+         try {
+            result.getUninterruptibly();
+         }
+         catch(RuntimeException e) {
+            if(failure == null) {
+               failure = e;
+            }
+         }
+      }
+      results.clear();
+      return failure;
+   }
+
    private void parseOptimisticResult(ResultSet rs, String protocolAddress, UUID requiredPlace) throws IpcdDaoException {
       // not applied could imply that the device doesn't exist or the place didn't match
       if(!rs.wasApplied()) {
@@ -58,6 +58,23 @@ public class HistoryAppenderConfig {
 
    @Inject(optional=true) @Named("history.activity.bucket.sizesec")
    private int activityBucketSizeSec = 5;
+
+   @Inject(optional=true) @Named("history.writer.async")
+   private boolean asyncWrites = true;
+   @Inject(optional=true) @Named("history.writer.queuesize")
+   private int writeQueueSize = 10000;
+   @Inject(optional=true) @Named("history.writer.inflight.max")
+   private int maxInFlightWrites = 64;
+   @Inject(optional=true) @Named("history.writer.batch.max")
+   private int maxWriteBatchSize = 20;
+   @Inject(optional=true) @Named("history.writer.shutdown.timeoutms")
+   private long writerShutdownTimeoutMs = 30000;
+   @Inject(optional=true) @Named("history.writer.queue.timeoutms")
+   private long writeQueueTimeoutMs = 5000;
+   @Inject(optional=true) @Named("history.writer.retry.max")
+   private int maxWriteRetries = 3;
+   @Inject(optional=true) @Named("history.writer.retry.backoffms")
+   private long writeRetryBackoffMs = 100;
    
    /**
     * @return the maxThreads
@@ -165,5 +182,92 @@ public class HistoryAppenderConfig {
    public void setDetailedAlarmTtlHours(int detailedAlarmTtlHours) {
       this.detailedAlarmTtlHours = detailedAlarmTtlHours;
    }
-}
 
+   /**
+    * @return whether history rows are written asynchronously, in batches
+    */
+   public boolean isAsyncWrites() {
+      return asyncWrites;
+   }
+
+   public void setAsyncWrites(boolean asyncWrites) {
+      this.asyncWrites = asyncWrites;
+   }
+
+   /**
+    * @return the maximum number of rows waiting to be written before appends block
+    */
+   public int getWriteQueueSize() {
+      return writeQueueSize;
+   }
+
+   public void setWriteQueueSize(int writeQueueSize) {
+      this.writeQueueSize = writeQueueSize;
+   }
+
+   /**
+    * @return the maximum number of statements / batches executing at once
+    */
+   public int getMaxInFlightWrites() {
+      return maxInFlightWrites;
+   }
+
+   public void setMaxInFlightWrites(int maxInFlightWrites) {
+      this.maxInFlightWrites = maxInFlightWrites;
+   }
+
+   /**
+    * @return the maximum number of rows for the same partition combined into one batch
+    */
+   public int getMaxWriteBatchSize() {
+      return maxWriteBatchSize;
+   }
+
+   public void setMaxWriteBatchSize(int maxWriteBatchSize) {
+      this.maxWriteBatchSize = maxWriteBatchSize;
+   }
+
+   /**
+    * @return how long to wait for queued rows to be written on shutdown
+    */
+   public long getWriterShutdownTimeoutMs() {
+      return writerShutdownTimeoutMs;
+   }
+
+   public void setWriterShutdownTimeoutMs(long writerShutdownTimeoutMs) {
+      this.writerShutdownTimeoutMs = writerShutdownTimeoutMs;
+   }
+
+   /**
+    * @return how long an append waits for room in the queue before writing the row directly
+    */
+   public long getWriteQueueTimeoutMs() {
+      return writeQueueTimeoutMs;
+   }
+
+   public void setWriteQueueTimeoutMs(long writeQueueTimeoutMs) {
+      this.writeQueueTimeoutMs = writeQueueTimeoutMs;
+   }
+
+   /**
+    * @return how many times a failed statement / batch is retried before its rows are given up on
+    */
+   public int getMaxWriteRetries() {
+      return maxWriteRetries;
+   }
+
+   public void setMaxWriteRetries(int maxWriteRetries) {
+      this.maxWriteRetries = maxWriteRetries;
+   }
+
+   /**
+    * @return the delay before the first retry of a failed write, doubled on each subsequent retry
+    */
+   public long getWriteRetryBackoffMs() {
+      return writeRetryBackoffMs;
+   }
+
+   public void setWriteRetryBackoffMs(long writeRetryBackoffMs) {
+      this.writeRetryBackoffMs = writeRetryBackoffMs;
+   }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.history.cassandra;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
+import com.iris.platform.history.HistoryAppenderConfig;
+
+/**
+ * Bounded, asynchronous write pipeline for the history tables.
+ * 
+ * Statements are queued and executed by a single writer thread using
+ * {@link Session#executeAsync(Statement)}.  Statements that target the same
+ * partition are combined into an unlogged batch.  When the queue is full
+ * {@link #write(Object, Statement, Timer)} blocks for up to
+ * {@link HistoryAppenderConfig#getWriteQueueTimeoutMs()} and then writes the
+ * row directly, either way slowing down consumption, and the number of requests
+ * outstanding against Cassandra is limited to
+ * {@link HistoryAppenderConfig#getMaxInFlightWrites()}.
+ * 
+ * Failed statements are retried with exponential backoff up to
+ * {@link HistoryAppenderConfig#getMaxWriteRetries()} times while still holding
+ * their in-flight permit, rows which still fail after that are logged and
+ * counted as failed, the same as a failed synchronous write.
+ * 
+ * On shutdown any queued rows are written out before the session is closed,
+ * rows appended after shutdown, or if the writer thread has died, are written
+ * synchronously.
+ */
+@Singleton
+public class AsyncHistoryWriter {
+   private static final Logger logger = LoggerFactory.getLogger(AsyncHistoryWriter.class);
+   private static final int MAX_DRAIN = 1000;
+
+   private final Session session;
+   private final int maxBatchSize;
+   private final int maxInFlight;
+   private final long shutdownTimeoutMs;
+   private final long queueTimeoutMs;
+   private final int maxRetries;
+   private final long retryBackoffMs;
+   private final BlockingQueue<PendingWrite> queue;
+   private final Semaphore inFlight;
+   private final Thread writer;
+   private final ScheduledExecutorService retries;
+   private volatile boolean running = true;
+
+   private final Timer lag;
+   private final Meter written;
+   private final Meter batched;
+   private final Meter retried;
+   private final Meter direct;
+   private final Meter failed;
+
+   @Inject
+   public AsyncHistoryWriter(
+         @Named(CassandraHistory.NAME) Session session,
+         HistoryAppenderConfig config
+   ) {
+      this.session = session;
+      this.maxBatchSize = Math.max(1, config.getMaxWriteBatchSize());
+      this.maxInFlight = Math.max(1, config.getMaxInFlightWrites());
+      this.shutdownTimeoutMs = config.getWriterShutdownTimeoutMs();
+      this.queueTimeoutMs = Math.max(0, config.getWriteQueueTimeoutMs());
+      this.maxRetries = Math.max(0, config.getMaxWriteRetries());
+      this.retryBackoffMs = Math.max(1, config.getWriteRetryBackoffMs());
+      this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getWriteQueueSize()));
+      this.inFlight = new Semaphore(maxInFlight);
+
+      IrisMetricSet metrics = IrisMetrics.metrics("history.writer");
+      this.lag = metrics.timer("lag");
+      this.written = metrics.meter("written");
+      this.batched = metrics.meter("batched");
+      this.retried = metrics.meter("retried");
+      this.direct = metrics.meter("direct");
+      this.failed = metrics.meter("failed");
+      metrics.gauge("queued", (Gauge<Integer>) () -> queue.size());
+      metrics.gauge("inflight", (Gauge<Integer>) () -> maxInFlight - inFlight.availablePermits());
+
+      this.writer = new Thread(this::run, "history-writer");
+      this.writer.setDaemon(true);
+      this.retries = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("history-writer-retry").setDaemon(true).build()
+      );
+      this.writer.start();
+   }
+
+   /**
+    * Queues the statement to be written, blocking if the queue is full.  If there
+    * is still no room after the queue timeout the statement is executed directly.
+    * @param partitionKey
+    *    Identifies the table and partition the statement writes to, statements
+    *    with equal keys may be sent together in an unlogged batch
+    * @param statement
+    *    The statement to execute
+    * @param timer
+    *    Optional, updated with how long the statement took to execute
+    */
+   public void write(Object partitionKey, Statement statement, @Nullable Timer timer) {
+      PendingWrite write = new PendingWrite(partitionKey, statement, timer);
+      if(running && writer.isAlive()) {
+         try {
+            if(queue.offer(write, queueTimeoutMs, TimeUnit.MILLISECONDS)) {
+               return;
+            }
+            direct.mark();
+         }
+         catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      // shutting down, writer stopped, backed up or interrupted, don't lose the row
+      long startNs = System.nanoTime();
+      boolean success = false;
+      try {
+         session.execute(statement);
+         success = true;
+      }
+      finally {
+         write.complete(success, System.nanoTime() - startNs);
+      }
+   }
+
+   public int getQueuedWrites() {
+      return queue.size();
+   }
+
+   public int getInFlightWrites() {
+      return maxInFlight - inFlight.availablePermits();
+   }
+
+   /**
+    * Stops accepting new writes into the queue and waits for all queued and
+    * in-flight writes to finish, up to the configured shutdown timeout.
+    */
+   @PreDestroy
+   public void close() {
+      running = false;
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+      try {
+         writer.join(Math.max(1, shutdownTimeoutMs));
+         // anything that raced with the writer exiting
+         PendingWrite write;
+         while(!writer.isAlive() && (write = queue.poll()) != null) {
+            long startNs = System.nanoTime();
+            try {
+               session.execute(write.statement);
+               write.complete(true, System.nanoTime() - startNs);
+            }
+            catch(RuntimeException e) {
+               onFailure(Collections.singletonList(write), e, System.nanoTime() - startNs);
+            }
+         }
+         long remainingNs = Math.max(0, deadline - System.nanoTime());
+         // retries still hold their permit, so this waits for them as well
+         if(!inFlight.tryAcquire(maxInFlight, remainingNs, TimeUnit.NANOSECONDS)) {
+            logger.warn("Timed out waiting for history writes to complete, [{}] queued, [{}] in-flight may be lost", queue.size(), getInFlightWrites());
+         }
+         else {
+            inFlight.release(maxInFlight);
+         }
+      }
+      catch(InterruptedException e) {
+         Thread.currentThread().interrupt();
+         logger.warn("Interrupted waiting for history writes to complete, [{}] queued, [{}] in-flight may be lost", queue.size(), getInFlightWrites());
+      }
+      finally {
+         retries.shutdownNow();
+      }
+   }
+
+   private void run() {
+      List<PendingWrite> writes = new ArrayList<>();
+      try {
+         while(running || !queue.isEmpty()) {
+            try {
+               PendingWrite first = queue.poll(100, TimeUnit.MILLISECONDS);
+               if(first == null) {
+                  continue;
+               }
+               writes.add(first);
+               queue.drainTo(writes, MAX_DRAIN - 1);
+               submit(writes);
+            }
+            catch(InterruptedException e) {
+               // only close() stops the writer, otherwise appenders would be left
+               // waiting on a queue that nothing drains
+               logger.warn("History writer interrupted, [{}] writes queued", queue.size());
+            }
+            catch(Exception e) {
+               logger.warn("Error writing history", e);
+            }
+            finally {
+               writes.clear();
+            }
+         }
+      }
+      finally {
+         // if the writer dies for any reason new rows are written directly
+         running = false;
+      }
+   }
+
+   private void submit(List<PendingWrite> writes) {
+      Map<Object, List<PendingWrite>> partitions = new LinkedHashMap<>();
+      for(PendingWrite write: writes) {
+         partitions.computeIfAbsent(write.partitionKey, (k) -> new ArrayList<>(2)).add(write);
+      }
+      for(List<PendingWrite> partition: partitions.values()) {
+         for(int i = 0; i < partition.size(); i += maxBatchSize) {
+            execute(partition.subList(i, Math.min(partition.size(), i + maxBatchSize)));
+         }
+      }
+   }
+
+   private void execute(List<PendingWrite> writes) {
+      Statement statement;
+      if(writes.size() == 1) {
+         statement = writes.get(0).statement;
+      }
+      else {
+         BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+         for(PendingWrite write: writes) {
+            batch.add(write.statement);
+         }
+         statement = batch;
+         batched.mark(writes.size());
+      }
+
+      // this is where back-pressure is applied, once the in-flight limit is reached
+      // the queue stops draining and appenders block on write
+      inFlight.acquireUninterruptibly();
+      send(statement, new ArrayList<>(writes), 0);
+   }
+
+   private void send(Statement statement, List<PendingWrite> writes, int attempt) {
+      long startNs = System.nanoTime();
+      ResultSetFuture future;
+      try {
+         future = session.executeAsync(statement);
+      }
+      catch(RuntimeException e) {
+         retryOrFail(statement, writes, attempt, e, System.nanoTime() - startNs);
+         return;
+      }
+      Futures.addCallback(future, new FutureCallback<ResultSet>() {
+         @Override
+         public void onSuccess(ResultSet result) {
+            long elapsedNs = System.nanoTime() - startNs;
+            inFlight.release();
+            for(PendingWrite write: writes) {
+               write.complete(true, elapsedNs);
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            retryOrFail(statement, writes, attempt, t, System.nanoTime() - startNs);
+         }
+      }, MoreExecutors.directExecutor());
+   }
+
+   private void retryOrFail(Statement statement, List<PendingWrite> writes, int attempt, Throwable t, long elapsedNs) {
+      if(attempt < maxRetries) {
+         long delayMs = retryBackoffMs << Math.min(attempt, 16);
+         logger.debug("Unable to write [{}] history rows, retrying in [{}] ms", writes.size(), delayMs, t);
+         try {
+            // keeps the in-flight permit so retries count against the limit
+            retries.schedule(() -> send(statement, writes, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+            retried.mark(writes.size());
+            return;
+         }
+         catch(RejectedExecutionException e) {
+            // shut down
+         }
+      }
+      inFlight.release();
+      onFailure(writes, t, elapsedNs);
+   }
+
+   private void onFailure(List<PendingWrite> writes, Throwable t, long elapsedNs) {
+      logger.warn("Unable to write [{}] history rows", writes.size(), t);
+      for(PendingWrite write: writes) {
+         write.complete(false, elapsedNs);
+      }
+   }
+
+   private class PendingWrite {
+      private final Object partitionKey;
+      private final Statement statement;
+      private final @Nullable Timer timer;
+      private final long queuedNs = System.nanoTime();
+
+      PendingWrite(Object partitionKey, Statement statement, @Nullable Timer timer) {
+         this.partitionKey = partitionKey;
+         this.statement = statement;
+         this.timer = timer;
+      }
+
+      /**
+       * @param success
+       *    Whether the row was written
+       * @param statementNs
+       *    How long the last attempt at the statement or batch containing this row
+       *    took to execute, which is what the per-table timers have always measured
+       */
+      void complete(boolean success, long statementNs) {
+         lag.update(System.nanoTime() - queuedNs, TimeUnit.NANOSECONDS);
+         if(timer != null) {
+            timer.update(statementNs, TimeUnit.NANOSECONDS);
+         }
+         if(success) {
+            written.mark();
+         }
+         else {
+            failed.mark();
+         }
+      }
+   }
+}
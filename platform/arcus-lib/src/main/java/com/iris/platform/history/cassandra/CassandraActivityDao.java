@@ -15,6 +15,7 @@
  */
 package com.iris.platform.history.cassandra;
 
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
@@ -59,12 +60,17 @@ public class CassandraActivityDao implements HistoryActivityDAO {
 	
 	private final int bucketSizeMs;
 	private final long rowTtlMs;
+	private final AsyncHistoryWriter writer;
+	private final boolean asyncWrites;
 	
 	@Inject
 	public CassandraActivityDao(
 			@Named(CassandraHistory.NAME) Session session, 
-			HistoryAppenderConfig config
+			HistoryAppenderConfig config,
+			AsyncHistoryWriter writer
 	) {
+		this.writer = writer;
+		this.asyncWrites = config.isAsyncWrites();
 		this.bucketSizeMs = (int) TimeUnit.SECONDS.toMillis(config.getActivityBucketSizeSec());
 		this.rowTtlMs = TimeUnit.HOURS.toMillis(config.getActivitySubsysTtlHours());
 		this.session = session;
@@ -95,15 +101,20 @@ public class CassandraActivityDao implements HistoryActivityDAO {
 
 	@Override
 	public void append(ActivityEvent event) {
+		Date timeBucket = bucket(event.getTimestamp());
+		BoundStatement bs = upsert.bind(
+				event.getTimestamp().getTime() * 1000,
+				event.getActiveDevices(),
+				event.getInactivateDevices(),
+				event.getPlaceId(),
+				timeBucket
+		);
+		if(asyncWrites) {
+			// each upsert carries its own write timestamp, so order within a batch doesn't matter
+			writer.write(Arrays.asList(TABLE_NAME, event.getPlaceId()), bs, activitySystemLogTimer);
+			return;
+		}
 		try(Context c = activitySystemLogTimer.time()) {
-			Date timeBucket = bucket(event.getTimestamp());
-			BoundStatement bs = upsert.bind(
-					event.getTimestamp().getTime() * 1000,
-					event.getActiveDevices(),
-					event.getInactivateDevices(),
-					event.getPlaceId(),
-					timeBucket
-			);
 			session.execute( bs );
 		}
 	}
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.Timer.Context;
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.google.common.collect.ImmutableList;
@@ -33,6 +34,7 @@ import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import com.iris.core.dao.metrics.DaoMetrics;
 import com.iris.messages.model.CompositeId;
+import com.iris.platform.history.HistoryAppenderConfig;
 import com.iris.platform.history.HistoryAppenderDAO;
 import com.iris.platform.history.HistoryLogEntry;
 import com.iris.platform.history.cassandra.HistoryTable.CriticalPlaceTable;
@@ -67,6 +69,8 @@ public class CassandraHistoryAppenderDao implements HistoryAppenderDAO {
    private final DetailedRuleTable detailedRuleTable;
    private final DetailedSubsystemTable detailedSubsystemTable;
    private final DetailedAlarmTable detailedAlarmTable;
+   private final AsyncHistoryWriter writer;
+   private final boolean asyncWrites;
    
    private final AtomicLong nextId = new AtomicLong(0);
 
@@ -80,7 +84,9 @@ public class CassandraHistoryAppenderDao implements HistoryAppenderDAO {
          DetailedHubTable detailedHubTable,
          DetailedRuleTable detailedRuleTable,
          DetailedSubsystemTable detailedSubsystemTable,
-         DetailedAlarmTable detailedAlarmTable
+         DetailedAlarmTable detailedAlarmTable,
+         AsyncHistoryWriter writer,
+         HistoryAppenderConfig config
       ) {
       this.session = session;
       this.criticalPlaceTable = criticalPlaceTable;
@@ -91,6 +97,8 @@ public class CassandraHistoryAppenderDao implements HistoryAppenderDAO {
       this.detailedRuleTable = detailedRuleTable;
       this.detailedSubsystemTable = detailedSubsystemTable;
       this.detailedAlarmTable = detailedAlarmTable;
+      this.writer = writer;
+      this.asyncWrites = config.isAsyncWrites();
    }
 
    @Override
@@ -108,73 +116,78 @@ public class CassandraHistoryAppenderDao implements HistoryAppenderDAO {
    protected void doAppend(HistoryLogEntry event) {
       List<Object> values = new ArrayList<Object>(HistoryTable.COLUMN_COUNT);
       PreparedStatement stmt;
+      Timer timer;
 
-      Context metricsTimer = null;
-      
-      try{
-         switch (event.getType()) {
-         case CRITICAL_PLACE_LOG:
-            stmt = criticalPlaceTable.insert();
-            values.add(event.getId());
-            metricsTimer = criticalPlaceLogTimer.time();
-            break;
-         case DETAILED_PLACE_LOG:
-            stmt = detailedPlaceTable.insert();
-            values.add(event.getId());
-            metricsTimer = detailedPlaceLogTimer.time(); 
-            break;
-         case DETAILED_PERSON_LOG:
-            stmt = detailedPersonTable.insert();
-            values.add(event.getId());
-            metricsTimer = detailedPersonLogTimer.time();
-            break;
-         case DETAILED_DEVICE_LOG:
-            stmt = detailedDeviceTable.insert();
-            values.add(event.getId());
-            metricsTimer = detailedDeviceLogTimer.time();
-            break;
-         case DETAILED_HUB_LOG:
-             stmt = detailedHubTable.insert();
-             values.add(event.getId());
-             metricsTimer = detailedHubLogTimer.time();
-             break;
-         case DETAILED_RULE_LOG:
-            stmt = detailedRuleTable.insert();
-            CompositeId<UUID, Integer> rid = (CompositeId<UUID, Integer>) event.getId();
-            values.add(rid.getPrimaryId());
-            values.add(rid.getSecondaryId());
-            metricsTimer = detailedRuleLogTimer.time();
-            break;
-         case DETAILED_SUBSYSTEM_LOG:
-            stmt = detailedSubsystemTable.insert();
-            CompositeId<UUID, String> sid = (CompositeId<UUID, String>) event.getId();
-            values.add(sid.getPrimaryId());
-            values.add(sid.getSecondaryId());
-            metricsTimer = detailedSubsystemLogTimer.time();
-            break;
-         case DETAILED_ALARM_LOG:
-            stmt = detailedAlarmTable.insert();
-            values.add(event.getId());
-            metricsTimer = detailedAlarmLogTimer.time();
-            break;
-         default:
-            throw new IllegalArgumentException("Unsupported log type:" + event.getType());
-         }
-         values.add(nextTimeUuid(event.getTimestamp()));
-         values.add(event.getMessageKey());
-         if (event.getValues() == null){
-            values.add(ImmutableList.of());
-         }
-         else{
-            values.add(event.getNonNullValues());
-         }
-         values.add(event.getSubjectAddress());
-         
-         session.execute(stmt.bind(values.toArray()));
+      switch (event.getType()) {
+      case CRITICAL_PLACE_LOG:
+         stmt = criticalPlaceTable.insert();
+         values.add(event.getId());
+         timer = criticalPlaceLogTimer;
+         break;
+      case DETAILED_PLACE_LOG:
+         stmt = detailedPlaceTable.insert();
+         values.add(event.getId());
+         timer = detailedPlaceLogTimer; 
+         break;
+      case DETAILED_PERSON_LOG:
+         stmt = detailedPersonTable.insert();
+         values.add(event.getId());
+         timer = detailedPersonLogTimer;
+         break;
+      case DETAILED_DEVICE_LOG:
+         stmt = detailedDeviceTable.insert();
+         values.add(event.getId());
+         timer = detailedDeviceLogTimer;
+         break;
+      case DETAILED_HUB_LOG:
+          stmt = detailedHubTable.insert();
+          values.add(event.getId());
+          timer = detailedHubLogTimer;
+          break;
+      case DETAILED_RULE_LOG:
+         stmt = detailedRuleTable.insert();
+         CompositeId<UUID, Integer> rid = (CompositeId<UUID, Integer>) event.getId();
+         values.add(rid.getPrimaryId());
+         values.add(rid.getSecondaryId());
+         timer = detailedRuleLogTimer;
+         break;
+      case DETAILED_SUBSYSTEM_LOG:
+         stmt = detailedSubsystemTable.insert();
+         CompositeId<UUID, String> sid = (CompositeId<UUID, String>) event.getId();
+         values.add(sid.getPrimaryId());
+         values.add(sid.getSecondaryId());
+         timer = detailedSubsystemLogTimer;
+         break;
+      case DETAILED_ALARM_LOG:
+         stmt = detailedAlarmTable.insert();
+         values.add(event.getId());
+         timer = detailedAlarmLogTimer;
+         break;
+      default:
+         throw new IllegalArgumentException("Unsupported log type:" + event.getType());
+      }
+      // everything before the timestamp is the partition key
+      List<Object> partitionKey = new ArrayList<Object>(values.size() + 1);
+      partitionKey.add(stmt);
+      partitionKey.addAll(values);
 
-      }finally{
-         if (metricsTimer != null) {
-            metricsTimer.stop();
+      values.add(nextTimeUuid(event.getTimestamp()));
+      values.add(event.getMessageKey());
+      if (event.getValues() == null){
+         values.add(ImmutableList.of());
+      }
+      else{
+         values.add(event.getNonNullValues());
+      }
+      values.add(event.getSubjectAddress());
+      
+      BoundStatement bs = stmt.bind(values.toArray());
+      if(asyncWrites) {
+         writer.write(partitionKey, bs, timer);
+      }
+      else {
+         try(Context c = timer.time()) {
+            session.execute(bs);
          }
       }
    }
@@ -19,6 +19,8 @@
 package com.iris.platform.model;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -35,5 +37,21 @@ public interface ModelDao {
     * @return
     */
    Collection<Model> loadModelsByPlace(UUID placeId, Set<String> types);
+
+   /**
+    * Loads all the models associated with each place, intended
+    * for loading a whole partition at once.  The default implementation
+    * loads each place in turn.
+    * @param placeIds
+    * @param types
+    * @return
+    */
+   default Map<UUID, Collection<Model>> loadModelsByPlaces(Collection<UUID> placeIds, Set<String> types) {
+      Map<UUID, Collection<Model>> models = new LinkedHashMap<>(2 * placeIds.size());
+      for(UUID placeId: placeIds) {
+         models.put(placeId, loadModelsByPlace(placeId, types));
+      }
+      return models;
+   }
 }
 
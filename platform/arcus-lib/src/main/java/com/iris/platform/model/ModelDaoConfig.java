@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.model;
+
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * Configuration for loading place models via {@link ModelDao}.
+ */
+public class ModelDaoConfig {
+
+   @Inject(optional=true) @Named("model.loader.threads")
+   private int loaderThreads = 20;
+   @Inject(optional=true) @Named("model.loader.threads.keepalive")
+   private int loaderKeepAliveMs = 60000;
+
+   /**
+    * The maximum number of provider queries that may be run
+    * concurrently, when this is 0 all queries are run on the
+    * calling thread.
+    * @return
+    */
+   public int getLoaderThreads() {
+      return loaderThreads;
+   }
+
+   public void setLoaderThreads(int loaderThreads) {
+      this.loaderThreads = loaderThreads;
+   }
+
+   public int getLoaderKeepAliveMs() {
+      return loaderKeepAliveMs;
+   }
+
+   public void setLoaderKeepAliveMs(int loaderKeepAliveMs) {
+      this.loaderKeepAliveMs = loaderKeepAliveMs;
+   }
+
+}
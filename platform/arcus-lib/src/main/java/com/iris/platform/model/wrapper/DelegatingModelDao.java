@@ -20,20 +20,32 @@ package com.iris.platform.model.wrapper;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
+import javax.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import com.iris.core.dao.AccountDAO;
 import com.iris.core.dao.DeviceDAO;
 import com.iris.core.dao.HubDAO;
@@ -51,22 +63,35 @@ import com.iris.messages.capability.SubsystemCapability;
 import com.iris.messages.model.Model;
 import com.iris.messages.model.SimpleModel;
 import com.iris.messages.model.serv.PlaceModel;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
 import com.iris.platform.model.ModelDao;
+import com.iris.platform.model.ModelDaoConfig;
 import com.iris.platform.model.ModelEntity;
 import com.iris.platform.model.ModelProvider;
 import com.iris.platform.pairing.PairingDeviceDao;
 import com.iris.platform.scene.SceneDao;
 import com.iris.platform.scheduler.SchedulerModelDao;
 import com.iris.platform.subsystem.SubsystemDao;
+import com.iris.util.ThreadPoolBuilder;
 
 /**
- *
+ * Loads the models for a place from each of the {@link ModelProvider}s.
+ * The place is loaded first and then each requested namespace is queried
+ * concurrently on a bounded pool (see {@link ModelDaoConfig}), so the time
+ * to load a place is roughly that of the slowest provider rather than the
+ * sum of all of them.
  */
+@Singleton
 public class DelegatingModelDao implements ModelDao {
    private static final Logger logger = LoggerFactory.getLogger(DelegatingModelDao.class);
    
    private final PlaceDAO placeDao;
    private final Map<String, ModelProvider> modelProviders;
+   private final ListeningExecutorService executor;
+   private final Timer placeLoadTimer;
+   private final Timer placesLoadTimer;
+   private final Map<String, Timer> providerTimers;
 
    /**
     *
@@ -81,7 +106,8 @@ public class DelegatingModelDao implements ModelDao {
          PlaceDAO placeDao,
          SceneDao sceneDao,
          SchedulerModelDao schedulerModelDao,
-         SubsystemDao subsystemDao
+         SubsystemDao subsystemDao,
+         ModelDaoConfig config
    ) {
       this(
             placeDao,
@@ -96,7 +122,8 @@ public class DelegatingModelDao implements ModelDao {
                .put(SceneCapability.NAMESPACE, wrap(sceneDao))
                .put(SchedulerCapability.NAMESPACE, wrap(schedulerModelDao))
                .put(SubsystemCapability.NAMESPACE, wrap(subsystemDao))
-               .build()
+               .build(),
+            createExecutor(config)
       );
    }
    
@@ -104,30 +131,134 @@ public class DelegatingModelDao implements ModelDao {
    public DelegatingModelDao(
          PlaceDAO placeDao,
          Map<String, ModelProvider> modelProviders
+   ) {
+      this(placeDao, modelProviders, MoreExecutors.newDirectExecutorService());
+   }
+   
+   public DelegatingModelDao(
+         PlaceDAO placeDao,
+         Map<String, ModelProvider> modelProviders,
+         ListeningExecutorService executor
    ) {
       this.placeDao = placeDao;
       this.modelProviders = ImmutableMap.copyOf(modelProviders);
+      this.executor = executor;
+      
+      IrisMetricSet metrics = IrisMetrics.metrics("model.loader");
+      this.placeLoadTimer = metrics.timer("place");
+      this.placesLoadTimer = metrics.timer("places");
+      ImmutableMap.Builder<String, Timer> providerTimers = ImmutableMap.builder();
+      for(String namespace: this.modelProviders.keySet()) {
+         providerTimers.put(namespace, metrics.timer("provider." + namespace));
+      }
+      this.providerTimers = providerTimers.build();
+   }
+   
+   @PreDestroy
+   public void shutdown() {
+      executor.shutdownNow();
    }
    
    @Override
    public Collection<Model> loadModelsByPlace(UUID placeId, Set<String> namespaces) {
       Preconditions.checkArgument(modelProviders.keySet().containsAll(namespaces), "Unsupported namespaces");
 
-      ModelEntity placeModel = placeDao.findPlaceModelById(placeId);
-      if(placeModel == null) {
-         throw new RuntimeException("Place " + placeId + " does not exist");
+      try(Timer.Context context = placeLoadTimer.time()) {
+         ModelEntity placeModel = placeDao.findPlaceModelById(placeId);
+         if(placeModel == null) {
+            throw new RuntimeException("Place " + placeId + " does not exist");
+         }
+         return collect(placeModel, namespaces, submit(placeId, placeModel, namespaces));
+      }
+   }
+
+   /**
+    * Loads the place models and then all of the provider queries for every
+    * place concurrently.  Places which do not exist are not included in
+    * the result.
+    */
+   @Override
+   public Map<UUID, Collection<Model>> loadModelsByPlaces(Collection<UUID> placeIds, Set<String> namespaces) {
+      Preconditions.checkArgument(modelProviders.keySet().containsAll(namespaces), "Unsupported namespaces");
+
+      try(Timer.Context context = placesLoadTimer.time()) {
+         Map<UUID, ListenableFuture<ModelEntity>> places = new LinkedHashMap<>(2 * placeIds.size());
+         for(UUID placeId: placeIds) {
+            places.put(placeId, executor.submit(() -> placeDao.findPlaceModelById(placeId)));
+         }
+         
+         Map<UUID, ModelEntity> placeModels = new LinkedHashMap<>(2 * places.size());
+         Map<UUID, List<ListenableFuture<Collection<? extends Model>>>> pending = new LinkedHashMap<>(2 * places.size());
+         for(Map.Entry<UUID, ListenableFuture<ModelEntity>> place: places.entrySet()) {
+            ModelEntity placeModel = get(place.getValue());
+            if(placeModel == null) {
+               logger.debug("Skipping models for place [{}] which does not exist", place.getKey());
+               continue;
+            }
+            placeModels.put(place.getKey(), placeModel);
+            pending.put(place.getKey(), submit(place.getKey(), placeModel, namespaces));
+         }
+         
+         Map<UUID, Collection<Model>> models = new LinkedHashMap<>(2 * pending.size());
+         for(Map.Entry<UUID, List<ListenableFuture<Collection<? extends Model>>>> place: pending.entrySet()) {
+            models.put(place.getKey(), collect(placeModels.get(place.getKey()), namespaces, place.getValue()));
+         }
+         return models;
+      }
+   }
+   
+   private List<ListenableFuture<Collection<? extends Model>>> submit(UUID placeId, ModelEntity placeModel, Set<String> namespaces) {
+      List<ListenableFuture<Collection<? extends Model>>> results = new ArrayList<>(namespaces.size());
+      for(String namespace: namespaces) {
+         ModelProvider provider = modelProviders.get(namespace);
+         Timer timer = providerTimers.get(namespace);
+         results.add(executor.submit(() -> {
+            try(Timer.Context context = timer.time()) {
+               return provider.findForPlace(placeId, placeModel);
+            }
+         }));
       }
+      return results;
+   }
+   
+   private List<Model> collect(ModelEntity placeModel, Set<String> namespaces, List<ListenableFuture<Collection<? extends Model>>> results) {
       List<Model> entities = new ArrayList<>();
       if(namespaces.contains(PlaceCapability.NAMESPACE)) {
          entities.add(placeModel);
       }
-      for(String namespace: namespaces) {
-         entities.addAll(modelProviders.get(namespace).findForPlace(placeId, placeModel));
+      for(ListenableFuture<Collection<? extends Model>> result: results) {
+         entities.addAll(get(result));
       }
-
       return entities;
    }
    
+   private static <T> T get(Future<T> future) {
+      try {
+         return Uninterruptibles.getUninterruptibly(future);
+      }
+      catch(ExecutionException e) {
+         // preserve the exception the provider would have thrown when called directly
+         Throwables.propagateIfPossible(e.getCause());
+         throw new RuntimeException(e.getCause());
+      }
+   }
+   
+   private static ListeningExecutorService createExecutor(ModelDaoConfig config) {
+      if(config.getLoaderThreads() <= 0) {
+         return MoreExecutors.newDirectExecutorService();
+      }
+      return MoreExecutors.listeningDecorator(
+            new ThreadPoolBuilder()
+               .withBlockingBacklog()
+               .withMaxPoolSize(config.getLoaderThreads())
+               .withKeepAliveMs(config.getLoaderKeepAliveMs())
+               .withDaemon(true)
+               .withNameFormat("model-loader-%d")
+               .withMetrics("model.loader.pool")
+               .build()
+      );
+   }
+   
    private static ModelProvider wrap(AccountDAO accountDao) {
       return (placeId, place) -> {
          UUID accountId = UUID.fromString(PlaceModel.getAccount(place));
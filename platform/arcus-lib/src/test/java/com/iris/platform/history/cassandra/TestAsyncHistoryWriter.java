@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.history.cassandra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Timer;
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.iris.platform.history.HistoryAppenderConfig;
+
+public class TestAsyncHistoryWriter {
+   private Session session;
+   private AsyncHistoryWriter writer;
+   private List<Statement> executed;
+   private CountDownLatch started;
+   private CountDownLatch release;
+
+   @Before
+   public void setUp() {
+      executed = new ArrayList<>();
+      started = new CountDownLatch(1);
+      release = new CountDownLatch(1);
+      session = EasyMock.createNiceMock(Session.class);
+      EasyMock
+         .expect(session.executeAsync(EasyMock.<Statement>anyObject()))
+         .andAnswer(this::holdUp)
+         .anyTimes();
+      EasyMock.replay(session);
+
+      HistoryAppenderConfig config = new HistoryAppenderConfig();
+      config.setMaxWriteBatchSize(2);
+      writer = new AsyncHistoryWriter(session, config);
+   }
+
+   private ResultSetFuture holdUp() throws InterruptedException {
+      synchronized(executed) {
+         executed.add((Statement) EasyMock.getCurrentArguments()[0]);
+      }
+      // hold up the writer on the first statement so the rest queue up
+      started.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return new CompletedFuture();
+   }
+
+   @After
+   public void tearDown() {
+      writer.close();
+   }
+
+   @Test
+   public void testBatchesByPartition() throws Exception {
+      Statement first = statement("first");
+      writer.write("a", first, null);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      Statement a1 = statement("a1");
+      Statement b1 = statement("b1");
+      Statement a2 = statement("a2");
+      Statement a3 = statement("a3");
+      writer.write("a", a1, null);
+      writer.write("b", b1, null);
+      writer.write("a", a2, null);
+      writer.write("a", a3, null);
+      assertEquals(4, writer.getQueuedWrites());
+      release.countDown();
+      writer.close();
+
+      assertEquals(0, writer.getQueuedWrites());
+      assertEquals(0, writer.getInFlightWrites());
+      assertEquals(4, executed.size());
+      assertSame(first, executed.get(0));
+      // a1 and a2 are batched, but limited to 2 per batch
+      assertBatch(executed.get(1), a1, a2);
+      assertSame(a3, executed.get(2));
+      assertSame(b1, executed.get(3));
+   }
+
+   @Test
+   public void testWriteAfterCloseIsSynchronous() {
+      release.countDown();
+      writer.close();
+
+      Statement late = statement("late");
+      EasyMock.reset(session);
+      EasyMock.expect(session.execute(late)).andReturn(null);
+      EasyMock.replay(session);
+
+      writer.write("a", late, null);
+      EasyMock.verify(session);
+   }
+
+   @Test
+   public void testRetriesFailedWrite() throws Exception {
+      AtomicInteger attempts = new AtomicInteger();
+      Session failOnce = failingSession(attempts, 1);
+      replaceWriter(failOnce, retryConfig(3));
+
+      Statement row = statement("row");
+      writer.write("a", row, null);
+      writer.close();
+
+      assertEquals(2, attempts.get());
+      assertEquals(2, executed.size());
+      assertSame(row, executed.get(0));
+      assertSame(row, executed.get(1));
+      assertEquals(0, writer.getInFlightWrites());
+   }
+
+   @Test
+   public void testGivesUpAfterMaxRetries() throws Exception {
+      AtomicInteger attempts = new AtomicInteger();
+      Session alwaysFail = failingSession(attempts, Integer.MAX_VALUE);
+      replaceWriter(alwaysFail, retryConfig(2));
+
+      writer.write("a", statement("row"), null);
+      writer.close();
+
+      // the first attempt plus two retries
+      assertEquals(3, attempts.get());
+      assertEquals(0, writer.getInFlightWrites());
+   }
+
+   @Test
+   public void testWriterSurvivesInterrupt() throws Exception {
+      release.countDown();
+      Thread thread = findWriterThread();
+      assertNotNull(thread);
+      thread.interrupt();
+      Thread.sleep(50);
+      assertTrue(thread.isAlive());
+
+      Statement row = statement("row");
+      writer.write("a", row, null);
+      writer.close();
+      assertEquals(1, executed.size());
+      assertSame(row, executed.get(0));
+   }
+
+   @Test
+   public void testFullQueueWritesDirectly() throws Exception {
+      Statement overflow = statement("overflow");
+      Session session = EasyMock.createNiceMock(Session.class);
+      EasyMock
+         .expect(session.executeAsync(EasyMock.<Statement>anyObject()))
+         .andAnswer(this::holdUp)
+         .anyTimes();
+      EasyMock.expect(session.execute(overflow)).andReturn(null).once();
+      // the writer thread is blocked inside executeAsync while execute is called
+      EasyMock.makeThreadSafe(session, false);
+      EasyMock.replay(session);
+
+      HistoryAppenderConfig config = new HistoryAppenderConfig();
+      config.setWriteQueueSize(1);
+      config.setWriteQueueTimeoutMs(10);
+      replaceWriter(session, config);
+
+      writer.write("a", statement("first"), null);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      writer.write("a", statement("queued"), null);
+      // queue is full and the writer is held up, so this is executed on the caller
+      writer.write("a", overflow, null);
+      EasyMock.verify(session);
+      release.countDown();
+      writer.close();
+      assertEquals(2, executed.size());
+   }
+
+   @Test
+   public void testTimerRecordsStatementLatency() throws Exception {
+      Timer timer = new Timer();
+      writer.write("a", statement("first"), null);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      writer.write("b", statement("timed"), timer);
+      // sits in the queue while the first write is held up
+      Thread.sleep(200);
+      release.countDown();
+      writer.close();
+
+      assertEquals(1, timer.getCount());
+      assertTrue(timer.getSnapshot().getMax() < TimeUnit.MILLISECONDS.toNanos(200));
+   }
+
+   private void replaceWriter(Session session, HistoryAppenderConfig config) {
+      release.countDown();
+      writer.close();
+      executed.clear();
+      started = new CountDownLatch(1);
+      release = new CountDownLatch(1);
+      writer = new AsyncHistoryWriter(session, config);
+   }
+
+   private HistoryAppenderConfig retryConfig(int retries) {
+      HistoryAppenderConfig config = new HistoryAppenderConfig();
+      config.setMaxWriteRetries(retries);
+      config.setWriteRetryBackoffMs(1);
+      return config;
+   }
+
+   private Session failingSession(AtomicInteger attempts, int failures) {
+      Session session = EasyMock.createNiceMock(Session.class);
+      EasyMock
+         .expect(session.executeAsync(EasyMock.<Statement>anyObject()))
+         .andAnswer(() -> {
+            synchronized(executed) {
+               executed.add((Statement) EasyMock.getCurrentArguments()[0]);
+            }
+            return attempts.incrementAndGet() <= failures ? new FailedFuture() : new CompletedFuture();
+         })
+         .anyTimes();
+      EasyMock.replay(session);
+      return session;
+   }
+
+   private static Thread findWriterThread() {
+      for(Thread thread: Thread.getAllStackTraces().keySet()) {
+         if("history-writer".equals(thread.getName()) && thread.isAlive()) {
+            return thread;
+         }
+      }
+      return null;
+   }
+
+   private void assertBatch(Statement statement, Statement... expected) {
+      assertTrue(statement instanceof BatchStatement);
+      List<Statement> actual = new ArrayList<>(((BatchStatement) statement).getStatements());
+      assertEquals(expected.length, actual.size());
+      for(int i=0; i<expected.length; i++) {
+         assertSame(expected[i], actual.get(i));
+      }
+   }
+
+   private static Statement statement(String name) {
+      return new SimpleStatement("INSERT " + name);
+   }
+
+   private static class FailedFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+      FailedFuture() {
+         setException(new RuntimeException("write timeout"));
+      }
+
+      @Override
+      public ResultSet getUninterruptibly() {
+         return null;
+      }
+
+      @Override
+      public ResultSet getUninterruptibly(long timeout, TimeUnit unit) {
+         return null;
+      }
+   }
+
+   private static class CompletedFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+      CompletedFuture() {
+         set(null);
+      }
+
+      @Override
+      public ResultSet getUninterruptibly() {
+         return null;
+      }
+
+      @Override
+      public ResultSet getUninterruptibly(long timeout, TimeUnit unit) {
+         return null;
+      }
+   }
+}
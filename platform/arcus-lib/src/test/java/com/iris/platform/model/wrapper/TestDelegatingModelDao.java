@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.platform.model.wrapper;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.iris.core.dao.PlaceDAO;
+import com.iris.messages.capability.Capability;
+import com.iris.messages.capability.DeviceCapability;
+import com.iris.messages.capability.HubCapability;
+import com.iris.messages.capability.PlaceCapability;
+import com.iris.messages.model.Model;
+import com.iris.platform.model.ModelEntity;
+import com.iris.platform.model.ModelProvider;
+
+public class TestDelegatingModelDao extends Assert {
+   UUID placeId = UUID.randomUUID();
+   ModelEntity place = model(placeId, PlaceCapability.NAMESPACE);
+   Model device = model(UUID.randomUUID(), DeviceCapability.NAMESPACE);
+   Model hub = model(UUID.randomUUID(), HubCapability.NAMESPACE);
+   
+   PlaceDAO placeDao;
+   ListeningExecutorService executor;
+   CountDownLatch providersStarted;
+   DelegatingModelDao modelDao;
+
+   @Before
+   public void setUp() {
+      placeDao = EasyMock.createMock(PlaceDAO.class);
+      executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+      providersStarted = new CountDownLatch(2);
+      modelDao = new DelegatingModelDao(
+            placeDao,
+            ImmutableMap.<String, ModelProvider>of(
+                  PlaceCapability.NAMESPACE, (placeId, place) -> ImmutableList.of(),
+                  DeviceCapability.NAMESPACE, concurrent(device),
+                  HubCapability.NAMESPACE, concurrent(hub)
+            ),
+            executor
+      );
+   }
+   
+   @After
+   public void tearDown() {
+      executor.shutdownNow();
+   }
+   
+   @Test
+   public void testLoadModelsByPlace() {
+      EasyMock.expect(placeDao.findPlaceModelById(placeId)).andReturn(place);
+      EasyMock.replay(placeDao);
+      
+      // each provider waits for the other to start, so this will only complete if they run concurrently
+      Collection<Model> models = modelDao.loadModelsByPlace(placeId, ImmutableSet.of(PlaceCapability.NAMESPACE, DeviceCapability.NAMESPACE, HubCapability.NAMESPACE));
+      assertEquals(ImmutableList.of(place, device, hub), ImmutableList.copyOf(models));
+      
+      EasyMock.verify(placeDao);
+   }
+
+   @Test
+   public void testLoadModelsByPlaces() {
+      UUID missingPlaceId = UUID.randomUUID();
+      EasyMock.expect(placeDao.findPlaceModelById(missingPlaceId)).andReturn(null);
+      EasyMock.expect(placeDao.findPlaceModelById(placeId)).andReturn(place);
+      EasyMock.replay(placeDao);
+      
+      Map<UUID, Collection<Model>> models = modelDao.loadModelsByPlaces(ImmutableList.of(missingPlaceId, placeId), ImmutableSet.of(DeviceCapability.NAMESPACE, HubCapability.NAMESPACE));
+      assertEquals(ImmutableSet.of(placeId), models.keySet());
+      assertEquals(ImmutableList.of(device, hub), ImmutableList.copyOf(models.get(placeId)));
+      
+      EasyMock.verify(placeDao);
+   }
+
+   @Test
+   public void testProviderErrorIsPropagated() {
+      EasyMock.expect(placeDao.findPlaceModelById(placeId)).andReturn(place);
+      EasyMock.replay(placeDao);
+      
+      DelegatingModelDao modelDao = new DelegatingModelDao(
+            placeDao,
+            ImmutableMap.<String, ModelProvider>of(DeviceCapability.NAMESPACE, (placeId, place) -> { throw new IllegalStateException("Boom"); }),
+            executor
+      );
+      try {
+         modelDao.loadModelsByPlace(placeId, ImmutableSet.of(DeviceCapability.NAMESPACE));
+         fail("Expected IllegalStateException");
+      }
+      catch(IllegalStateException e) {
+         assertEquals("Boom", e.getMessage());
+      }
+      
+      EasyMock.verify(placeDao);
+   }
+
+   private ModelProvider concurrent(Model model) {
+      return (placeId, place) -> {
+         providersStarted.countDown();
+         try {
+            assertTrue("Providers were not run concurrently", providersStarted.await(1, TimeUnit.SECONDS));
+         }
+         catch(InterruptedException e) {
+            throw new RuntimeException(e);
+         }
+         return ImmutableList.of(model);
+      };
+   }
+   
+   private static ModelEntity model(UUID id, String type) {
+      return new ModelEntity(ImmutableMap.of(Capability.ATTR_ID, id.toString(), Capability.ATTR_TYPE, type));
+   }
+
+}
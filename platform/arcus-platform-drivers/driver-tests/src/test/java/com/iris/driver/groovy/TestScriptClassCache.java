@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.driver.groovy;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Inject;
+
+import groovy.lang.Script;
+import groovy.util.GroovyScriptEngine;
+
+public class TestScriptClassCache extends GroovyDriverTestCase {
+   @Inject GroovyScriptEngine engine;
+
+   File cacheDir = new File(TMP_DIR, "script-cache");
+
+   @Override
+   @Before
+   public void setUp() throws Exception {
+      super.setUp();
+      FileUtils.deleteDirectory(cacheDir);
+   }
+
+   @After
+   public void deleteCache() throws Exception {
+      FileUtils.deleteDirectory(cacheDir);
+   }
+
+   @Test
+   public void testCompiledClassIsReused() throws Exception {
+      ScriptClassCache cache = new ScriptClassCache(engine, registry, null);
+      Class<? extends Script> first = cache.load("Metadata.driver");
+      assertEquals("Metadata", first.getName());
+      assertSame(first, cache.load("Metadata.driver"));
+      assertNotSame(first, cache.load("Empty.driver"));
+   }
+
+   @Test
+   public void testCompiledClassIsSavedToDisk() throws Exception {
+      Class<? extends Script> compiled = new ScriptClassCache(engine, registry, cacheDir).load("Metadata.driver");
+      assertEquals(1, cacheDir.listFiles().length);
+
+      // a new cache, as if after a restart, should define the class from the saved bytecode
+      Class<? extends Script> restored = new ScriptClassCache(engine, registry, cacheDir).load("Metadata.driver");
+      assertNotSame(compiled, restored);
+      assertEquals(compiled.getName(), restored.getName());
+      assertNotNull(restored.getField("_HASH"));
+      assertEquals(1, cacheDir.listFiles().length);
+   }
+
+   @Test
+   public void testCorruptCacheEntryIsRecompiled() throws Exception {
+      new ScriptClassCache(engine, registry, cacheDir).load("Metadata.driver");
+      File entry = cacheDir.listFiles()[0];
+      FileUtils.writeStringToFile(entry, "not a class");
+
+      Class<? extends Script> recompiled = new ScriptClassCache(engine, registry, cacheDir).load("Metadata.driver");
+      assertEquals("Metadata", recompiled.getName());
+      assertTrue(entry.length() > "not a class".length());
+   }
+
+   @Test
+   public void testFactoryLoadsDriversFromCache() throws Exception {
+      assertEquals("Iris Nifty Switch", factory.load("Metadata.driver").getDefinition().getName());
+      assertEquals("Iris Nifty Switch", factory.load("Metadata.driver").getDefinition().getName());
+   }
+}
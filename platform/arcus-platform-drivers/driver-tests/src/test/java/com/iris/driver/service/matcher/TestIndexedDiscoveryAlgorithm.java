@@ -0,0 +1,177 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.driver.service.matcher;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+import com.iris.device.attributes.AttributeKey;
+import com.iris.device.attributes.AttributeMap;
+import com.iris.driver.DeviceDriver;
+import com.iris.driver.DriverPredicates;
+import com.iris.driver.DriverPredicates.AttributeMatcher;
+import com.iris.driver.DriverPredicates.ValuePredicate;
+import com.iris.driver.unit.cucumber.AbstractDriverTestCase;
+import com.iris.messages.model.DriverId;
+import com.iris.validators.ValidationException;
+
+/**
+ * Differential test that the indexed discovery algorithm selects exactly the
+ * same driver as the sorted algorithm for every shipped driver.
+ */
+public class TestIndexedDiscoveryAlgorithm extends AbstractDriverTestCase {
+   private static final String DRIVER_DIRECTORY = "../../arcus-containers/driver-services/src/main/resources";
+   private static final Integer [] REFLEX_VERSIONS = new Integer [] { null, 0, 1, Integer.MAX_VALUE };
+
+   private List<DeviceDriver> drivers;
+   private DiscoveryAlgorithm sorted;
+   private DiscoveryAlgorithm indexed;
+
+   @Override
+   @Before
+   public void setUp() throws Exception {
+      super.setUp();
+      drivers = new ArrayList<>();
+      for(File file: new File(DRIVER_DIRECTORY).listFiles()) {
+         if(!file.isFile() || !file.getName().endsWith(".driver")) {
+            continue;
+         }
+         try {
+            drivers.add(factory.load(file.getName()));
+         }
+         catch(ValidationException e) {
+            // broken drivers aren't loaded by the registry either
+         }
+      }
+      sorted = new SortedDiscoveryAlgorithmFactory().create(drivers);
+      indexed = new IndexedDiscoveryAlgorithmFactory().create(drivers);
+   }
+
+   @Test
+   public void testDriversAreIndexed() {
+      assertFalse("No drivers were loaded from " + DRIVER_DIRECTORY, drivers.isEmpty());
+      int indexable = 0;
+      for(DeviceDriver driver: drivers) {
+         if(IndexedDiscoveryAlgorithmFactory.getConditions(driver.getMatcher()) != null) {
+            indexable++;
+         }
+      }
+      // most drivers match on vendor / model or protocol ids, if this fails the index isn't doing anything
+      assertTrue("Only " + indexable + " of " + drivers.size() + " drivers could be indexed", indexable > drivers.size() / 2);
+   }
+
+   @Test
+   public void testSameDriverAsSorted() {
+      Set<String> populations = new LinkedHashSet<>();
+      populations.add("unknown");
+      for(DeviceDriver driver: drivers) {
+         populations.addAll(driver.getDefinition().getPopulations());
+      }
+
+      List<AttributeMap> probes = new ArrayList<>();
+      probes.add(AttributeMap.emptyMap());
+      for(DeviceDriver driver: drivers) {
+         probes.addAll(probes(driver.getMatcher()));
+      }
+
+      int matched = 0;
+      for(AttributeMap probe: probes) {
+         for(String population: populations) {
+            for(Integer reflexVersion: REFLEX_VERSIONS) {
+               DriverId expected = sorted.discover(population, probe, reflexVersion);
+               DriverId actual = indexed.discover(population, probe, reflexVersion);
+               assertEquals("Wrong driver for " + probe + " population: " + population + " reflex version: " + reflexVersion, expected, actual);
+               if(expected != null) {
+                  matched++;
+               }
+            }
+         }
+      }
+      assertTrue("No probes matched any drivers", matched > 0);
+   }
+
+   /**
+    * Generates attributes which satisfy each of the value conditions of
+    * the matcher, near misses with one attribute dropped, and variants
+    * with one attribute set to each of its other accepted values.
+    */
+   private static List<AttributeMap> probes(Predicate<AttributeMap> matcher) {
+      if(matcher == null) {
+         return Collections.emptyList();
+      }
+      List<Predicate<AttributeMap>> branches =
+            matcher instanceof DriverPredicates.Disjunction ?
+                  ((DriverPredicates.Disjunction) matcher).getComponents() :
+                  Collections.singletonList(matcher);
+      List<AttributeMap> probes = new ArrayList<>();
+      for(Predicate<AttributeMap> branch: branches) {
+         List<Predicate<AttributeMap>> terms =
+               branch instanceof DriverPredicates.Conjunction ?
+                     ((DriverPredicates.Conjunction) branch).getComponents() :
+                     Collections.singletonList(branch);
+         List<AttributeMatcher<?>> matchers = new ArrayList<>();
+         for(Predicate<AttributeMap> term: terms) {
+            if(term instanceof AttributeMatcher && ((AttributeMatcher<?>) term).getPredicate() instanceof ValuePredicate) {
+               matchers.add((AttributeMatcher<?>) term);
+            }
+         }
+         if(matchers.isEmpty()) {
+            continue;
+         }
+
+         probes.add(probe(matchers, null, null));
+         for(AttributeMatcher<?> skip: matchers) {
+            probes.add(probe(matchers, skip, null));
+            for(Object value: values(skip)) {
+               probes.add(probe(matchers, skip, value));
+            }
+         }
+      }
+      return probes;
+   }
+
+   @SuppressWarnings({ "rawtypes", "unchecked" })
+   private static AttributeMap probe(List<AttributeMatcher<?>> matchers, AttributeMatcher<?> replace, Object replacement) {
+      AttributeMap attributes = AttributeMap.newMap();
+      for(AttributeMatcher<?> matcher: matchers) {
+         Object value;
+         if(matcher == replace) {
+            value = replacement;
+         }
+         else {
+            Collection<?> values = values(matcher);
+            value = values.isEmpty() ? null : values.iterator().next();
+         }
+         if(value != null) {
+            attributes.set((AttributeKey) matcher.getKey(), value);
+         }
+      }
+      return attributes;
+   }
+
+   private static Collection<?> values(AttributeMatcher<?> matcher) {
+      return ((ValuePredicate<?>) matcher.getPredicate()).getValues();
+   }
+}
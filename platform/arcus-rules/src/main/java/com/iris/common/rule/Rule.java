@@ -18,6 +18,11 @@
  */
 package com.iris.common.rule;
 
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.iris.common.rule.condition.Condition;
 import com.iris.common.rule.event.RuleEvent;
 import com.iris.messages.address.Address;
 
@@ -37,5 +42,15 @@ public interface Rule {
    void deactivate();
 
    Address getAddress();
+
+   /**
+    * The attributes this rule currently needs to see changes for,
+    * or {@code null} if it should receive every event.
+    * @see Condition#getAttributeDependencies()
+    */
+   @Nullable
+   default Set<String> getAttributeDependencies() {
+      return null;
+   }
 }
 
@@ -19,7 +19,11 @@
 package com.iris.common.rule.condition;
 
 import java.io.Serializable;
+import java.util.Set;
 
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.iris.common.rule.event.AttributeValueChangedEvent;
 import com.iris.common.rule.event.RuleEvent;
 import com.iris.common.rule.event.RuleEventType;
 
@@ -44,6 +48,22 @@ public interface Condition extends Serializable {
     */
    boolean handlesEventsOfType(RuleEventType type);
    
+   /**
+    * The names of the attributes which may affect this condition
+    * when they change.  This is used to avoid dispatching
+    * {@link AttributeValueChangedEvent}s to rules that can't be
+    * interested in them, all other event types are always delivered.
+    * 
+    * An empty set indicates the condition doesn't depend on any
+    * attribute changes, {@code null} (the default) indicates the
+    * condition can't declare its inputs and must see every change.
+    * @return
+    */
+   @Nullable
+   default Set<String> getAttributeDependencies() {
+      return null;
+   }
+   
    /**
     * Called when a condition is set to 'active'. This
     * may happen when a rule is first started, or when
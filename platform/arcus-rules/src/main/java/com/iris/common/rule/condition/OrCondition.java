@@ -15,7 +15,9 @@
  */
 package com.iris.common.rule.condition;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 import com.iris.common.rule.event.RuleEvent;
@@ -48,6 +50,19 @@ public class OrCondition implements Condition {
       return false;
    }
 
+   @Override
+   public Set<String> getAttributeDependencies() {
+      Set<String> dependencies = new HashSet<>();
+      for(Condition condition: conditions) {
+         Set<String> attributes = condition.getAttributeDependencies();
+         if(attributes == null) {
+            return null;
+         }
+         dependencies.addAll(attributes);
+      }
+      return dependencies;
+   }
+
    @Override
    public void activate(ConditionContext context) {
       for(Condition condition: conditions) {
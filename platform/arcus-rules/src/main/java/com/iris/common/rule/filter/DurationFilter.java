@@ -20,6 +20,7 @@ package com.iris.common.rule.filter;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Set;
 
 import com.google.common.base.Preconditions;
 import com.iris.common.rule.condition.Condition;
@@ -48,6 +49,15 @@ public abstract class DurationFilter extends StatefulFilterCondition {
       return RuleEventType.SCHEDULED_EVENT.equals(type);
    }
 
+   /**
+    * Duration filters only change state on scheduled events,
+    * so attribute changes only matter to the delegate.
+    */
+   @Override
+   public Set<String> getAttributeDependencies() {
+      return delegate.getAttributeDependencies();
+   }
+
    @Override
    protected void beforeActive(ConditionContext context) {
       super.beforeActive(context);
@@ -18,6 +18,8 @@
  */
 package com.iris.common.rule.simple;
 
+import java.util.Set;
+
 import com.iris.common.rule.Rule;
 import com.iris.common.rule.RuleContext;
 import com.iris.common.rule.action.Action;
@@ -94,6 +96,20 @@ public class SimpleRule implements Rule {
       }
    }
 
+   /**
+    * While the rule is firing the action may be waiting on
+    * events of its own (restoring a value, a delay, etc) so
+    * everything is delivered, otherwise only the condition's
+    * dependencies are relevant.
+    */
+   @Override
+   public Set<String> getAttributeDependencies() {
+      if(isFiring()) {
+         return null;
+      }
+      return condition.getAttributeDependencies();
+   }
+
    @Override
    public void deactivate() {
       this.context.logger().debug("Deactivating rule {}", address);
@@ -16,8 +16,10 @@
 package com.iris.common.rule.trigger;
 
 import java.util.Map;
+import java.util.Set;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.iris.common.rule.condition.ConditionContext;
 import com.iris.common.rule.event.MessageReceivedEvent;
 import com.iris.common.rule.event.RuleEvent;
@@ -38,6 +40,11 @@ public class ReceivedMessageCondition extends SimpleTrigger {
       return RuleEventType.MESSAGE_RECEIVED.equals(type);
    }
 
+   @Override
+   public Set<String> getAttributeDependencies() {
+      return ImmutableSet.of();
+   }
+
    public ReceivedMessageCondition(Predicate<String> messageType, Predicate<Address> from, Predicate<Map<String, Object>> attributes) {
       this.from = from;
       this.messageType = messageType;
@@ -20,8 +20,10 @@ package com.iris.common.rule.trigger;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Set;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import com.iris.common.rule.condition.ConditionContext;
 import com.iris.common.rule.event.RuleEvent;
 import com.iris.common.rule.event.RuleEventType;
@@ -55,6 +57,11 @@ public class TimeOfDayTrigger extends SimpleTrigger {
       return RuleEventType.SCHEDULED_EVENT == type;
    }
 
+   @Override
+   public Set<String> getAttributeDependencies() {
+      return ImmutableSet.of();
+   }
+
    @Override
    public boolean shouldTrigger(ConditionContext context, RuleEvent event) {
       Calendar localTime = context.getLocalTime();
@@ -19,11 +19,14 @@
 package com.iris.common.rule.trigger;
 
 import java.util.Objects;
+import java.util.Set;
 
 import org.eclipse.jdt.annotation.Nullable;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableSet;
 import com.iris.common.rule.condition.ConditionContext;
 import com.iris.common.rule.event.AttributeValueChangedEvent;
 import com.iris.common.rule.event.RuleEvent;
@@ -48,6 +51,8 @@ public class ValueChangeTrigger extends SimpleTrigger {
          @Nullable Object attributeNewValue,
          Predicate<Model> queryPredicate
    ) {
+      Preconditions.checkNotNull(attributeName, "attribute name may not be null");
+      
       this.attributeName = attributeName;
       this.attributeOldValue = attributeOldValue;
       this.attributeNewValue = attributeNewValue;
@@ -68,6 +73,16 @@ public class ValueChangeTrigger extends SimpleTrigger {
       return RuleEventType.ATTRIBUTE_VALUE_CHANGED.equals(type);
    }
 
+   @Override
+   public Set<String> getAttributeDependencies() {
+      if(!Predicates.alwaysTrue().equals(queryPredicate)) {
+         // the query may read any attribute, and changes to those affect isSatisfiable
+         // and which models match, so this has to see every change
+         return null;
+      }
+      return ImmutableSet.of(attributeName);
+   }
+
    @Override
    public boolean isSatisfiable(ConditionContext context) {
       for(Model model: context.getModels()) {
@@ -18,10 +18,13 @@
  */
 package com.iris.common.rule.trigger.stateful;
 
+import java.util.Set;
+
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.iris.common.rule.RuleContext;
 import com.iris.common.rule.condition.ConditionContext;
 import com.iris.common.rule.event.AttributeValueChangedEvent;
@@ -82,6 +85,11 @@ public class ThresholdTrigger extends StatefulCondition {
    }
    
 
+   @Override
+   public Set<String> getAttributeDependencies() {
+      return ImmutableSet.of(attributeName);
+   }
+
    @Override
    public boolean isSatisfiable(ConditionContext context) {
 	   for(Model model: context.getModels()) {
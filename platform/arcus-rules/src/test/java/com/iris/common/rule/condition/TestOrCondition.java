@@ -25,6 +25,7 @@ import org.junit.Test;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.iris.common.rule.event.AttributeValueChangedEvent;
 import com.iris.common.rule.event.RuleEvent;
 import com.iris.common.rule.event.RuleEventType;
@@ -276,5 +277,30 @@ public class TestOrCondition extends Assert {
       verify();
    }
 
+   @Test
+   public void testAttributeDependenciesAreMerged() {
+      EasyMock.expect(cond1.getAttributeDependencies()).andReturn(ImmutableSet.of("a"));
+      EasyMock.expect(cond2.getAttributeDependencies()).andReturn(ImmutableSet.of());
+      EasyMock.expect(cond3.getAttributeDependencies()).andReturn(ImmutableSet.of("a", "b"));
+      
+      replay();
+      
+      assertEquals(ImmutableSet.of("a", "b"), condition.getAttributeDependencies());
+      
+      verify();
+   }
+
+   @Test
+   public void testUndeclaredAttributeDependencies() {
+      EasyMock.expect(cond1.getAttributeDependencies()).andReturn(ImmutableSet.of("a"));
+      EasyMock.expect(cond2.getAttributeDependencies()).andReturn(null);
+      
+      replay();
+      
+      assertNull(condition.getAttributeDependencies());
+      
+      verify();
+   }
+
 }
 
@@ -22,6 +22,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.iris.common.rule.event.AttributeValueChangedEvent;
 import com.iris.common.rule.event.ScheduledEvent;
 import com.iris.common.rule.simple.SimpleContext;
@@ -104,5 +106,29 @@ public class TestOnValueChange extends Assert {
       assertFalse(trigger.shouldFire(context, createValueChange("test:attribute", "something", "new")));
    }
 
+   @Test
+   public void testAttributeDependencies() {
+      trigger = new ValueChangeTrigger("test:attribute", null, null);
+      assertEquals(ImmutableSet.of("test:attribute"), trigger.getAttributeDependencies());
+   }
+
+   @Test
+   public void testQueryPredicateSeesEveryChange() {
+      Predicate<Model> query = (m) -> "on".equals(m.getAttribute("test:other"));
+      trigger = new ValueChangeTrigger("test:attribute", null, null, query);
+      assertNull(trigger.getAttributeDependencies());
+
+      // a change to the queried attribute alone changes satisfiability
+      model.setAttribute("test:attribute", "value");
+      assertFalse(trigger.isSatisfiable(context));
+      model.setAttribute("test:other", "on");
+      assertTrue(trigger.isSatisfiable(context));
+   }
+
+   @Test(expected = NullPointerException.class)
+   public void testNullAttributeName() {
+      new ValueChangeTrigger(null, null, null);
+   }
+
 }
 
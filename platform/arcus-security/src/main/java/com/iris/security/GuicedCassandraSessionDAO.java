@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.time.ZoneId;
@@ -44,6 +45,8 @@ import org.apache.shiro.util.Initializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ConsistencyLevel;
 import com.datastax.driver.core.PreparedStatement;
@@ -58,8 +61,9 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.gson.Gson;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import com.google.inject.name.Named;
 import com.iris.gson.GsonFactory;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
 import com.iris.security.principal.DefaultPrincipalTypeAdapter;
 import com.iris.security.principal.PrincipalCollectionTypeAdapter;
 
@@ -70,13 +74,19 @@ import com.iris.security.principal.PrincipalCollectionTypeAdapter;
  * Initialized by shiro.ini
  *
  * Need to refactor so table isn't dynamically created (move to ModelManager)
+ *
+ * Sessions are cached in process so that most requests don't need to read
+ * from cassandra, remote logouts are applied via {@link #invalidate(String)}.
+ * Updates that only move the last access time forward are written at most
+ * once per {@link SessionConfig#getSessionTouchGranularityMs()}.
  */
 @Singleton
-public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Initializable, Destroyable {
+public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements SessionCache, Initializable, Destroyable {
    private static final Logger logger = LoggerFactory.getLogger(GuicedCassandraSessionDAO.class);
    private static final NoSessionException NO_SESSION_EXCEPTION = new NoSessionException();
   
    private static final ConsistencyLevel consistencyLevel = ConsistencyLevel.LOCAL_QUORUM;
+   private static final IrisMetricSet METRICS = IrisMetrics.metrics("security.sessions");
    
    public static final String TABLE_NAME = "sessions";
    
@@ -98,18 +108,19 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
 
    private final com.datastax.driver.core.Session cassandraSession; //acquired during init();
    private final Gson gson;
-   
-   @Inject(optional=true) @Named("session.cache.timeoutMs")
-   private long sessionCacheTimeoutMs = TimeUnit.MINUTES.toMillis(5);
+   private final long touchGranularityMs;
 
-   private Cache<Serializable, Session> sessionCache;
+   private final Cache<Serializable, CachedSession> sessionCache;
+   private final Counter cacheMisses = METRICS.counter("cache.miss");
+   private final Counter writes = METRICS.counter("writes");
+   private final Counter writesSkipped = METRICS.counter("writes.skipped");
    
    private final PreparedStatement deletePreparedStatement;
    private final PreparedStatement savePreparedStatement;
    private final PreparedStatement readPreparedStatement;
 
    @Inject
-   public GuicedCassandraSessionDAO(com.datastax.driver.core.Session cassandraSession) {
+   public GuicedCassandraSessionDAO(com.datastax.driver.core.Session cassandraSession, SessionConfig config) {
       GsonFactory gsonFactory = new GsonFactory(
             ImmutableSet.of(),
             ImmutableSet.of(),
@@ -120,12 +131,15 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
       this.setSessionIdGenerator(new TimeUuidSessionIdGenerator());
       this.serializer = new DefaultSerializer<SimpleSession>();
       this.cassandraSession = cassandraSession;
+      this.touchGranularityMs = config.getSessionTouchGranularityMs();
       this.sessionCache = 
             CacheBuilder
                .newBuilder()
                .concurrencyLevel(32)
-               .expireAfterWrite(sessionCacheTimeoutMs, TimeUnit.MILLISECONDS)
+               .maximumSize(config.getSessionCacheMaxSize())
+               .expireAfterWrite(config.getSessionCacheTimeoutMs(), TimeUnit.MILLISECONDS)
                .build();
+      METRICS.gauge("cache.size", (Gauge<Long>) () -> sessionCache.size());
       this.readPreparedStatement = prepareReadStatement();
       this.savePreparedStatement = prepareSaveStatement();
       this.deletePreparedStatement = prepareDeleteStatement();
@@ -177,13 +191,29 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
    @Override
    public void update(Session session) throws UnknownSessionException {
       SimpleSession ss = assertSimpleSession(session);
+      CachedSession cached = sessionCache.getIfPresent(ss.getId());
+      if(cached != null && cached.isTouchOf(ss, touchGranularityMs)) {
+         writesSkipped.inc();
+         return;
+      }
       save(ss);
    }
 
+   /**
+    * Drops the cached copy of a session that was stopped on another server.
+    */
+   @Override
+   public void invalidate(String sessionId) {
+      UUID id = toUuid(sessionId);
+      if(id != null) {
+         sessionCache.invalidate(id);
+      }
+      sessionCache.invalidate(sessionId);
+   }
+
    @Override
    public void delete(Session session) {
-      BoundStatement bs = new BoundStatement(this.deletePreparedStatement);
-      bs.bind(session.getId());
+      BoundStatement bs = deletePreparedStatement.bind(session.getId());
       bs.setConsistencyLevel(consistencyLevel);
       cassandraSession.execute(bs);
       sessionCache.invalidate(session.getId());
@@ -251,20 +281,20 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
    @Override
    protected Session doReadSession(Serializable sessionId) {
       try {
-      	Session session = sessionCache.getIfPresent(sessionId);
-      	if(session != null) {
-	      	if(isExpired(session)) {
-	      		sessionCache.asMap().remove(sessionId, session);
+      	CachedSession cached = sessionCache.getIfPresent(sessionId);
+      	if(cached != null) {
+	      	if(isExpired(cached.session)) {
+	      		sessionCache.asMap().remove(sessionId, cached);
 	      	}
 	      	else {
-	      		return session;
+	      		return cached.session;
 	      	}
       	}
       	else {
 	         return sessionCache.get(
 	               sessionId,
 	               () -> doCassandraReadSession(sessionId)
-	         );
+	         ).session;
       	}
       }
       catch(UncheckedExecutionException e) {
@@ -281,18 +311,18 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
       return null;
    }
       
-   private Session doCassandraReadSession(Serializable sessionId) {
+   private CachedSession doCassandraReadSession(Serializable sessionId) {
+      cacheMisses.inc();
       UUID id = toUuid(sessionId);
-      BoundStatement bs = new BoundStatement(this.readPreparedStatement);
-      bs.bind(id);
+      BoundStatement bs = readPreparedStatement.bind(id);
       bs.setConsistencyLevel(consistencyLevel);
 
       ResultSet results = cassandraSession.execute(bs);
 
       for(Row row : results) {
-         Session session = hydrateSession(id, row);
+         SimpleSession session = hydrateSession(id, row);
          if (session != null && !isExpired(session)) {
-         	return session;
+         	return new CachedSession(session);
          }
       }
 
@@ -306,7 +336,7 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
 		return System.currentTimeMillis() > (session.getLastAccessTime().getTime() + session.getTimeout());
 	}
 
-	private Session hydrateSession(UUID id, Row row) {
+	private SimpleSession hydrateSession(UUID id, Row row) {
    	UUID rowId = row.getUUID(Columns.ID);
    	if (id.equals(rowId)) {
    		Date start = row.getTimestamp(Columns.START);
@@ -369,11 +399,10 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
    //In CQL, insert and update are effectively the same, so we can use a single query for both:
    protected void save(SimpleSession ss) {
    	
-      //Cassandra TTL values are in seconds, so we need to convert from Shiro's millis:
-      int timeoutInSeconds = (int)(ss.getTimeout() / 1000);
+      //Cassandra TTL values are in seconds, so we need to convert from Shiro's millis,
+      //the last access time may be up to touchGranularityMs ahead of what is written
+      int timeoutInSeconds = (int)((ss.getTimeout() + touchGranularityMs) / 1000);
 
-      BoundStatement bs = new BoundStatement(this.savePreparedStatement);
-      
       Map<String,String> attributes = new HashMap<>();
       for (Object key : ss.getAttributeKeys()) {
       	if (key instanceof String) {
@@ -391,7 +420,7 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
       }
           
       // FIXME if isExpired() == true we should just delete the row...
-      bs.bind(
+      BoundStatement bs = savePreparedStatement.bind(
             timeoutInSeconds,
             ss.getStartTimestamp(),
             ss.getStopTimestamp(),
@@ -406,7 +435,54 @@ public class GuicedCassandraSessionDAO extends AbstractSessionDAO implements Ini
       bs.setConsistencyLevel(consistencyLevel);
       
       cassandraSession.execute(bs);      
-      sessionCache.put(ss.getId(), ss);
+      writes.inc();
+      sessionCache.put(ss.getId(), new CachedSession(ss));
+   }
+
+   /**
+    * A session along with the values that were last written to / read from cassandra,
+    * Shiro modifies the session in place so these can't be read from the session itself.
+    */
+   private static final class CachedSession {
+      private final SimpleSession session;
+      private final Date start;
+      private final Date stop;
+      private final Date lastAccess;
+      private final long timeout;
+      private final boolean expired;
+      private final String host;
+      private final Map<Object, Object> attributes;
+
+      CachedSession(SimpleSession session) {
+         this.session = session;
+         this.start = session.getStartTimestamp();
+         this.stop = session.getStopTimestamp();
+         this.lastAccess = session.getLastAccessTime();
+         this.timeout = session.getTimeout();
+         this.expired = session.isExpired();
+         this.host = session.getHost();
+         this.attributes = session.getAttributes() != null ? new HashMap<>(session.getAttributes()) : Collections.emptyMap();
+      }
+
+      /**
+       * True if the only change to ss since it was persisted is a last access time
+       * less than granularityMs later than the persisted one.
+       */
+      boolean isTouchOf(SimpleSession ss, long granularityMs) {
+         if(ss != session || lastAccess == null || ss.getLastAccessTime() == null) {
+            return false;
+         }
+         if(ss.getLastAccessTime().getTime() - lastAccess.getTime() >= granularityMs) {
+            return false;
+         }
+         return
+               timeout == ss.getTimeout() &&
+               expired == ss.isExpired() &&
+               Objects.equals(start, ss.getStartTimestamp()) &&
+               Objects.equals(stop, ss.getStopTimestamp()) &&
+               Objects.equals(host, ss.getHost()) &&
+               attributes.equals(ss.getAttributes() != null ? ss.getAttributes() : Collections.emptyMap());
+      }
    }
 
    private static final class NoSessionException extends RuntimeException {
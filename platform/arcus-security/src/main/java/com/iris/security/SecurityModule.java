@@ -50,6 +50,7 @@ public abstract class SecurityModule extends ShiroModule {
    @Override
    protected void configureShiro() {
       bindSessionDAO(bind(SessionDAO.class));
+      bindSessionCache(bind(SessionCache.class));
       bindCacheManager(bind(CacheManager.class));
       bindAuthenticationDAO(bind(AuthenticationDAO.class));
       bindAuthorizationDAO(bind(AuthorizationDAO.class));
@@ -82,6 +83,11 @@ public abstract class SecurityModule extends ShiroModule {
       bind.to(GuicedCassandraSessionDAO.class);
    }
 
+   protected void bindSessionCache(AnnotatedBindingBuilder<SessionCache> bind) {
+      bind.to(GuicedCassandraSessionDAO.class);
+      expose(SessionCache.class);
+   }
+
    protected void bindCacheManager(AnnotatedBindingBuilder<CacheManager> bind) {
       bind.to(MemoryConstrainedCacheManager.class);
    }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.security;
+
+/**
+ * A process local cache of sessions that may need to drop an entry
+ * when the session is changed by another server.
+ */
+public interface SessionCache {
+
+   /**
+    * Removes the cached copy of the given session, if any, so the next
+    * read goes back to the backing store.
+    */
+   void invalidate(String sessionId);
+
+}
@@ -15,6 +15,8 @@
  */
 package com.iris.security;
 
+import java.util.concurrent.TimeUnit;
+
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -34,6 +36,22 @@ public class SessionConfig {
    @Inject(optional = true) @Named("public.auth.timeout")
    private long publicSessionTimeoutInSecs = 1800l;
 
+   /*
+    * How long a session may be served from the in-process cache before it is re-read from cassandra.
+    */
+   @Inject(optional = true) @Named("session.cache.timeoutMs")
+   private long sessionCacheTimeoutMs = TimeUnit.MINUTES.toMillis(5);
+
+   @Inject(optional = true) @Named("session.cache.maxSize")
+   private long sessionCacheMaxSize = 50000;
+
+   /*
+    * Updates that only change the last access time are not written unless the persisted last access time
+    * is at least this old.  Sessions may appear to expire up to this much early to other servers.
+    */
+   @Inject(optional = true) @Named("session.touch.granularityMs")
+   private long sessionTouchGranularityMs = TimeUnit.MINUTES.toMillis(1);
+
    public SessionConfig() {
    }
 
@@ -52,6 +70,30 @@ public class SessionConfig {
    public void setPublicSessionTimeoutInSecs(long publicSessionTimeoutInSecs) {
       this.publicSessionTimeoutInSecs = publicSessionTimeoutInSecs;
    }
+
+   public long getSessionCacheTimeoutMs() {
+      return sessionCacheTimeoutMs;
+   }
+
+   public void setSessionCacheTimeoutMs(long sessionCacheTimeoutMs) {
+      this.sessionCacheTimeoutMs = sessionCacheTimeoutMs;
+   }
+
+   public long getSessionCacheMaxSize() {
+      return sessionCacheMaxSize;
+   }
+
+   public void setSessionCacheMaxSize(long sessionCacheMaxSize) {
+      this.sessionCacheMaxSize = sessionCacheMaxSize;
+   }
+
+   public long getSessionTouchGranularityMs() {
+      return sessionTouchGranularityMs;
+   }
+
+   public void setSessionTouchGranularityMs(long sessionTouchGranularityMs) {
+      this.sessionTouchGranularityMs = sessionTouchGranularityMs;
+   }
    
 }
 
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.security;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.iris.security.GuicedCassandraSessionDAO.Columns;
+
+public class TestGuicedCassandraSessionDAO {
+   private static final long GRANULARITY_MS = 60000;
+   private static final long CACHE_TIMEOUT_MS = 200;
+
+   private Session cassandra;
+   private BoundStatement saveStatement;
+   private BoundStatement readStatement;
+   private AtomicInteger writes = new AtomicInteger();
+   private AtomicInteger reads = new AtomicInteger();
+   private SimpleSession persisted;
+
+   private GuicedCassandraSessionDAO dao;
+
+   @Before
+   public void setUp() {
+      saveStatement = EasyMock.createNiceMock(BoundStatement.class);
+      readStatement = EasyMock.createNiceMock(BoundStatement.class);
+
+      PreparedStatement save = EasyMock.createNiceMock(PreparedStatement.class);
+      EasyMock
+         .expect(save.bind(
+               EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject(),
+               EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject()
+         ))
+         .andStubReturn(saveStatement);
+      PreparedStatement read = EasyMock.createNiceMock(PreparedStatement.class);
+      EasyMock
+         .expect(read.bind(EasyMock.anyObject()))
+         .andStubReturn(readStatement);
+
+      cassandra = EasyMock.createNiceMock(Session.class);
+      EasyMock
+         .expect(cassandra.prepare(EasyMock.startsWith("UPDATE")))
+         .andStubReturn(save);
+      EasyMock
+         .expect(cassandra.prepare(EasyMock.startsWith("SELECT")))
+         .andStubReturn(read);
+      EasyMock
+         .expect(cassandra.prepare(EasyMock.startsWith("DELETE")))
+         .andStubReturn(EasyMock.createNiceMock(PreparedStatement.class));
+      EasyMock
+         .expect(cassandra.execute(EasyMock.same((Statement) saveStatement)))
+         .andStubAnswer(() -> {
+            writes.incrementAndGet();
+            return null;
+         });
+      EasyMock
+         .expect(cassandra.execute(EasyMock.same((Statement) readStatement)))
+         .andStubAnswer(() -> {
+            reads.incrementAndGet();
+            return rowOf(persisted);
+         });
+      EasyMock.replay(save, read, cassandra, saveStatement, readStatement);
+
+      SessionConfig config = new SessionConfig();
+      config.setSessionTouchGranularityMs(GRANULARITY_MS);
+      config.setSessionCacheTimeoutMs(CACHE_TIMEOUT_MS);
+      dao = new GuicedCassandraSessionDAO(cassandra, config);
+   }
+
+   @Test
+   public void testTouchWithinGranularityIsNotWritten() {
+      SimpleSession session = createSession();
+      assertEquals(1, writes.get());
+
+      session.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + GRANULARITY_MS - 1));
+      dao.update(session);
+      assertEquals(1, writes.get());
+   }
+
+   @Test
+   public void testTouchPastGranularityIsWritten() {
+      SimpleSession session = createSession();
+      Date persistedAccess = session.getLastAccessTime();
+
+      session.setLastAccessTime(new Date(persistedAccess.getTime() + GRANULARITY_MS / 2));
+      dao.update(session);
+      assertEquals(1, writes.get());
+
+      // measured from the last write, not the last skipped update
+      session.setLastAccessTime(new Date(persistedAccess.getTime() + GRANULARITY_MS));
+      dao.update(session);
+      assertEquals(2, writes.get());
+
+      session.setLastAccessTime(new Date(persistedAccess.getTime() + GRANULARITY_MS + 1));
+      dao.update(session);
+      assertEquals(2, writes.get());
+   }
+
+   @Test
+   public void testOtherChangesAreWritten() {
+      SimpleSession session = createSession();
+
+      session.setAttribute("key", "value");
+      dao.update(session);
+      assertEquals(2, writes.get());
+
+      session.setTimeout(session.getTimeout() * 2);
+      dao.update(session);
+      assertEquals(3, writes.get());
+
+      session.stop();
+      dao.update(session);
+      assertEquals(4, writes.get());
+   }
+
+   @Test
+   public void testUncachedSessionIsWritten() {
+      SimpleSession session = createSession();
+
+      SimpleSession copy = copyOf(session);
+      copy.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + 1));
+      dao.update(copy);
+      assertEquals(2, writes.get());
+   }
+
+   @Test
+   public void testCacheTimeout() throws Exception {
+      SimpleSession session = createSession();
+      Serializable id = session.getId();
+      persisted = copyOf(session);
+
+      dao.readSession(id);
+      assertEquals(0, reads.get());
+
+      Thread.sleep(CACHE_TIMEOUT_MS * 2);
+      dao.readSession(id);
+      assertEquals(1, reads.get());
+
+      dao.readSession(id);
+      assertEquals(1, reads.get());
+   }
+
+   @Test
+   public void testInvalidate() {
+      SimpleSession session = createSession();
+      persisted = copyOf(session);
+
+      dao.invalidate(session.getId().toString());
+      dao.readSession(session.getId());
+      assertEquals(1, reads.get());
+
+      // a re-read session is cached and throttled like a written one
+      SimpleSession read = (SimpleSession) dao.readSession(session.getId());
+      assertEquals(1, reads.get());
+      read.setLastAccessTime(new Date(read.getLastAccessTime().getTime() + 1));
+      dao.update(read);
+      assertEquals(1, writes.get());
+   }
+
+   private SimpleSession createSession() {
+      SimpleSession session = new SimpleSession("localhost");
+      session.setTimeout(GRANULARITY_MS * 10);
+      dao.create(session);
+      return session;
+   }
+
+   private static SimpleSession copyOf(SimpleSession session) {
+      SimpleSession copy = new SimpleSession();
+      copy.setId(session.getId());
+      copy.setStartTimestamp(session.getStartTimestamp());
+      copy.setStopTimestamp(session.getStopTimestamp());
+      copy.setLastAccessTime(session.getLastAccessTime());
+      copy.setTimeout(session.getTimeout());
+      copy.setExpired(session.isExpired());
+      copy.setHost(session.getHost());
+      return copy;
+   }
+
+   private static ResultSet rowOf(SimpleSession session) {
+      Row row = EasyMock.createNiceMock(Row.class);
+      EasyMock.expect(row.getUUID(Columns.ID)).andStubReturn((UUID) session.getId());
+      EasyMock.expect(row.getTimestamp(Columns.START)).andStubReturn(session.getStartTimestamp());
+      EasyMock.expect(row.getTimestamp(Columns.STOP)).andStubReturn(session.getStopTimestamp());
+      EasyMock.expect(row.getTimestamp(Columns.LAST_ACCESS)).andStubReturn(session.getLastAccessTime());
+      EasyMock.expect(row.getLong(Columns.TIMEOUT)).andStubReturn(session.getTimeout());
+      EasyMock.expect(row.getBool(Columns.EXPIRED)).andStubReturn(session.isExpired());
+      EasyMock.expect(row.getString(Columns.HOST)).andStubReturn(session.getHost());
+      EasyMock.expect(row.getMap(Columns.ATTRIBUTES, String.class, String.class)).andStubReturn(Collections.emptyMap());
+      ResultSet results = EasyMock.createNiceMock(ResultSet.class);
+      EasyMock.expect(results.iterator()).andStubAnswer(() -> Collections.singletonList(row).iterator());
+      EasyMock.replay(row, results);
+      return results;
+   }
+
+}
@@ -19,11 +19,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.iris.bridge.metrics.BridgeMetrics;
 import com.iris.messages.address.AddressMatcher;
 import com.iris.messages.PlatformMessage;
 import com.iris.util.MdcContext.MdcContextReference;
 import com.iris.core.platform.PlatformMessageBus;
+import com.iris.platform.partition.PlatformPartition;
 
 public abstract class AbstractPlatformBusService implements PlatformBusService {
    protected final PlatformMessageBus platformBus;
@@ -31,9 +34,23 @@ public abstract class AbstractPlatformBusService implements PlatformBusService {
    protected final BridgeMetrics bridgeMetrics;
    
    public AbstractPlatformBusService(PlatformMessageBus platformBus, BridgeMetrics bridgeMetrics, Set<AddressMatcher> addressMatchers) {
+      this(platformBus, bridgeMetrics, addressMatchers, Predicates.alwaysTrue());
+   }
+
+   /**
+    * @param partitions
+    *    Limits the partitions messages are read from, messages on other
+    *    partitions may be dropped before they are decoded.
+    */
+   public AbstractPlatformBusService(
+         PlatformMessageBus platformBus,
+         BridgeMetrics bridgeMetrics,
+         Set<AddressMatcher> addressMatchers,
+         Predicate<? super PlatformPartition> partitions
+   ) {
       this.platformBus = platformBus;
       this.bridgeMetrics = bridgeMetrics;
-      this.platformBus.addMessageListener(addressMatchers, (msg) -> {
+      this.platformBus.addMessageListener(addressMatchers, partitions, (msg) -> {
          try(MdcContextReference ref = PlatformMessage.captureAndInitializeContext(msg)) {
             handlePlatformMessage(msg);
          }
@@ -19,10 +19,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import com.iris.bridge.metrics.BridgeMetrics;
 import com.iris.messages.address.AddressMatcher;
 import com.iris.protocol.ProtocolMessage;
 import com.iris.core.protocol.ProtocolMessageBus;
+import com.iris.platform.partition.PlatformPartition;
 
 public abstract class AbstractProtocolBusService implements ProtocolBusService {
    protected final ProtocolMessageBus protocolBus;
@@ -33,10 +36,24 @@ public abstract class AbstractProtocolBusService implements ProtocolBusService {
          ProtocolMessageBus protocolBus,
          Set<AddressMatcher> addressMatcher,
          BridgeMetrics bridgeMetrics
+   ) {
+      this(protocolBus, addressMatcher, Predicates.alwaysTrue(), bridgeMetrics);
+   }
+
+   /**
+    * @param partitions
+    *    Limits the partitions messages are read from, messages on other
+    *    partitions may be dropped before they are decoded.
+    */
+   public AbstractProtocolBusService(
+         ProtocolMessageBus protocolBus,
+         Set<AddressMatcher> addressMatcher,
+         Predicate<? super PlatformPartition> partitions,
+         BridgeMetrics bridgeMetrics
    ) {
       this.protocolBus = protocolBus;
       this.bridgeMetrics = bridgeMetrics;
-      this.protocolBus.addMessageListener(addressMatcher, (msg) -> handleProtocolMessage(msg));
+      this.protocolBus.addMessageListener(addressMatcher, partitions, (msg) -> handleProtocolMessage(msg));
    }
    
    @Override
@@ -46,6 +46,8 @@ public class BridgeMetrics {
    private final Counter bridgeWsUpgradeCounter;
    private final Counter bridgeSessionCreatedCounter;
    private final Counter bridgeSessionDestroyedCounter;
+   private final Counter bridgeSessionFramesConflatedCounter;
+   private final Counter bridgeSessionSlowDisconnectCounter;
    private final Counter bridgeAuthenticationTriedCounter;
    private final Counter bridgeAuthenticationSucceededCounter;
    private final Counter bridgeAuthenticationFailedCounter;
@@ -84,6 +86,8 @@ public class BridgeMetrics {
       bridgeWsUpgradeCounter               = METRICS.counter("bridge." + bridgeName + ".ws.upgrade.received");
       bridgeSessionCreatedCounter          = METRICS.counter("bridge." + bridgeName + ".session.created");
       bridgeSessionDestroyedCounter        = METRICS.counter("bridge." + bridgeName + ".session.destroyed");
+      bridgeSessionFramesConflatedCounter  = METRICS.counter("bridge." + bridgeName + ".session.frames.conflated");
+      bridgeSessionSlowDisconnectCounter   = METRICS.counter("bridge." + bridgeName + ".session.slow.disconnect");
       bridgeAuthenticationTriedCounter     = METRICS.counter("bridge." + bridgeName + ".authentication.tried");
       bridgeAuthenticationSucceededCounter = METRICS.counter("bridge." + bridgeName + ".authentication.succeeded");
       bridgeAuthenticationFailedCounter    = METRICS.counter("bridge." + bridgeName + ".authentication.failed");
@@ -162,6 +166,10 @@ public class BridgeMetrics {
 
    public void incSessionDestroyedCounter() { bridgeSessionDestroyedCounter.inc(); }
 
+   public void incSessionFramesConflatedCounter() { bridgeSessionFramesConflatedCounter.inc(); }
+
+   public void incSessionSlowDisconnectCounter() { bridgeSessionSlowDisconnectCounter.inc(); }
+
    public void incAuthenticationTriedCounter() { bridgeAuthenticationTriedCounter.inc(); }
 
    public void incAuthenticationSucceededCounter() { bridgeAuthenticationSucceededCounter.inc(); }
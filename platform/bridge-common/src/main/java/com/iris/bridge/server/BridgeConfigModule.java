@@ -40,6 +40,7 @@ import com.iris.bridge.server.traffic.TrafficHandler;
 
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 
 public class BridgeConfigModule extends AbstractIrisModule {
    private static final Logger logger = LoggerFactory.getLogger(BridgeConfigModule.class);
@@ -61,7 +62,8 @@ public class BridgeConfigModule extends AbstractIrisModule {
       return ImmutableMap.of(
          ChannelOption.TCP_NODELAY, true,
          ChannelOption.AUTO_CLOSE, true,
-         ChannelOption.SO_KEEPALIVE, serverConfig.isSoKeepAlive()
+         ChannelOption.SO_KEEPALIVE, serverConfig.isSoKeepAlive(),
+         ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(serverConfig.getSessionWriteBufferLowWater(), serverConfig.getSessionWriteBufferHighWater())
       );
    }
 
@@ -137,6 +137,25 @@ public class BridgeServerConfig {
    @Inject(optional=true) @Named("web.socket.maxFrameSizeBytes")
    private int maxFrameSize = 65535;
 
+   // the channel stops accepting frames when more than high water bytes are buffered
+   // and starts again once it drops below low water, the defaults match netty's
+   @Inject(optional=true) @Named("session.write.buffer.low.water")
+   private int sessionWriteBufferLowWater = 32 * 1024;
+
+   @Inject(optional=true) @Named("session.write.buffer.high.water")
+   private int sessionWriteBufferHighWater = 64 * 1024;
+
+   // bytes queued for a client that isn't keeping up before it is disconnected
+   @Inject(optional=true) @Named("session.max.pending.bytes")
+   private long sessionMaxPendingBytes = 4L * 1024 * 1024;
+
+   // how long a client may stay behind before it is disconnected, 0 to disable
+   @Inject(optional=true) @Named("session.max.unwritable.ms")
+   private long sessionMaxUnwritableMs = 60000L;
+
+   @Inject(optional=true) @Named("session.conflate.value.changes")
+   private boolean sessionConflateValueChanges = true;
+
    @Inject(optional=true) @Named("web.socket.read.idle.close")
    private boolean closeOnReadIdle = false;
    
@@ -400,6 +419,46 @@ public class BridgeServerConfig {
       this.useSsl = useSsl;
    }
 
+   public int getSessionWriteBufferLowWater() {
+      return sessionWriteBufferLowWater;
+   }
+
+   public void setSessionWriteBufferLowWater(int sessionWriteBufferLowWater) {
+      this.sessionWriteBufferLowWater = sessionWriteBufferLowWater;
+   }
+
+   public int getSessionWriteBufferHighWater() {
+      return sessionWriteBufferHighWater;
+   }
+
+   public void setSessionWriteBufferHighWater(int sessionWriteBufferHighWater) {
+      this.sessionWriteBufferHighWater = sessionWriteBufferHighWater;
+   }
+
+   public long getSessionMaxPendingBytes() {
+      return sessionMaxPendingBytes;
+   }
+
+   public void setSessionMaxPendingBytes(long sessionMaxPendingBytes) {
+      this.sessionMaxPendingBytes = sessionMaxPendingBytes;
+   }
+
+   public long getSessionMaxUnwritableMs() {
+      return sessionMaxUnwritableMs;
+   }
+
+   public void setSessionMaxUnwritableMs(long sessionMaxUnwritableMs) {
+      this.sessionMaxUnwritableMs = sessionMaxUnwritableMs;
+   }
+
+   public boolean isSessionConflateValueChanges() {
+      return sessionConflateValueChanges;
+   }
+
+   public void setSessionConflateValueChanges(boolean sessionConflateValueChanges) {
+      this.sessionConflateValueChanges = sessionConflateValueChanges;
+   }
+
    public int getMaxFrameSize() {
       return maxFrameSize;
    }
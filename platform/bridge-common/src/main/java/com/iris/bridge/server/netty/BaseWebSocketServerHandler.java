@@ -383,6 +383,10 @@ public class BaseWebSocketServerHandler extends SimpleChannelInboundHandler<Obje
       if(!StringUtils.isEmpty(clientVersion)) {
          socketSession.setClientVersion(clientVersion);
       }
+      
+      if(BridgeHeaders.isBinaryHubFraming(request)) {
+         socketSession.getChannel().attr(BridgeHeaders.ATTR_BINARY_HUB_FRAMING).set(Boolean.TRUE);
+      }
    }
    private class WebSocketUpgradeResponder implements Responder {
       
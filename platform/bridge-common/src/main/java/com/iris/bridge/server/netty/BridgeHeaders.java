@@ -19,10 +19,12 @@ import org.apache.commons.lang3.StringUtils;
 
 import com.iris.bridge.server.http.impl.HttpRequestParameters;
 import com.iris.bridge.server.session.Session;
+import com.iris.io.binary.BinaryHubMessageSerializer;
 
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.util.AttributeKey;
 
 public class BridgeHeaders {
 	public static final String HEADER_CLIENT_VERSION = "X-Client-Version";
@@ -30,6 +32,13 @@ public class BridgeHeaders {
 	
 	public static final String CONTENT_TYPE_JSON_UTF8 = HttpHeaders.Values.APPLICATION_JSON + "; charset=utf-8";
 
+	/**
+	 * Set on the channel when the peer asked for binary hub message framing
+	 * in its websocket upgrade request.
+	 */
+	public static final AttributeKey<Boolean> ATTR_BINARY_HUB_FRAMING =
+	      AttributeKey.<Boolean>valueOf(BridgeHeaders.class.getName() + ".binaryHubFraming");
+
 	/**
 	 * Gets the type of client (app).
 	 * @param request
@@ -67,6 +76,17 @@ public class BridgeHeaders {
 		return clientVersion;
 	}
 	
+	/**
+	 * Determines if the hub supports the binary {@link com.iris.messages.HubMessage}
+	 * framing.
+	 * @param request
+	 * @return
+	 */
+	public static boolean isBinaryHubFraming(HttpRequest request) {
+		String framing = request.headers().get(BinaryHubMessageSerializer.HEADER_FRAMING);
+		return BinaryHubMessageSerializer.FRAMING_BINARY.equalsIgnoreCase(framing);
+	}
+	
 	public static String getContentType(FullHttpRequest req) {
 		String contentType = req.headers().get(HttpHeaders.Names.CONTENT_TYPE);
 		if(contentType == null) {
@@ -21,19 +21,22 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.iris.bridge.metrics.BridgeMetrics;
 import com.iris.bridge.server.client.Client;
+import com.iris.bridge.server.config.BridgeServerConfig;
 
 @Singleton
 public class DefaultSessionFactoryImpl implements SessionFactory {
    private final SessionRegistry parent;
+   private final BridgeServerConfig config;
 
    @Inject
-   public DefaultSessionFactoryImpl(SessionRegistry parent) {
+   public DefaultSessionFactoryImpl(SessionRegistry parent, BridgeServerConfig config) {
       this.parent = parent;
+      this.config = config;
    }
 
    @Override
    public Session createSession(Client client, Channel channel, BridgeMetrics bridgeMetrics) {
-      return new DefaultSessionImpl(parent, channel, bridgeMetrics);
+      return new DefaultSessionImpl(parent, channel, bridgeMetrics, config);
    }
 
 }
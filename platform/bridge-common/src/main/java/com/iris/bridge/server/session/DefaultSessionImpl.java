@@ -21,16 +21,20 @@ import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 
 import java.util.Date;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.eclipse.jdt.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.iris.bridge.metrics.BridgeMetrics;
 import com.iris.bridge.server.client.ClientFactory;
+import com.iris.bridge.server.config.BridgeServerConfig;
 import com.iris.io.json.JSON;
 import com.iris.messages.ClientMessage;
 import com.iris.messages.address.Address;
@@ -43,6 +47,7 @@ public class DefaultSessionImpl implements Session {
    
    private final SessionRegistry parent;
    private final BridgeMetrics bridgeMetrics;
+   private final @Nullable SessionWriter writer;
 
    private volatile ClientToken clientToken = null;
    private final Date sessionStartTime;
@@ -53,9 +58,28 @@ public class DefaultSessionImpl implements Session {
    private AtomicBoolean disconnectFlag = new AtomicBoolean(false);
 
    public DefaultSessionImpl(SessionRegistry parent, Channel channel, BridgeMetrics bridgeMetrics) {
+      this(parent, channel, bridgeMetrics, null);
+   }
+
+   /**
+    * When {@code config} is specified writes are queued per session, flushed once per
+    * event loop tick and slow clients are disconnected, see {@link SessionWriter}.
+    * Otherwise every frame is written and flushed directly to the channel.
+    */
+   public DefaultSessionImpl(SessionRegistry parent, Channel channel, BridgeMetrics bridgeMetrics, @Nullable BridgeServerConfig config) {
       this.parent = parent;
       this.bridgeMetrics = bridgeMetrics;
       this.channel = channel;
+      this.writer =
+            config == null ?
+               null :
+               SessionWriter.install(
+                     channel,
+                     config.getSessionMaxPendingBytes(),
+                     config.getSessionMaxUnwritableMs(),
+                     config.isSessionConflateValueChanges(),
+                     bridgeMetrics
+               );
 
       this.sessionStartTime = new Date();
    }
@@ -89,7 +113,13 @@ public class DefaultSessionImpl implements Session {
 
    @Override
    public void setActivePlace(String placeId) {
-      this.activePlace = placeId;
+      synchronized(this) {
+         String oldPlaceId = this.activePlace;
+         this.activePlace = placeId;
+         if(!Objects.equals(oldPlaceId, placeId)) {
+            parent.onActivePlaceChanged(this, oldPlaceId, placeId);
+         }
+      }
    }
 
    @Override
@@ -104,6 +134,9 @@ public class DefaultSessionImpl implements Session {
 
    void destroy0() {
       this.channel = null;
+      if(writer != null) {
+         writer.close();
+      }
    }
    
    @Override
@@ -141,14 +174,40 @@ public class DefaultSessionImpl implements Session {
 
    @Override
    public void sendMessage(ByteBuf msg) {
-      bridgeMetrics.incFramesSentCounter();
-      getChannel().writeAndFlush(new BinaryWebSocketFrame(msg));
+      send(new BinaryWebSocketFrame(msg), null);
    }
 
    @Override
    public void sendMessage(String msg) {
+      send(new TextWebSocketFrame(msg), null);
+   }
+
+   @Override
+   public void sendTextMessage(ByteBuf msg) {
+      send(new TextWebSocketFrame(msg), null);
+   }
+
+   @Override
+   public void sendTextMessage(ByteBuf msg, @Nullable ValueChangeKey valueChange) {
+      send(new TextWebSocketFrame(msg), valueChange);
+   }
+
+   private void send(WebSocketFrame frame, @Nullable ValueChangeKey valueChange) {
+      Channel channel;
+      try {
+         channel = getChannel();
+      }
+      catch(IllegalStateException e) {
+         frame.release();
+         throw e;
+      }
       bridgeMetrics.incFramesSentCounter();
-      getChannel().writeAndFlush(new TextWebSocketFrame(msg));
+      if(writer != null) {
+         writer.write(frame, valueChange);
+      }
+      else {
+         channel.writeAndFlush(frame);
+      }
    }
 
    @Override
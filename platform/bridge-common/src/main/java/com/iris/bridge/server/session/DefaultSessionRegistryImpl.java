@@ -41,6 +41,11 @@ public class DefaultSessionRegistryImpl implements SessionRegistry  {
    // unmodifiable view of the values in the sessionMap
    // also concurrent because sessionMap is concurrent
    private Iterable<Session> sessions = Collections.unmodifiableCollection(sessionMap.values());         
+   // secondary index so broadcasts only visit the sessions they may be delivered to
+   // sessions are looked up by principal with a scan, the principal may be established
+   // by the client at any point after registration and the lookup is only used for
+   // rare events such as a password change
+   private final Index<String> placeIndex = new Index<>();
 
    @Inject
    public DefaultSessionRegistryImpl(ClientFactory clientFactory, Set<SessionListener> listeners) {
@@ -63,19 +68,44 @@ public class DefaultSessionRegistryImpl implements SessionRegistry  {
       return sessionMap.get(ct);
    }
 
+   @Override
+   public Iterable<Session> getSessionsByPlace(String placeId) {
+      return placeIndex.get(placeId);
+   }
+
    @Override
    public void putSession(Session session) {
       ClientToken ct = session.getClientToken();
       SessionMetrics.incrementSessions();
-      sessionMap.put(ct, session);
+      Session replaced = sessionMap.put(ct, session);
+      if(replaced != null && replaced != session) {
+         unindex(replaced);
+      }
+      placeIndex.add(session.getActivePlace(), session);
       logger.debug("Session registered [{}]", ct);
    }
 
+   @Override
+   public void onActivePlaceChanged(Session session, String oldPlaceId, String newPlaceId) {
+      placeIndex.remove(oldPlaceId, session);
+      if(!isRegistered(session)) {
+         return;
+      }
+      placeIndex.add(newPlaceId, session);
+      if(!isRegistered(session)) {
+         // lost a race with destroySession
+         unindex(session);
+      }
+   }
+
    @Override
    public void destroySession(Session session) {
       logger.debug("Bridge session.destroySession is called [{}]");
       ClientToken ct = session.getClientToken();
       Session s = sessionMap.remove(ct);
+      if(s != null) {
+         unindex(s);
+      }
       if(s != null && s instanceof DefaultSessionImpl) {
     	 Client curClient = session.getClient();
          logger.debug("Session destroyed [{}], session id [{}]", ct, curClient!=null?curClient.getSessionId():"");
@@ -93,6 +123,50 @@ public class DefaultSessionRegistryImpl implements SessionRegistry  {
    private void fireListeners(Session session) {
       listeners.forEach((l) -> l.onSessionDestroyed(session));
    }
+
+   private boolean isRegistered(Session session) {
+      ClientToken ct = session.getClientToken();
+      return ct != null && sessionMap.get(ct) == session;
+   }
+
+   private void unindex(Session session) {
+      placeIndex.remove(session.getActivePlace(), session);
+   }
+
+   private static class Index<K> {
+      private final Map<K, Set<Session>> index = new ConcurrentHashMap<>();
+
+      Iterable<Session> get(K key) {
+         if(key == null) {
+            return Collections.emptySet();
+         }
+         Set<Session> sessions = index.get(key);
+         return sessions != null ? Collections.unmodifiableSet(sessions) : Collections.emptySet();
+      }
+
+      void add(K key, Session session) {
+         if(key == null) {
+            return;
+         }
+         index.compute(key, (k, sessions) -> {
+            if(sessions == null) {
+               sessions = ConcurrentHashMap.newKeySet();
+            }
+            sessions.add(session);
+            return sessions;
+         });
+      }
+
+      void remove(K key, Session session) {
+         if(key == null) {
+            return;
+         }
+         index.computeIfPresent(key, (k, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+         });
+      }
+   }
    
    
    private static class SessionMetrics {
@@ -19,8 +19,11 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 import io.netty.util.AttributeKey;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 
+import org.eclipse.jdt.annotation.Nullable;
+
 import com.iris.bridge.metrics.BridgeMetrics;
 import com.iris.bridge.server.client.Client;
 import com.iris.bridge.server.client.ClientFactory;
@@ -76,6 +79,30 @@ public interface Session {
 
 	public void sendMessage(String msg);
 
+	/**
+	 * Sends a UTF-8 encoded text frame.  This takes ownership of
+	 * {@code msg} and will release it, so callers sharing a buffer across
+	 * sessions should pass a retained duplicate.
+	 */
+	public default void sendTextMessage(ByteBuf msg) {
+	   try {
+	      sendMessage(msg.toString(StandardCharsets.UTF_8));
+	   }
+	   finally {
+	      msg.release();
+	   }
+	}
+
+	/**
+	 * Sends a UTF-8 encoded text frame containing a {@code base:ValueChange}, if the
+	 * client is falling behind this may be dropped in favor of a later value change
+	 * that reports the same attributes.  Takes ownership of {@code msg} like
+	 * {@link #sendTextMessage(ByteBuf)}.
+	 */
+	public default void sendTextMessage(ByteBuf msg, @Nullable ValueChangeKey valueChange) {
+	   sendTextMessage(msg);
+	}
+
 	public void setActivePlace(String placeId);
 
 	public String getActivePlace();
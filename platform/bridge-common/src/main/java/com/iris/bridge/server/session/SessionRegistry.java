@@ -15,8 +15,13 @@
  */
 package com.iris.bridge.server.session;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Objects;
+import java.util.UUID;
 
+import com.google.common.collect.Iterables;
+import com.iris.bridge.server.client.Client;
 import com.iris.bridge.server.client.ClientFactory;
 
 public interface SessionRegistry {
@@ -26,6 +31,47 @@ public interface SessionRegistry {
    Iterable<Session> getSessions();
    
    Session getSession(ClientToken ct);
+
+   /**
+    * Sessions whose active place is {@code placeId}.  Implementations may
+    * return a weakly consistent view, callers should re-check
+    * {@link Session#getActivePlace()} if they require an exact match.
+    */
+   default Iterable<Session> getSessionsByPlace(String placeId) {
+      if(placeId == null) {
+         return Collections.emptyList();
+      }
+      return Iterables.filter(getSessions(), (s) -> placeId.equals(s.getActivePlace()));
+   }
+
+   /**
+    * Sessions whose client is logged in as {@code principalId}.  Implementations may
+    * return a weakly consistent view, callers should re-check
+    * {@link Client#getPrincipalId()} if they require an exact match.
+    */
+   default Iterable<Session> getSessionsByPrincipal(UUID principalId) {
+      if(principalId == null) {
+         return Collections.emptyList();
+      }
+      return Iterables.filter(getSessions(), (s) -> {
+         try {
+            Client client = s.getClient();
+            return client != null && Objects.equals(principalId, client.getPrincipalId());
+         }
+         catch(Exception e) {
+            // disconnected or not yet authenticated
+            return false;
+         }
+      });
+   }
+
+   /**
+    * Invoked by sessions when their active place changes so that
+    * registries which index by place can stay up to date.
+    */
+   default void onActivePlaceChanged(Session session, String oldPlaceId, String newPlaceId) {
+      // no-op
+   }
    
    void putSession(Session session);
    
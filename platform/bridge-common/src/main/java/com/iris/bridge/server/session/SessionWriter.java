@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.bridge.server.session;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.iris.bridge.metrics.BridgeMetrics;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Outbound queue for a single session.
+ * 
+ * Frames are queued and written by a task on the channel's event loop, so all the
+ * frames sent during one tick share a single flush.  Frames are only handed to the
+ * channel while it is writable, which is controlled by the channel's write buffer
+ * water marks, while the client is behind frames wait here instead and a queued
+ * {@code base:ValueChange} is dropped when a newer one for the same address and
+ * attributes arrives.  A client that is still behind after {@code maxPendingBytes}
+ * have been queued, or that has not been writable for {@code maxUnwritableMs}, is
+ * disconnected.
+ */
+class SessionWriter extends ChannelInboundHandlerAdapter {
+   private static final Logger logger = LoggerFactory.getLogger(SessionWriter.class);
+   static final String NAME = "session-writer";
+
+   /**
+    * Creates a writer and adds it to the channel's pipeline so it is notified
+    * when the channel becomes writable again.
+    */
+   static SessionWriter install(Channel channel, long maxPendingBytes, long maxUnwritableMs, boolean conflate, @Nullable BridgeMetrics metrics) {
+      SessionWriter writer = new SessionWriter(channel, maxPendingBytes, maxUnwritableMs, conflate, metrics);
+      channel.pipeline().addFirst(NAME, writer);
+      return writer;
+   }
+
+   private final Channel channel;
+   private final long maxPendingBytes;
+   private final long maxUnwritableNs;
+   private final boolean conflate;
+   private final @Nullable BridgeMetrics metrics;
+   private final Runnable drain = this::drain;
+
+   // guarded by this
+   private final ArrayDeque<PendingFrame> pending = new ArrayDeque<>();
+   private long pendingBytes = 0;
+   private boolean drainScheduled = false;
+   private long unwritableSinceNs = 0;
+   private boolean closed = false;
+
+   SessionWriter(Channel channel, long maxPendingBytes, long maxUnwritableMs, boolean conflate, @Nullable BridgeMetrics metrics) {
+      this.channel = channel;
+      this.maxPendingBytes = maxPendingBytes;
+      this.maxUnwritableNs = maxUnwritableMs > 0 ? TimeUnit.MILLISECONDS.toNanos(maxUnwritableMs) : Long.MAX_VALUE;
+      this.conflate = conflate;
+      this.metrics = metrics;
+   }
+
+   /**
+    * Queues the frame to be written on the next event loop tick, this takes ownership
+    * of the frame and will release it if it is dropped.
+    * @param frame
+    *    The frame to write
+    * @param valueChange
+    *    Non-null if the frame is a value change which may be superseded by a later one
+    */
+   void write(WebSocketFrame frame, @Nullable ValueChangeKey valueChange) {
+      boolean schedule;
+      boolean overLimit;
+      synchronized(this) {
+         if(closed) {
+            frame.release();
+            return;
+         }
+         if(conflate && valueChange != null && !pending.isEmpty()) {
+            conflate(valueChange);
+         }
+         PendingFrame p = new PendingFrame(frame, valueChange);
+         pending.add(p);
+         pendingBytes += p.bytes;
+         overLimit =
+               pendingBytes > maxPendingBytes ||
+               (unwritableSinceNs != 0 && System.nanoTime() - unwritableSinceNs > maxUnwritableNs);
+         schedule = !drainScheduled && !overLimit;
+         if(schedule) {
+            drainScheduled = true;
+         }
+      }
+      if(overLimit) {
+         disconnect();
+      }
+      else if(schedule) {
+         channel.eventLoop().execute(drain);
+      }
+   }
+
+   synchronized int getPendingFrames() {
+      return pending.size();
+   }
+
+   synchronized long getPendingBytes() {
+      return pendingBytes;
+   }
+
+   /**
+    * Releases any queued frames, frames written after this are dropped.
+    */
+   void close() {
+      synchronized(this) {
+         closed = true;
+         releasePending();
+      }
+   }
+
+   @Override
+   public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+      if(ctx.channel().isWritable()) {
+         boolean schedule;
+         synchronized(this) {
+            schedule = !drainScheduled && !pending.isEmpty();
+            if(schedule) {
+               drainScheduled = true;
+            }
+         }
+         if(schedule) {
+            drain();
+         }
+      }
+      super.channelWritabilityChanged(ctx);
+   }
+
+   @Override
+   public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      close();
+      super.channelInactive(ctx);
+   }
+
+   // always invoked from the event loop
+   private void drain() {
+      boolean written = false;
+      while(true) {
+         PendingFrame next;
+         synchronized(this) {
+            if(!channel.isActive()) {
+               drainScheduled = false;
+               closed = true;
+               releasePending();
+               break;
+            }
+            if(!channel.isWritable()) {
+               // wait for channelWritabilityChanged
+               drainScheduled = false;
+               if(unwritableSinceNs == 0) {
+                  unwritableSinceNs = System.nanoTime();
+               }
+               break;
+            }
+            next = pending.poll();
+            if(next == null) {
+               drainScheduled = false;
+               unwritableSinceNs = 0;
+               break;
+            }
+            pendingBytes -= next.bytes;
+         }
+         channel.write(next.frame);
+         written = true;
+      }
+      if(written) {
+         channel.flush();
+      }
+   }
+
+   // drops queued value changes which are superseded by the new one
+   private void conflate(ValueChangeKey valueChange) {
+      Iterator<PendingFrame> it = pending.iterator();
+      while(it.hasNext()) {
+         PendingFrame p = it.next();
+         if(p.valueChange != null && valueChange.supersedes(p.valueChange)) {
+            it.remove();
+            pendingBytes -= p.bytes;
+            p.frame.release();
+            if(metrics != null) {
+               metrics.incSessionFramesConflatedCounter();
+            }
+         }
+      }
+   }
+
+   private void disconnect() {
+      logger.warn("Disconnecting slow client [{}], [{}] frames / [{}] bytes queued", channel.remoteAddress(), getPendingFrames(), getPendingBytes());
+      if(metrics != null) {
+         metrics.incSessionSlowDisconnectCounter();
+      }
+      close();
+      channel.close();
+   }
+
+   private void releasePending() {
+      PendingFrame p;
+      while((p = pending.poll()) != null) {
+         p.frame.release();
+      }
+      pendingBytes = 0;
+   }
+
+   private static final class PendingFrame {
+      private final WebSocketFrame frame;
+      private final @Nullable ValueChangeKey valueChange;
+      private final int bytes;
+
+      PendingFrame(WebSocketFrame frame, @Nullable ValueChangeKey valueChange) {
+         this.frame = frame;
+         this.valueChange = valueChange;
+         this.bytes = frame.content().readableBytes();
+      }
+   }
+
+}
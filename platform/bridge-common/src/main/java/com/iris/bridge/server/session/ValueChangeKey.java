@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.bridge.server.session;
+
+import java.util.Set;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Identifies the attributes reported by a {@code base:ValueChange} event so that
+ * a queued event may be dropped when a newer one reports (at least) the same
+ * attributes for the same address.
+ */
+public final class ValueChangeKey {
+   private final String address;
+   private final Set<String> attributes;
+
+   public ValueChangeKey(String address, Set<String> attributes) {
+      this.address = address;
+      this.attributes = ImmutableSet.copyOf(attributes);
+   }
+
+   public String getAddress() {
+      return address;
+   }
+
+   public Set<String> getAttributes() {
+      return attributes;
+   }
+
+   /**
+    * True if this event makes {@code older} redundant, that is it is from the
+    * same address and contains every attribute {@code older} does.
+    */
+   public boolean supersedes(ValueChangeKey older) {
+      return address.equals(older.address) && attributes.containsAll(older.attributes);
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * address.hashCode() + attributes.hashCode();
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if(this == obj) {
+         return true;
+      }
+      if(obj == null || getClass() != obj.getClass()) {
+         return false;
+      }
+      ValueChangeKey other = (ValueChangeKey) obj;
+      return address.equals(other.address) && attributes.equals(other.attributes);
+   }
+
+   @Override
+   public String toString() {
+      return "ValueChangeKey [address=" + address + ", attributes=" + attributes + "]";
+   }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.netty.bus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.codahale.metrics.Meter;
+import com.iris.io.json.JSON;
+import com.iris.messages.PlatformMessage;
+import com.iris.metrics.IrisMetricSet;
+import com.iris.metrics.IrisMetrics;
+import com.iris.netty.server.message.IrisNettyMessageUtil;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Encodes the client frames for a single broadcast.  Sessions that share
+ * a place usually get the same result back from the authorizer, so the
+ * JSON is generated once per distinct filtered message and the resulting
+ * buffer is shared across every channel it is written to.
+ *
+ * Not thread safe, an instance should only live for one fan-out.
+ */
+class ClientFrameCache implements AutoCloseable {
+   private static final IrisMetricSet METRICS = IrisMetrics.metrics("bridge.fanout");
+   private static final Meter FRAMES = METRICS.meter("frames");
+   private static final Meter ENCODED = METRICS.meter("encoded");
+   private static final Meter REUSED = METRICS.meter("reused");
+
+   static {
+      METRICS.ratio5("reuse.ratio", REUSED, FRAMES);
+   }
+
+   // bounds the equals() checks when the filters produce many variants of the same message
+   static final int MAX_VARIANTS = 8;
+
+   private final IrisNettyMessageUtil messageUtil;
+   private final List<PlatformMessage> messages = new ArrayList<>(2);
+   private final List<ByteBuf> frames = new ArrayList<>(2);
+   private final List<ByteBuf> untracked = new ArrayList<>(0);
+
+   ClientFrameCache(IrisNettyMessageUtil messageUtil) {
+      this.messageUtil = messageUtil;
+   }
+
+   /**
+    * Returns the UTF-8 encoded client frame for {@code filtered}.  The buffer
+    * is owned by this cache, callers must retain (or {@code retainedDuplicate()})
+    * it before handing it to a channel.
+    */
+   ByteBuf encode(PlatformMessage filtered) {
+      FRAMES.mark();
+      int size = messages.size();
+      for(int i = 0; i < size; i++) {
+         if(messages.get(i) == filtered) {
+            REUSED.mark();
+            return frames.get(i);
+         }
+      }
+      for(int i = 0; i < size; i++) {
+         if(isSameClientMessage(messages.get(i), filtered)) {
+            REUSED.mark();
+            return frames.get(i);
+         }
+      }
+
+      ENCODED.mark();
+      ByteBuf frame = Unpooled.copiedBuffer(JSON.toJson(messageUtil.convertPlatformToClient(filtered)), StandardCharsets.UTF_8);
+      if(size < MAX_VARIANTS) {
+         messages.add(filtered);
+         frames.add(frame);
+      }
+      else {
+         // too many variants to be worth matching against, just hold on to it so it can be freed
+         untracked.add(frame);
+      }
+      return frame;
+   }
+
+   @Override
+   public void close() {
+      frames.forEach(ByteBuf::release);
+      untracked.forEach(ByteBuf::release);
+      frames.clear();
+      untracked.clear();
+      messages.clear();
+   }
+
+   // compares the fields used by IrisNettyMessageUtil#convertPlatformToClient
+   private static boolean isSameClientMessage(PlatformMessage cached, PlatformMessage filtered) {
+      return
+            cached.isRequest() == filtered.isRequest() &&
+            Objects.equals(cached.getSource(), filtered.getSource()) &&
+            Objects.equals(cached.getCorrelationId(), filtered.getCorrelationId()) &&
+            Objects.equals(cached.getValue(), filtered.getValue());
+   }
+}
@@ -33,6 +33,7 @@ import com.iris.bridge.server.session.ClientToken;
 import com.iris.bridge.server.session.Session;
 import com.iris.bridge.server.session.SessionRegistry;
 import com.iris.bridge.server.session.SessionUtil;
+import com.iris.bridge.server.session.ValueChangeKey;
 import com.iris.io.json.JSON;
 import com.iris.messages.ClientMessage;
 import com.iris.messages.Message;
@@ -49,6 +50,7 @@ import com.iris.messages.service.SessionService.PreferencesChangedEvent;
 import com.iris.messages.service.VideoService;
 import com.iris.messages.services.PlatformConstants;
 import com.iris.netty.server.message.IrisNettyMessageUtil;
+import com.iris.security.SessionCache;
 import com.iris.security.authz.Authorizer;
 import com.iris.util.MdcContext.MdcContextReference;
 
@@ -65,12 +67,14 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
    private final Authorizer authorizer;
    private final IrisNettyMessageUtil messageUtil;
    private final SessionRegistry sessionRegistry;
+   private final SessionCache sessionCache;
 
    @Inject
-   public IrisNettyPlatformBusListener(Authorizer authorizer, IrisNettyMessageUtil messageUtil, SessionRegistry sessionRegistry) {
+   public IrisNettyPlatformBusListener(Authorizer authorizer, IrisNettyMessageUtil messageUtil, SessionRegistry sessionRegistry, SessionCache sessionCache) {
       this.authorizer = authorizer;
       this.messageUtil = messageUtil;
       this.sessionRegistry = sessionRegistry;
+      this.sessionCache = sessionCache;
    }
 
    @Override
@@ -79,6 +83,8 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
          String sessionId = SessionService.SessionExpiredEvent.getSessionId(msg.getValue());
          Errors.assertRequiredParam(sessionId, SessionService.SessionExpiredEvent.ATTR_SESSIONID);
          logger.debug("Received session expired event from [{}] for [{}]", msg.getSource(), sessionId);
+         // the session may have been stopped on another server, don't keep serving it from the cache
+         sessionCache.invalidate(sessionId);
 
          for(Session session: sessionRegistry.getSessions()) {
             Client client = session.getClient();
@@ -108,7 +114,7 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
             .create();
          String clientMsgJson = JSON.toJson(clientMsg);
 
-         for (Session session : sessionRegistry.getSessions())
+         for (Session session : sessionRegistry.getSessionsByPlace(eventPlaceId))
          {
             Client client = session.getClient();
             if (client == null) continue;
@@ -155,14 +161,22 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
             }
          }
 
-         for (Session session : sessions) {
-            boolean attemptSend = session.getActivePlace() != null && Objects.equals(session.getActivePlace(), msg.getPlaceId());
-            String clientMsg = attemptSend ? filter(session,msg) : null;
-
-            if (clientMsg != null) {
-               try(MdcContextReference ref = BridgeMdcUtil.captureAndInitializeContext(session)) {
-                  if (clientMsg != null) {
-                     session.sendMessage(clientMsg);
+         String placeId = msg.getPlaceId();
+         boolean valueChange = Capability.EVENT_VALUE_CHANGE.equals(msg.getMessageType());
+         // sessions at the same place generally see the same filtered message, so encode it once and share the frame
+         try (ClientFrameCache frames = new ClientFrameCache(messageUtil)) {
+            for (Session session : sessionRegistry.getSessionsByPlace(placeId)) {
+               // the index is weakly consistent, so re-check in case the active place just changed
+               boolean attemptSend = session.getActivePlace() != null && Objects.equals(session.getActivePlace(), placeId);
+               PlatformMessage filtered = attemptSend ? filterMessage(session,msg) : null;
+
+               if (filtered != null) {
+                  try(MdcContextReference ref = BridgeMdcUtil.captureAndInitializeContext(session)) {
+                     session.sendTextMessage(frames.encode(filtered).retainedDuplicate(), valueChange ? valueChangeKey(filtered) : null);
+                  }
+                  catch(Exception e) {
+                     // don't let one session's message abort the broadcast to the rest of the place
+                     logger.debug("Unable to dispatch message [{}] to session [{}]", msg, session.getClientToken(), e);
                   }
                }
             }
@@ -184,6 +198,14 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
       }
    }
 
+   // the filtered message may only contain some of the attributes, so the key is per session
+   private static ValueChangeKey valueChangeKey(PlatformMessage filtered) {
+      if(filtered.getSource() == null) {
+         return null;
+      }
+      return new ValueChangeKey(filtered.getSource().getRepresentation(), filtered.getValue().getAttributes().keySet());
+   }
+
    private void bootSessionsFor(Address personAddr, String excludeSession) {
       if(personAddr.getId() == null || !(personAddr.getId() instanceof UUID)) {
          return;
@@ -191,9 +213,10 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
 
       UUID personId = (UUID) personAddr.getId();
 
-      Iterable<Session> sessions = sessionRegistry.getSessions();
+      Iterable<Session> sessions = sessionRegistry.getSessionsByPrincipal(personId);
       sessions.forEach(s -> {
          if(
+            s.getClient() != null &&
             !Objects.equals(s.getClient().getSessionId(), excludeSession) &&
             Objects.equals(s.getClient().getPrincipalId(), personId)
          ) {
@@ -266,6 +289,20 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
    }
 
    private String filter(Session session, PlatformMessage msg) {
+      PlatformMessage filtered = filterMessage(session, msg);
+      if(filtered == null) {
+         return null;
+      }
+      try {
+         return JSON.toJson(messageUtil.convertPlatformToClient(filtered));
+      }
+      catch(Exception e) {
+         logger.debug("Unable to dispatch message [{}] to session [{}]", msg, session.getClientToken(), e);
+         return null;
+      }
+   }
+
+   private PlatformMessage filterMessage(Session session, PlatformMessage msg) {
       try {
          PlatformMessage filtered = authorizer.filter(session.getAuthorizationContext(), session.getActivePlace(), msg);
          if(filtered != null) {
@@ -293,7 +330,7 @@ public class IrisNettyPlatformBusListener implements PlatformBusListener {
                }
             }
 
-            return JSON.toJson(messageUtil.convertPlatformToClient(filtered));
+            return filtered;
          } else {
             logger.debug("Dropped message [{}]:  msg place {} != session place {}", msg, msg.getPlaceId(), session.getActivePlace());
          }
@@ -26,6 +26,7 @@ import com.iris.bridge.server.http.impl.auth.SessionAuth;
 import com.iris.netty.security.IrisNettyAuthorizationContextLoader;
 import com.iris.netty.security.IrisNettyNoopAuthorizationContextLoader;
 import com.iris.security.SecurityModule;
+import com.iris.security.SessionCache;
 import com.iris.security.SessionConfig;
 import com.iris.security.credentials.CredentialsHashingStrategy;
 import com.iris.security.credentials.PlainCredentialsHashingStrategy;
@@ -67,6 +68,12 @@ public class MockDaoSecurityModule extends SecurityModule {
       expose(SessionDAO.class);
    }
 
+   @Override
+   protected void bindSessionCache(AnnotatedBindingBuilder<SessionCache> bind) {
+      bind.toInstance(EasyMock.createNiceMock(SessionCache.class));
+      expose(SessionCache.class);
+   }
+
    // THIS IS ONLY SAFE FOR A TEST-CASE
    @Override
    protected void bindCredentialsHashingStrategy(
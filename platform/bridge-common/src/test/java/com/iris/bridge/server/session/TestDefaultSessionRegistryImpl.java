@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.bridge.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.iris.bridge.server.client.Client;
+import com.iris.bridge.server.client.ClientFactory;
+import com.iris.netty.server.session.IrisNettyClientClientToken;
+import com.iris.netty.server.session.IrisNettyClientIds;
+
+import io.netty.channel.Channel;
+
+public class TestDefaultSessionRegistryImpl {
+   private ClientFactory clientFactory;
+   private DefaultSessionRegistryImpl registry;
+
+   @Before
+   public void setUp() {
+      clientFactory = EasyMock.createNiceMock(ClientFactory.class);
+      registry = new DefaultSessionRegistryImpl(clientFactory, ImmutableSet.of());
+   }
+
+   private Session createSession(UUID principalId) {
+      return createSessionWithPrincipal(new AtomicReference<>(principalId));
+   }
+
+   private Session createSessionWithPrincipal(AtomicReference<UUID> principalId) {
+      Channel channel = EasyMock.createNiceMock(Channel.class);
+      Client client = EasyMock.createNiceMock(Client.class);
+      EasyMock.expect(client.getPrincipalId()).andAnswer(principalId::get).anyTimes();
+      EasyMock.expect(clientFactory.get(channel)).andReturn(client).anyTimes();
+      EasyMock.replay(channel, client);
+
+      DefaultSessionImpl session = new DefaultSessionImpl(registry, channel, null);
+      session.setClientToken(new IrisNettyClientClientToken(IrisNettyClientIds.createId()));
+      return session;
+   }
+
+   @Test
+   public void testIndexByPlace() {
+      UUID person = UUID.randomUUID();
+      String place1 = UUID.randomUUID().toString();
+      String place2 = UUID.randomUUID().toString();
+      Session s1 = createSession(person);
+      Session s2 = createSession(person);
+      EasyMock.replay(clientFactory);
+
+      registry.putSession(s1);
+      registry.putSession(s2);
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPlace(place1)));
+
+      SessionUtil.setPlace(place1, s1);
+      SessionUtil.setPlace(place1, s2);
+      assertEquals(ImmutableSet.of(s1, s2), ImmutableSet.copyOf(registry.getSessionsByPlace(place1)));
+
+      SessionUtil.setPlace(place2, s2);
+      assertEquals(ImmutableSet.of(s1), ImmutableSet.copyOf(registry.getSessionsByPlace(place1)));
+      assertEquals(ImmutableSet.of(s2), ImmutableSet.copyOf(registry.getSessionsByPlace(place2)));
+
+      SessionUtil.clearPlace(s1);
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPlace(place1)));
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPlace(null)));
+   }
+
+   @Test
+   public void testIndexByPrincipal() {
+      UUID person1 = UUID.randomUUID();
+      UUID person2 = UUID.randomUUID();
+      Session s1 = createSession(person1);
+      Session s2 = createSession(person2);
+      Session s3 = createSession(person1);
+      EasyMock.replay(clientFactory);
+
+      registry.putSession(s1);
+      registry.putSession(s2);
+      registry.putSession(s3);
+
+      assertEquals(ImmutableSet.of(s1, s3), ImmutableSet.copyOf(registry.getSessionsByPrincipal(person1)));
+      assertEquals(ImmutableSet.of(s2), ImmutableSet.copyOf(registry.getSessionsByPrincipal(person2)));
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPrincipal(UUID.randomUUID())));
+   }
+
+   @Test
+   public void testPrincipalSetAfterRegistration() {
+      UUID person1 = UUID.randomUUID();
+      UUID person2 = UUID.randomUUID();
+      AtomicReference<UUID> principal = new AtomicReference<>();
+      Session session = createSessionWithPrincipal(principal);
+      EasyMock.replay(clientFactory);
+
+      registry.putSession(session);
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPrincipal(person1)));
+
+      principal.set(person1);
+      assertEquals(ImmutableSet.of(session), ImmutableSet.copyOf(registry.getSessionsByPrincipal(person1)));
+
+      principal.set(person2);
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPrincipal(person1)));
+      assertEquals(ImmutableSet.of(session), ImmutableSet.copyOf(registry.getSessionsByPrincipal(person2)));
+   }
+
+   @Test
+   public void testDestroyRemovesFromIndex() {
+      UUID person = UUID.randomUUID();
+      String place = UUID.randomUUID().toString();
+      Session s1 = createSession(person);
+      Session s2 = createSession(person);
+      EasyMock.replay(clientFactory);
+
+      registry.putSession(s1);
+      registry.putSession(s2);
+      SessionUtil.setPlace(place, s1);
+      SessionUtil.setPlace(place, s2);
+
+      s1.destroy();
+      assertEquals(ImmutableSet.of(s2), ImmutableSet.copyOf(registry.getSessionsByPlace(place)));
+      assertEquals(ImmutableSet.of(s2), ImmutableSet.copyOf(registry.getSessionsByPrincipal(person)));
+
+      s2.destroy();
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPlace(place)));
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPrincipal(person)));
+   }
+
+   @Test
+   public void testPlaceSetBeforeRegistration() {
+      String place = UUID.randomUUID().toString();
+      Session session = createSession(null);
+      EasyMock.replay(clientFactory);
+
+      SessionUtil.setPlace(place, session);
+      assertTrue(Iterables.isEmpty(registry.getSessionsByPlace(place)));
+
+      registry.putSession(session);
+      assertEquals(ImmutableSet.of(session), ImmutableSet.copyOf(registry.getSessionsByPlace(place)));
+   }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.bridge.server.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+public class TestSessionWriter {
+   private EmbeddedChannel channel;
+   private int flushes;
+
+   @Before
+   public void setUp() {
+      channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+         @Override
+         public void flush(ChannelHandlerContext ctx) throws Exception {
+            flushes++;
+            super.flush(ctx);
+         }
+      });
+   }
+
+   @Test
+   public void testOneFlushPerTick() {
+      SessionWriter writer = SessionWriter.install(channel, 1024, 0, true, null);
+      writer.write(frame("one"), null);
+      writer.write(frame("two"), null);
+      writer.write(frame("three"), null);
+      assertNull(channel.readOutbound());
+
+      channel.runPendingTasks();
+      assertEquals(1, flushes);
+      assertNextFrame("one");
+      assertNextFrame("two");
+      assertNextFrame("three");
+      assertNull(channel.readOutbound());
+   }
+
+   @Test
+   public void testConflateValueChangesWhileUnwritable() {
+      SessionWriter writer = SessionWriter.install(channel, 1024, 0, true, null);
+      setWritable(false);
+
+      TextWebSocketFrame superseded = frame("dev1 a");
+      writer.write(superseded, new ValueChangeKey("DRIV:dev:1", ImmutableSet.of("a")));
+      writer.write(frame("dev1 a,b"), new ValueChangeKey("DRIV:dev:1", ImmutableSet.of("a", "b")));
+      writer.write(frame("dev1 c"), new ValueChangeKey("DRIV:dev:1", ImmutableSet.of("c")));
+      writer.write(frame("dev2 a"), new ValueChangeKey("DRIV:dev:2", ImmutableSet.of("a")));
+      writer.write(frame("event"), null);
+      channel.runPendingTasks();
+      assertNull(channel.readOutbound());
+      assertEquals(4, writer.getPendingFrames());
+      assertEquals(0, superseded.refCnt());
+
+      // a value change that only has some of the attributes doesn't replace anything
+      writer.write(frame("dev1 b"), new ValueChangeKey("DRIV:dev:1", ImmutableSet.of("b")));
+      assertEquals(5, writer.getPendingFrames());
+
+      setWritable(true);
+      assertNextFrame("dev1 a,b");
+      assertNextFrame("dev1 c");
+      assertNextFrame("dev2 a");
+      assertNextFrame("event");
+      assertNextFrame("dev1 b");
+      assertNull(channel.readOutbound());
+      assertEquals(0, writer.getPendingBytes());
+   }
+
+   @Test
+   public void testNoConflationWhenDisabled() {
+      SessionWriter writer = SessionWriter.install(channel, 1024, 0, false, null);
+      setWritable(false);
+
+      writer.write(frame("dev1 a"), new ValueChangeKey("DRIV:dev:1", ImmutableSet.of("a")));
+      writer.write(frame("dev1 a"), new ValueChangeKey("DRIV:dev:1", ImmutableSet.of("a")));
+      assertEquals(2, writer.getPendingFrames());
+   }
+
+   @Test
+   public void testDisconnectWhenOverLimit() {
+      SessionWriter writer = SessionWriter.install(channel, 16, 0, true, null);
+      setWritable(false);
+
+      TextWebSocketFrame first = frame("0123456789");
+      writer.write(first, null);
+      channel.runPendingTasks();
+      assertTrue(channel.isOpen());
+
+      TextWebSocketFrame second = frame("0123456789");
+      writer.write(second, null);
+      assertFalse(channel.isOpen());
+      assertEquals(0, first.refCnt());
+      assertEquals(0, second.refCnt());
+
+      TextWebSocketFrame dropped = frame("0123456789");
+      writer.write(dropped, null);
+      assertEquals(0, dropped.refCnt());
+      assertEquals(0, writer.getPendingFrames());
+   }
+
+   @Test
+   public void testCloseReleasesPending() {
+      SessionWriter writer = SessionWriter.install(channel, 1024, 0, true, null);
+      setWritable(false);
+
+      TextWebSocketFrame frame = frame("pending");
+      writer.write(frame, null);
+      channel.runPendingTasks();
+      writer.close();
+      assertEquals(0, frame.refCnt());
+      assertEquals(0, writer.getPendingBytes());
+   }
+
+   private void setWritable(boolean writable) {
+      channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+      channel.runPendingTasks();
+   }
+
+   private void assertNextFrame(String expected) {
+      TextWebSocketFrame frame = channel.readOutbound();
+      try {
+         assertEquals(expected, frame.text());
+      }
+      finally {
+         frame.release();
+      }
+   }
+
+   private static TextWebSocketFrame frame(String text) {
+      return new TextWebSocketFrame(Unpooled.copiedBuffer(text, StandardCharsets.UTF_8));
+   }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Arcus Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.iris.netty.bus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.iris.io.json.JSON;
+import com.iris.messages.ClientMessage;
+import com.iris.messages.MessageBody;
+import com.iris.messages.PlatformMessage;
+import com.iris.messages.address.Address;
+import com.iris.messages.capability.Capability;
+import com.iris.netty.server.message.IrisNettyMessageUtil;
+
+import io.netty.buffer.ByteBuf;
+
+public class TestClientFrameCache {
+   private final IrisNettyMessageUtil messageUtil = new IrisNettyMessageUtil();
+   private final Address source = Address.platformDriverAddress(UUID.randomUUID());
+   private final String placeId = UUID.randomUUID().toString();
+
+   private PlatformMessage valueChange(Object value) {
+      return
+            PlatformMessage
+               .broadcast()
+               .from(source)
+               .withPlaceId(placeId)
+               .withPayload(MessageBody.buildMessage(Capability.EVENT_VALUE_CHANGE, ImmutableMap.of("swit:state", value)))
+               .create();
+   }
+
+   @Test
+   public void testEncodesOncePerMessage() {
+      PlatformMessage message = valueChange("ON");
+      try(ClientFrameCache cache = new ClientFrameCache(messageUtil)) {
+         ByteBuf frame = cache.encode(message);
+         assertSame(frame, cache.encode(message));
+         assertEquals(JSON.toJson(messageUtil.convertPlatformToClient(message)), frame.toString(StandardCharsets.UTF_8));
+      }
+   }
+
+   @Test
+   public void testReusesEquivalentFilteredMessage() {
+      try(ClientFrameCache cache = new ClientFrameCache(messageUtil)) {
+         ByteBuf frame = cache.encode(valueChange("ON"));
+         assertSame(frame, cache.encode(valueChange("ON")));
+         assertNotSame(frame, cache.encode(valueChange("OFF")));
+      }
+   }
+
+   @Test
+   public void testSharedFrameIsReleasedOnClose() {
+      ByteBuf frame;
+      ByteBuf sent;
+      try(ClientFrameCache cache = new ClientFrameCache(messageUtil)) {
+         frame = cache.encode(valueChange("ON"));
+         sent = frame.retainedDuplicate();
+      }
+      // the channel still holds a reference until the frame is written
+      assertEquals(1, frame.refCnt());
+      ClientMessage decoded = JSON.fromJson(sent.toString(StandardCharsets.UTF_8), ClientMessage.class);
+      assertEquals(Capability.EVENT_VALUE_CHANGE, decoded.getType());
+      sent.release();
+      assertEquals(0, frame.refCnt());
+   }
+
+   @Test
+   public void testUntrackedVariantsAreReleased() {
+      ByteBuf last;
+      try(ClientFrameCache cache = new ClientFrameCache(messageUtil)) {
+         for(int i = 0; i < ClientFrameCache.MAX_VARIANTS; i++) {
+            cache.encode(valueChange(i));
+         }
+         last = cache.encode(valueChange("extra"));
+      }
+      assertEquals(0, last.refCnt());
+   }
+}
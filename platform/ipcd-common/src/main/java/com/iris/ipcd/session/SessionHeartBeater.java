@@ -15,12 +15,17 @@
  */
 package com.iris.ipcd.session;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
@@ -31,6 +36,8 @@ import javax.annotation.PreDestroy;
 import org.eclipse.jdt.annotation.Nullable;
 
 import com.codahale.metrics.Timer;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
@@ -55,6 +62,14 @@ public class SessionHeartBeater {
    private long heartbeatIntervalMs = TimeUnit.SECONDS.toMillis(1);
    @Inject(optional = true) @Named("ipcd.heartbeat.partitions.per.heartbeat")
    private int partitionsPerHeartbeat = 4;
+   // when enabled only the devices that connected / disconnected since the last heartbeat are sent,
+   // platform-services must be upgraded before this is turned on
+   @Inject(optional = true) @Named("ipcd.heartbeat.delta.enabled")
+   private boolean deltaEnabled = false;
+   // number of delta heartbeats for a partition between full heartbeats, this should be well
+   // under the ipcd offline timeout
+   @Inject(optional = true) @Named("ipcd.heartbeat.full.sync.interval")
+   private int fullSyncInterval = 10;
 
    private final Supplier<Stream<PartitionedSession>> sessionSupplier;
 
@@ -63,6 +78,8 @@ public class SessionHeartBeater {
    private final ScheduledExecutorService executor;
    private final AtomicInteger nextHeartbeatPartition = new AtomicInteger(0);
    private final Timer heartbeatTimer;
+   // only accessed from the heartbeat thread
+   private final Map<Integer, PartitionHeartbeat> lastHeartbeats = new HashMap<>();
 
    @Inject
    public SessionHeartBeater(
@@ -104,11 +121,72 @@ public class SessionHeartBeater {
             );
          }
 
-         sessionSupplier.get().forEach(session -> accumulate(session.getPartition(), session.getClientToken().getRepresentation(), connectedDevices));
-         flush(connectedDevices);
+         if(deltaEnabled) {
+            sessionSupplier.get().forEach(session -> collect(session.getPartition(), session.getClientToken().getRepresentation(), connectedDevices));
+            for(Map.Entry<PlatformPartition, Set<String>> partitionAndDevices: connectedDevices.entrySet()) {
+               sendDelta(partitionAndDevices.getKey(), partitionAndDevices.getValue());
+            }
+         }
+         else {
+            sessionSupplier.get().forEach(session -> accumulate(session.getPartition(), session.getClientToken().getRepresentation(), connectedDevices));
+            flush(connectedDevices);
+         }
       }
    }
 
+   private void collect(@Nullable PlatformPartition partition, String protocolAddress, Map<PlatformPartition, Set<String>> connectedDevices) {
+      if(partition == null) {
+         return;
+      }
+
+      Set<String> ipcdDeviceIds = connectedDevices.get(partition);
+      if(ipcdDeviceIds != null) {
+         ipcdDeviceIds.add(protocolAddress);
+      }
+   }
+
+   private void sendDelta(PlatformPartition partition, Set<String> devices) {
+      PartitionHeartbeat last = lastHeartbeats.get(partition.getId());
+      if(last == null || last.sinceFullSync >= fullSyncInterval) {
+         // start from a random sequence so a restart isn't mistaken for a batch of the previous heartbeat
+         int sequence = last == null ? ThreadLocalRandom.current().nextInt() : last.sequence + 1;
+         // always send at least one batch so the platform knows the sync happened
+         List<List<String>> batches = devices.isEmpty() ? Collections.singletonList(Collections.<String>emptyList()) : partition(devices);
+         for(List<String> batch: batches) {
+            send(partition, IpcdService.DeviceHeartBeatEvent.builder()
+               .withPartitionId(partition.getId())
+               .withSequence(sequence)
+               .withFull(true)
+               .withConnectedDevices(new HashSet<>(batch))
+               .build());
+         }
+         lastHeartbeats.put(partition.getId(), new PartitionHeartbeat(sequence, 0, devices));
+      }
+      else {
+         int sequence = last.sequence + 1;
+         List<List<String>> added = partition(Sets.difference(devices, last.devices));
+         List<List<String>> removed = partition(Sets.difference(last.devices, devices));
+         int batches = Math.max(1, Math.max(added.size(), removed.size()));
+         for(int i = 0; i < batches; i++) {
+            send(partition, IpcdService.DeviceHeartBeatEvent.builder()
+               .withPartitionId(partition.getId())
+               .withSequence(sequence)
+               .withFull(false)
+               .withConnectedDevices(Collections.emptySet())
+               .withAddedDevices(i < added.size() ? new HashSet<>(added.get(i)) : Collections.<String>emptySet())
+               .withRemovedDevices(i < removed.size() ? new HashSet<>(removed.get(i)) : Collections.<String>emptySet())
+               .build());
+         }
+         lastHeartbeats.put(partition.getId(), new PartitionHeartbeat(sequence, last.sinceFullSync + 1, devices));
+      }
+   }
+
+   private List<List<String>> partition(Set<String> devices) {
+      List<List<String>> batches = new ArrayList<>();
+      Iterables.partition(devices, batchSize).forEach(batches::add);
+      return batches;
+   }
+
    private void accumulate(@Nullable PlatformPartition partition, String protocolAddress, Map<PlatformPartition, Set<String>> connectedDevices) {
       if(partition == null) {
          return;
@@ -142,6 +220,10 @@ public class SessionHeartBeater {
          .withConnectedDevices(devices)
          .build();
 
+      send(partition, payload);
+   }
+
+   private void send(PlatformPartition partition, MessageBody payload) {
       PlatformMessage message = PlatformMessage.buildMessage(
          payload,
          Address.clientAddress("ipcd-bridge", String.valueOf(partitioner.getMemberId())),
@@ -152,5 +234,16 @@ public class SessionHeartBeater {
 
       intraServiceBus.send(partition, message);
    }
-}
 
+   private static class PartitionHeartbeat {
+      private final int sequence;
+      private final int sinceFullSync;
+      private final Set<String> devices;
+
+      PartitionHeartbeat(int sequence, int sinceFullSync, Set<String> devices) {
+         this.sequence = sequence;
+         this.sinceFullSync = sinceFullSync;
+         this.devices = devices;
+      }
+   }
+}